@@ -1,23 +1,69 @@
 import heuristics.*;
+import loadMap.HeightGrid;
 import loadMap.MapData;
 import loadMap.MapLoader;
+import loadMap.MapRenderer;
+import metrics.MetricsRegistry;
+import output.JsonLinesSink;
+import output.ResultSink;
+import runner.BatchRunner;
 import states.*;
 import algorithms.*;
 
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Main {
     private static final int OBSTACLE_VALUE = -999; // Valor que representa un obstáculo en el mapa
+    private static final String DEMO_MAP = "data/mapa2.txt"; // Mapa de la demostración, relativo a las clases
 
-    /* Colores para la impresión del mapa y rutas */
-    public static final String ANSI_BLUE = "\u001B[34m";
-    public static final String ANSI_RESET = "\u001B[0m";
-    public static final String ANSI_GREEN = "\u001B[32m"; // Color verde para la posición inicial
-    public static final String ANSI_PINK = "\u001B[35m"; // Color rosa para la posición final
-    public static final String ANSI_RED = "\u001B[31m"; // Color rojo para los obstáculos
-
+    /**
+     * Punto de entrada. Con opciones o mapas resuelve un lote de consultas con
+     * {@link BatchRunner}; sin argumentos, o con {@code --demo [mapa]}, ejecuta
+     * la demostración de todos los algoritmos sobre un mapa.
+     */
     public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].equals("--demo")) {
+            String map = args.length > 1 ? args[1] : demoMap();
+            if (map == null) {
+                System.err.println("Error: no se encuentra " + DEMO_MAP + " junto a las clases; indica el mapa con "
+                        + "--demo <mapa> o resuelve un lote:");
+                System.err.println(BatchRunner.usage());
+                System.exit(2);
+            }
+            demo(map);
+        } else {
+            BatchRunner.main(args);
+        }
+    }
+
+    /**
+     * Busca el mapa de la demostración junto a las clases compiladas (o en el
+     * directorio padre, si se compilan en un subdirectorio como {@code out}),
+     * no en el directorio de trabajo, que depende de desde dónde se lance.
+     *
+     * @return La ruta del mapa, o null si no se encuentra.
+     */
+    private static String demoMap() throws URISyntaxException {
+        Path classes = Path.of(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path map = classes.resolve(DEMO_MAP);
+        if (!Files.isRegularFile(map) && classes.getParent() != null) {
+            map = classes.getParent().resolve(DEMO_MAP);
+        }
+        return Files.isRegularFile(map) ? map.toString() : null;
+    }
 
+    /**
+     * Resuelve el mapa con todos los algoritmos y heurísticas y muestra los
+     * resultados.
+     *
+     * @param filePath Ruta del archivo del mapa.
+     */
+    private static void demo(String filePath) throws Exception {
         // Cargar el mapa desde un archivo de texto
-        String filePath = "C:\\Users\\Florian\\Desktop\\GEI_4t\\2n_Quad\\1_IA\\Labs\\P1_IA\\src\\data\\mapa2.txt";
         MapData mapData = MapLoader.loadMapState(filePath);
 
         // Obtener la matriz del mapa y las posiciones inicial y final
@@ -44,6 +90,9 @@ public class Main {
         System.out.println("\nEjecutando Best-First con HeuristicManhattanCliffPenalty");
         bestFirst.bestFirst(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
 
+        System.out.println("\nEjecutando Best-First en modo haz (anchura 4) con HeuristicManhattanCliffPenalty");
+        bestFirst.beamSearch(map, startState, endState, new HeuristicManhattanCliffPenalty(endState), 4, true);
+
         // Instanciar el algoritmo A*
         Astar aStar = new Astar();
 
@@ -55,6 +104,105 @@ public class Main {
 
         System.out.println("\nEjecutando A* con HeuristicManhattanCliffPenalty");
         aStar.astar(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
+
+        System.out.println("\nEjecutando A* con HeuristicManhattanCliffPenalty y un límite de 10 nodos");
+        aStar.astar(map, startState, endState, new HeuristicManhattanCliffPenalty(endState),
+                SearchLimits.NONE.withMaxExpansions(10));
+
+        // Instanciar la búsqueda de grueso a fino sobre la pirámide de alturas
+        MultiResolution multiResolution = new MultiResolution();
+
+        System.out.println("\nEjecutando Multi-resolución con HeuristicManhattanMinHeight");
+        multiResolution.multiResolution(map, startState, endState, new HeuristicManhattanMinHeight(endState));
+
+        // Instanciar los algoritmos con memoria acotada
+        IDAstar idaStar = new IDAstar();
+
+        System.out.println("\nEjecutando IDA* con HeuristicManhattanCliffPenalty");
+        idaStar.idaStar(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
+
+        SMAstar smaStar = new SMAstar();
+
+        System.out.println("\nEjecutando SMA* con HeuristicManhattanCliffPenalty");
+        smaStar.smaStar(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
+
+        // Instanciar Fringe Search
+        FringeSearch fringeSearch = new FringeSearch();
+
+        System.out.println("\nEjecutando Fringe Search con HeuristicManhattanCliffPenalty");
+        fringeSearch.fringeSearch(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
+
+        // Instanciar A* paralelo (HDA*) con un hilo por procesador; sus hilos se liberan al terminar
+        try (ParallelAstar parallelAstar = new ParallelAstar()) {
+            System.out.println("\nEjecutando HDA* con HeuristicManhattanCliffPenalty");
+            parallelAstar.parallelAstar(map, startState, endState, new HeuristicManhattanCliffPenalty(endState));
+        }
+
+        // Lanzar todas las combinaciones a la vez y quedarse con la primera respuesta óptima (luego se cierra)
+        try (Portfolio portfolio = Portfolio.standard()) {
+            System.out.println("\nEjecutando la cartera de algoritmos (plazo de 1 s)");
+            portfolio.portfolio(map, startState, endState, 1000);
+        }
+
+        // Resolver en lote consultas desde la posición inicial hacia cada esquina del mapa
+        HeightGrid grid = HeightGrid.of(map);
+        List<BatchSearch.Query> queries = new ArrayList<>();
+        List<State> corners = new ArrayList<>();
+        int last = map.length - 1;
+        for (Position corner : new Position[] { new Position(0, last), new Position(last, 0),
+                new Position(last, last) }) {
+            if (!grid.isBlocked(grid.index(corner)) && !corner.equals(startPosition)) {
+                queries.add(new BatchSearch.Query(grid.index(startPosition), grid.index(corner)));
+                corners.add(map[corner.getRow()][corner.getColumn()]);
+            }
+        }
+        BatchSearch batch = new BatchSearch(HeuristicManhattanCliffPenalty::new);
+        BatchSearch.Report report = batch.solve(grid, queries);
+
+        System.out.println("\nLote de " + queries.size() + " consultas desde la posición inicial a las esquinas");
+        for (BatchSearch.QueryResult result : report.getResults()) {
+            SearchResult r = result.getResult();
+            System.out.println(grid.state(result.getQuery().getGoal()).getPosition() + ": "
+                    + (r.isFound() ? "coste " + r.getCost() : "sin camino") + " (" + r.getAlgorithm() + ")");
+        }
+        System.out.printf("%.1f consultas/s, p50 %.2f ms, p99 %.2f ms%n", report.getThroughput(),
+                report.getLatencyPercentile(50), report.getLatencyPercentile(99));
+
+        // Repetir el lote escribiendo los resultados en JSON Lines en lugar de texto
+        System.out.println("\nResultados del lote en JSON Lines");
+        try (ResultSink sink = new JsonLinesSink(System.out)) {
+            batch.setSink(sink);
+            batch.solve(grid, queries);
+            batch.setSink(null);
+        }
+        batch.close();
+
+        // Una sola búsqueda de uno a muchos hacia las mismas esquinas
+        MultiTarget multiTarget = new MultiTarget();
+
+        System.out.println("\nEjecutando Dijkstra de uno a muchos hacia las esquinas");
+        multiTarget.multiTarget(map, startState, corners.toArray(new State[0]), 0);
+
+        // Planificar a la vez varios agentes que cruzan el mapa entre esquinas opuestas sin chocar
+        CooperativePlanner planner = new CooperativePlanner();
+        List<State> agentStarts = new ArrayList<>();
+        List<State> agentGoals = new ArrayList<>();
+        int[][] crossings = { { 0, 0, last, last }, { last, last, 0, 0 }, { 0, last, last, 0 } };
+        for (int[] crossing : crossings) {
+            State from = map[crossing[0]][crossing[1]];
+            State to = map[crossing[2]][crossing[3]];
+            if (from.getHeight() != OBSTACLE_VALUE && to.getHeight() != OBSTACLE_VALUE) {
+                agentStarts.add(from);
+                agentGoals.add(to);
+            }
+        }
+
+        System.out.println("\nEjecutando la planificación cooperativa de " + agentStarts.size() + " agentes");
+        planner.plan(map, agentStarts.toArray(new State[0]), agentGoals.toArray(new State[0]));
+
+        // Percentiles de latencia y de nodos expandidos de todas las búsquedas anteriores
+        System.out.println();
+        MetricsRegistry.global().report(System.out);
     }
 
     /**
@@ -67,32 +215,7 @@ public class Main {
      */
     public static void displayMap(State[][] map, Position start, Position end) {
         System.out.println("\nMAPA BASE");
-        for (int row = 0; row < map.length; row++) {
-            System.out.print("|");
-
-            for (int col = 0; col < map[row].length; col++) {
-                int heightValue = map[row][col].getHeight();
-                String cellData;
-
-                // Marcar los obstáculos en rojo
-                if (heightValue == OBSTACLE_VALUE) {
-                    cellData = ANSI_RED + "X" + ANSI_RESET;
-                    // Marcar la posición inicial en verde
-                } else if (map[row][col].getPosition().equals(start)) {
-                    cellData = ANSI_GREEN + "S" + ANSI_RESET;
-                    // Marcar la posición final en rosa
-                } else if (map[row][col].getPosition().equals(end)) {
-                    cellData = ANSI_PINK + "E" + ANSI_RESET;
-                } else {
-                    cellData = String.valueOf(heightValue); // Imprimir el valor de altura normal
-                }
-
-                if (col > 0) {
-                    System.out.print(" ");
-                }
-                System.out.print(cellData);
-            }
-            System.out.println("|");
-        }
+        HeightGrid grid = HeightGrid.of(map);
+        new MapRenderer(grid).printMap(grid.index(start), grid.index(end));
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,12 @@
 package algorithms;
 
 import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import loadMap.MapRenderer;
 import states.*;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Clase abstracta que define la estructura base para los algoritmos de
@@ -11,12 +14,8 @@ import java.util.*;
  * verificación de estados, y visualización de resultados.
  */
 public abstract class Algorithm {
-    /* Colores ANSI para la impresión en consola */
-    public static final String ANSI_BLUE = "\u001B[34m"; // Azul para el camino
-    public static final String ANSI_RESET = "\u001B[0m"; // Restablecer color
-    public static final String ANSI_GREEN = "\u001B[32m"; // Verde para la posición inicial
-    public static final String ANSI_PINK = "\u001B[35m"; // Rosa para la posición final
-    public static final String ANSI_RED = "\u001B[31m"; // Rojo para los obstáculos ('X')
+    private boolean quiet; // Si es true, no se imprimen los resultados (útil para medir tiempos)
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>(); // Reciben las estadísticas
 
     /**
      * Constructor vacío de la clase Algorithm.
@@ -24,6 +23,71 @@ public abstract class Algorithm {
     public Algorithm() {
     }
 
+    /**
+     * Activa o desactiva la impresión de resultados por consola.
+     *
+     * @param quiet true para no imprimir los resultados.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * @return true si la impresión de resultados está desactivada.
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /**
+     * Registra un receptor de las estadísticas de cada búsqueda.
+     *
+     * @param listener Receptor que se añade.
+     */
+    public void addSearchListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Elimina un receptor de estadísticas.
+     *
+     * @param listener Receptor que se elimina.
+     */
+    public void removeSearchListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Cierra las estadísticas de una búsqueda, las guarda en el resultado y las
+     * envía a los receptores registrados. También emite el evento de la
+     * búsqueda y la anota en el registro de métricas.
+     *
+     * @param result   Resultado de la búsqueda.
+     * @param counters Contadores de la búsqueda.
+     * @return El mismo resultado, para poder devolverlo directamente.
+     */
+    SearchResult finish(SearchResult result, SearchCounters counters) {
+        SearchStats stats = counters.finish(result.getAlgorithm(), result.getExpanded());
+        counters.commit(result.getAlgorithm(), result.getExpanded(), result.getCost(), result.isFound(),
+                result.getTermination());
+        if (stats != null) {
+            result.setStats(stats);
+            publish(stats);
+        }
+        return result;
+    }
+
+    /**
+     * Envía unas estadísticas a los receptores registrados.
+     *
+     * @param stats Estadísticas de la búsqueda.
+     */
+    void publish(SearchStats stats) {
+        for (SearchListener listener : listeners) {
+            listener.searchFinished(stats);
+        }
+    }
+
     /**
      * Verifica si un estado está contenido en un conjunto de estados.
      *
@@ -104,7 +168,26 @@ public abstract class Algorithm {
      */
     public void printResults(String algoritmo, State st, ArrayList<State> treated, Heuristic h, State[][] map,
             boolean found) {
-        System.out.println("Número de nodos tratados: " + treated.size());
+        printResults(algoritmo, st, treated.size(), h, map, found);
+    }
+
+    /**
+     * Imprime los resultados de la ejecución del algoritmo a partir del número
+     * de nodos expandidos.
+     *
+     * @param algoritmo Nombre del algoritmo utilizado.
+     * @param st        Estado final alcanzado.
+     * @param expanded  Número de nodos expandidos.
+     * @param h         Heurística utilizada.
+     * @param map       Matriz del mapa.
+     * @param found     Indica si se encontró una solución.
+     */
+    public void printResults(String algoritmo, State st, long expanded, Heuristic h, State[][] map,
+            boolean found) {
+        if (quiet) {
+            return;
+        }
+        System.out.println("Número de nodos tratados: " + expanded);
         System.out.println("Coste: " + st.getTime());
         if (found) {
             mostrarCamino(st.getPath(), map, st.getPosition());
@@ -113,9 +196,50 @@ public abstract class Algorithm {
         }
     }
 
+    /**
+     * Imprime el resultado de una búsqueda sobre un {@link HeightGrid} con el
+     * mismo formato que {@link #printResults}. Si el algoritmo proporciona una
+     * cota inferior del coste óptimo, también se muestra la diferencia relativa
+     * respecto a ella. Si la búsqueda se detuvo por un límite, se muestra el
+     * motivo y el camino hasta el mejor nodo alcanzado.
+     *
+     * @param result Resultado de la búsqueda.
+     * @param grid   Vista del mapa sobre la que se buscó.
+     * @param map    Matriz del mapa.
+     */
+    public void printSearchResult(SearchResult result, HeightGrid grid, State[][] map) {
+        if (quiet) {
+            return;
+        }
+        System.out.println("Número de nodos tratados: " + result.getExpanded());
+        if (result.getStats() != null) {
+            System.out.println("Estadísticas: " + result.getStats());
+        }
+        if (result.isFound()) {
+            System.out.println("Coste: " + result.getCost());
+            if (!Double.isNaN(result.getLowerBound())) {
+                System.out.printf("Cota inferior: %.2f (diferencia %.1f%%)%n", result.getLowerBound(),
+                        result.getGap() * 100);
+            }
+            int[] path = result.getPath();
+            mostrarCamino(path, grid, path[path.length - 1]);
+        } else if (result.getTermination().isLimit()) {
+            System.out.println("Búsqueda detenida: " + result.getTermination().getDescription());
+            if (result.isPartial()) {
+                System.out.println("Coste del camino parcial: " + result.getCost());
+                int[] path = result.getPath();
+                mostrarCamino(path, grid, path[path.length - 1]);
+            }
+        } else {
+            System.out.println("No se ha podido encontrar el camino");
+        }
+    }
+
     /**
      * Muestra el camino encontrado en la matriz del mapa, resaltando posiciones
-     * clave como la posición inicial, final y los obstáculos.
+     * clave como la posición inicial, final y los obstáculos. En los mapas
+     * grandes solo se muestra la ventana que rodea al camino
+     * ({@link MapRenderer}).
      *
      * @param path Lista de estados que forman el camino encontrado.
      * @param map  Matriz del mapa.
@@ -123,54 +247,30 @@ public abstract class Algorithm {
      */
     public void mostrarCamino(ArrayList<State> path, State[][] map, Position end) {
         if (path != null && !path.isEmpty()) {
-            System.out.println("Camino: ");
-            for (int x = 0; x < map.length; x++) {
-                System.out.print("|");
-                for (int y = 0; y < map[x].length; y++) {
-                    String data;
-                    int value = map[x][y].getHeight();
-                    if (value == -999) {
-                        data = ANSI_RED + "X" + ANSI_RESET;
-                    } else {
-                        data = String.valueOf(value);
-                    }
-
-                    State position = checkPosition(path, map[x][y]);
-
-                    if (map[x][y].getPosition().equals(path.get(0).getPosition())) {
-                        System.out.print(ANSI_GREEN + data + ANSI_RESET);
-                    } else if (map[x][y].getPosition().equals(end)) {
-                        System.out.print(ANSI_PINK + data + ANSI_RESET);
-                    } else if (position != null) {
-                        System.out.print(ANSI_BLUE + data + ANSI_RESET);
-                    } else {
-                        System.out.print(data);
-                    }
-
-                    if (y != map[x].length - 1) {
-                        System.out.print(" ");
-                    }
-                }
-                System.out.println("|");
+            HeightGrid grid = HeightGrid.of(map);
+            int[] cells = new int[path.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = grid.index(path.get(i).getPosition());
             }
+            mostrarCamino(cells, grid, grid.index(end));
         } else {
             System.out.println("No hay camino!");
         }
     }
 
     /**
-     * Verifica si una posición pertenece a la lista del camino.
+     * Muestra un camino dado como índices de casillas de un {@link HeightGrid}.
      *
-     * @param path  Lista de estados en el camino.
-     * @param state Estado a verificar.
-     * @return El estado si está en el camino, null en caso contrario.
+     * @param path Casillas del camino, desde la inicial.
+     * @param grid Vista del mapa.
+     * @param end  Casilla final.
      */
-    public static State checkPosition(ArrayList<State> path, State state) {
-        for (State s : path) {
-            if (s.getPosition().equals(state.getPosition())) {
-                return s;
-            }
+    public void mostrarCamino(int[] path, HeightGrid grid, int end) {
+        if (path.length == 0) {
+            System.out.println("No hay camino!");
+            return;
         }
-        return null;
+        System.out.println("Camino: ");
+        new MapRenderer(grid).printPath(path, end);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package algorithms;
 
 import heuristics.Heuristic;
+import loadMap.HeightGrid;
 import states.*;
 import java.util.*;
 
@@ -8,6 +9,9 @@ import java.util.*;
  * Implementación del algoritmo A* para la búsqueda de caminos en un mapa.
  */
 public class Astar extends Algorithm {
+    /* Tamaño estimado (en bytes) de las estructuras por nodo, para comparar la memoria con otros algoritmos */
+    static final int MAP_ENTRY_BYTES = 64; // Entrada de HashMap con su clave y el Double del coste
+    static final int QUEUE_ENTRY_BYTES = 8; // Referencia en el array de la PriorityQueue
 
     /**
      * Ejecuta el algoritmo A* para encontrar el camino más corto desde un estado
@@ -18,8 +22,33 @@ public class Astar extends Algorithm {
      * @param end       Estado objetivo al que se desea llegar.
      * @param heuristic Heurística utilizada para calcular el costo estimado al
      *                  objetivo.
+     * @return El resultado de la búsqueda, con los nodos expandidos y la memoria
+     *         máxima estimada.
      */
-    public void astar(State[][] map, State ini, State end, Heuristic heuristic) {
+    public SearchResult astar(State[][] map, State ini, State end, Heuristic heuristic) {
+        return astar(map, ini, end, heuristic, SearchLimits.NONE);
+    }
+
+    /**
+     * Ejecuta A* respetando unos límites de tiempo, nodos, memoria y
+     * cancelación. Si se alcanza alguno, el resultado lleva el camino hasta el
+     * nodo extraído más cercano al objetivo según la heurística.
+     *
+     * @param map       Matriz de estados que representa el mapa.
+     * @param ini       Estado inicial desde donde comienza la búsqueda.
+     * @param end       Estado objetivo al que se desea llegar.
+     * @param heuristic Heurística utilizada para calcular el costo estimado al
+     *                  objetivo.
+     * @param limits    Límites de la búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult astar(State[][] map, State ini, State end, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(map.length, map[0].length, heuristic);
+        int cols = map[0].length;
+        // Casillas ya extraídas de la cola, solo para distinguir reaperturas y extracciones repetidas. Se marcan en
+        // la memoria de trabajo del hilo, que se reutiliza entre búsquedas en lugar de crear un conjunto cada vez
+        SearchScratch closed = SearchStats.ENABLED ? SearchScratch.local(map.length * cols) : null;
+
         // Cola de prioridad para manejar los estados pendientes, ordenados por el costo
         // estimado F
         PriorityQueue<State> pending = new PriorityQueue<>(Comparator.comparingDouble(State::getF));
@@ -34,16 +63,54 @@ public class Astar extends Algorithm {
         pending.add(ini); // Agrega el estado inicial a la cola de prioridad
 
         boolean found = false; // Bandera para indicar si se ha encontrado el objetivo
+        long expanded = 0; // Número de nodos extraídos de la cola
+        long peakMemory = 0; // Memoria máxima estimada de bestCosts y pending
+        State best = ini; // Estado extraído más cercano al objetivo, para los resultados parciales
+        double bestH = heuristic.checkStates(ini, end);
+        counters.heuristic();
+        counters.startSearch();
 
         // Bucle principal de búsqueda
         while (!found && !pending.isEmpty()) {
+            long memory = (long) bestCosts.size() * MAP_ENTRY_BYTES + (long) pending.size() * QUEUE_ENTRY_BYTES;
+            peakMemory = Math.max(peakMemory, memory);
+            TerminationReason stop = limits.check(expanded, memory);
+            if (stop != null) {
+                counters.startPath();
+                // Los caminos de los estados se reescriben al generar sucesores, así que el coste se recalcula
+                HeightGrid grid = HeightGrid.of(map);
+                int[] path = pathCells(best, ini, map);
+                double cost = 0;
+                for (int i = 1; i < path.length; i++) {
+                    cost += grid.stepCost(path[i - 1], path[i]);
+                }
+                SearchResult result = SearchResult.stopped("A*", stop, cost, path, expanded);
+                result.setPeakMemory(peakMemory);
+                finish(result, counters);
+                printSearchResult(result, grid, map);
+                return result;
+            }
+            counters.open(pending.size());
             State st = pending.poll(); // Extrae el estado con el menor costo estimado F
+            expanded++;
+            if (SearchStats.ENABLED && !closed.mark(cell(st, cols))) {
+                counters.duplicatePop(); // La cola no actualiza prioridades: el estado ya se había extraído
+            }
+            // F y el mejor coste guardado corresponden a la última actualización del estado
+            double distance = st.getF() - bestCosts.get(st);
+            if (st != ini && distance < bestH) {
+                bestH = distance;
+                best = st;
+            }
 
             // Si se alcanza el estado objetivo, se finaliza la búsqueda
             if (st.getPosition().cmp(end.getPosition())) {
                 found = true;
-                printResults("A*", st, new ArrayList<>(bestCosts.keySet()), heuristic, map, found);
-                break;
+                printResults("A*", st, expanded, heuristic, map, found);
+                counters.startPath();
+                SearchResult result = new SearchResult("A*", true, st.getTime(), pathCells(st, ini, map), expanded);
+                result.setPeakMemory(peakMemory);
+                return finish(result, counters);
             }
 
             // Explora los estados vecinos del estado actual
@@ -52,6 +119,8 @@ public class Astar extends Algorithm {
 
                 // Si el vecino no ha sido visitado o se encuentra un mejor costo, se actualiza
                 if (!bestCosts.containsKey(neighbour) || newCost < bestCosts.get(neighbour)) {
+                    counters.generated(SearchStats.ENABLED && closed.isMarked(cell(neighbour, cols)));
+                    counters.heuristic();
                     neighbour.setPrevious(st); // Establece el estado anterior para reconstruir el camino
                     neighbour.setTime(); // Actualiza el tiempo del estado vecino
                     neighbour.setF(newCost, heuristic, end); // Calcula el nuevo valor F usando la heurística
@@ -62,8 +131,52 @@ public class Astar extends Algorithm {
         }
 
         // Si no se encuentra solución, imprimir los resultados con el estado inicial
-        if (!found) {
-            printResults("A*", ini, new ArrayList<>(bestCosts.keySet()), heuristic, map, found);
+        printResults("A*", ini, expanded, heuristic, map, found);
+        SearchResult result = SearchResult.notFound("A*", expanded);
+        result.setPeakMemory(peakMemory);
+        return finish(result, counters);
+    }
+
+    /**
+     * @return El índice de la casilla de un estado en un mapa de {@code cols}
+     *         columnas.
+     */
+    private static int cell(State state, int cols) {
+        return state.getPosition().getRow() * cols + state.getPosition().getColumn();
+    }
+
+    /**
+     * Convierte el camino de un estado en índices de casilla. Los estados
+     * conservan el camino de búsquedas anteriores sobre el mismo mapa, así que
+     * se descarta lo que haya antes de la última aparición del estado inicial y
+     * se eliminan los ciclos (idas y vueltas) que hayan quedado en el camino.
+     *
+     * @param st  Estado final del camino.
+     * @param ini Estado inicial de la búsqueda.
+     * @param map Matriz del mapa.
+     * @return Las casillas del camino, desde el inicio hasta el estado final.
+     */
+    static int[] pathCells(State st, State ini, State[][] map) {
+        int cols = map[0].length;
+        ArrayList<State> path = st == ini ? new ArrayList<>() : st.getPath();
+        int first = Math.max(0, path.lastIndexOf(ini));
+        int[] cells = new int[path.size() - first + 1];
+        Map<Integer, Integer> seen = new HashMap<>(); // Posición de cada casilla en el camino sin ciclos
+        int length = 0;
+        for (int i = first; i <= path.size(); i++) {
+            State state = i < path.size() ? path.get(i) : st;
+            int cell = state.getPosition().getRow() * cols + state.getPosition().getColumn();
+            Integer previous = seen.get(cell);
+            if (previous != null) {
+                // La casilla ya estaba en el camino: descartar el ciclo
+                for (int j = previous + 1; j < length; j++) {
+                    seen.remove(cells[j]);
+                }
+                length = previous;
+            }
+            seen.put(cell, length);
+            cells[length++] = cell;
         }
+        return Arrays.copyOf(cells, length);
     }
 }
\ No newline at end of file
@@ -0,0 +1,398 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import output.ResultRecord;
+import output.ResultSink;
+import states.State;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolución de muchas consultas (pares inicio/objetivo) sobre un mismo mapa.
+ * Las consultas se reparten entre los hilos de un {@link ForkJoinPool}; cada
+ * hilo reutiliza su propia memoria de trabajo ({@link SearchScratch}) y los
+ * resultados se devuelven como objetos en lugar de imprimirse.
+ *
+ * Las consultas que comparten objetivo se resuelven juntas con un único
+ * Dijkstra inverso desde el objetivo, y las que comparten inicio con un único
+ * Dijkstra desde el inicio, usando {@link MultiTarget}; en ambos casos la
+ * búsqueda se detiene en cuanto se han fijado todas las casillas del grupo.
+ * El resto se resuelve con {@link SpecializedAstar} y la heurística indicada.
+ * Los resultados de los grupos son siempre óptimos; los de A* dependen de la
+ * heurística.
+ *
+ * Con {@link #setSink} cada resultado se envía además a un
+ * {@link ResultSink} en cuanto está listo, desde el hilo que lo ha resuelto.
+ *
+ * Los hilos del lote se liberan con {@link #close()}.
+ */
+public class BatchSearch implements AutoCloseable {
+    private static final MultiTarget DIJKSTRA = new MultiTarget(); // Búsqueda de los grupos de consultas
+
+    private final Function<State, Heuristic> heuristic; // Heurística de las consultas sueltas
+    private final ForkJoinPool pool; // Hilos que resuelven las consultas
+    private boolean grouping = true; // Indica si se agrupan las consultas con inicio u objetivo común
+    private long queryTimeout; // Milisegundos máximos por búsqueda (0 sin límite)
+    private long queryExpansions = Long.MAX_VALUE; // Nodos expandidos como máximo por búsqueda
+    private ResultSink sink; // Destino de los resultados a medida que se resuelven (null si no hay)
+
+    /**
+     * Constructor de la clase BatchSearch con un hilo por procesador.
+     *
+     * @param heuristic Constructor de la heurística a partir del estado objetivo.
+     */
+    public BatchSearch(Function<State, Heuristic> heuristic) {
+        this(heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor de la clase BatchSearch.
+     *
+     * @param heuristic   Constructor de la heurística a partir del estado
+     *                    objetivo.
+     * @param parallelism Número de hilos que resuelven las consultas.
+     */
+    public BatchSearch(Function<State, Heuristic> heuristic, int parallelism) {
+        this.heuristic = heuristic;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Libera los hilos del lote. Las consultas en curso terminan antes de que
+     * los hilos se detengan.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Activa o desactiva la agrupación de consultas con inicio u objetivo común.
+     *
+     * @param grouping true para resolver cada grupo con una sola búsqueda.
+     */
+    public void setGrouping(boolean grouping) {
+        this.grouping = grouping;
+    }
+
+    /**
+     * Limita cada búsqueda del lote. Las consultas que alcanzan un límite se
+     * devuelven con un resultado parcial en lugar de detener el lote. En las
+     * consultas agrupadas el límite se aplica a la búsqueda del grupo.
+     *
+     * @param timeoutMillis Milisegundos máximos por búsqueda (0 sin límite).
+     * @param maxExpansions Nodos expandidos como máximo por búsqueda.
+     */
+    public void setQueryLimits(long timeoutMillis, long maxExpansions) {
+        this.queryTimeout = timeoutMillis;
+        this.queryExpansions = maxExpansions;
+    }
+
+    /**
+     * Fija el destino al que se envía cada resultado en cuanto se resuelve. El
+     * destino se llama desde los hilos del lote, así que conviene que sea un
+     * {@link output.AsyncResultSink} para que la escritura no los detenga. El
+     * identificador de cada resultado es la posición de su consulta en el lote.
+     *
+     * @param sink Destino de los resultados, o null para no enviarlos.
+     */
+    public void setSink(ResultSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Resuelve un flujo de consultas. Para poder agruparlas, el flujo se consume
+     * por completo antes de empezar.
+     *
+     * @param grid    Vista del mapa, compartida por todos los hilos.
+     * @param queries Consultas a resolver.
+     * @return El informe con los resultados en el orden del flujo.
+     */
+    public Report solve(HeightGrid grid, Stream<Query> queries) {
+        return solve(grid, queries.collect(Collectors.toList()));
+    }
+
+    /**
+     * Resuelve una lista de consultas en paralelo.
+     *
+     * @param grid    Vista del mapa, compartida por todos los hilos.
+     * @param queries Consultas a resolver.
+     * @return El informe con los resultados en el mismo orden que las consultas.
+     */
+    public Report solve(HeightGrid grid, List<Query> queries) {
+        long begin = System.nanoTime();
+        QueryResult[] results = new QueryResult[queries.size()];
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<Integer> group : groups(queries)) {
+            tasks.add(() -> {
+                solveGroup(grid, queries, group, results, begin);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lote interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al resolver el lote", e.getCause());
+        }
+        return new Report(Arrays.asList(results), System.nanoTime() - begin, tasks.size());
+    }
+
+    /**
+     * Reparte las consultas en grupos que se resuelven con una sola búsqueda:
+     * primero las que comparten objetivo, después las que comparten inicio y,
+     * por último, una por consulta. Los grupos más grandes van primero para
+     * repartir mejor la carga entre los hilos.
+     *
+     * @param queries Consultas a resolver.
+     * @return Los índices de las consultas de cada grupo.
+     */
+    private List<List<Integer>> groups(List<Query> queries) {
+        List<List<Integer>> groups = new ArrayList<>();
+        if (!grouping) {
+            for (int i = 0; i < queries.size(); i++) {
+                groups.add(List.of(i));
+            }
+            return groups;
+        }
+
+        Map<Integer, List<Integer>> byGoal = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            byGoal.computeIfAbsent(queries.get(i).goal, key -> new ArrayList<>()).add(i);
+        }
+        Map<Integer, List<Integer>> byStart = new LinkedHashMap<>();
+        for (List<Integer> group : byGoal.values()) {
+            if (group.size() > 1) {
+                groups.add(group);
+            } else {
+                byStart.computeIfAbsent(queries.get(group.get(0)).start, key -> new ArrayList<>()).add(group.get(0));
+            }
+        }
+        groups.addAll(byStart.values());
+        groups.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        return groups;
+    }
+
+    /**
+     * Resuelve un grupo de consultas con la memoria de trabajo del hilo actual.
+     */
+    private void solveGroup(HeightGrid grid, List<Query> queries, List<Integer> group, QueryResult[] results,
+            long begin) {
+        SearchScratch scratch = SearchScratch.local(grid.size());
+        SearchLimits limits = SearchLimits.NONE.withMaxExpansions(queryExpansions);
+        if (queryTimeout > 0) {
+            limits = limits.withTimeout(queryTimeout);
+        }
+        Query first = queries.get(group.get(0));
+        long searchBegin = System.nanoTime();
+        if (group.size() == 1) {
+            SearchResult result = new SpecializedAstar().search(grid, first.start, first.goal,
+                    heuristic.apply(grid.state(first.goal)), limits, scratch);
+            long now = System.nanoTime();
+            results[group.get(0)] = new QueryResult(first, result, now - searchBegin, now - begin);
+            emit(grid, group.get(0), first, result);
+            return;
+        }
+
+        // Todas las consultas del grupo comparten el objetivo o el inicio: una sola búsqueda de uno a muchos
+        boolean sharedGoal = queries.get(group.get(1)).goal == first.goal;
+        int[] targets = new int[group.size()];
+        for (int i = 0; i < targets.length; i++) {
+            Query query = queries.get(group.get(i));
+            targets[i] = sharedGoal ? query.start : query.goal;
+        }
+        MultiTarget.Result found = DIJKSTRA.search(grid, sharedGoal ? first.goal : first.start, targets, 0,
+                sharedGoal, limits, scratch);
+
+        // Los caminos se reconstruyen ahora, antes de que el hilo reutilice su memoria de trabajo
+        long now = System.nanoTime();
+        for (int i = 0; i < targets.length; i++) {
+            results[group.get(i)] = new QueryResult(queries.get(group.get(i)), found.getResult(i), now - searchBegin,
+                    now - begin);
+            emit(grid, group.get(i), queries.get(group.get(i)), results[group.get(i)].getResult());
+        }
+    }
+
+    /**
+     * Envía un resultado al destino, si lo hay.
+     */
+    private void emit(HeightGrid grid, int index, Query query, SearchResult result) {
+        if (sink != null) {
+            sink.accept(new ResultRecord(index, null, grid.cols(), query.start, query.goal, result.getAlgorithm(),
+                    result.isFound(), result.getTermination().name(), result.getCost(), result.getExpanded(),
+                    result.getPath()));
+        }
+    }
+
+    /**
+     * Consulta de camino entre dos casillas.
+     */
+    public static final class Query {
+        private final int start; // Índice de la casilla inicial
+        private final int goal; // Índice de la casilla objetivo
+
+        /**
+         * Constructor de la clase Query.
+         *
+         * @param start Índice de la casilla inicial.
+         * @param goal  Índice de la casilla objetivo.
+         */
+        public Query(int start, int goal) {
+            this.start = start;
+            this.goal = goal;
+        }
+
+        /**
+         * @return El índice de la casilla inicial.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return El índice de la casilla objetivo.
+         */
+        public int getGoal() {
+            return goal;
+        }
+    }
+
+    /**
+     * Resultado de una consulta.
+     */
+    public static final class QueryResult {
+        private final Query query; // Consulta resuelta
+        private final SearchResult result; // Resultado de la búsqueda
+        private final long latency; // Nanosegundos de la búsqueda que ha resuelto la consulta
+        private final long completion; // Nanosegundos desde el inicio del lote hasta la respuesta
+
+        QueryResult(Query query, SearchResult result, long latency, long completion) {
+            this.query = query;
+            this.result = result;
+            this.latency = latency;
+            this.completion = completion;
+        }
+
+        /**
+         * @return La consulta resuelta.
+         */
+        public Query getQuery() {
+            return query;
+        }
+
+        /**
+         * @return El resultado de la búsqueda.
+         */
+        public SearchResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return El tiempo en milisegundos de la búsqueda que ha resuelto la
+         *         consulta; en una consulta agrupada, el de la búsqueda del grupo,
+         *         que comparten todas sus consultas.
+         */
+        public double getLatencyMillis() {
+            return latency / 1e6;
+        }
+
+        /**
+         * @return El tiempo en milisegundos desde el inicio del lote hasta que la
+         *         respuesta estuvo disponible, incluida la espera en la cola.
+         */
+        public double getCompletionMillis() {
+            return completion / 1e6;
+        }
+    }
+
+    /**
+     * Informe de un lote: resultados, rendimiento y latencias.
+     */
+    public static final class Report {
+        private final List<QueryResult> results; // Resultados en el orden de las consultas
+        private final long elapsed; // Nanosegundos que ha tardado el lote
+        private final int searches; // Búsquedas realizadas (grupos más consultas sueltas)
+        private final double[] latencies; // Latencias ordenadas en milisegundos
+        private final double[] completions; // Tiempos hasta cada respuesta, ordenados, en milisegundos
+
+        Report(List<QueryResult> results, long elapsed, int searches) {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsed = elapsed;
+            this.searches = searches;
+            this.latencies = results.stream().mapToDouble(QueryResult::getLatencyMillis).sorted().toArray();
+            this.completions = results.stream().mapToDouble(QueryResult::getCompletionMillis).sorted().toArray();
+        }
+
+        /**
+         * @return Los resultados, en el mismo orden que las consultas.
+         */
+        public List<QueryResult> getResults() {
+            return results;
+        }
+
+        /**
+         * @return El número de búsquedas realizadas para resolver el lote.
+         */
+        public int getSearches() {
+            return searches;
+        }
+
+        /**
+         * @return El tiempo total del lote en milisegundos.
+         */
+        public double getElapsedMillis() {
+            return elapsed / 1e6;
+        }
+
+        /**
+         * @return Las consultas resueltas por segundo.
+         */
+        public double getThroughput() {
+            return elapsed == 0 ? 0 : results.size() * 1e9 / elapsed;
+        }
+
+        /**
+         * Obtiene un percentil de la latencia de las consultas (el tiempo de la
+         * búsqueda que resuelve cada una).
+         *
+         * @param percentile Percentil entre 0 y 100.
+         * @return La latencia en milisegundos.
+         */
+        public double getLatencyPercentile(double percentile) {
+            return percentile(latencies, percentile);
+        }
+
+        /**
+         * Obtiene un percentil del tiempo desde el inicio del lote hasta cada
+         * respuesta, que incluye la espera de la consulta hasta tener un hilo.
+         *
+         * @param percentile Percentil entre 0 y 100.
+         * @return El tiempo en milisegundos.
+         */
+        public double getCompletionPercentile(double percentile) {
+            return percentile(completions, percentile);
+        }
+
+        private static double percentile(double[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
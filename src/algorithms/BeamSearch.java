@@ -0,0 +1,305 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.Arrays;
+
+/**
+ * Variante en haz (beam search) de {@link BestFirst}. La búsqueda avanza por
+ * capas: de todos los sucesores de la capa actual solo se conservan los
+ * {@code beamWidth} con menor valor heurístico. Todas las estructuras son
+ * arrays primitivos de tamaño fijo reservados al empezar, de modo que la
+ * memoria solo depende de la anchura del haz y de la profundidad máxima.
+ * Con la profundidad por defecto, 4 * (filas + columnas), la memoria crece con
+ * el lado del mapa (no con su número de casillas): con anchura 64 en un mapa
+ * de 10000 x 10000 pasa de 100 MB. Para una memoria constante hay que indicar
+ * la profundidad máxima en el constructor; los caminos con más capas no se
+ * encuentran.
+ *
+ * Con la vuelta atrás activada (beam-stack search), cuando una capa se queda
+ * sin sucesores se vuelve a la capa anterior y se toma el siguiente grupo de
+ * candidatos en el orden de la heurística, en lugar de abandonar la búsqueda.
+ */
+public class BeamSearch extends Algorithm implements GridSearch {
+    private static final int DEFAULT_DEPTH_FACTOR = 4; // Profundidad máxima por defecto: 4 * (filas + columnas)
+
+    private final int beamWidth; // Número máximo de estados por capa
+    private final int maxDepth; // Número máximo de capas (0 para calcularlo a partir del mapa)
+    private final boolean backtracking; // Indica si se vuelve atrás cuando una capa se queda sin sucesores
+
+    /**
+     * Constructor de la clase BeamSearch con la profundidad máxima por defecto.
+     *
+     * @param beamWidth    Número máximo de estados por capa.
+     * @param backtracking true para volver atrás cuando una capa no tiene
+     *                     sucesores.
+     */
+    public BeamSearch(int beamWidth, boolean backtracking) {
+        this(beamWidth, 0, backtracking);
+    }
+
+    /**
+     * Constructor de la clase BeamSearch.
+     *
+     * @param beamWidth    Número máximo de estados por capa.
+     * @param maxDepth     Número máximo de capas, o 0 para usar 4 * (filas +
+     *                     columnas) del mapa. Con un valor fijo la
+     *                     memoria no depende del tamaño del mapa.
+     * @param backtracking true para volver atrás cuando una capa no tiene
+     *                     sucesores.
+     */
+    public BeamSearch(int beamWidth, int maxDepth, boolean backtracking) {
+        this.beamWidth = Math.max(1, beamWidth);
+        this.maxDepth = Math.max(0, maxDepth);
+        this.backtracking = backtracking;
+    }
+
+    @Override
+    public String getName() {
+        return backtracking ? "Beam-stack" : "Beam";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        State goalState = grid.state(goal);
+        int width = beamWidth;
+        int depthLimit = maxDepth > 0 ? maxDepth : DEFAULT_DEPTH_FACTOR * (grid.rows() + grid.cols());
+
+        // Pila de capas: la capa d ocupa las posiciones [d * width, d * width + layerSize[d])
+        int[] layerCell = new int[(depthLimit + 1) * width];
+        int[] layerParent = new int[(depthLimit + 1) * width]; // Posición del padre en la capa anterior
+        double[] layerCost = new double[(depthLimit + 1) * width];
+        int[] layerSize = new int[depthLimit + 1];
+        int[] layerSkip = new int[depthLimit + 2]; // Candidatos ya usados al generar cada capa
+
+        // Candidatos de la capa siguiente (como mucho 4 por estado de la capa actual)
+        int maxCandidates = 4 * width;
+        int[] candCell = new int[maxCandidates];
+        int[] candParent = new int[maxCandidates];
+        double[] candCost = new double[maxCandidates];
+        double[] candH = new double[maxCandidates];
+        int[] order = new int[maxCandidates];
+        int[] neighbours = new int[4];
+
+        // Casillas presentes en alguna capa de la pila, para no volver sobre ellas
+        CellSet onStack = new CellSet((depthLimit + 1) * width);
+
+        long memory = (long) (depthLimit + 1) * width * 16 + (long) maxCandidates * 28 + onStack.bytes();
+        long expanded = 0;
+
+        // Mejor estado incluido en el haz (menor heurística), para los resultados parciales
+        double bestH = heuristic.checkStates(grid.state(start), goalState);
+        counters.heuristic();
+        double bestCost = 0;
+        int[] bestPath = { start };
+
+        int depth = 0;
+        layerCell[0] = start;
+        layerParent[0] = -1;
+        layerCost[0] = 0;
+        layerSize[0] = 1;
+        layerSkip[1] = 0;
+        onStack.add(start);
+        counters.startSearch();
+
+        while (depth >= 0) {
+            int base = depth * width;
+
+            // Comprobar si el objetivo está en la capa actual
+            for (int i = 0; i < layerSize[depth]; i++) {
+                if (layerCell[base + i] == goal) {
+                    counters.startPath();
+                    int[] path = layerPath(layerCell, layerParent, width, depth, i);
+                    SearchResult result = new SearchResult(getName(), true, layerCost[base + i], path, expanded);
+                    result.setPeakMemory(memory);
+                    return finish(result, counters);
+                }
+            }
+
+            // Generar los candidatos de la capa siguiente
+            int count = 0;
+            if (depth < depthLimit) {
+                for (int i = 0; i < layerSize[depth]; i++) {
+                    TerminationReason stop = limits.check(expanded, memory);
+                    if (stop != null) {
+                        counters.startPath();
+                        SearchResult result = SearchResult.stopped(getName(), stop, bestCost, bestPath, expanded);
+                        result.setPeakMemory(memory);
+                        return finish(result, counters);
+                    }
+                    int cell = layerCell[base + i];
+                    expanded++;
+                    int n = grid.neighbours(cell, neighbours);
+                    for (int k = 0; k < n; k++) {
+                        if (!onStack.contains(neighbours[k])) {
+                            candCell[count] = neighbours[k];
+                            candParent[count] = i;
+                            candCost[count] = layerCost[base + i] + grid.stepCost(cell, neighbours[k]);
+                            candH[count] = heuristic.checkStates(grid.state(neighbours[k]), goalState);
+                            order[count] = count;
+                            count++;
+                            counters.heuristic();
+                            // Al volver atrás se generan de nuevo los candidatos de la capa
+                            counters.generated(layerSkip[depth + 1] > 0);
+                        }
+                    }
+                }
+            }
+            counters.open(count);
+            sort(order, count, candH, candCell, candCost);
+
+            // Tomar los siguientes beamWidth candidatos distintos a partir de los ya usados
+            int skip = layerSkip[depth + 1];
+            int nextBase = (depth + 1) * width;
+            int taken = 0;
+            int distinct = 0;
+            for (int i = 0; i < count && taken < width; i++) {
+                int c = order[i];
+                if (i > 0 && candCell[order[i - 1]] == candCell[c]) {
+                    continue; // Misma casilla por otro padre con igual o mayor coste
+                }
+                if (distinct++ < skip) {
+                    continue;
+                }
+                layerCell[nextBase + taken] = candCell[c];
+                layerParent[nextBase + taken] = candParent[c];
+                layerCost[nextBase + taken] = candCost[c];
+                onStack.add(candCell[c]);
+                if (candH[c] < bestH) {
+                    bestH = candH[c];
+                    bestCost = candCost[c];
+                    bestPath = layerPath(layerCell, layerParent, width, depth + 1, taken);
+                }
+                taken++;
+            }
+
+            if (taken > 0) {
+                layerSkip[depth + 1] = skip + taken;
+                layerSize[depth + 1] = taken;
+                depth++;
+                layerSkip[depth + 1] = 0; // La capa siguiente aún no se ha generado
+                continue;
+            }
+
+            // Capa sin sucesores: sin vuelta atrás la búsqueda termina aquí
+            if (!backtracking) {
+                break;
+            }
+            for (int i = 0; i < layerSize[depth]; i++) {
+                onStack.remove(layerCell[base + i]);
+            }
+            depth--;
+        }
+
+        SearchResult result = SearchResult.notFound(getName(), expanded);
+        result.setPeakMemory(memory);
+        return finish(result, counters);
+    }
+
+    /**
+     * Reconstruye el camino hasta un estado de la pila de capas siguiendo las
+     * posiciones de los padres.
+     */
+    private static int[] layerPath(int[] layerCell, int[] layerParent, int width, int depth, int position) {
+        int[] path = new int[depth + 1];
+        for (int d = depth, pos = position; d >= 0; pos = layerParent[d * width + pos], d--) {
+            path[d] = layerCell[d * width + pos];
+        }
+        return path;
+    }
+
+    /**
+     * Ordena los índices de los candidatos por heurística, casilla y coste (shell
+     * sort sobre arrays primitivos, sin crear objetos).
+     */
+    private static void sort(int[] order, int count, double[] h, int[] cell, double[] cost) {
+        for (int gap = count / 2; gap > 0; gap /= 2) {
+            for (int i = gap; i < count; i++) {
+                int value = order[i];
+                int j = i;
+                while (j >= gap && before(value, order[j - gap], h, cell, cost)) {
+                    order[j] = order[j - gap];
+                    j -= gap;
+                }
+                order[j] = value;
+            }
+        }
+    }
+
+    private static boolean before(int a, int b, double[] h, int[] cell, double[] cost) {
+        if (h[a] != h[b]) {
+            return h[a] < h[b];
+        }
+        if (cell[a] != cell[b]) {
+            return cell[a] < cell[b];
+        }
+        return cost[a] < cost[b];
+    }
+
+    /**
+     * Conjunto de casillas con direccionamiento abierto y capacidad fija.
+     */
+    private static class CellSet {
+        private final int[] slots; // Casillas guardadas (-1 para huecos libres)
+        private final int mask;
+
+        CellSet(int maxElements) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxElements) * 2 - 1) * 2;
+            slots = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(slots, -1);
+        }
+
+        long bytes() {
+            return 4L * slots.length;
+        }
+
+        boolean contains(int cell) {
+            for (int i = hash(cell) & mask; slots[i] != -1; i = (i + 1) & mask) {
+                if (slots[i] == cell) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int cell) {
+            int i = hash(cell) & mask;
+            while (slots[i] != -1) {
+                if (slots[i] == cell) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = cell;
+        }
+
+        void remove(int cell) {
+            int i = hash(cell) & mask;
+            while (slots[i] != cell) {
+                if (slots[i] == -1) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // Borrado con desplazamiento hacia atrás para no dejar huecos en las secuencias de sondeo
+            int hole = i;
+            for (int j = (hole + 1) & mask; slots[j] != -1; j = (j + 1) & mask) {
+                int home = hash(slots[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    slots[hole] = slots[j];
+                    hole = j;
+                }
+            }
+            slots[hole] = -1;
+        }
+
+        private static int hash(int cell) {
+            int h = cell * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
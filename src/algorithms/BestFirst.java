@@ -2,6 +2,7 @@ package algorithms;
 
 import states.*;
 import heuristics.*;
+import loadMap.HeightGrid;
 
 import java.util.*;
 
@@ -18,8 +19,27 @@ public class BestFirst extends Algorithm {
      * @param ini Estado inicial desde donde comienza la búsqueda.
      * @param end Estado objetivo al que se desea llegar.
      * @param h   Heurística utilizada para calcular la prioridad de los estados.
+     * @return El resultado de la búsqueda.
      */
-    public void bestFirst(State[][] map, State ini, State end, Heuristic h) {
+    public SearchResult bestFirst(State[][] map, State ini, State end, Heuristic h) {
+        return bestFirst(map, ini, end, h, SearchLimits.NONE);
+    }
+
+    /**
+     * Ejecuta Best-First respetando unos límites de tiempo, nodos, memoria y
+     * cancelación. Si se alcanza alguno, el resultado lleva el camino hasta el
+     * estado tratado más cercano al objetivo según la heurística.
+     *
+     * @param map    Matriz de estados que representa el mapa.
+     * @param ini    Estado inicial desde donde comienza la búsqueda.
+     * @param end    Estado objetivo al que se desea llegar.
+     * @param h      Heurística utilizada para calcular la prioridad de los
+     *               estados.
+     * @param limits Límites de la búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult bestFirst(State[][] map, State ini, State end, Heuristic h, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(map.length, map[0].length, h);
         // Lista para manejar los estados pendientes
         ArrayList<State> pending = new ArrayList<>();
 
@@ -28,9 +48,32 @@ public class BestFirst extends Algorithm {
 
         pending.add(ini); // Agrega el estado inicial a la lista de pendientes
         boolean found = false;
+        State best = ini; // Estado tratado más cercano al objetivo, para los resultados parciales
+        double bestH = h.checkStates(ini, end);
+        long peakMemory = 0; // Mayor memoria estimada de las listas
+        counters.heuristic();
+        counters.startSearch();
 
         // Bucle principal de búsqueda
         while (!found && !pending.isEmpty()) {
+            long memory = (long) (pending.size() + treated.size()) * Astar.QUEUE_ENTRY_BYTES;
+            peakMemory = Math.max(peakMemory, memory);
+            TerminationReason stop = limits.check(treated.size(), memory);
+            if (stop != null) {
+                counters.startPath();
+                HeightGrid grid = HeightGrid.of(map);
+                int[] path = Astar.pathCells(best, ini, map);
+                double cost = 0;
+                for (int i = 1; i < path.length; i++) {
+                    cost += grid.stepCost(path[i - 1], path[i]);
+                }
+                SearchResult result = SearchResult.stopped("Best First", stop, cost, path, treated.size());
+                result.setPeakMemory(peakMemory);
+                finish(result, counters);
+                printSearchResult(result, grid, map);
+                return result;
+            }
+
             // Extrae el estado con el menor valor heurístico (el primero en la lista
             // ordenada)
             State st = pending.get(0);
@@ -41,24 +84,66 @@ public class BestFirst extends Algorithm {
                 found = true;
                 st.setTime(); // Calcula el tiempo acumulado
                 printResults("Best First", st, treated, h, map, found);
+                counters.startPath();
+                SearchResult result = new SearchResult("Best First", true, st.getTime(), Astar.pathCells(st, ini, map),
+                        treated.size());
+                result.setPeakMemory(peakMemory);
                 st.resetTime(); // Reinicia el tiempo para futuras búsquedas
-                return;
+                return finish(result, counters);
+            }
+            double distance = h.checkStates(st, end);
+            counters.heuristic();
+            if (distance < bestH) {
+                bestH = distance;
+                best = st;
             }
 
             // Explora los estados vecinos del estado actual
             for (State neighbour : succesors(st, map)) {
                 if (!treated.contains(neighbour) && !pending.contains(neighbour)) {
                     pending.add(neighbour); // Agrega el vecino a la lista de pendientes
+                    counters.generated(false);
                 }
             }
+            counters.open(pending.size());
 
             // Ordena la lista de pendientes según la heurística
-            Collections.sort(pending, Comparator.comparingDouble(state -> h.checkStates(state, end)));
+            Collections.sort(pending, Comparator.comparingDouble(state -> {
+                counters.heuristic(); // La ordenación vuelve a evaluar la heurística en cada comparación
+                return h.checkStates(state, end);
+            }));
 
             treated.add(st); // Marca el estado actual como tratado
         }
 
         // Si no se encuentra solución, imprimir los resultados con el estado inicial
         printResults("Best First", ini, treated, h, map, found);
+        SearchResult result = SearchResult.notFound("Best First", treated.size());
+        result.setPeakMemory(peakMemory);
+        return finish(result, counters);
+    }
+
+    /**
+     * Ejecuta Best-First en modo haz: en cada paso solo se conservan los
+     * {@code beamWidth} estados con menor valor heurístico, por lo que la memoria
+     * no crece con el tamaño del mapa. Ver {@link BeamSearch}.
+     *
+     * @param map          Matriz de estados que representa el mapa.
+     * @param ini          Estado inicial desde donde comienza la búsqueda.
+     * @param end          Estado objetivo al que se desea llegar.
+     * @param h            Heurística utilizada para calcular la prioridad de los
+     *                     estados.
+     * @param beamWidth    Número máximo de estados por capa.
+     * @param backtracking true para volver a la capa anterior cuando una capa se
+     *                     queda sin sucesores.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult beamSearch(State[][] map, State ini, State end, Heuristic h, int beamWidth,
+            boolean backtracking) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = new BeamSearch(beamWidth, backtracking).search(grid, grid.index(ini.getPosition()),
+                grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package algorithms;
+
+/**
+ * Señal de cancelación compartida entre quien lanza una búsqueda y la propia
+ * búsqueda. Cancelar es solo marcar el testigo: las búsquedas lo consultan
+ * periódicamente a través de {@link SearchLimits} y terminan por su cuenta.
+ * Un mismo testigo puede cancelar varias búsquedas a la vez.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled; // Indica si se ha pedido la cancelación
+
+    /**
+     * Pide la cancelación de las búsquedas que usan este testigo.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true si se ha pedido la cancelación.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,159 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Montículo binario de mínimos sobre índices de casilla con prioridades de tipo
+ * double. Cada casilla aparece como mucho una vez: si se vuelve a insertar con
+ * una prioridad menor se actualiza su posición en lugar de duplicarla, como
+ * ocurre con la PriorityQueue de {@link Astar}.
+ */
+class CellHeap {
+    private int[] cells; // Casillas ordenadas como montículo
+    private double[] keys; // Prioridad de cada posición del montículo
+    private final int[] position; // Posición de cada casilla en el montículo (-1 si no está)
+    private int size; // Número de elementos en el montículo
+
+    /**
+     * Constructor de la clase CellHeap.
+     *
+     * @param capacity Número total de casillas del mapa.
+     */
+    CellHeap(int capacity) {
+        this.cells = new int[16];
+        this.keys = new double[16];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * @return El número de casillas distintas que admite el montículo.
+     */
+    int capacity() {
+        return position.length;
+    }
+
+    /**
+     * @return true si el montículo no tiene elementos.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return El número de elementos del montículo.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return true si la casilla está en el montículo.
+     */
+    boolean contains(int cell) {
+        return position[cell] >= 0;
+    }
+
+    /**
+     * @return La prioridad mínima del montículo.
+     */
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Inserta una casilla o reduce su prioridad si ya estaba en el montículo.
+     *
+     * @param cell Índice de la casilla.
+     * @param key  Prioridad de la casilla.
+     */
+    void push(int cell, double key) {
+        int index = position[cell];
+        if (index >= 0) {
+            if (key < keys[index]) {
+                keys[index] = key;
+                siftUp(index);
+            }
+            return;
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        cells[size] = cell;
+        keys[size] = key;
+        position[cell] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Extrae la casilla con menor prioridad.
+     *
+     * @return El índice de la casilla extraída.
+     */
+    int pop() {
+        int top = cells[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            cells[0] = cells[size];
+            keys[0] = keys[size];
+            position[cells[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Vacía el montículo para poder reutilizarlo en otra búsqueda.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[cells[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        int cell = cells[index];
+        double key = keys[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        cells[index] = cell;
+        keys[index] = key;
+        position[cell] = index;
+    }
+
+    private void siftDown(int index) {
+        int cell = cells[index];
+        double key = keys[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+        cells[index] = cell;
+        keys[index] = key;
+        position[cell] = index;
+    }
+
+    private void move(int from, int to) {
+        cells[to] = cells[from];
+        keys[to] = keys[from];
+        position[cells[to]] = to;
+    }
+}
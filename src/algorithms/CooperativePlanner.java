@@ -0,0 +1,656 @@
+package algorithms;
+
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Planificación cooperativa de varios agentes sobre el mismo mapa (Windowed
+ * Hierarchical Cooperative A*, WHCA*). Cada agente busca su camino en el
+ * espacio-tiempo con un A* que evita las casillas y los pasos reservados por
+ * los agentes anteriores en la {@link ReservationTable}, y después reserva el
+ * suyo. La búsqueda solo mira {@code window} pasos hacia delante; los agentes
+ * avanzan la mitad de la ventana y vuelven a planificar, rotando el orden de
+ * prioridad en cada ronda para que ninguno quede siempre el último.
+ *
+ * El tiempo se discretiza en pasos de 0,5 unidades de coste, de modo que un
+ * movimiento tarda tantos pasos como indique su coste (un descenso tarda un
+ * paso y una subida de altura d tarda 2 + 2d). La heurística de cada agente
+ * es la distancia real hasta su objetivo ignorando al resto de agentes,
+ * calculada con un Dijkstra inverso. Esos cálculos son independientes entre
+ * sí y se hacen en paralelo; la planificación con reservas es secuencial.
+ */
+public class CooperativePlanner extends Algorithm {
+    private static final int DEFAULT_WINDOW = 16; // Pasos de la ventana por defecto
+    private static final int TICKS_PER_UNIT = 2; // Pasos por unidad de coste
+    private static final int LIMIT_FACTOR = 4; // Duración máxima: 4 veces el camino más largo sin agentes
+
+    private final int window; // Pasos que se planifican en cada ronda
+
+    /**
+     * Constructor de la clase CooperativePlanner con la ventana por defecto.
+     */
+    public CooperativePlanner() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructor de la clase CooperativePlanner.
+     *
+     * @param window Pasos que se planifican en cada ronda (al menos 2).
+     */
+    public CooperativePlanner(int window) {
+        this.window = Math.max(2, window);
+    }
+
+    /**
+     * Planifica los caminos de varios agentes e imprime cuándo llega cada uno.
+     *
+     * @param map    Matriz de estados que representa el mapa.
+     * @param starts Estados iniciales de los agentes.
+     * @param goals  Estados objetivo de los agentes, en el mismo orden.
+     * @return El plan de todos los agentes.
+     */
+    public Plan plan(State[][] map, State[] starts, State[] goals) {
+        HeightGrid grid = HeightGrid.of(map);
+        List<BatchSearch.Query> agents = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            agents.add(new BatchSearch.Query(grid.index(starts[i].getPosition()), grid.index(goals[i].getPosition())));
+        }
+        Plan plan = plan(grid, agents);
+        if (!isQuiet()) {
+            for (int a = 0; a < plan.size(); a++) {
+                System.out.println("Agente " + a + ": " + starts[a].getPosition() + " -> " + goals[a].getPosition()
+                        + (plan.isReached(a) ? ", llega en " + plan.getArrivalTime(a) : ", no llega"));
+            }
+            System.out.printf("Duración total: %.1f, suma de costes: %.1f, %d conflictos sin resolver%n",
+                    plan.getMakespan(), plan.getSumOfCosts(), plan.getConflicts());
+        }
+        return plan;
+    }
+
+    /**
+     * Planifica los caminos de varios agentes sin que choquen entre sí.
+     *
+     * @param grid   Vista del mapa.
+     * @param agents Casilla inicial y objetivo de cada agente. Las casillas
+     *               iniciales deben ser distintas entre sí, y también las
+     *               objetivo.
+     * @return El plan de todos los agentes.
+     */
+    public Plan plan(HeightGrid grid, List<BatchSearch.Query> agents) {
+        return plan(grid, agents, SearchLimits.NONE);
+    }
+
+    /**
+     * Planifica los caminos de varios agentes respetando unos límites. La hora
+     * límite, la cancelación y la memoria de la tabla de reservas se comprueban
+     * entre rondas; si se alcanza alguno, el plan contiene lo ejecutado hasta
+     * ese momento.
+     *
+     * @param grid   Vista del mapa.
+     * @param agents Casilla inicial y objetivo de cada agente.
+     * @param limits Límites de la planificación.
+     * @return El plan de todos los agentes.
+     */
+    public Plan plan(HeightGrid grid, List<BatchSearch.Query> agents, SearchLimits limits) {
+        int n = agents.size();
+        int[] cell = new int[n];
+        int[] goal = new int[n];
+        Set<Integer> starts = new HashSet<>();
+        Set<Integer> goals = new HashSet<>();
+        for (int a = 0; a < n; a++) {
+            cell[a] = agents.get(a).getStart();
+            goal[a] = agents.get(a).getGoal();
+            if (!starts.add(cell[a]) || !goals.add(goal[a])) {
+                throw new IllegalArgumentException("Dos agentes comparten casilla inicial u objetivo");
+            }
+            if (grid.isBlocked(cell[a]) || grid.isBlocked(goal[a])) {
+                throw new IllegalArgumentException("El agente " + a + " empieza o termina en un obstáculo");
+            }
+        }
+
+        // Heurística de cada objetivo: distancias reales calculadas en paralelo
+        long begin = System.nanoTime();
+        Map<Integer, float[]> distances = new ConcurrentHashMap<>();
+        goals.parallelStream().forEach(g -> distances.put(g, distanceField(grid, g)));
+        long heuristicNanos = System.nanoTime() - begin;
+
+        int[] tick = new int[n];
+        boolean[] reachable = new boolean[n];
+        int longest = 0;
+        for (int a = 0; a < n; a++) {
+            float d = distances.get(goal[a])[cell[a]];
+            reachable[a] = d != Float.POSITIVE_INFINITY;
+            if (reachable[a]) {
+                longest = Math.max(longest, Math.round(d * TICKS_PER_UNIT));
+            }
+        }
+        int limit = LIMIT_FACTOR * longest + LIMIT_FACTOR * window;
+
+        ReservationTable table = new ReservationTable(grid);
+        Reservations[] held = new Reservations[n];
+        Trajectory[] trajectories = new Trajectory[n];
+        for (int a = 0; a < n; a++) {
+            held[a] = new Reservations();
+            trajectories[a] = new Trajectory(cell[a]);
+        }
+        SpaceTimeSearch search = new SpaceTimeSearch(grid, table);
+        int commit = window / 2; // Pasos que se ejecutan antes de volver a planificar
+        int conflicts = 0;
+        int rounds = 0;
+        TerminationReason termination;
+
+        while (true) {
+            boolean done = true;
+            int now = Integer.MAX_VALUE;
+            for (int a = 0; a < n; a++) {
+                done &= !reachable[a] || cell[a] == goal[a];
+                now = Math.min(now, tick[a]);
+            }
+            if (done || now > limit) {
+                termination = done ? TerminationReason.SOLVED : TerminationReason.EXHAUSTED;
+                break;
+            }
+            termination = table.bytes() > limits.getMaxMemory() ? TerminationReason.MEMORY_LIMIT
+                    : limits.checkNow();
+            if (termination != null) {
+                break;
+            }
+            rounds++;
+
+            // Olvidar lo planificado tras la posición actual y lo que ya ha pasado
+            for (int a = 0; a < n; a++) {
+                held[a].releaseAfter(table, tick[a], a);
+                held[a].releaseBefore(table, now, a);
+            }
+            // Cada agente ocupa su casilla actual en el paso siguiente, para que los demás le dejen moverse.
+            // Si otro agente ya la tenía reservada se cuenta como conflicto, igual que en reservePath
+            for (int a = 0; a < n; a++) {
+                conflicts += held[a].reserve(table, table.vertexKey(cell[a], tick[a]), a) ? 0 : 1;
+                conflicts += held[a].reserve(table, table.vertexKey(cell[a], tick[a] + 1), a) ? 0 : 1;
+            }
+
+            for (int i = 0; i < n; i++) {
+                int a = (rounds + i) % n; // Prioridad rotatoria
+                int end = tick[a] + window;
+                int[] path = reachable[a]
+                        ? search.find(a, cell[a], tick[a], goal[a], end, distances.get(goal[a]))
+                        : null;
+                if (path == null) {
+                    // Sin camino libre en la ventana: esperar en la casilla actual
+                    path = new int[] { cell[a], tick[a], cell[a], end };
+                }
+                conflicts += reservePath(grid, table, held[a], a, path);
+
+                // Ejecutar hasta el primer nodo que alcanza la mitad de la ventana
+                for (int k = 2; k < path.length; k += 2) {
+                    trajectories[a].add(path[k], path[k + 1]);
+                    cell[a] = path[k];
+                    tick[a] = path[k + 1];
+                    if (tick[a] >= end - window + commit) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        long planningNanos = System.nanoTime() - begin - heuristicNanos;
+        return new Plan(trajectories, goal, heuristicNanos, planningNanos, conflicts, rounds, termination);
+    }
+
+    /**
+     * Reserva un camino espacio-temporal. Durante un movimiento el agente sigue
+     * ocupando la casilla de origen y tiene reservado el paso entre ambas.
+     *
+     * @param path Camino como pares (casilla, instante).
+     * @return El número de reservas que no se han podido hacer por estar
+     *         ocupadas (solo ocurre al esperar sin camino libre).
+     */
+    private static int reservePath(HeightGrid grid, ReservationTable table, Reservations held, int agent,
+            int[] path) {
+        int conflicts = 0;
+        for (int k = 2; k < path.length; k += 2) {
+            int from = path[k - 2];
+            int start = path[k - 1];
+            int to = path[k];
+            int arrival = path[k + 1];
+            // Las reservas se hacen en orden de instante: origen y paso de cada instante del movimiento
+            for (int t = start; t < arrival; t++) {
+                if (t > start) {
+                    conflicts += held.reserve(table, table.vertexKey(from, t), agent) ? 0 : 1;
+                }
+                if (from != to) {
+                    conflicts += held.reserve(table, table.edgeKey(from, to, t), agent) ? 0 : 1;
+                }
+            }
+            conflicts += held.reserve(table, table.vertexKey(to, arrival), agent) ? 0 : 1;
+        }
+        return conflicts;
+    }
+
+    /**
+     * Calcula la distancia real (en unidades de coste) desde cada casilla hasta
+     * el objetivo con un Dijkstra inverso.
+     *
+     * @param grid Vista del mapa.
+     * @param goal Casilla objetivo.
+     * @return La distancia de cada casilla (infinito si no llega al objetivo).
+     */
+    static float[] distanceField(HeightGrid grid, int goal) {
+        float[] distance = new float[grid.size()];
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        CellHeap pending = new CellHeap(grid.size());
+        int[] neighbours = new int[4];
+        distance[goal] = 0;
+        pending.push(goal, 0);
+        while (!pending.isEmpty()) {
+            int cell = pending.pop();
+            int count = grid.neighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                float newDistance = distance[cell] + (float) grid.stepCost(neighbour, cell);
+                if (newDistance < distance[neighbour]) {
+                    distance[neighbour] = newDistance;
+                    pending.push(neighbour, newDistance);
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * @return Los pasos que dura el movimiento entre dos casillas vecinas.
+     */
+    static int ticks(HeightGrid grid, int from, int to) {
+        return (int) Math.round(grid.stepCost(from, to) * TICKS_PER_UNIT);
+    }
+
+    /**
+     * A* en el espacio-tiempo dentro de una ventana. Los nodos son pares
+     * (casilla, instante); como el coste de un nodo es el tiempo transcurrido,
+     * basta con no generar dos veces el mismo par.
+     */
+    private static final class SpaceTimeSearch {
+        private final HeightGrid grid;
+        private final ReservationTable table;
+        private final LongIntHashMap visited = new LongIntHashMap(1024); // Nodo de cada par (casilla, instante)
+        private final int[] neighbours = new int[4];
+        private int[] nodeCell = new int[256];
+        private int[] nodeTick = new int[256];
+        private int[] nodeParent = new int[256];
+        private int nodes;
+        private long[] heap = new long[256]; // Prioridad (F y desempate) y nodo en un mismo long
+        private int heapSize;
+
+        SpaceTimeSearch(HeightGrid grid, ReservationTable table) {
+            this.grid = grid;
+            this.table = table;
+        }
+
+        /**
+         * Busca un camino libre de reservas hasta el final de la ventana o hasta el
+         * objetivo, si se puede permanecer en él hasta el final de la ventana.
+         *
+         * @return El camino como pares (casilla, instante), o null si no existe.
+         */
+        int[] find(int agent, int start, int startTick, int goal, int end, float[] distance) {
+            visited.clear();
+            nodes = 0;
+            heapSize = 0;
+            add(agent, start, startTick, -1, startTick, distance);
+
+            while (heapSize > 0) {
+                int node = pop();
+                int cell = nodeCell[node];
+                int tick = nodeTick[node];
+                if (tick >= end) {
+                    return path(node, -1, 0);
+                }
+                if (cell == goal && canStay(agent, goal, tick, end)) {
+                    return path(node, goal, end); // Llega y se queda en el objetivo
+                }
+
+                // Esperar un paso en la casilla actual
+                if (table.isFree(table.vertexKey(cell, tick + 1), agent)) {
+                    add(agent, cell, tick + 1, node, startTick, distance);
+                }
+                // Moverse a una casilla vecina
+                int count = grid.neighbours(cell, neighbours);
+                for (int i = 0; i < count; i++) {
+                    int next = neighbours[i];
+                    if (distance[next] != Float.POSITIVE_INFINITY && canMove(agent, cell, next, tick)) {
+                        add(agent, next, tick + ticks(grid, cell, next), node, startTick, distance);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private boolean canStay(int agent, int cell, int from, int to) {
+            for (int t = from + 1; t <= to; t++) {
+                if (!table.isFree(table.vertexKey(cell, t), agent)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean canMove(int agent, int from, int to, int tick) {
+            int arrival = tick + ticks(grid, from, to);
+            for (int t = tick; t < arrival; t++) {
+                if (t > tick && !table.isFree(table.vertexKey(from, t), agent)
+                        || !table.isFree(table.edgeKey(from, to, t), agent)) {
+                    return false;
+                }
+            }
+            return table.isFree(table.vertexKey(to, arrival), agent);
+        }
+
+        private void add(int agent, int cell, int tick, int parent, int startTick, float[] distance) {
+            long key = table.vertexKey(cell, tick);
+            if (visited.get(key, -1) >= 0) {
+                return;
+            }
+            if (nodes == nodeCell.length) {
+                nodeCell = Arrays.copyOf(nodeCell, nodes * 2);
+                nodeTick = Arrays.copyOf(nodeTick, nodes * 2);
+                nodeParent = Arrays.copyOf(nodeParent, nodes * 2);
+            }
+            nodeCell[nodes] = cell;
+            nodeTick[nodes] = tick;
+            nodeParent[nodes] = parent;
+            visited.put(key, nodes);
+
+            // F en pasos; a igual F se prefiere el nodo más avanzado en el tiempo
+            long f = (tick - startTick) + Math.round(distance[cell] * TICKS_PER_UNIT);
+            push((f << 42) | ((long) (0x3FF - Math.min(0x3FF, tick - startTick)) << 32) | nodes);
+            nodes++;
+        }
+
+        private int[] path(int node, int stayCell, int stayUntil) {
+            int length = 0;
+            for (int n = node; n != -1; n = nodeParent[n]) {
+                length++;
+            }
+            boolean stay = stayCell >= 0 && nodeTick[node] < stayUntil;
+            int[] path = new int[2 * (length + (stay ? 1 : 0))];
+            int k = 2 * length;
+            for (int n = node; n != -1; n = nodeParent[n]) {
+                path[--k] = nodeTick[n];
+                path[--k] = nodeCell[n];
+            }
+            if (stay) {
+                path[2 * length] = stayCell;
+                path[2 * length + 1] = stayUntil;
+            }
+            return path;
+        }
+
+        private void push(long entry) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0 && heap[(i - 1) >>> 1] > entry) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = entry;
+        }
+
+        private int pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return (int) top;
+        }
+    }
+
+    /**
+     * Reservas de un agente, para poder liberar las del futuro al volver a
+     * planificar y las del pasado que ya no hacen falta. Las reservas previas
+     * a cada camino no siguen el orden de instante del camino, así que al
+     * liberar se recorren todas las activas en lugar de solo los extremos.
+     */
+    private static final class Reservations {
+        private long[] keys = new long[64];
+        private int[] ticks = new int[64];
+        private int head; // Primera reserva activa
+        private int tail; // Posición tras la última reserva
+
+        boolean reserve(ReservationTable table, long key, int agent) {
+            if (table.isHeldBy(key, agent)) {
+                return true; // Ya está en la lista del agente
+            }
+            if (!table.reserve(key, agent)) {
+                return false;
+            }
+            if (tail == keys.length) {
+                // Compactar o ampliar los arrays
+                int live = tail - head;
+                if (live * 2 > keys.length) {
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                    ticks = Arrays.copyOf(ticks, ticks.length * 2);
+                }
+                System.arraycopy(keys, head, keys, 0, live);
+                System.arraycopy(ticks, head, ticks, 0, live);
+                head = 0;
+                tail = live;
+            }
+            keys[tail] = key;
+            ticks[tail++] = table.tickOf(key);
+            return true;
+        }
+
+        void releaseAfter(ReservationTable table, int tick, int agent) {
+            release(table, agent, tick + 1, Integer.MAX_VALUE);
+        }
+
+        void releaseBefore(ReservationTable table, int tick, int agent) {
+            release(table, agent, Integer.MIN_VALUE, tick - 1);
+        }
+
+        /**
+         * Libera las reservas con instante entre {@code from} y {@code to}
+         * (incluidos) y compacta las que quedan.
+         */
+        private void release(ReservationTable table, int agent, int from, int to) {
+            int kept = head;
+            for (int i = head; i < tail; i++) {
+                if (ticks[i] >= from && ticks[i] <= to) {
+                    table.release(keys[i], agent);
+                } else {
+                    keys[kept] = keys[i];
+                    ticks[kept++] = ticks[i];
+                }
+            }
+            tail = kept;
+        }
+    }
+
+    /**
+     * Camino ejecutado por un agente como pares (casilla, instante).
+     */
+    private static final class Trajectory {
+        private int[] cells = new int[16];
+        private int[] ticks = new int[16];
+        private int size;
+
+        Trajectory(int start) {
+            add(start, 0);
+        }
+
+        void add(int cell, int tick) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            cells[size] = cell;
+            ticks[size++] = tick;
+        }
+    }
+
+    /**
+     * Plan de todos los agentes.
+     */
+    public static final class Plan {
+        private final int[][] cells; // Casillas por las que pasa cada agente
+        private final int[][] ticks; // Instante en que cada agente llega a cada casilla
+        private final int[] arrival; // Instante de llegada definitiva al objetivo (-1 si no llega)
+        private final long heuristicNanos; // Tiempo de cálculo de las heurísticas
+        private final long planningNanos; // Tiempo de planificación con reservas
+        private final int conflicts; // Reservas que no se pudieron respetar
+        private final int rounds; // Rondas de planificación
+        private final TerminationReason termination; // Motivo por el que terminó la planificación
+
+        Plan(Trajectory[] trajectories, int[] goal, long heuristicNanos, long planningNanos, int conflicts,
+                int rounds, TerminationReason termination) {
+            int n = trajectories.length;
+            this.cells = new int[n][];
+            this.ticks = new int[n][];
+            this.arrival = new int[n];
+            for (int a = 0; a < n; a++) {
+                Trajectory t = trajectories[a];
+                cells[a] = Arrays.copyOf(t.cells, t.size);
+                ticks[a] = Arrays.copyOf(t.ticks, t.size);
+                // Primer instante desde el que el agente ya no sale del objetivo
+                int k = t.size - 1;
+                if (t.cells[k] != goal[a]) {
+                    arrival[a] = -1;
+                } else {
+                    while (k > 0 && t.cells[k - 1] == goal[a]) {
+                        k--;
+                    }
+                    arrival[a] = t.ticks[k];
+                }
+            }
+            this.heuristicNanos = heuristicNanos;
+            this.planningNanos = planningNanos;
+            this.conflicts = conflicts;
+            this.rounds = rounds;
+            this.termination = termination;
+        }
+
+        /**
+         * @return El motivo por el que terminó la planificación.
+         */
+        public TerminationReason getTermination() {
+            return termination;
+        }
+
+        /**
+         * @return El número de agentes.
+         */
+        public int size() {
+            return cells.length;
+        }
+
+        /**
+         * @return Las casillas por las que pasa el agente, incluidas las esperas
+         *         (casillas repetidas).
+         */
+        public int[] getPath(int agent) {
+            return cells[agent].clone();
+        }
+
+        /**
+         * @return El instante, en unidades de coste, en que el agente llega a cada
+         *         casilla de {@link #getPath}.
+         */
+        public double[] getTimes(int agent) {
+            return Arrays.stream(ticks[agent]).mapToDouble(t -> (double) t / TICKS_PER_UNIT).toArray();
+        }
+
+        /**
+         * @return true si el agente termina en su objetivo.
+         */
+        public boolean isReached(int agent) {
+            return arrival[agent] >= 0;
+        }
+
+        /**
+         * @return El instante de llegada del agente a su objetivo, o infinito si no
+         *         llega.
+         */
+        public double getArrivalTime(int agent) {
+            return arrival[agent] >= 0 ? (double) arrival[agent] / TICKS_PER_UNIT : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * @return El número de agentes que llegan a su objetivo.
+         */
+        public int getReached() {
+            return (int) Arrays.stream(arrival).filter(t -> t >= 0).count();
+        }
+
+        /**
+         * @return El instante en que llega el último agente que alcanza su
+         *         objetivo.
+         */
+        public double getMakespan() {
+            return (double) Arrays.stream(arrival).max().orElse(0) / TICKS_PER_UNIT;
+        }
+
+        /**
+         * @return La suma de los instantes de llegada de los agentes que alcanzan
+         *         su objetivo.
+         */
+        public double getSumOfCosts() {
+            return (double) Arrays.stream(arrival).filter(t -> t >= 0).sum() / TICKS_PER_UNIT;
+        }
+
+        /**
+         * @return El número de reservas que no se pudieron respetar porque un
+         *         agente no encontró camino libre y tuvo que esperar.
+         */
+        public int getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * @return El número de rondas de planificación.
+         */
+        public int getRounds() {
+            return rounds;
+        }
+
+        /**
+         * @return El tiempo de cálculo de las heurísticas en milisegundos.
+         */
+        public double getHeuristicMillis() {
+            return heuristicNanos / 1e6;
+        }
+
+        /**
+         * @return El tiempo de planificación con reservas en milisegundos.
+         */
+        public double getPlanningMillis() {
+            return planningNanos / 1e6;
+        }
+
+        /**
+         * @return Los agentes planificados por segundo, contando el cálculo de las
+         *         heurísticas.
+         */
+        public double getAgentsPerSecond() {
+            long total = heuristicNanos + planningNanos;
+            return total == 0 ? 0 : size() * 1e9 / total;
+        }
+    }
+}
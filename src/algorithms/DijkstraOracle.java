@@ -0,0 +1,64 @@
+package algorithms;
+
+import loadMap.HeightGrid;
+
+import java.util.Arrays;
+
+/**
+ * Oráculo de costes óptimos para evaluar algoritmos y heurísticas. Ejecuta el
+ * algoritmo de Dijkstra hacia atrás desde el objetivo, relajando cada arista en
+ * sentido contrario ({@code stepCost(vecina, casilla)}), de modo que obtiene en
+ * una sola pasada el coste exacto h*(n) desde cada casilla hasta el objetivo.
+ * Con él se conoce el óptimo de cualquier consulta hacia ese objetivo y se
+ * puede comprobar casilla a casilla si una heurística lo sobrestima.
+ */
+public final class DijkstraOracle {
+
+    private DijkstraOracle() {
+    }
+
+    /**
+     * Calcula el coste óptimo desde cada casilla hasta el objetivo.
+     *
+     * @param grid Vista del mapa.
+     * @param goal Casilla objetivo.
+     * @return El coste desde cada casilla, o infinito si no hay camino.
+     */
+    public static double[] costToGo(HeightGrid grid, int goal) {
+        int size = grid.size();
+        double[] cost = new double[size];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        boolean[] closed = new boolean[size];
+        int[] neighbours = new int[4];
+        CellHeap open = new CellHeap(size);
+        cost[goal] = 0;
+        open.push(goal, 0);
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            closed[cell] = true;
+            int count = grid.neighbours(cell, neighbours);
+            for (int k = 0; k < count; k++) {
+                int previous = neighbours[k];
+                if (closed[previous]) {
+                    continue;
+                }
+                double newCost = cost[cell] + grid.stepCost(previous, cell);
+                if (newCost < cost[previous]) {
+                    cost[previous] = newCost;
+                    open.push(previous, newCost);
+                }
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     * @return El coste óptimo de la consulta, o infinito si no hay camino.
+     */
+    public static double optimalCost(HeightGrid grid, int start, int goal) {
+        return costToGo(grid, goal)[start];
+    }
+}
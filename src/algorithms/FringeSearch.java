@@ -0,0 +1,167 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.Arrays;
+
+/**
+ * Implementación de Fringe Search. Como IDA*, recorre la frontera en pasadas
+ * acotadas por un umbral de F, pero guarda la frontera en una lista enlazada
+ * (sobre arrays de enteros) y el coste de cada casilla en una caché, así que
+ * no repite trabajo entre pasadas. Evita las operaciones del montículo de
+ * {@link Astar} y, con la misma heurística, obtiene el mismo coste que A*
+ * cuando la heurística es admisible.
+ */
+public class FringeSearch extends Algorithm implements GridSearch {
+    static final int CELL_BYTES = 29; // Bytes por casilla: coste, heurística, padre, enlaces y marca
+
+    /**
+     * Ejecuta Fringe Search e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada para calcular el costo estimado al objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult fringeSearch(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "Fringe Search";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        int size = grid.size();
+        long memory = (long) size * CELL_BYTES;
+        State goalState = grid.state(goal);
+
+        // Caché: mejor coste conocido, padre y heurística de cada casilla
+        double[] cost = new double[size];
+        double[] h = new double[size];
+        int[] parent = new int[size];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(h, Double.NaN);
+
+        // Frontera como lista doblemente enlazada (-1 marca el final de la lista)
+        int[] next = new int[size];
+        int[] prev = new int[size];
+        boolean[] inFringe = new boolean[size];
+        int[] neighbours = new int[4];
+
+        cost[start] = 0;
+        parent[start] = -1;
+        h[start] = heuristic.checkStates(grid.state(start), goalState);
+        counters.heuristic();
+        int head = start;
+        next[start] = -1;
+        prev[start] = -1;
+        inFringe[start] = true;
+
+        double limit = h[start]; // Umbral de F de la pasada actual
+        long expanded = 0;
+        int best = start; // Casilla expandida con menor heurística, para los resultados parciales
+        int fringeSize = 1; // Casillas en la lista, para las estadísticas
+        counters.startSearch();
+
+        while (head != -1) {
+            double nextLimit = Double.POSITIVE_INFINITY; // Menor F que ha superado el umbral
+            int node = head;
+
+            while (node != -1) {
+                double f = cost[node] + h[node];
+                if (f > limit) {
+                    nextLimit = Math.min(nextLimit, f);
+                    node = next[node];
+                    continue;
+                }
+                if (node == goal) {
+                    counters.startPath();
+                    SearchResult result = new SearchResult(getName(), true, cost[goal],
+                            SearchResult.buildPath(parent, goal), expanded);
+                    result.setPeakMemory(memory);
+                    return finish(result, counters);
+                }
+                TerminationReason stop = limits.check(expanded, memory);
+                if (stop != null) {
+                    counters.startPath();
+                    SearchResult result = SearchResult.stopped(getName(), stop, cost[best],
+                            SearchResult.buildPath(parent, best), expanded);
+                    result.setPeakMemory(memory);
+                    return finish(result, counters);
+                }
+                expanded++;
+                if (h[node] < h[best]) {
+                    best = node;
+                }
+
+                // Insertar los vecinos justo después del nodo para visitarlos en esta misma pasada
+                int count = grid.neighbours(node, neighbours);
+                for (int i = count - 1; i >= 0; i--) {
+                    int neighbour = neighbours[i];
+                    double newCost = cost[node] + grid.stepCost(node, neighbour);
+                    if (newCost >= cost[neighbour]) {
+                        continue;
+                    }
+                    // Una casilla con coste conocido que no está en la lista ya se había expandido
+                    counters.generated(!inFringe[neighbour] && cost[neighbour] != Double.POSITIVE_INFINITY);
+                    if (inFringe[neighbour]) {
+                        fringeSize--;
+                        // Quitar de la lista para volver a insertarlo en su nueva posición
+                        if (prev[neighbour] != -1) {
+                            next[prev[neighbour]] = next[neighbour];
+                        } else {
+                            head = next[neighbour];
+                        }
+                        if (next[neighbour] != -1) {
+                            prev[next[neighbour]] = prev[neighbour];
+                        }
+                    }
+                    cost[neighbour] = newCost;
+                    parent[neighbour] = node;
+                    if (Double.isNaN(h[neighbour])) {
+                        h[neighbour] = heuristic.checkStates(grid.state(neighbour), goalState);
+                        counters.heuristic();
+                    }
+                    prev[neighbour] = node;
+                    next[neighbour] = next[node];
+                    if (next[node] != -1) {
+                        prev[next[node]] = neighbour;
+                    }
+                    next[node] = neighbour;
+                    inFringe[neighbour] = true;
+                    fringeSize++;
+                }
+                counters.open(fringeSize);
+
+                // Quitar el nodo expandido de la lista y continuar con el siguiente
+                int following = next[node];
+                if (prev[node] != -1) {
+                    next[prev[node]] = following;
+                } else {
+                    head = following;
+                }
+                if (following != -1) {
+                    prev[following] = prev[node];
+                }
+                inFringe[node] = false;
+                fringeSize--;
+                node = following;
+            }
+            limit = nextLimit;
+        }
+
+        SearchResult result = SearchResult.notFound(getName(), expanded);
+        result.setPeakMemory(memory);
+        return finish(result, counters);
+    }
+}
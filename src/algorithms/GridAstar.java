@@ -0,0 +1,112 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+/**
+ * Implementación de A* sobre un {@link HeightGrid}. Sigue el mismo esquema que
+ * {@link Astar}, pero guarda los costes y los padres en arrays indexados por
+ * casilla en lugar de modificar los objetos State, por lo que varias
+ * búsquedas pueden compartir el mismo mapa a la vez.
+ */
+public class GridAstar extends Algorithm implements GridSearch {
+    /**
+     * Ejecuta A* sobre la vista del mapa e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada para calcular el costo estimado al objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult gridAstar(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "A*";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        return search(grid, start, goal, heuristic, limits, SearchScratch.local(grid.size()));
+    }
+
+    /**
+     * Ejecuta A* reutilizando una memoria de trabajo ya reservada, lo que evita
+     * reservar e inicializar los arrays en cada búsqueda.
+     *
+     * @param grid      Vista del mapa sobre la que se busca.
+     * @param start     Índice de la casilla inicial.
+     * @param goal      Índice de la casilla objetivo.
+     * @param heuristic Heurística construida con el estado objetivo.
+     * @param limits    Límites de la búsqueda.
+     * @param scratch   Memoria de trabajo preparada para una nueva búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits,
+            SearchScratch scratch) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        State goalState = grid.state(goal);
+        CellHeap pending = scratch.heap();
+        int[] neighbours = new int[4];
+        long expanded = 0;
+        int best = start; // Casilla expandida con menor heurística, para los resultados parciales
+        double bestH = Double.POSITIVE_INFINITY;
+
+        scratch.set(start, 0, -1);
+        pending.push(start, heuristic.checkStates(grid.state(start), goalState));
+        counters.heuristic();
+        counters.startSearch();
+
+        while (!pending.isEmpty()) {
+            TerminationReason stop = limits.check(expanded, scratch.bytes());
+            if (stop != null) {
+                counters.startPath();
+                SearchResult result = SearchResult.stopped(getName(), stop, scratch.cost(best), scratch.path(best),
+                        expanded);
+                result.setPeakMemory(scratch.bytes());
+                return finish(result, counters);
+            }
+            counters.open(pending.size());
+            double f = pending.peekKey();
+            int cell = pending.pop();
+            if (cell == goal) {
+                counters.startPath();
+                SearchResult result = new SearchResult(getName(), true, scratch.cost(goal), scratch.path(goal),
+                        expanded);
+                result.setPeakMemory(scratch.bytes());
+                return finish(result, counters);
+            }
+            expanded++;
+
+            double cost = scratch.cost(cell);
+            if (f - cost < bestH) {
+                bestH = f - cost;
+                best = cell;
+            }
+            int count = grid.neighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                double newCost = cost + grid.stepCost(cell, neighbour);
+                double oldCost = scratch.cost(neighbour);
+                if (newCost < oldCost) {
+                    // Una casilla con coste conocido que no está en la frontera ya se había expandido
+                    counters.generated(oldCost != Double.POSITIVE_INFINITY && !pending.contains(neighbour));
+                    counters.heuristic();
+                    scratch.set(neighbour, newCost, cell);
+                    pending.push(neighbour, newCost + heuristic.checkStates(grid.state(neighbour), goalState));
+                }
+            }
+        }
+
+        SearchResult result = SearchResult.notFound(getName(), expanded);
+        result.setPeakMemory(scratch.bytes());
+        return finish(result, counters);
+    }
+}
@@ -0,0 +1,45 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+
+/**
+ * Interfaz común de los algoritmos que buscan sobre un {@link HeightGrid} sin
+ * modificar los estados del mapa. Al no tener efectos secundarios, una misma
+ * vista del mapa puede compartirse entre varias búsquedas.
+ */
+public interface GridSearch {
+
+    /**
+     * Busca un camino entre dos casillas.
+     *
+     * @param grid      Vista del mapa sobre la que se busca.
+     * @param start     Índice de la casilla inicial.
+     * @param goal      Índice de la casilla objetivo.
+     * @param heuristic Heurística construida con el estado objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    default SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic) {
+        return search(grid, start, goal, heuristic, SearchLimits.NONE);
+    }
+
+    /**
+     * Busca un camino entre dos casillas respetando unos límites. Si se alcanza
+     * alguno, devuelve un resultado parcial con el motivo en lugar de seguir.
+     *
+     * @param grid      Vista del mapa sobre la que se busca.
+     * @param start     Índice de la casilla inicial.
+     * @param goal      Índice de la casilla objetivo.
+     * @param heuristic Heurística construida con el estado objetivo.
+     * @param limits    Límites de la búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits);
+
+    /**
+     * Obtiene el nombre del algoritmo, usado al mostrar los resultados.
+     *
+     * @return El nombre del algoritmo.
+     */
+    String getName();
+}
@@ -0,0 +1,258 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.Arrays;
+
+/**
+ * Implementación de IDA* (A* de profundización iterativa) con tabla de
+ * transposición de tamaño fijo. En lugar de guardar la frontera completa, hace
+ * búsquedas en profundidad acotadas por un umbral de F que se va aumentando,
+ * por lo que la memoria usada es la de la tabla (limitada por el techo
+ * configurado) más la pila del camino actual.
+ *
+ * La tabla recuerda el menor coste con el que se ha llegado a cada casilla en
+ * la iteración actual y poda las ramas que vuelven a ella con un coste igual o
+ * mayor. Si dos casillas colisionan en la tabla, la entrada se sustituye: se
+ * pierde poda, pero no la corrección del algoritmo. Si el mapa cabe en el
+ * techo, la tabla tiene una entrada por casilla y no hay colisiones; cada hilo
+ * reutiliza la suya entre búsquedas.
+ */
+public class IDAstar extends Algorithm implements GridSearch {
+    static final int ENTRY_BYTES = 16; // Bytes por entrada de la tabla (casilla, coste e iteración)
+    static final int FRAME_BYTES = 16; // Bytes por nivel de la pila (casilla, coste y vecino actual)
+    private static final long DEFAULT_MEMORY = 16L << 20; // Techo de memoria por defecto: 16 MB
+
+    private final long memoryLimit; // Techo de memoria en bytes
+
+    /**
+     * Constructor con el techo de memoria por defecto.
+     */
+    public IDAstar() {
+        this(DEFAULT_MEMORY);
+    }
+
+    /**
+     * Constructor de la clase IDAstar.
+     *
+     * @param memoryLimit Memoria máxima, en bytes, que puede usar la tabla de
+     *                    transposición.
+     */
+    public IDAstar(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Ejecuta IDA* e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada para calcular el costo estimado al objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult idaStar(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "IDA*";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        State goalState = grid.state(goal);
+
+        // Tabla de transposición: si el mapa cabe en el techo, una entrada por casilla (sin colisiones); si no,
+        // un número de entradas potencia de 2 que quepa en el techo. Los arrays del hilo se reutilizan
+        int limit = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(1, memoryLimit / ENTRY_BYTES)));
+        boolean direct = grid.size() <= limit;
+        int capacity = direct ? grid.size() : limit;
+        int mask = capacity - 1; // Solo se usa si la tabla no es directa
+        Table table = Table.local(capacity);
+        int[] tableCell = table.cell;
+        double[] tableCost = table.cost;
+        int[] tableIteration = table.iteration;
+
+        // Pila explícita del camino actual (evita desbordar la pila de Java en caminos largos)
+        int[] stackCell = new int[64];
+        double[] stackCost = new double[64];
+        double[] stackH = new double[64]; // Heurística de la casilla de cada nivel
+        int[] stackNext = new int[64]; // Índice del siguiente vecino a visitar en cada nivel
+        int[][] stackNeighbours = new int[64][4];
+        int[] stackCount = new int[64];
+
+        long expanded = 0;
+        int peakDepth = 0;
+        double bound = heuristic.checkStates(grid.state(start), goalState);
+        counters.heuristic();
+        int iteration;
+
+        // Mejor nodo expandido (menor heurística), para los resultados parciales
+        double bestH = Double.POSITIVE_INFINITY;
+        double bestCost = 0;
+        int[] bestPath = { start };
+        counters.startSearch();
+
+        while (true) {
+            iteration = table.nextIteration();
+            double nextBound = Double.POSITIVE_INFINITY; // Menor F que ha superado el umbral
+            int depth = 0;
+            stackCell[0] = start;
+            stackCost[0] = 0;
+            stackH[0] = bound;
+            stackNext[0] = 0;
+            stackCount[0] = -1; // Vecinos aún sin generar
+            int startSlot = direct ? start : hash(start) & mask;
+            tableCell[startSlot] = start;
+            tableCost[startSlot] = 0;
+            tableIteration[startSlot] = iteration;
+
+            while (depth >= 0) {
+                int cell = stackCell[depth];
+                double cost = stackCost[depth];
+
+                if (stackCount[depth] < 0) {
+                    // Primera visita a este nivel: comprobar el objetivo y generar los vecinos
+                    if (cell == goal) {
+                        counters.startPath();
+                        SearchResult result = new SearchResult(getName(), true, cost,
+                                Arrays.copyOf(stackCell, depth + 1), expanded);
+                        result.setPeakMemory((long) capacity * ENTRY_BYTES + (long) peakDepth * FRAME_BYTES);
+                        return finish(result, counters);
+                    }
+                    long memory = (long) capacity * ENTRY_BYTES + (long) peakDepth * FRAME_BYTES;
+                    TerminationReason stop = limits.check(expanded, memory);
+                    if (stop != null) {
+                        counters.startPath();
+                        SearchResult result = SearchResult.stopped(getName(), stop, bestCost, bestPath, expanded);
+                        result.setPeakMemory(memory);
+                        return finish(result, counters);
+                    }
+                    expanded++;
+                    if (stackH[depth] < bestH) {
+                        bestH = stackH[depth];
+                        bestCost = cost;
+                        bestPath = Arrays.copyOf(stackCell, depth + 1);
+                    }
+                    stackCount[depth] = grid.neighbours(cell, stackNeighbours[depth]);
+                    stackNext[depth] = 0;
+                }
+
+                if (stackNext[depth] == stackCount[depth]) {
+                    depth--; // Todos los vecinos visitados: retroceder
+                    continue;
+                }
+
+                int neighbour = stackNeighbours[depth][stackNext[depth]++];
+                double newCost = cost + grid.stepCost(cell, neighbour);
+                double f = newCost + heuristic.checkStates(grid.state(neighbour), goalState);
+                counters.heuristic();
+                if (f > bound) {
+                    nextBound = Math.min(nextBound, f);
+                    continue;
+                }
+
+                // Poda por la tabla de transposición
+                int slot = direct ? neighbour : hash(neighbour) & mask;
+                boolean visited = tableCell[slot] == neighbour && tableIteration[slot] == iteration;
+                if (visited && tableCost[slot] <= newCost) {
+                    continue;
+                }
+                counters.generated(visited); // Un camino mejor a una casilla ya visitada en esta iteración
+                tableCell[slot] = neighbour;
+                tableCost[slot] = newCost;
+                tableIteration[slot] = iteration;
+
+                // Descender al vecino
+                depth++;
+                if (depth == stackCell.length) {
+                    int length = depth * 2;
+                    stackCell = Arrays.copyOf(stackCell, length);
+                    stackCost = Arrays.copyOf(stackCost, length);
+                    stackH = Arrays.copyOf(stackH, length);
+                    stackNext = Arrays.copyOf(stackNext, length);
+                    stackCount = Arrays.copyOf(stackCount, length);
+                    stackNeighbours = Arrays.copyOf(stackNeighbours, length);
+                    for (int i = depth; i < length; i++) {
+                        stackNeighbours[i] = new int[4];
+                    }
+                }
+                stackCell[depth] = neighbour;
+                stackCost[depth] = newCost;
+                stackH[depth] = f - newCost;
+                stackCount[depth] = -1;
+                peakDepth = Math.max(peakDepth, depth + 1);
+                counters.open(depth + 1); // La frontera de IDA* es la pila del camino actual
+            }
+
+            if (nextBound == Double.POSITIVE_INFINITY) {
+                // Ninguna rama superó el umbral: el objetivo es inalcanzable
+                SearchResult result = SearchResult.notFound(getName(), expanded);
+                result.setPeakMemory((long) capacity * ENTRY_BYTES + (long) peakDepth * FRAME_BYTES);
+                return finish(result, counters);
+            }
+            bound = nextBound;
+        }
+    }
+
+    /**
+     * Tabla de transposición de un hilo. Las entradas se marcan con el número
+     * de iteración, que sigue creciendo de una búsqueda a la siguiente, así que
+     * las entradas de búsquedas anteriores nunca coinciden y no hay que
+     * limpiar los arrays al empezar.
+     */
+    private static final class Table {
+        private static final ThreadLocal<Table> LOCAL = ThreadLocal.withInitial(Table::new);
+
+        int[] cell = new int[0]; // Casilla guardada en cada entrada
+        double[] cost = new double[0]; // Menor coste con el que se ha llegado a la casilla
+        int[] iteration = new int[0]; // Iteración en la que se escribió la entrada
+        private int lastIteration; // Última iteración usada por el hilo
+
+        /**
+         * @param capacity Número de entradas necesarias.
+         * @return La tabla del hilo actual, con al menos esas entradas.
+         */
+        static Table local(int capacity) {
+            Table table = LOCAL.get();
+            if (table.cell.length < capacity) {
+                table.cell = new int[capacity];
+                table.cost = new double[capacity];
+                table.iteration = new int[capacity];
+                table.lastIteration = 0;
+            }
+            return table;
+        }
+
+        /**
+         * @return El número de la nueva iteración.
+         */
+        int nextIteration() {
+            if (++lastIteration == Integer.MAX_VALUE) {
+                // Tras agotar los números se limpian las marcas para no confundir iteraciones
+                Arrays.fill(iteration, 0);
+                lastIteration = 1;
+            }
+            return lastIteration;
+        }
+    }
+
+    /**
+     * Dispersa el índice de una casilla para repartirla en la tabla.
+     *
+     * @param cell Índice de la casilla.
+     * @return Valor de dispersión de la casilla.
+     */
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
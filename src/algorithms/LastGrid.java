@@ -0,0 +1,30 @@
+package algorithms;
+
+import loadMap.HeightGrid;
+import states.State;
+
+/**
+ * Vista del último mapa recibido como matriz de estados, para que los
+ * algoritmos que reciben la misma matriz en varias llamadas no la conviertan
+ * (ni rehagan lo que guardan por vista) cada vez. La vista se reconstruye si la
+ * matriz es otra o si alguna altura ha cambiado desde que se construyó.
+ */
+final class LastGrid {
+    private volatile HeightGrid grid; // Vista de la última matriz recibida
+
+    /**
+     * Obtiene la vista de una matriz de estados, reutilizando la última si
+     * sigue siendo válida.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @return La vista del mapa.
+     */
+    HeightGrid of(State[][] map) {
+        HeightGrid view = grid;
+        if (view == null || !view.isViewOf(map)) {
+            view = HeightGrid.of(map);
+            grid = view;
+        }
+        return view;
+    }
+}
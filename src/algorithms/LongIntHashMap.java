@@ -0,0 +1,146 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Tabla hash de claves long a valores int con direccionamiento abierto (sondeo
+ * lineal) sobre arrays primitivos, sin crear objetos por entrada. Crece al
+ * superar la mitad de ocupación y borra con desplazamiento hacia atrás, así
+ * que no necesita marcas de borrado.
+ */
+final class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE; // Clave reservada para los huecos libres
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructor de la clase LongIntHashMap.
+     *
+     * @param expected Número de entradas esperado.
+     */
+    LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) * 2;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @return El número de entradas.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene el valor de una clave.
+     *
+     * @param key          Clave buscada (distinta de {@link Long#MIN_VALUE}).
+     * @param defaultValue Valor que se devuelve si la clave no está.
+     * @return El valor de la clave, o {@code defaultValue} si no está.
+     */
+    int get(long key, int defaultValue) {
+        for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Asocia un valor a una clave, sustituyendo el anterior si lo había.
+     *
+     * @param key   Clave (distinta de {@link Long#MIN_VALUE}).
+     * @param value Valor asociado.
+     */
+    void put(long key, int value) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Elimina una clave.
+     *
+     * @param key Clave que se elimina.
+     * @return true si la clave estaba en la tabla.
+     */
+    boolean remove(long key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Borrado con desplazamiento hacia atrás para no dejar huecos en las secuencias de sondeo
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Vacía la tabla conservando su capacidad.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * @return Bytes ocupados por los arrays de la tabla.
+     */
+    long bytes() {
+        return (long) keys.length * 12;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // Finalizador fmix64 de MurmurHash3 para repartir claves consecutivas
+        long h = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (h ^ (h >>> 33)) & mask;
+    }
+}
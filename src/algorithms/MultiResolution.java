@@ -0,0 +1,280 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import loadMap.HeightPyramid;
+import states.State;
+
+import java.util.Arrays;
+
+/**
+ * Búsqueda de grueso a fino sobre una {@link HeightPyramid}. Primero resuelve
+ * la consulta en un nivel grueso de la pirámide y después la refina nivel a
+ * nivel, buscando solo dentro de un pasillo alrededor del camino del nivel
+ * anterior. Así la búsqueda en el mapa original solo recorre una franja
+ * estrecha de casillas.
+ *
+ * El camino obtenido no es necesariamente óptimo. La búsqueda completa en el
+ * nivel grueso usa costes que nunca sobrestiman los reales, por lo que su
+ * coste es una cota inferior del óptimo y se informa junto con el resultado.
+ */
+public class MultiResolution extends Algorithm implements GridSearch {
+    private static final int DEFAULT_CORRIDOR = 2; // Radio del pasillo por defecto (en casillas gruesas)
+    private static final int COARSE_SIZE = 32; // Tamaño mínimo del nivel en el que se hace la búsqueda completa
+    private static final int LEVEL_CELL_BYTES = 28; // Bytes por casilla de un nivel: coste, padre, posición y montículo
+
+    private final int corridor; // Radio del pasillo alrededor del camino grueso
+    private volatile HeightPyramid pyramid; // Pirámide del último mapa utilizado
+    private final LastGrid lastMap = new LastGrid(); // Vista del último mapa recibido como matriz de estados
+
+    /**
+     * Constructor con el radio de pasillo por defecto.
+     */
+    public MultiResolution() {
+        this(DEFAULT_CORRIDOR);
+    }
+
+    /**
+     * Constructor de la clase MultiResolution.
+     *
+     * @param corridor Radio del pasillo, en casillas del nivel superior, dentro
+     *                 del cual se refina el camino.
+     */
+    public MultiResolution(int corridor) {
+        this.corridor = Math.max(1, corridor);
+    }
+
+    /**
+     * Ejecuta la búsqueda de grueso a fino e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada en el nivel del mapa original.
+     */
+    public void multiResolution(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = lastMap.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+    }
+
+    @Override
+    public String getName() {
+        return "Multi-resolución";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        HeightPyramid pyr = pyramidFor(grid);
+
+        // Elegir el nivel más grueso que aún tenga al menos COARSE_SIZE casillas de lado
+        int top = 0;
+        while (top + 1 < pyr.levels() && Math.max(pyr.rows(top + 1), pyr.cols(top + 1)) >= COARSE_SIZE) {
+            top++;
+        }
+        State goalState = grid.state(goal);
+        long expanded = 0;
+        counters.startSearch(); // La construcción de la pirámide cuenta como preparación
+
+        // Búsqueda completa en el nivel grueso: su coste es una cota inferior
+        Level coarse = searchLevel(pyr, top, pyr.cellAt(top, start), pyr.cellAt(top, goal), null, heuristic,
+                goalState, limits, expanded, counters);
+        expanded += coarse.expanded;
+        long peakMemory = coarse.memory; // Mayor memoria de trabajo de un nivel
+        if (coarse.stop != null) {
+            return finish(SearchResult.stopped(getName(), coarse.stop, expanded), peakMemory, counters);
+        }
+        if (coarse.path == null) {
+            // Si no hay camino en el nivel grueso tampoco lo hay en el mapa original
+            return finish(SearchResult.notFound(getName(), expanded), peakMemory, counters);
+        }
+        double lowerBound = coarse.cost;
+
+        // Refinar nivel a nivel dentro del pasillo del nivel superior
+        Level current = coarse;
+        for (int level = top - 1; level >= 0; level--) {
+            int radius = corridor;
+            Level refined;
+            while (true) {
+                boolean[] allowed = dilate(pyr, level + 1, current.path, radius);
+                refined = searchLevel(pyr, level, pyr.cellAt(level, start), pyr.cellAt(level, goal), allowed,
+                        heuristic, goalState, limits, expanded, counters);
+                expanded += refined.expanded;
+                peakMemory = Math.max(peakMemory, refined.memory);
+                if (refined.stop != null) {
+                    // Los caminos de los niveles gruesos no son caminos del mapa: no hay resultado parcial
+                    return finish(SearchResult.stopped(getName(), refined.stop, expanded), peakMemory, counters);
+                }
+                if (refined.path != null) {
+                    break;
+                }
+                if (radius >= Math.max(pyr.rows(level + 1), pyr.cols(level + 1))) {
+                    // El pasillo ya cubre todo el nivel: no existe camino
+                    return finish(SearchResult.notFound(getName(), expanded), peakMemory, counters);
+                }
+                radius *= 2; // Ensanchar el pasillo y volver a intentarlo
+            }
+            current = refined;
+        }
+
+        SearchResult result = new SearchResult(getName(), true, current.cost, current.path, expanded);
+        result.setLowerBound(top == 0 ? current.cost : lowerBound);
+        return finish(result, peakMemory, counters);
+    }
+
+    /**
+     * Anota la mayor memoria de trabajo de los niveles y cierra los contadores.
+     */
+    private SearchResult finish(SearchResult result, long peakMemory, SearchCounters counters) {
+        result.setPeakMemory(peakMemory);
+        return finish(result, counters);
+    }
+
+    /**
+     * Usa una pirámide ya construida (por ejemplo, la de una
+     * {@link loadMap.PreprocessedMap}) para las búsquedas sobre su mapa.
+     *
+     * @param pyramid Pirámide del mapa.
+     */
+    public void usePyramid(HeightPyramid pyramid) {
+        this.pyramid = pyramid;
+    }
+
+    /**
+     * Obtiene la pirámide del mapa, reutilizando la última si es del mismo mapa.
+     *
+     * @param grid Vista del mapa.
+     * @return La pirámide del mapa.
+     */
+    private HeightPyramid pyramidFor(HeightGrid grid) {
+        HeightPyramid pyr = pyramid;
+        if (pyr == null || pyr.getGrid() != grid) {
+            pyr = new HeightPyramid(grid);
+            pyramid = pyr;
+        }
+        return pyr;
+    }
+
+    /**
+     * Marca las casillas de un nivel que están a una distancia (de Chebyshev)
+     * menor o igual que {@code radius} de alguna casilla del camino.
+     *
+     * @param pyr    Pirámide del mapa.
+     * @param level  Nivel del camino.
+     * @param path   Casillas del camino en ese nivel.
+     * @param radius Radio del pasillo.
+     * @return Máscara de casillas permitidas en el nivel.
+     */
+    private static boolean[] dilate(HeightPyramid pyr, int level, int[] path, int radius) {
+        int rows = pyr.rows(level);
+        int cols = pyr.cols(level);
+        boolean[] allowed = new boolean[rows * cols];
+        for (int cell : path) {
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int r = Math.max(0, row - radius); r <= Math.min(rows - 1, row + radius); r++) {
+                int from = r * cols + Math.max(0, col - radius);
+                int to = r * cols + Math.min(cols - 1, col + radius);
+                Arrays.fill(allowed, from, to + 1, true);
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Búsqueda A* dentro de un nivel de la pirámide. Si se indica una máscara,
+     * solo se consideran las casillas cuyo padre en el nivel superior esté
+     * permitido.
+     *
+     * @param pyr       Pirámide del mapa.
+     * @param level     Nivel en el que se busca.
+     * @param start     Casilla inicial en el nivel.
+     * @param goal      Casilla objetivo en el nivel.
+     * @param allowed   Máscara de casillas permitidas del nivel superior, o null.
+     * @param heuristic Heurística usada en el nivel 0.
+     * @param goalState Estado objetivo, necesario para evaluar la heurística.
+     * @param limits    Límites de la búsqueda completa.
+     * @param previous  Nodos expandidos en los niveles anteriores.
+     * @param counters  Contadores de la búsqueda completa.
+     * @return El camino y el coste encontrados en el nivel.
+     */
+    private static Level searchLevel(HeightPyramid pyr, int level, int start, int goal, boolean[] allowed,
+            Heuristic heuristic, State goalState, SearchLimits limits, long previous, SearchCounters counters) {
+        int rows = pyr.rows(level);
+        int cols = pyr.cols(level);
+        int size = rows * cols;
+        HeightGrid grid = pyr.getGrid();
+        boolean useHeuristic = level == 0 && heuristic != null;
+        int goalRow = goal / cols;
+        int goalCol = goal % cols;
+
+        // Memoria de trabajo del hilo: se reutiliza entre niveles y búsquedas sin volver a rellenarla
+        SearchScratch scratch = SearchScratch.local(size);
+        CellHeap pending = scratch.heap();
+        int[] next = new int[4];
+
+        scratch.set(start, 0, -1);
+        pending.push(start, 0);
+        Level result = new Level();
+
+        long memory = (long) size * LEVEL_CELL_BYTES;
+        result.memory = memory;
+        while (!pending.isEmpty()) {
+            result.stop = limits.check(previous + result.expanded, memory);
+            if (result.stop != null) {
+                return result;
+            }
+            counters.open(pending.size());
+            int cell = pending.pop();
+            result.expanded++;
+            if (cell == goal) {
+                result.cost = scratch.cost(goal);
+                result.path = scratch.path(goal);
+                return result;
+            }
+
+            int row = cell / cols;
+            int col = cell % cols;
+            int count = 0;
+            if (row > 0) next[count++] = cell - cols;
+            if (row < rows - 1) next[count++] = cell + cols;
+            if (col > 0) next[count++] = cell - 1;
+            if (col < cols - 1) next[count++] = cell + 1;
+
+            for (int i = 0; i < count; i++) {
+                int neighbour = next[i];
+                if (pyr.isBlocked(level, neighbour)
+                        || (allowed != null && !allowed[pyr.parent(level, neighbour)])) {
+                    continue;
+                }
+                double newCost = scratch.cost(cell) + pyr.stepLowerBound(level, cell, neighbour);
+                double oldCost = scratch.cost(neighbour);
+                if (newCost < oldCost) {
+                    counters.generated(oldCost != Double.POSITIVE_INFINITY && !pending.contains(neighbour));
+                    scratch.set(neighbour, newCost, cell);
+                    double h;
+                    if (useHeuristic) {
+                        h = heuristic.checkStates(grid.state(neighbour), goalState);
+                        counters.heuristic();
+                    } else {
+                        h = 0.5 * (Math.abs(goalRow - neighbour / cols) + Math.abs(goalCol - neighbour % cols));
+                    }
+                    pending.push(neighbour, newCost + h);
+                }
+            }
+        }
+        return result; // Sin camino en este nivel
+    }
+
+    /**
+     * Resultado de la búsqueda en un nivel de la pirámide.
+     */
+    private static class Level {
+        int[] path; // Camino encontrado, o null si no hay
+        double cost; // Coste del camino
+        long expanded; // Nodos expandidos en el nivel
+        TerminationReason stop; // Motivo por el que se detuvo la búsqueda, o null si terminó
+        long memory; // Memoria de trabajo del nivel en bytes
+    }
+}
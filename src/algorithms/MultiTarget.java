@@ -0,0 +1,403 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Búsqueda de uno a muchos: una sola expansión desde una casilla responde a
+ * varios objetivos a la vez, en lugar de lanzar una búsqueda por objetivo. Sin
+ * heurística es un Dijkstra; con heurística es un A* cuya estimación es el
+ * mínimo de la heurística hacia cada objetivo. La búsqueda termina cuando se
+ * han fijado todos los objetivos o los {@code k} más cercanos.
+ *
+ * Los objetivos se fijan en orden de coste, así que los costes son óptimos
+ * siempre que la heurística sea consistente (o no se use ninguna). Los caminos
+ * no se construyen hasta que se piden.
+ *
+ * En modo inverso la búsqueda parte de un objetivo común y recorre los
+ * movimientos al revés, de modo que responde a la pregunta "cuánto cuesta
+ * llegar desde cada una de estas casillas hasta aquí".
+ */
+public class MultiTarget extends Algorithm {
+    private final Function<State, Heuristic> heuristic; // Heurística hacia cada objetivo (null para Dijkstra)
+
+    /**
+     * Constructor de la clase MultiTarget sin heurística (Dijkstra).
+     */
+    public MultiTarget() {
+        this(null);
+    }
+
+    /**
+     * Constructor de la clase MultiTarget.
+     *
+     * @param heuristic Constructor de la heurística a partir de cada objetivo, o
+     *                  null para usar Dijkstra.
+     */
+    public MultiTarget(Function<State, Heuristic> heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Busca los caminos desde un estado hasta varios objetivos e imprime el
+     * coste de cada uno y el camino hasta el más cercano.
+     *
+     * @param map     Matriz de estados que representa el mapa.
+     * @param ini     Estado inicial desde donde comienza la búsqueda.
+     * @param targets Estados objetivo.
+     * @param k       Número de objetivos más cercanos que se buscan (0 para
+     *                todos).
+     * @return El resultado de la búsqueda.
+     */
+    public Result multiTarget(State[][] map, State ini, State[] targets, int k) {
+        HeightGrid grid = HeightGrid.of(map);
+        int[] cells = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            cells[i] = grid.index(targets[i].getPosition());
+        }
+        Result result = search(grid, grid.index(ini.getPosition()), cells, k);
+        if (!isQuiet()) {
+            System.out.println("Número de nodos tratados: " + result.getExpanded());
+            for (int i = 0; i < targets.length; i++) {
+                System.out.println("Objetivo " + targets[i].getPosition() + ": "
+                        + (result.isSettled(i) ? "coste " + result.getCost(i) : "sin resolver"));
+            }
+        }
+        if (isQuiet()) {
+            return result;
+        }
+        // Los nodos tratados son los de toda la búsqueda: del objetivo más cercano solo se muestra el camino
+        int[] order = result.getOrder();
+        if (order.length > 0) {
+            int[] path = result.getResult(order[0]).getPath();
+            System.out.println("Camino al objetivo más cercano, " + targets[order[0]].getPosition() + ":");
+            mostrarCamino(path, grid, path[path.length - 1]);
+        } else {
+            System.out.println("No se ha podido encontrar el camino");
+        }
+        return result;
+    }
+
+    /**
+     * Busca los caminos desde una casilla hasta varios objetivos.
+     *
+     * @param grid    Vista del mapa.
+     * @param source  Índice de la casilla inicial.
+     * @param targets Índices de las casillas objetivo (puede haber repetidas).
+     * @param k       Número de objetivos más cercanos que se buscan (0 para
+     *                todos).
+     * @return El resultado de la búsqueda.
+     */
+    public Result search(HeightGrid grid, int source, int[] targets, int k) {
+        return search(grid, source, targets, k, SearchLimits.NONE);
+    }
+
+    /**
+     * Busca los caminos desde una casilla hasta varios objetivos respetando unos
+     * límites. Si se alcanza un límite, el resultado conserva los objetivos
+     * fijados hasta ese momento.
+     *
+     * @param grid    Vista del mapa.
+     * @param source  Índice de la casilla inicial.
+     * @param targets Índices de las casillas objetivo (puede haber repetidas).
+     * @param k       Número de objetivos más cercanos que se buscan (0 para
+     *                todos).
+     * @param limits  Límites de la búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    public Result search(HeightGrid grid, int source, int[] targets, int k, SearchLimits limits) {
+        SearchScratch scratch = new SearchScratch();
+        scratch.reset(grid.size());
+        return search(grid, source, targets, k, false, limits, scratch);
+    }
+
+    /**
+     * Busca los caminos desde varias casillas hasta un objetivo común,
+     * expandiendo hacia atrás desde el objetivo.
+     *
+     * @param grid    Vista del mapa.
+     * @param sources Índices de las casillas iniciales (puede haber repetidas).
+     * @param goal    Índice de la casilla objetivo.
+     * @param k       Número de casillas iniciales más cercanas que se buscan (0
+     *                para todas).
+     * @return El resultado de la búsqueda, con un camino por casilla inicial.
+     */
+    public Result searchReverse(HeightGrid grid, int[] sources, int goal, int k) {
+        return searchReverse(grid, sources, goal, k, SearchLimits.NONE);
+    }
+
+    /**
+     * Busca los caminos desde varias casillas hasta un objetivo común
+     * respetando unos límites.
+     *
+     * @param grid    Vista del mapa.
+     * @param sources Índices de las casillas iniciales (puede haber repetidas).
+     * @param goal    Índice de la casilla objetivo.
+     * @param k       Número de casillas iniciales más cercanas que se buscan (0
+     *                para todas).
+     * @param limits  Límites de la búsqueda.
+     * @return El resultado de la búsqueda, con un camino por casilla inicial.
+     */
+    public Result searchReverse(HeightGrid grid, int[] sources, int goal, int k, SearchLimits limits) {
+        SearchScratch scratch = new SearchScratch();
+        scratch.reset(grid.size());
+        return search(grid, goal, sources, k, true, limits, scratch);
+    }
+
+    /**
+     * Ejecuta la búsqueda sobre una memoria de trabajo ya reservada. Los caminos
+     * del resultado se reconstruyen a partir de esa memoria, así que deben
+     * pedirse antes de reutilizarla.
+     *
+     * @param grid    Vista del mapa.
+     * @param root    Casilla desde la que se expande.
+     * @param targets Casillas que se quieren fijar.
+     * @param k       Número de objetivos más cercanos que se buscan (0 para
+     *                todos).
+     * @param reverse true para recorrer los movimientos al revés.
+     * @param limits  Límites de la búsqueda.
+     * @param scratch Memoria de trabajo preparada para una nueva búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    Result search(HeightGrid grid, int root, int[] targets, int k, boolean reverse, SearchLimits limits,
+            SearchScratch scratch) {
+        Result result = new Result(targets, reverse, scratch, getName(reverse));
+
+        // Objetivos pendientes por casilla (una casilla puede aparecer varias veces)
+        Map<Integer, List<Integer>> pendingTargets = new HashMap<>();
+        for (int i = 0; i < targets.length; i++) {
+            pendingTargets.computeIfAbsent(targets[i], key -> new ArrayList<>()).add(i);
+        }
+        int wanted = k > 0 ? Math.min(k, pendingTargets.size()) : pendingTargets.size();
+
+        Heuristic[] estimates = new Heuristic[0];
+        State[] targetStates = new State[0];
+        if (heuristic != null) {
+            int[] distinct = pendingTargets.keySet().stream().mapToInt(Integer::intValue).toArray();
+            estimates = new Heuristic[distinct.length];
+            targetStates = new State[distinct.length];
+            for (int i = 0; i < distinct.length; i++) {
+                targetStates[i] = grid.state(distinct[i]);
+                estimates[i] = heuristic.apply(targetStates[i]);
+            }
+        }
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(),
+                estimates.length > 0 ? estimates[0] : null);
+
+        CellHeap pending = scratch.heap();
+        int[] neighbours = new int[4];
+        int settled = 0;
+        double radius = Double.POSITIVE_INFINITY; // Coste del último objetivo fijado
+        scratch.set(root, 0, -1);
+        pending.push(root, estimate(grid, root, estimates, targetStates, counters));
+        counters.startSearch();
+
+        while (!pending.isEmpty() && settled < wanted) {
+            counters.open(pending.size());
+            int cell = pending.pop();
+            List<Integer> reached = pendingTargets.remove(cell);
+            if (reached != null) {
+                radius = scratch.cost(cell);
+                result.settle(reached, radius);
+                if (++settled == wanted) {
+                    break;
+                }
+            }
+            result.termination = limits.check(result.expanded, scratch.bytes());
+            if (result.termination != null) {
+                break;
+            }
+            result.expanded++;
+
+            double cost = scratch.cost(cell);
+            int count = grid.neighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                double newCost = cost
+                        + (reverse ? grid.stepCost(neighbour, cell) : grid.stepCost(cell, neighbour));
+                double oldCost = scratch.cost(neighbour);
+                if (newCost < oldCost) {
+                    counters.generated(oldCost != Double.POSITIVE_INFINITY && !pending.contains(neighbour));
+                    scratch.set(neighbour, newCost, cell);
+                    pending.push(neighbour, newCost + estimate(grid, neighbour, estimates, targetStates, counters));
+                }
+            }
+        }
+        if (result.termination == null) {
+            result.termination = settled == wanted ? TerminationReason.SOLVED : TerminationReason.EXHAUSTED;
+        }
+        result.peakMemory = scratch.bytes();
+        result.stats = counters.finish(result.algorithm, result.expanded);
+        counters.commit(result.algorithm, result.expanded, radius, settled == wanted, result.termination);
+        if (result.stats != null) {
+            publish(result.stats);
+        }
+        return result;
+    }
+
+    /**
+     * Calcula el mínimo de la heurística hacia cada objetivo.
+     */
+    private static double estimate(HeightGrid grid, int cell, Heuristic[] estimates, State[] targetStates,
+            SearchCounters counters) {
+        if (estimates.length == 0) {
+            return 0;
+        }
+        State state = grid.state(cell);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < estimates.length; i++) {
+            best = Math.min(best, estimates[i].checkStates(state, targetStates[i]));
+            counters.heuristic();
+        }
+        return best;
+    }
+
+    /**
+     * @return El nombre del algoritmo según la dirección de la búsqueda.
+     */
+    private String getName(boolean reverse) {
+        String name = heuristic == null ? "Dijkstra" : "A* multiobjetivo";
+        return reverse ? name + " inverso" : name;
+    }
+
+    /**
+     * Resultado de una búsqueda de uno a muchos. Guarda el coste de cada objetivo
+     * y reconstruye su camino la primera vez que se pide.
+     */
+    public static final class Result {
+        private final int[] targets; // Casillas objetivo, en el orden de la consulta
+        private final boolean reverse; // Indica si se expandió desde el objetivo común
+        private final SearchScratch scratch; // Memoria con los padres de cada casilla
+        private final String algorithm; // Nombre del algoritmo
+        private final double[] costs; // Coste de cada objetivo (infinito si no se fijó)
+        private final long[] expandedAt; // Nodos expandidos al fijar cada objetivo
+        private final int[][] paths; // Caminos ya reconstruidos
+        private final List<Integer> order = new ArrayList<>(); // Objetivos fijados, del más cercano al más lejano
+        long expanded; // Nodos expandidos en total
+        long peakMemory; // Memoria estimada de la búsqueda en bytes
+        TerminationReason termination; // Motivo por el que terminó la búsqueda
+        SearchStats stats; // Estadísticas de la búsqueda (null si no se recogen)
+
+        Result(int[] targets, boolean reverse, SearchScratch scratch, String algorithm) {
+            this.targets = targets.clone();
+            this.reverse = reverse;
+            this.scratch = scratch;
+            this.algorithm = algorithm;
+            this.costs = new double[targets.length];
+            this.expandedAt = new long[targets.length];
+            this.paths = new int[targets.length][];
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        }
+
+        void settle(List<Integer> reached, double cost) {
+            for (int i : reached) {
+                costs[i] = cost;
+                expandedAt[i] = expanded;
+                order.add(i);
+            }
+        }
+
+        /**
+         * @return El número de objetivos de la consulta.
+         */
+        public int size() {
+            return targets.length;
+        }
+
+        /**
+         * @return true si el objetivo {@code i} se fijó durante la búsqueda.
+         */
+        public boolean isSettled(int i) {
+            return costs[i] != Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * @return El coste del objetivo {@code i}, o infinito si no se fijó.
+         */
+        public double getCost(int i) {
+            return costs[i];
+        }
+
+        /**
+         * @return Los índices de los objetivos fijados, del más cercano al más
+         *         lejano.
+         */
+        public int[] getOrder() {
+            return order.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * @return El motivo por el que terminó la búsqueda.
+         */
+        public TerminationReason getTermination() {
+            return termination;
+        }
+
+        /**
+         * @return Las estadísticas de la búsqueda, o null si no se han recogido.
+         */
+        public SearchStats getStats() {
+            return stats;
+        }
+
+        /**
+         * @return El número total de nodos expandidos.
+         */
+        public long getExpanded() {
+            return expanded;
+        }
+
+        /**
+         * Obtiene el camino del objetivo {@code i}, reconstruyéndolo la primera
+         * vez que se pide. Siempre va del inicio al objetivo, también en modo
+         * inverso.
+         *
+         * @param i Índice del objetivo en la consulta.
+         * @return Las casillas del camino, o un array vacío si no se fijó.
+         */
+        public int[] getPath(int i) {
+            if (!isSettled(i)) {
+                return new int[0];
+            }
+            if (paths[i] == null) {
+                int[] path = scratch.path(targets[i]);
+                if (reverse) {
+                    // Los padres apuntan hacia el objetivo común: invertir el camino
+                    for (int a = 0, b = path.length - 1; a < b; a++, b--) {
+                        int tmp = path[a];
+                        path[a] = path[b];
+                        path[b] = tmp;
+                    }
+                }
+                paths[i] = path;
+            }
+            return paths[i];
+        }
+
+        /**
+         * Obtiene el resultado del objetivo {@code i} con el mismo formato que las
+         * búsquedas de un solo objetivo.
+         *
+         * @param i Índice del objetivo en la consulta.
+         * @return El resultado de la búsqueda hasta ese objetivo.
+         */
+        public SearchResult getResult(int i) {
+            if (!isSettled(i)) {
+                SearchResult result = termination.isLimit()
+                        ? SearchResult.stopped(algorithm, termination, expanded)
+                        : SearchResult.notFound(algorithm, expanded);
+                result.setPeakMemory(peakMemory);
+                result.setStats(stats);
+                return result;
+            }
+            SearchResult result = new SearchResult(algorithm, true, costs[i], getPath(i), expandedAt[i]);
+            result.setPeakMemory(peakMemory);
+            result.setStats(stats);
+            return result;
+        }
+    }
+}
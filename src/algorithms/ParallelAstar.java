@@ -0,0 +1,558 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A* paralelo distribuido por dispersión (HDA*). Cada casilla pertenece a un
+ * único hilo, elegido dispersando su índice, y solo ese hilo guarda su coste y
+ * la expande. Cada hilo tiene su propia frontera; los sucesores que pertenecen
+ * a otro hilo se le envían agrupados en lotes a través de buzones sin bloqueos.
+ *
+ * La búsqueda no se detiene al encontrar el objetivo: el mejor coste conocido
+ * se comparte entre los hilos y se siguen expandiendo los nodos con un F menor
+ * que él. Termina cuando todos los hilos están inactivos y no queda ningún
+ * lote sin procesar, de modo que el coste obtenido es el mismo que el de A*
+ * cuando la heurística es admisible.
+ *
+ * Cada instancia con más de un hilo guarda su propio grupo de hilos, que se
+ * libera con {@link #close()}. Las búsquedas concurrentes sobre la misma
+ * instancia se ejecutan de una en una: la terminación espera a que todos los
+ * trabajadores de una búsqueda estén inactivos, así que dos búsquedas no
+ * pueden repartirse el mismo grupo de hilos.
+ */
+public class ParallelAstar extends Algorithm implements GridSearch, AutoCloseable {
+    private static final int BATCH_SIZE = 64; // Nodos por lote enviado a otro hilo
+    private static final int FLUSH_INTERVAL = 32; // Expansiones entre envíos de lotes incompletos
+    private static final int SPINS_BEFORE_PARK = 64; // Esperas activas antes de dormir al hilo inactivo
+
+    private final int threads; // Número de hilos de búsqueda
+    private final Object running = new Object(); // Cerrojo que serializa las búsquedas de esta instancia
+    private ExecutorService executor; // Hilos reutilizados entre búsquedas
+    private boolean closed; // Indica que se han liberado los hilos
+
+    /**
+     * Constructor que usa un hilo por procesador disponible.
+     */
+    public ParallelAstar() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor de la clase ParallelAstar.
+     *
+     * @param threads Número de hilos de búsqueda.
+     */
+    public ParallelAstar(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Ejecuta HDA* e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada para calcular el costo estimado al objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult parallelAstar(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "HDA* (" + threads + " hilos)";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        Search search = new Search(grid, goal, heuristic, threads, limits);
+        search.workers[search.owner(start)].relax(start, 0, -1);
+        counters.startSearch();
+
+        if (threads == 1) {
+            search.workers[0].run();
+        } else {
+            synchronized (running) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Worker worker : search.workers) {
+                    futures.add(executor().submit(worker));
+                }
+                try {
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } catch (InterruptedException e) {
+                    // Búsqueda cancelada: detener los hilos, esperar a que acaben y conservar la marca de
+                    // interrupción
+                    search.done = true;
+                    awaitAll(futures);
+                    Thread.currentThread().interrupt();
+                    return finish(SearchResult.stopped(getName(), TerminationReason.CANCELLED, 0), counters);
+                } catch (ExecutionException e) {
+                    search.done = true;
+                    awaitAll(futures);
+                    throw new IllegalStateException("Error en un hilo de búsqueda", e.getCause());
+                }
+            }
+        }
+
+        long expanded = 0;
+        Worker closest = search.workers[0];
+        for (Worker worker : search.workers) {
+            expanded += worker.expanded;
+            counters.add(worker.counters);
+            if (worker.bestH < closest.bestH) {
+                closest = worker;
+            }
+        }
+        counters.startPath();
+        SearchResult result;
+        if (search.stop != null) {
+            // Búsqueda detenida por un límite: el camino al objetivo si ya se había encontrado alguno,
+            // o el camino hasta la casilla expandida más cercana al objetivo
+            int last = search.incumbent() != Double.POSITIVE_INFINITY ? goal
+                    : closest.bestCell >= 0 ? closest.bestCell : start;
+            int[] path = SearchResult.buildPath(search.parent, last);
+            result = SearchResult.stopped(getName(), search.stop, pathCost(grid, path), path, expanded);
+        } else if (search.incumbent() == Double.POSITIVE_INFINITY) {
+            result = SearchResult.notFound(getName(), expanded);
+        } else {
+            // Los padres pueden haber mejorado después de fijar el coste del objetivo, así que
+            // el coste se recalcula sobre el camino reconstruido
+            int[] path = SearchResult.buildPath(search.parent, goal);
+            result = new SearchResult(getName(), true, pathCost(grid, path), path, expanded);
+        }
+        result.setPeakMemory(search.memory);
+        return finish(result, counters);
+    }
+
+    /**
+     * Calcula el coste de un camino paso a paso.
+     */
+    private static double pathCost(HeightGrid grid, int[] path) {
+        double cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            cost += grid.stepCost(path[i - 1], path[i]);
+        }
+        return cost;
+    }
+
+    /**
+     * Espera, sin atender interrupciones, a que terminen los trabajadores de una
+     * búsqueda ya marcada como terminada, para que no ocupen los hilos de la
+     * siguiente.
+     */
+    private static void awaitAll(List<Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Libera los hilos de búsqueda. Después no se pueden hacer más búsquedas
+     * con más de un hilo.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Obtiene el grupo de hilos, creándolo la primera vez.
+     *
+     * @return El grupo de hilos de búsqueda.
+     * @throws IllegalStateException Si la instancia ya se ha cerrado.
+     */
+    private synchronized ExecutorService executor() {
+        if (closed) {
+            throw new IllegalStateException("HDA* ya está cerrado");
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "hda-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Estado compartido de una búsqueda.
+     */
+    private static class Search {
+        final HeightGrid grid;
+        final int goal;
+        final State goalState;
+        final Heuristic heuristic;
+        final SearchLimits limits;
+        final long memory; // Memoria estimada de los arrays compartidos
+        final double[] cost; // Mejor coste de cada casilla (solo lo escribe su propietario)
+        final int[] parent; // Padre de cada casilla (solo lo escribe su propietario)
+        final Worker[] workers;
+        final AtomicLong incumbent; // Bits del mejor coste encontrado hasta el objetivo
+        final AtomicLong pending = new AtomicLong(); // Lotes enviados y aún no procesados
+        final AtomicLong activity = new AtomicLong(); // Veces que un hilo ha pasado de inactivo a activo
+        volatile boolean done; // Indica que la búsqueda ha terminado
+        volatile TerminationReason stop; // Límite que ha detenido la búsqueda, o null
+
+        Search(HeightGrid grid, int goal, Heuristic heuristic, int threads, SearchLimits limits) {
+            this.grid = grid;
+            this.goal = goal;
+            this.goalState = grid.state(goal);
+            this.heuristic = heuristic;
+            this.limits = limits;
+            this.memory = (long) grid.size() * 12;
+            this.cost = new double[grid.size()];
+            this.parent = new int[grid.size()];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            this.incumbent = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+            this.workers = new Worker[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(this, i);
+            }
+        }
+
+        /**
+         * Calcula el hilo propietario de una casilla dispersando su índice (función
+         * de mezcla de SplitMix64, equivalente a una tabla de Zobrist sobre el índice
+         * sin tener que guardarla).
+         *
+         * @param cell Índice de la casilla.
+         * @return El índice del hilo propietario.
+         */
+        int owner(int cell) {
+            long z = cell + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z ^= z >>> 31;
+            return (int) ((z >>> 1) % workers.length);
+        }
+
+        /**
+         * Detiene la búsqueda por un límite. Se conserva el primer motivo.
+         */
+        synchronized void stop(TerminationReason reason) {
+            if (stop == null) {
+                stop = reason;
+            }
+            done = true;
+        }
+
+        double incumbent() {
+            return Double.longBitsToDouble(incumbent.get());
+        }
+
+        /**
+         * Actualiza el mejor coste hasta el objetivo si el nuevo es menor. Los double
+         * positivos mantienen su orden al compararlos como long.
+         */
+        void offerIncumbent(double value) {
+            long bits = Double.doubleToLongBits(value);
+            long current;
+            while (bits < (current = incumbent.get())) {
+                if (incumbent.compareAndSet(current, bits)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Comprueba si la búsqueda ha terminado: todos los hilos inactivos, ningún
+         * lote pendiente y ningún hilo reactivado mientras se hacía la comprobación.
+         */
+        boolean checkTermination() {
+            long before = activity.get();
+            for (Worker worker : workers) {
+                if (!worker.idle) {
+                    return false;
+                }
+            }
+            if (pending.get() != 0) {
+                return false;
+            }
+            return activity.get() == before;
+        }
+    }
+
+    /**
+     * Lote de nodos enviado de un hilo a otro.
+     */
+    private static class Batch {
+        final int[] cells = new int[BATCH_SIZE];
+        final double[] costs = new double[BATCH_SIZE];
+        final int[] parents = new int[BATCH_SIZE];
+        int size;
+    }
+
+    /**
+     * Hilo de búsqueda propietario de una parte de las casillas.
+     */
+    private static class Worker implements Runnable {
+        final Search search;
+        final int id;
+        final ConcurrentLinkedQueue<Batch> mailbox = new ConcurrentLinkedQueue<>(); // Lotes recibidos
+        final Batch[] outgoing; // Lote en preparación para cada hilo
+        volatile boolean idle; // Indica que el hilo no tiene trabajo
+        long expanded; // Nodos expandidos por este hilo
+        final SearchCounters counters = new SearchCounters(); // Estadísticas de este hilo
+        int bestCell = -1; // Casilla expandida por este hilo más cercana al objetivo según la heurística
+        double bestH = Double.POSITIVE_INFINITY;
+
+        // Frontera local: montículo binario con eliminación perezosa de entradas obsoletas
+        int[] heapCell = new int[64];
+        double[] heapF = new double[64];
+        double[] heapCost = new double[64];
+        int heapSize;
+        final int[] neighbours = new int[4];
+
+        Worker(Search search, int id) {
+            this.search = search;
+            this.id = id;
+            this.outgoing = new Batch[search.workers.length];
+        }
+
+        @Override
+        public void run() {
+            int workers = search.workers.length;
+            if (workers > 1) {
+                counters.beginThread(); // Con un solo hilo la búsqueda se ejecuta en el hilo que la lanza
+            }
+            try {
+                work(workers);
+            } finally {
+                if (workers > 1) {
+                    counters.endThread();
+                }
+            }
+        }
+
+        private void work(int workers) {
+            int spins = 0;
+            SearchLimits limits = search.limits;
+            while (!search.done) {
+                boolean received = drainMailbox();
+                if (hasWork()) {
+                    spins = 0;
+                    for (int i = 0; i < FLUSH_INTERVAL && hasWork(); i++) {
+                        // Cada hilo estima el total de expansiones a partir de las suyas
+                        TerminationReason stop = limits.check(expanded * workers, search.memory);
+                        if (stop != null) {
+                            search.stop(stop);
+                            return;
+                        }
+                        expand();
+                    }
+                    flushAll();
+                } else if (!received) {
+                    // Sin trabajo: enviar lo pendiente, marcarse inactivo y comprobar la terminación
+                    flushAll();
+                    idle = true;
+                    if (search.checkTermination()) {
+                        search.done = true;
+                    } else if (++spins > SPINS_BEFORE_PARK) {
+                        TerminationReason stop = limits.checkNow();
+                        if (stop != null) {
+                            search.stop(stop);
+                            return;
+                        }
+                        LockSupport.parkNanos(50_000);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Procesa los lotes recibidos de otros hilos.
+         *
+         * @return true si se ha recibido algún lote.
+         */
+        boolean drainMailbox() {
+            boolean received = false;
+            Batch batch;
+            while ((batch = mailbox.poll()) != null) {
+                if (idle) {
+                    // Volver a estar activo antes de dar el lote por procesado
+                    search.activity.incrementAndGet();
+                    idle = false;
+                }
+                for (int i = 0; i < batch.size; i++) {
+                    relax(batch.cells[i], batch.costs[i], batch.parents[i]);
+                }
+                search.pending.decrementAndGet();
+                received = true;
+            }
+            return received;
+        }
+
+        /**
+         * Considera un nuevo camino hasta una casilla propia.
+         */
+        void relax(int cell, double cost, int from) {
+            if (cost >= search.cost[cell]) {
+                return;
+            }
+            search.cost[cell] = cost;
+            search.parent[cell] = from;
+            if (cell == search.goal) {
+                search.offerIncumbent(cost);
+                return; // El objetivo no se expande
+            }
+            double f = cost + search.heuristic.checkStates(search.grid.state(cell), search.goalState);
+            counters.heuristic();
+            counters.generated(false); // Sin marca de cerradas no se distinguen las reaperturas
+            if (f < search.incumbent()) {
+                push(cell, f, cost);
+            }
+        }
+
+        boolean hasWork() {
+            // Descartar entradas obsoletas y comprobar si la mejor puede mejorar la solución
+            while (heapSize > 0 && heapCost[0] > search.cost[heapCell[0]]) {
+                pop();
+                counters.duplicatePop();
+            }
+            return heapSize > 0 && heapF[0] < search.incumbent();
+        }
+
+        void expand() {
+            int cell = heapCell[0];
+            double cost = heapCost[0];
+            double h = heapF[0] - cost;
+            pop();
+            if (cost > search.cost[cell]) {
+                counters.duplicatePop();
+                return;
+            }
+            expanded++;
+            if (h < bestH) {
+                bestH = h;
+                bestCell = cell;
+            }
+            HeightGrid grid = search.grid;
+            int count = grid.neighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int next = neighbours[i];
+                double nextCost = cost + grid.stepCost(cell, next);
+                int owner = search.owner(next);
+                if (owner == id) {
+                    relax(next, nextCost, cell);
+                } else {
+                    send(owner, next, nextCost, cell);
+                }
+            }
+        }
+
+        void send(int owner, int cell, double cost, int from) {
+            Batch batch = outgoing[owner];
+            if (batch == null) {
+                batch = outgoing[owner] = new Batch();
+            }
+            batch.cells[batch.size] = cell;
+            batch.costs[batch.size] = cost;
+            batch.parents[batch.size] = from;
+            if (++batch.size == BATCH_SIZE) {
+                flush(owner);
+            }
+        }
+
+        void flush(int owner) {
+            Batch batch = outgoing[owner];
+            if (batch != null && batch.size > 0) {
+                search.pending.incrementAndGet(); // Antes de publicar el lote
+                search.workers[owner].mailbox.add(batch);
+                outgoing[owner] = null;
+            }
+        }
+
+        void flushAll() {
+            for (int i = 0; i < outgoing.length; i++) {
+                flush(i);
+            }
+        }
+
+        void push(int cell, double f, double cost) {
+            if (heapSize == heapCell.length) {
+                heapCell = Arrays.copyOf(heapCell, heapSize * 2);
+                heapF = Arrays.copyOf(heapF, heapSize * 2);
+                heapCost = Arrays.copyOf(heapCost, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (heapF[up] <= f) {
+                    break;
+                }
+                heapCell[i] = heapCell[up];
+                heapF[i] = heapF[up];
+                heapCost[i] = heapCost[up];
+                i = up;
+            }
+            heapCell[i] = cell;
+            heapF[i] = f;
+            heapCost[i] = cost;
+            counters.open(heapSize);
+        }
+
+        void pop() {
+            heapSize--;
+            if (heapSize == 0) {
+                return;
+            }
+            int cell = heapCell[heapSize];
+            double f = heapF[heapSize];
+            double cost = heapCost[heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapF[child + 1] < heapF[child]) {
+                    child++;
+                }
+                if (f <= heapF[child]) {
+                    break;
+                }
+                heapCell[i] = heapCell[child];
+                heapF[i] = heapF[child];
+                heapCost[i] = heapCost[child];
+                i = child;
+            }
+            heapCell[i] = cell;
+            heapF[i] = f;
+            heapCost[i] = cost;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package algorithms;
+
+import heuristics.*;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cartera de algoritmos: lanza a la vez varias combinaciones de algoritmo y
+ * heurística sobre la misma vista del mapa (de solo lectura) y se queda con la
+ * primera respuesta aceptable. Una respuesta es óptima si la combinación
+ * garantiza el óptimo (por ejemplo, A* con una heurística admisible) o si su
+ * coste coincide con la cota inferior que proporciona el algoritmo. En cuanto
+ * llega una respuesta óptima, o al vencer el plazo, se interrumpen las
+ * búsquedas restantes, que comprueban la interrupción de forma cooperativa.
+ *
+ * Para cada clase de mapa (tamaño y densidad de obstáculos) se cuenta qué
+ * combinación ha ganado, de modo que se pueda ajustar la cartera a los mapas
+ * que se usan en la práctica.
+ *
+ * Los hilos de las búsquedas se crean con la primera consulta y se liberan con
+ * {@link #close()}.
+ */
+public class Portfolio extends Algorithm implements AutoCloseable {
+    private final List<Entry> entries = new ArrayList<>(); // Combinaciones que compiten
+    private final Map<String, Map<String, LongAdder>> wins = new ConcurrentHashMap<>(); // Victorias por clase de mapa
+    private final Map<HeightGrid, String> classes = Collections.synchronizedMap(new WeakHashMap<>()); // Clase por mapa
+    private ExecutorService executor; // Hilos de las búsquedas
+    private boolean closed; // Indica que se han liberado los hilos
+    private final LastGrid lastMap = new LastGrid(); // Vista del último mapa recibido como matriz de estados
+
+    /**
+     * Crea la cartera por defecto: A*, Fringe Search y beam-stack con cada una de
+     * las heurísticas del paquete, más Dijkstra (A* con la heurística nula) como
+     * combinación que garantiza el óptimo.
+     *
+     * @return La cartera por defecto.
+     */
+    public static Portfolio standard() {
+        Portfolio portfolio = new Portfolio();
+        portfolio.add(new SpecializedAstar(), "HeuristicZero", HeuristicZero::new, true);
+        portfolio.add(new SpecializedAstar(), "HeuristicManhattanMinHeight", HeuristicManhattanMinHeight::new, false);
+        portfolio.add(new SpecializedAstar(), "HeuristicEuclideanMaxHeight", HeuristicEuclideanMaxHeight::new, false);
+        portfolio.add(new SpecializedAstar(), "HeuristicManhattanCliffPenalty", HeuristicManhattanCliffPenalty::new,
+                false);
+        portfolio.add(new FringeSearch(), "HeuristicManhattanCliffPenalty", HeuristicManhattanCliffPenalty::new,
+                false);
+        portfolio.add(new BeamSearch(16, true), "HeuristicManhattanCliffPenalty",
+                HeuristicManhattanCliffPenalty::new, false);
+        return portfolio;
+    }
+
+    /**
+     * Añade una combinación a la cartera.
+     *
+     * @param search        Algoritmo de búsqueda.
+     * @param heuristicName Nombre de la heurística, usado en las estadísticas.
+     * @param heuristic     Constructor de la heurística a partir del estado
+     *                      objetivo.
+     * @param optimal       true si la combinación garantiza el camino óptimo.
+     * @return Esta misma cartera, para encadenar llamadas.
+     */
+    public Portfolio add(GridSearch search, String heuristicName, Function<State, Heuristic> heuristic,
+            boolean optimal) {
+        entries.add(new Entry(search, heuristicName, heuristic, optimal));
+        return this;
+    }
+
+    /**
+     * Resuelve el mapa con la cartera e imprime el resultado de la combinación
+     * ganadora.
+     *
+     * @param map     Matriz de estados que representa el mapa.
+     * @param ini     Estado inicial desde donde comienza la búsqueda.
+     * @param end     Estado objetivo al que se desea llegar.
+     * @param timeout Plazo en milisegundos (0 para esperar sin límite).
+     * @return El resultado de la cartera.
+     */
+    public Outcome portfolio(State[][] map, State ini, State end, long timeout) {
+        HeightGrid grid = lastMap.of(map);
+        Outcome outcome = solve(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), timeout);
+        if (!isQuiet()) {
+            System.out.println("Ganador: " + (outcome.getWinner() != null ? outcome.getWinner() : "ninguno")
+                    + (outcome.isOptimal() ? " (óptimo)" : "") + " en " + outcome.getMillis() + " ms");
+        }
+        printSearchResult(outcome.getResult(), grid, map);
+        return outcome;
+    }
+
+    /**
+     * Lanza todas las combinaciones en paralelo y devuelve la primera respuesta
+     * óptima o, si no llega ninguna, la de menor coste disponible al terminar
+     * todas o al vencer el plazo.
+     *
+     * @param grid    Vista del mapa, compartida por todas las búsquedas.
+     * @param start   Índice de la casilla inicial.
+     * @param goal    Índice de la casilla objetivo.
+     * @param timeout Plazo en milisegundos (0 para esperar sin límite).
+     * @return El resultado de la cartera.
+     * @throws IllegalStateException Si la cartera ya se ha cerrado.
+     */
+    public Outcome solve(HeightGrid grid, int start, int goal, long timeout) {
+        long begin = System.nanoTime();
+        long deadline = timeout > 0 ? begin + TimeUnit.MILLISECONDS.toNanos(timeout) : Long.MAX_VALUE;
+        State goalState = grid.state(goal);
+        // Todas las búsquedas comparten el plazo y se detienen al cancelar el testigo
+        CancellationToken token = new CancellationToken();
+        SearchLimits limits = SearchLimits.NONE.withToken(token).withDeadline(deadline);
+
+        CompletionService<Finished> completion = new ExecutorCompletionService<>(executor());
+        List<Future<Finished>> futures = new ArrayList<>();
+        for (Entry entry : entries) {
+            futures.add(completion.submit(() -> new Finished(entry,
+                    entry.search.search(grid, start, goal, entry.heuristic.apply(goalState), limits))));
+        }
+
+        Finished best = null;
+        boolean optimal = false;
+        try {
+            for (int remaining = entries.size(); remaining > 0 && !optimal; remaining--) {
+                Future<Finished> future = deadline == Long.MAX_VALUE
+                        ? completion.take()
+                        : completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    break; // Plazo vencido
+                }
+                Finished finished;
+                try {
+                    finished = future.get();
+                } catch (ExecutionException e) {
+                    continue; // Una combinación que falla no impide que ganen las demás
+                }
+                SearchResult result = finished.result;
+                if (!result.isFound()) {
+                    continue;
+                }
+                if (best == null || result.getCost() < best.result.getCost()) {
+                    best = finished;
+                }
+                optimal = finished.entry.optimal
+                        || !Double.isNaN(result.getLowerBound()) && result.getCost() <= result.getLowerBound();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Cancelar las búsquedas que siguen en marcha
+            token.cancel();
+            for (Future<Finished> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        String mapClass = classes.computeIfAbsent(grid, Portfolio::mapClass); // Se recorre el mapa una sola vez
+        if (best == null) {
+            return new Outcome(SearchResult.notFound("Cartera", 0), null, mapClass, false, millis);
+        }
+        String winner = best.entry.getName();
+        wins.computeIfAbsent(mapClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(winner, key -> new LongAdder()).increment();
+        return new Outcome(best.result, winner, mapClass, optimal, millis);
+    }
+
+    /**
+     * Clasifica un mapa por su tamaño (redondeado a la siguiente potencia de dos)
+     * y por su densidad de obstáculos (en tramos del 10%).
+     *
+     * @param grid Vista del mapa.
+     * @return La clase del mapa, por ejemplo "hasta 256, obstáculos 10-20%".
+     */
+    public static String mapClass(HeightGrid grid) {
+        int side = Integer.highestOneBit(Math.max(1, Math.max(grid.rows(), grid.cols()) - 1)) * 2;
+        int blocked = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.isBlocked(cell)) {
+                blocked++;
+            }
+        }
+        int decile = Math.min(9, blocked * 10 / Math.max(1, grid.size()));
+        return "hasta " + side + ", obstáculos " + decile * 10 + "-" + (decile + 1) * 10 + "%";
+    }
+
+    /**
+     * Obtiene las victorias de cada combinación, agrupadas por clase de mapa.
+     *
+     * @return Un mapa ordenado de clase de mapa a victorias por combinación.
+     */
+    public Map<String, Map<String, Long>> getWins() {
+        Map<String, Map<String, Long>> copy = new TreeMap<>();
+        wins.forEach((mapClass, counts) -> {
+            Map<String, Long> row = new TreeMap<>();
+            counts.forEach((name, count) -> row.put(name, count.sum()));
+            copy.put(mapClass, row);
+        });
+        return copy;
+    }
+
+    /**
+     * Imprime las victorias de cada combinación por clase de mapa.
+     */
+    public void printWins() {
+        getWins().forEach((mapClass, counts) -> {
+            System.out.println("Mapas " + mapClass + ":");
+            counts.forEach((name, count) -> System.out.printf("  %-50s %d%n", name, count));
+        });
+    }
+
+    /**
+     * Libera los hilos de las búsquedas. Después no se pueden resolver más
+     * consultas.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Obtiene el ejecutor de las búsquedas, creándolo la primera vez.
+     *
+     * @return El ejecutor de las búsquedas.
+     * @throws IllegalStateException Si la cartera ya se ha cerrado.
+     */
+    private synchronized ExecutorService executor() {
+        if (closed) {
+            throw new IllegalStateException("La cartera ya está cerrada");
+        }
+        if (executor == null) {
+            executor = SearchExecutors.newPerTaskExecutor("portfolio-worker");
+        }
+        return executor;
+    }
+
+    /**
+     * Combinación de algoritmo y heurística.
+     */
+    private static class Entry {
+        final GridSearch search;
+        final String heuristicName;
+        final Function<State, Heuristic> heuristic;
+        final boolean optimal; // Indica si la combinación garantiza el óptimo
+
+        Entry(GridSearch search, String heuristicName, Function<State, Heuristic> heuristic, boolean optimal) {
+            this.search = search;
+            this.heuristicName = heuristicName;
+            this.heuristic = heuristic;
+            this.optimal = optimal;
+        }
+
+        String getName() {
+            return search.getName() + " + " + heuristicName;
+        }
+    }
+
+    /**
+     * Resultado de una combinación que ha terminado.
+     */
+    private static class Finished {
+        final Entry entry;
+        final SearchResult result;
+
+        Finished(Entry entry, SearchResult result) {
+            this.entry = entry;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Resultado de la cartera.
+     */
+    public static class Outcome {
+        private final SearchResult result; // Resultado de la combinación ganadora
+        private final String winner; // Nombre de la combinación ganadora (null si ninguna encontró camino)
+        private final String mapClass; // Clase del mapa resuelto
+        private final boolean optimal; // Indica si el resultado es óptimo
+        private final long millis; // Tiempo hasta obtener la respuesta
+
+        Outcome(SearchResult result, String winner, String mapClass, boolean optimal, long millis) {
+            this.result = result;
+            this.winner = winner;
+            this.mapClass = mapClass;
+            this.optimal = optimal;
+            this.millis = millis;
+        }
+
+        /**
+         * @return El resultado de la combinación ganadora.
+         */
+        public SearchResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return El nombre de la combinación ganadora, o null si ninguna encontró
+         *         camino.
+         */
+        public String getWinner() {
+            return winner;
+        }
+
+        /**
+         * @return La clase del mapa resuelto.
+         */
+        public String getMapClass() {
+            return mapClass;
+        }
+
+        /**
+         * @return true si el resultado es óptimo.
+         */
+        public boolean isOptimal() {
+            return optimal;
+        }
+
+        /**
+         * @return El tiempo en milisegundos hasta obtener la respuesta.
+         */
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
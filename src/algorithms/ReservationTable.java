@@ -0,0 +1,134 @@
+package algorithms;
+
+import loadMap.HeightGrid;
+
+/**
+ * Tabla de reservas espacio-temporales para la planificación de varios
+ * agentes. Cada reserva asocia un agente a una casilla en un instante (o a un
+ * paso entre dos casillas vecinas, para impedir que dos agentes se crucen en
+ * sentidos opuestos). El tiempo se mide en pasos discretos ({@code tick}).
+ *
+ * Las claves (casilla o paso, instante) se codifican en un long y se guardan
+ * en una tabla hash con direccionamiento abierto sobre arrays primitivos. La
+ * tabla no está sincronizada: los agentes reservan de uno en uno.
+ */
+public class ReservationTable {
+    private static final int VERTEX = 0; // Reserva de una casilla
+    private static final int HORIZONTAL = 1; // Reserva del paso entre una casilla y la de su derecha
+    private static final int VERTICAL = 2; // Reserva del paso entre una casilla y la de debajo
+    private static final int KINDS = 3;
+    private static final int FREE = -1; // Valor devuelto para las claves sin reserva
+
+    private final int size; // Número de casillas del mapa
+    private final int cols; // Columnas del mapa
+    private final LongIntHashMap owners; // Agente propietario de cada reserva
+
+    /**
+     * Constructor de la clase ReservationTable.
+     *
+     * @param grid Vista del mapa sobre el que se reserva.
+     */
+    public ReservationTable(HeightGrid grid) {
+        this.size = grid.size();
+        this.cols = grid.cols();
+        this.owners = new LongIntHashMap(1024);
+    }
+
+    /**
+     * Calcula la clave de la reserva de una casilla en un instante.
+     *
+     * @param cell Índice de la casilla.
+     * @param tick Instante.
+     * @return La clave de la reserva.
+     */
+    public long vertexKey(int cell, int tick) {
+        return ((long) tick * KINDS + VERTEX) * size + cell;
+    }
+
+    /**
+     * Calcula la clave de la reserva del paso entre dos casillas vecinas en un
+     * instante. El paso se reserva en ambos sentidos a la vez.
+     *
+     * @param from Casilla de origen.
+     * @param to   Casilla de destino, vecina de {@code from}.
+     * @param tick Instante.
+     * @return La clave de la reserva.
+     */
+    public long edgeKey(int from, int to, int tick) {
+        int lower = Math.min(from, to);
+        int kind = Math.abs(from - to) == cols ? VERTICAL : HORIZONTAL;
+        return ((long) tick * KINDS + kind) * size + lower;
+    }
+
+    /**
+     * @return El instante de una clave.
+     */
+    public int tickOf(long key) {
+        return (int) (key / size / KINDS);
+    }
+
+    /**
+     * Comprueba si una reserva está libre para un agente (no la tiene nadie o
+     * la tiene el propio agente).
+     *
+     * @param key   Clave de la reserva.
+     * @param agent Agente que consulta.
+     * @return true si el agente puede usar la reserva.
+     */
+    public boolean isFree(long key, int agent) {
+        int owner = owners.get(key, FREE);
+        return owner == FREE || owner == agent;
+    }
+
+    /**
+     * @param key   Clave de la reserva.
+     * @param agent Agente que consulta.
+     * @return true si la reserva ya es del agente.
+     */
+    public boolean isHeldBy(long key, int agent) {
+        return owners.get(key, FREE) == agent;
+    }
+
+    /**
+     * Reserva una clave para un agente.
+     *
+     * @param key   Clave de la reserva.
+     * @param agent Agente que reserva.
+     * @return false si la clave ya la tenía otro agente (en ese caso no se
+     *         modifica).
+     */
+    public boolean reserve(long key, int agent) {
+        int owner = owners.get(key, FREE);
+        if (owner != FREE && owner != agent) {
+            return false;
+        }
+        owners.put(key, agent);
+        return true;
+    }
+
+    /**
+     * Libera una reserva si pertenece al agente.
+     *
+     * @param key   Clave de la reserva.
+     * @param agent Agente que libera.
+     */
+    public void release(long key, int agent) {
+        if (owners.get(key, FREE) == agent) {
+            owners.remove(key);
+        }
+    }
+
+    /**
+     * @return El número de reservas activas.
+     */
+    public int size() {
+        return owners.size();
+    }
+
+    /**
+     * @return Bytes ocupados por la tabla.
+     */
+    public long bytes() {
+        return owners.bytes();
+    }
+}
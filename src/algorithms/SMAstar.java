@@ -0,0 +1,437 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import states.State;
+
+import java.util.*;
+
+/**
+ * Implementación de SMA* (A* simplificado con memoria acotada). Funciona como
+ * A* mientras haya memoria; cuando se alcanza el número máximo de nodos,
+ * descarta la hoja con mayor F (y menor profundidad) y su padre recuerda el
+ * menor F de los hijos olvidados, para volver a generarlos si esa rama vuelve
+ * a ser la más prometedora.
+ *
+ * Si hay más nodos con el mismo F de los que caben en memoria, SMA* puede
+ * quedarse descartando y regenerando siempre los mismos nodos. Para no entrar
+ * en ese bucle, la búsqueda se abandona (sin camino) cuando lleva demasiadas
+ * expansiones sin que aumente el F del mejor nodo.
+ */
+public class SMAstar extends Algorithm implements GridSearch {
+    static final int NODE_BYTES = 96; // Bytes estimados por nodo (objeto, entrada en el árbol y en el índice)
+    private static final long DEFAULT_MEMORY = 16L << 20; // Techo de memoria por defecto: 16 MB
+    private static final int PLATEAU_FACTOR = 16; // Expansiones sin mejorar F (en múltiplos del máximo de nodos)
+
+    private final long memoryLimit; // Techo de memoria en bytes
+
+    /**
+     * Constructor con el techo de memoria por defecto.
+     */
+    public SMAstar() {
+        this(DEFAULT_MEMORY);
+    }
+
+    /**
+     * Constructor de la clase SMAstar.
+     *
+     * @param memoryLimit Memoria máxima, en bytes, que pueden ocupar los nodos.
+     */
+    public SMAstar(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Ejecuta SMA* e imprime los resultados.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @param ini Estado inicial desde donde comienza la búsqueda.
+     * @param end Estado objetivo al que se desea llegar.
+     * @param h   Heurística utilizada para calcular el costo estimado al objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    public SearchResult smaStar(State[][] map, State ini, State end, Heuristic h) {
+        HeightGrid grid = HeightGrid.of(map);
+        SearchResult result = search(grid, grid.index(ini.getPosition()), grid.index(end.getPosition()), h);
+        printSearchResult(result, grid, map);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "SMA*";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        State goalState = grid.state(goal);
+        int maxNodes = (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryLimit / NODE_BYTES));
+        Frontier frontier = new Frontier();
+        NodeIndex inMemory = new NodeIndex(Math.min(maxNodes, grid.size())); // Mejor nodo en memoria por casilla
+        int[] neighbours = new int[4];
+        long nextId = 0;
+        long expanded = 0;
+        int used = 1;
+        int peak = 1;
+        double plateauF = Double.NEGATIVE_INFINITY; // F del mejor nodo en la meseta actual
+        long plateauStart = 0; // Expansiones al llegar a la meseta actual
+
+        double rootH = heuristic.checkStates(grid.state(start), goalState);
+        counters.heuristic();
+        Node root = new Node(nextId++, start, null, 0, rootH, 0);
+        frontier.add(root);
+        inMemory.put(start, root);
+        Node best = root; // Nodo generado con menor heurística, para los resultados parciales
+        double bestH = rootH;
+        counters.startSearch();
+
+        while (!frontier.isEmpty()) {
+            counters.open(frontier.size());
+            Node node = frontier.pollBest();
+            if (node.f == Double.POSITIVE_INFINITY) {
+                break; // Ningún camino cabe en la memoria disponible
+            }
+            if (node.cell == goal) {
+                counters.startPath();
+                SearchResult result = new SearchResult(getName(), true, node.g, node.path(), expanded);
+                result.setPeakMemory((long) peak * NODE_BYTES);
+                return finish(result, counters);
+            }
+            TerminationReason stop = limits.check(expanded, (long) used * NODE_BYTES);
+            if (stop != null) {
+                counters.startPath();
+                SearchResult result = SearchResult.stopped(getName(), stop, best.g, best.path(), expanded);
+                result.setPeakMemory((long) peak * NODE_BYTES);
+                return finish(result, counters);
+            }
+            expanded++;
+            node.forgottenF = Double.POSITIVE_INFINITY;
+            if (node.f > plateauF) {
+                plateauF = node.f;
+                plateauStart = expanded;
+            } else if (expanded - plateauStart > (long) PLATEAU_FACTOR * maxNodes) {
+                break; // La meseta de F no cabe en memoria
+            }
+
+            int count = grid.neighbours(node.cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int cell = neighbours[i];
+                if (node.hasChild(cell)) {
+                    continue; // El hijo sigue en memoria desde una expansión anterior
+                }
+                double g = node.g + grid.stepCost(node.cell, cell);
+                Node existing = inMemory.get(cell);
+                if (existing != null && existing.g <= g) {
+                    continue; // Ya hay en memoria un camino igual o mejor a esta casilla
+                }
+                if (existing != null && existing.open && existing.childCount == 0 && existing.parent != null) {
+                    // El nuevo camino es mejor: la hoja anterior ya no es necesaria
+                    frontier.remove(existing);
+                    existing.parent.removeChild(existing);
+                    used -= 1 + releaseDeadBranch(existing.parent, frontier, inMemory);
+                }
+
+                // Liberar memoria descartando la peor hoja si se ha llegado al límite. Los
+                // hijos del nodo que se expande no se descartan para no entrar en un ciclo
+                while (used >= maxNodes) {
+                    Node worst = frontier.worstLeaf(node);
+                    if (worst == null) {
+                        break;
+                    }
+                    forget(worst, frontier, inMemory);
+                    used--;
+                }
+
+                // Si no cabe el camino completo en memoria, esta rama no puede llegar al objetivo
+                double h = heuristic.checkStates(grid.state(cell), goalState);
+                counters.heuristic();
+                counters.generated(existing != null); // Camino mejor a una casilla que seguía en memoria
+                double f = node.depth + 1 >= maxNodes - 1 && cell != goal
+                        ? Double.POSITIVE_INFINITY
+                        : Math.max(node.f, g + h);
+                Node child = new Node(nextId++, cell, node, g, f, node.depth + 1);
+                if (h < bestH) {
+                    best = child;
+                    bestH = h;
+                }
+                node.addChild(child);
+                frontier.add(child);
+                inMemory.put(cell, child);
+                used++;
+                peak = Math.max(peak, used);
+            }
+
+            // Si la expansión no ha dejado hijos, la rama está muerta y se libera
+            used -= releaseDeadBranch(node, frontier, inMemory);
+        }
+
+        SearchResult result = SearchResult.notFound(getName(), expanded);
+        result.setPeakMemory((long) peak * NODE_BYTES);
+        return finish(result, counters);
+    }
+
+    /**
+     * Elimina una hoja de la memoria. Su padre guarda el F de la hoja y vuelve a
+     * la frontera con ese valor para poder regenerarla más adelante.
+     *
+     * @param leaf     Hoja que se descarta.
+     * @param frontier Frontera de la búsqueda.
+     * @param inMemory Índice de nodos en memoria por casilla.
+     */
+    private static void forget(Node leaf, Frontier frontier, NodeIndex inMemory) {
+        frontier.remove(leaf);
+        inMemory.remove(leaf.cell, leaf);
+        Node parent = leaf.parent;
+        parent.removeChild(leaf);
+
+        boolean wasOpen = frontier.remove(parent);
+        parent.forgottenF = Math.min(parent.forgottenF, leaf.f);
+        parent.f = wasOpen ? Math.min(parent.f, parent.forgottenF) : parent.forgottenF;
+        frontier.add(parent);
+    }
+
+    /**
+     * Libera un nodo sin hijos que ya no está en la frontera, y sus antecesores
+     * que queden en la misma situación.
+     *
+     * @param node     Nodo recién expandido.
+     * @param frontier Frontera de la búsqueda.
+     * @param inMemory Índice de nodos en memoria por casilla.
+     * @return El número de nodos liberados.
+     */
+    private static int releaseDeadBranch(Node node, Frontier frontier, NodeIndex inMemory) {
+        int released = 0;
+        while (node.parent != null && node.childCount == 0 && !node.open) {
+            inMemory.remove(node.cell, node);
+            node.parent.removeChild(node);
+            released++;
+            node = node.parent;
+        }
+        if (node.open && node.childCount == 0) {
+            // El nodo de la frontera donde se detiene ha pasado a ser una hoja
+            frontier.remove(node);
+            frontier.add(node);
+        }
+        return released;
+    }
+
+    /**
+     * Índice de los nodos en memoria por casilla: tabla de direccionamiento
+     * abierto con claves int, sin cajas Integer ni entradas por nodo. Su tamaño
+     * depende del máximo de nodos en memoria, no del tamaño del mapa.
+     */
+    private static final class NodeIndex {
+        private int[] keys; // Casilla de cada posición (-1 si está libre)
+        private Node[] values; // Nodo de cada posición
+        private int mask; // Máscara para reducir la dispersión a una posición
+        private int size; // Casillas guardadas
+
+        /**
+         * @param maxEntries Número de casillas que se espera guardar a la vez.
+         */
+        NodeIndex(int maxEntries) {
+            allocate(maxEntries >= 1 << 29 ? 1 << 30 : Integer.highestOneBit(Math.max(1, 2 * maxEntries - 1)) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            values = new Node[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        Node get(int cell) {
+            for (int slot = slot(cell); keys[slot] != -1; slot = (slot + 1) & mask) {
+                if (keys[slot] == cell) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        void put(int cell, Node node) {
+            int slot = slot(cell);
+            while (keys[slot] != -1 && keys[slot] != cell) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == -1 && ++size * 2 > keys.length) {
+                // Más nodos de los previstos (la hoja a descartar puede faltar): duplicar la tabla
+                int[] oldKeys = keys;
+                Node[] oldValues = values;
+                allocate(oldKeys.length * 2);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != -1) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+                put(cell, node);
+                return;
+            }
+            keys[slot] = cell;
+            values[slot] = node;
+        }
+
+        /**
+         * Elimina la casilla solo si su nodo es {@code node}.
+         */
+        void remove(int cell, Node node) {
+            int slot = slot(cell);
+            while (keys[slot] != cell) {
+                if (keys[slot] == -1) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] != node) {
+                return;
+            }
+            // Borrado con desplazamiento hacia atrás: las entradas siguientes ocupan el hueco si les corresponde
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next] != -1; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = -1;
+            values[hole] = null;
+            size--;
+        }
+
+        private int slot(int cell) {
+            int h = cell * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * Frontera de SMA*. Además de los nodos ordenados por F, mantiene aparte las
+     * hojas (nodos de la frontera sin hijos en memoria) para encontrar la peor sin
+     * recorrer toda la frontera.
+     */
+    private static class Frontier {
+        // Orden por F; en caso de empate, primero los nodos más profundos
+        private static final Comparator<Node> ORDER = (a, b) -> {
+            int cmp = Double.compare(a.f, b.f);
+            if (cmp == 0) {
+                cmp = Integer.compare(b.depth, a.depth);
+            }
+            return cmp != 0 ? cmp : Long.compare(a.id, b.id);
+        };
+
+        private final TreeSet<Node> open = new TreeSet<>(ORDER); // Nodos pendientes de expandir
+        private final TreeSet<Node> leaves = new TreeSet<>(ORDER); // Hojas de la frontera que se pueden descartar
+
+        boolean isEmpty() {
+            return open.isEmpty();
+        }
+
+        int size() {
+            return open.size();
+        }
+
+        void add(Node node) {
+            open.add(node);
+            node.open = true;
+            if (node.childCount == 0 && node.parent != null) {
+                leaves.add(node);
+            }
+            if (node.parent != null && node.parent.open) {
+                leaves.remove(node.parent); // El padre ya no es una hoja
+            }
+        }
+
+        boolean remove(Node node) {
+            if (!node.open) {
+                return false;
+            }
+            open.remove(node);
+            leaves.remove(node);
+            node.open = false;
+            return true;
+        }
+
+        Node pollBest() {
+            Node node = open.pollFirst();
+            leaves.remove(node);
+            node.open = false;
+            return node;
+        }
+
+        /**
+         * Busca la hoja con mayor F (y menor profundidad).
+         *
+         * @param current Nodo que se está expandiendo, cuyos hijos no se descartan.
+         * @return La peor hoja, o null si no hay ninguna que se pueda descartar.
+         */
+        Node worstLeaf(Node current) {
+            for (Iterator<Node> it = leaves.descendingIterator(); it.hasNext();) {
+                Node candidate = it.next();
+                if (candidate.parent != current) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Nodo del árbol de búsqueda de SMA*.
+     */
+    private static class Node {
+        final long id; // Identificador para desempatar en la frontera
+        final int cell; // Casilla del nodo
+        final Node parent; // Nodo padre (null para la raíz)
+        final double g; // Coste desde el inicio
+        final int depth; // Profundidad en el árbol
+        double f; // Valor F (puede actualizarse con los hijos olvidados)
+        double forgottenF = Double.POSITIVE_INFINITY; // Menor F de los hijos descartados
+        boolean open; // Indica si el nodo está en la frontera
+        final Node[] children = new Node[4]; // Hijos en memoria
+        int childCount; // Número de hijos en memoria
+
+        Node(long id, int cell, Node parent, double g, double f, int depth) {
+            this.id = id;
+            this.cell = cell;
+            this.parent = parent;
+            this.g = g;
+            this.f = f;
+            this.depth = depth;
+        }
+
+        boolean hasChild(int cell) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i].cell == cell) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void addChild(Node child) {
+            children[childCount++] = child;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] == child) {
+                    children[i] = children[--childCount];
+                    children[childCount] = null;
+                    return;
+                }
+            }
+        }
+
+        int[] path() {
+            int[] path = new int[depth + 1];
+            for (Node n = this; n != null; n = n.parent) {
+                path[n.depth] = n.cell;
+            }
+            return path;
+        }
+    }
+}
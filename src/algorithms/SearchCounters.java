@@ -0,0 +1,232 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import metrics.MetricsRegistry;
+import metrics.SearchEvent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Contadores de una búsqueda en curso. Cada búsqueda crea los suyos, así que
+ * no necesitan sincronización. Todos los métodos comprueban
+ * {@link SearchStats#ENABLED} y, al ser una constante, el JIT los reduce a nada
+ * cuando el recuento está desactivado.
+ *
+ * Las fases se marcan con {@link #startSearch} y {@link #startPath}: lo que
+ * ocurre antes de la primera es preparación y lo que ocurre después de la
+ * segunda, reconstrucción del camino.
+ *
+ * Al cerrar la búsqueda con {@link #commit} se emite un {@link SearchEvent} de
+ * Java Flight Recorder y se anota en {@link MetricsRegistry#global()}, con
+ * independencia de {@link SearchStats#ENABLED}.
+ */
+final class SearchCounters {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean(); // Null si no se mide
+
+    long generated; // Sucesores generados con un coste mejor
+    long reopened; // Nodos cerrados que se vuelven a abrir
+    long duplicatePops; // Extracciones obsoletas o repetidas
+    long peakOpen; // Tamaño máximo de la frontera
+    long heuristicEvaluations; // Evaluaciones de la heurística
+    long allocatedBytes; // Bytes reservados por otros hilos de la búsqueda
+
+    private final SearchEvent event; // Evento de la búsqueda (null en los hilos auxiliares)
+    private final int rows; // Filas del mapa
+    private final int cols; // Columnas del mapa
+    private final int heuristicType; // Tipo de la heurística
+    private final long begin; // Inicio de la búsqueda
+    private long searchStart; // Inicio del bucle de búsqueda (0 si no se ha marcado)
+    private long pathStart; // Inicio de la reconstrucción del camino (0 si no se ha marcado)
+    private long allocatedAtBegin; // Bytes reservados por el hilo al empezar
+
+    /**
+     * Crea los contadores de una búsqueda y marca su inicio.
+     *
+     * @param rows      Filas del mapa.
+     * @param cols      Columnas del mapa.
+     * @param heuristic Heurística de la búsqueda (null si no usa ninguna).
+     */
+    SearchCounters(int rows, int cols, Heuristic heuristic) {
+        this.event = new SearchEvent();
+        this.rows = rows;
+        this.cols = cols;
+        this.heuristicType = heuristic != null ? heuristic.getType() : 0;
+        event.begin();
+        this.begin = System.nanoTime();
+        if (SearchStats.ENABLED) {
+            allocatedAtBegin = threadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Crea los contadores de un hilo auxiliar de una búsqueda, que se suman a
+     * los de la búsqueda con {@link #add}.
+     */
+    SearchCounters() {
+        this.event = null;
+        this.rows = 0;
+        this.cols = 0;
+        this.heuristicType = 0;
+        this.begin = System.nanoTime();
+    }
+
+    /**
+     * Marca el final de la preparación y el inicio del bucle de búsqueda.
+     */
+    void startSearch() {
+        if (SearchStats.ENABLED) {
+            searchStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marca el inicio de la reconstrucción del camino.
+     */
+    void startPath() {
+        if (SearchStats.ENABLED) {
+            pathStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Cuenta un sucesor generado.
+     *
+     * @param reopen true si el sucesor ya se había expandido.
+     */
+    void generated(boolean reopen) {
+        if (SearchStats.ENABLED) {
+            generated++;
+            if (reopen) {
+                reopened++;
+            }
+        }
+    }
+
+    /**
+     * Cuenta una extracción de la frontera que no se expande.
+     */
+    void duplicatePop() {
+        if (SearchStats.ENABLED) {
+            duplicatePops++;
+        }
+    }
+
+    /**
+     * Cuenta una evaluación de la heurística.
+     */
+    void heuristic() {
+        if (SearchStats.ENABLED) {
+            heuristicEvaluations++;
+        }
+    }
+
+    /**
+     * Actualiza el tamaño máximo de la frontera.
+     *
+     * @param size Tamaño actual de la frontera.
+     */
+    void open(long size) {
+        if (SearchStats.ENABLED && size > peakOpen) {
+            peakOpen = size;
+        }
+    }
+
+    /**
+     * Empieza a medir la memoria reservada por el hilo actual, para los
+     * contadores de un hilo auxiliar de la búsqueda.
+     */
+    void beginThread() {
+        if (SearchStats.ENABLED) {
+            allocatedAtBegin = threadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Acumula la memoria reservada por el hilo actual desde
+     * {@link #beginThread}.
+     */
+    void endThread() {
+        if (SearchStats.ENABLED) {
+            allocatedBytes += threadAllocatedBytes() - allocatedAtBegin;
+        }
+    }
+
+    /**
+     * Suma los contadores de otro hilo de la misma búsqueda.
+     *
+     * @param other Contadores del otro hilo.
+     */
+    void add(SearchCounters other) {
+        generated += other.generated;
+        reopened += other.reopened;
+        duplicatePops += other.duplicatePops;
+        peakOpen += other.peakOpen; // Las fronteras de los hilos coexisten
+        heuristicEvaluations += other.heuristicEvaluations;
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    /**
+     * Emite el evento de la búsqueda y la anota en el registro de métricas.
+     *
+     * @param algorithm   Nombre del algoritmo.
+     * @param expanded    Nodos expandidos.
+     * @param cost        Coste del camino (infinito si no hay).
+     * @param found       true si se encontró un camino completo.
+     * @param termination Motivo de terminación.
+     */
+    void commit(String algorithm, long expanded, double cost, boolean found, TerminationReason termination) {
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.heuristicType = heuristicType;
+            event.rows = rows;
+            event.cols = cols;
+            event.expanded = expanded;
+            event.cost = cost;
+            event.found = found;
+            event.termination = termination != null ? termination.name() : null;
+            event.commit();
+        }
+        if (MetricsRegistry.ENABLED) {
+            MetricsRegistry.global().recordSearch(algorithm, heuristicType, System.nanoTime() - begin, expanded);
+        }
+    }
+
+    /**
+     * Cierra la medición y crea las estadísticas.
+     *
+     * @param algorithm Nombre del algoritmo.
+     * @param expanded  Nodos expandidos.
+     * @return Las estadísticas de la búsqueda, o null si están desactivadas.
+     */
+    SearchStats finish(String algorithm, long expanded) {
+        if (!SearchStats.ENABLED) {
+            return null;
+        }
+        long end = System.nanoTime();
+        long searchFrom = searchStart != 0 ? searchStart : begin;
+        long searchTo = pathStart != 0 ? pathStart : end;
+        return new SearchStats(algorithm, expanded, generated, reopened, duplicatePops, peakOpen,
+                heuristicEvaluations, searchFrom - begin, searchTo - searchFrom, end - searchTo,
+                allocatedBytes + threadAllocatedBytes() - allocatedAtBegin);
+    }
+
+    /**
+     * @return Los bytes reservados hasta ahora por el hilo actual, o 0 si la
+     *         JVM no lo mide.
+     */
+    private static long threadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package algorithms;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creación de los grupos de hilos usados por las búsquedas concurrentes.
+ * Cuando la máquina virtual dispone de hilos virtuales (Java 21 o superior) se
+ * usa un hilo virtual por tarea; en versiones anteriores se recurre a un grupo
+ * de hilos de plataforma que se reutilizan entre tareas.
+ */
+public final class SearchExecutors {
+
+    private SearchExecutors() {
+    }
+
+    /**
+     * Crea un ejecutor que lanza cada tarea en su propio hilo.
+     *
+     * @param name Nombre de los hilos (solo para hilos de plataforma).
+     * @return Un ejecutor con un hilo virtual por tarea si están disponibles, o un
+     *         grupo de hilos demonio en caso contrario.
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            // Se busca por reflexión para que el código compile también con Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return true si las tareas se ejecutan en hilos virtuales.
+     */
+    public static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
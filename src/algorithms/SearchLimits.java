@@ -0,0 +1,128 @@
+package algorithms;
+
+/**
+ * Límites de una búsqueda: hora límite, número máximo de nodos expandidos,
+ * memoria máxima estimada y testigo de cancelación. Es inmutable; los métodos
+ * {@code with...} devuelven una copia con el límite cambiado, de modo que una
+ * misma instancia puede compartirse entre búsquedas.
+ *
+ * Los algoritmos llaman a {@link #check} en cada expansión. El número de
+ * nodos y la memoria se comparan siempre; la hora, el testigo y la
+ * interrupción del hilo solo cada {@value #CHECK_INTERVAL} expansiones, para
+ * que la comprobación no se note en el bucle principal.
+ */
+public final class SearchLimits {
+    static final int CHECK_INTERVAL = 1024; // Expansiones entre comprobaciones de la hora y la cancelación
+
+    /** Sin límites (salvo la interrupción del hilo). */
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private final long deadline; // Hora límite según System.nanoTime (Long.MAX_VALUE si no hay)
+    private final long maxExpansions; // Máximo de nodos expandidos
+    private final long maxMemory; // Máximo de memoria estimada en bytes
+    private final CancellationToken token; // Testigo de cancelación (puede ser null)
+
+    private SearchLimits(long deadline, long maxExpansions, long maxMemory, CancellationToken token) {
+        this.deadline = deadline;
+        this.maxExpansions = maxExpansions;
+        this.maxMemory = maxMemory;
+        this.token = token;
+    }
+
+    /**
+     * @param millis Milisegundos desde ahora hasta la hora límite.
+     * @return Una copia con la hora límite dentro de {@code millis} ms.
+     */
+    public SearchLimits withTimeout(long millis) {
+        return withDeadline(System.nanoTime() + millis * 1_000_000L);
+    }
+
+    /**
+     * @param nanoTime Hora límite según {@link System#nanoTime}.
+     * @return Una copia con la hora límite indicada.
+     */
+    public SearchLimits withDeadline(long nanoTime) {
+        return new SearchLimits(nanoTime, maxExpansions, maxMemory, token);
+    }
+
+    /**
+     * @param expansions Número máximo de nodos expandidos.
+     * @return Una copia con el límite de nodos indicado.
+     */
+    public SearchLimits withMaxExpansions(long expansions) {
+        return new SearchLimits(deadline, expansions, maxMemory, token);
+    }
+
+    /**
+     * @param bytes Memoria máxima estimada en bytes.
+     * @return Una copia con el límite de memoria indicado.
+     */
+    public SearchLimits withMaxMemory(long bytes) {
+        return new SearchLimits(deadline, maxExpansions, bytes, token);
+    }
+
+    /**
+     * @param cancellation Testigo de cancelación.
+     * @return Una copia que usa el testigo indicado.
+     */
+    public SearchLimits withToken(CancellationToken cancellation) {
+        return new SearchLimits(deadline, maxExpansions, maxMemory, cancellation);
+    }
+
+    /**
+     * @return La hora límite según System.nanoTime, o Long.MAX_VALUE si no hay.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return El número máximo de nodos expandidos.
+     */
+    public long getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    /**
+     * @return La memoria máxima estimada en bytes.
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Comprueba si la búsqueda debe detenerse.
+     *
+     * @param expanded Nodos expandidos hasta el momento.
+     * @param memory   Memoria estimada que usa la búsqueda en bytes.
+     * @return El motivo para detenerse, o null si la búsqueda puede continuar.
+     */
+    public TerminationReason check(long expanded, long memory) {
+        if (expanded >= maxExpansions) {
+            return TerminationReason.EXPANSION_LIMIT;
+        }
+        if (memory > maxMemory) {
+            return TerminationReason.MEMORY_LIMIT;
+        }
+        if ((expanded & (CHECK_INTERVAL - 1)) == 0) {
+            return checkNow();
+        }
+        return null;
+    }
+
+    /**
+     * Comprueba la cancelación y la hora límite sin esperar al intervalo de
+     * comprobación. Útil fuera de los bucles de expansión.
+     *
+     * @return El motivo para detenerse, o null si la búsqueda puede continuar.
+     */
+    public TerminationReason checkNow() {
+        if (token != null && token.isCancelled() || Thread.currentThread().isInterrupted()) {
+            return TerminationReason.CANCELLED;
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+            return TerminationReason.DEADLINE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,17 @@
+package algorithms;
+
+/**
+ * Recibe las estadísticas de cada búsqueda terminada. Se registra en un
+ * algoritmo con {@link Algorithm#addSearchListener} y se llama desde el hilo
+ * que ha hecho la búsqueda, así que debe ser rápido y seguro entre hilos si el
+ * algoritmo se comparte.
+ */
+@FunctionalInterface
+public interface SearchListener {
+    /**
+     * Se llama al terminar una búsqueda, con o sin camino.
+     *
+     * @param stats Estadísticas de la búsqueda.
+     */
+    void searchFinished(SearchStats stats);
+}
@@ -0,0 +1,236 @@
+package algorithms;
+
+import java.util.ArrayList;
+
+import loadMap.HeightGrid;
+import states.State;
+
+/**
+ * Resultado de una búsqueda sobre un {@link HeightGrid}. A diferencia de
+ * {@link Algorithm#printResults}, no imprime nada: guarda el coste, el camino
+ * (como índices de casilla desde el inicio hasta el objetivo) y el número de
+ * nodos expandidos para que el llamante decida qué hacer con ellos.
+ */
+public class SearchResult {
+    private final String algorithm; // Nombre del algoritmo que generó el resultado
+    private final boolean found; // Indica si se encontró un camino
+    private final double cost; // Coste del camino encontrado
+    private final int[] path; // Casillas del camino, desde el inicio hasta el objetivo
+    private final long expanded; // Número de nodos expandidos
+    private double lowerBound = Double.NaN; // Cota inferior del coste óptimo, si se conoce
+    private long peakMemory; // Memoria máxima estimada (en bytes) usada por las estructuras de búsqueda
+    private final TerminationReason termination; // Motivo por el que terminó la búsqueda
+    private SearchStats stats; // Estadísticas de la búsqueda (null si no se recogen)
+
+    /**
+     * Constructor de la clase SearchResult.
+     *
+     * @param algorithm Nombre del algoritmo utilizado.
+     * @param found     Indica si se encontró un camino.
+     * @param cost      Coste del camino encontrado.
+     * @param path      Casillas del camino (vacío si no se encontró).
+     * @param expanded  Número de nodos expandidos.
+     */
+    public SearchResult(String algorithm, boolean found, double cost, int[] path, long expanded) {
+        this(algorithm, found, cost, path, expanded,
+                found ? TerminationReason.SOLVED : TerminationReason.EXHAUSTED);
+    }
+
+    private SearchResult(String algorithm, boolean found, double cost, int[] path, long expanded,
+            TerminationReason termination) {
+        this.algorithm = algorithm;
+        this.found = found;
+        this.cost = cost;
+        this.path = path;
+        this.expanded = expanded;
+        this.termination = termination;
+    }
+
+    /**
+     * Crea un resultado sin camino.
+     *
+     * @param algorithm Nombre del algoritmo utilizado.
+     * @param expanded  Número de nodos expandidos.
+     * @return Un resultado que indica que no se encontró el camino.
+     */
+    public static SearchResult notFound(String algorithm, long expanded) {
+        return new SearchResult(algorithm, false, Double.POSITIVE_INFINITY, new int[0], expanded);
+    }
+
+    /**
+     * Crea el resultado de una búsqueda detenida por un límite. En lugar del
+     * camino al objetivo guarda el camino hasta el mejor nodo alcanzado (el de
+     * menor valor heurístico), si el algoritmo lo conoce.
+     *
+     * @param algorithm Nombre del algoritmo utilizado.
+     * @param reason    Límite que detuvo la búsqueda.
+     * @param cost      Coste del camino hasta el mejor nodo (infinito si no hay).
+     * @param path      Casillas del camino hasta el mejor nodo (vacío si no hay).
+     * @param expanded  Número de nodos expandidos.
+     * @return Un resultado parcial, sin camino al objetivo.
+     */
+    public static SearchResult stopped(String algorithm, TerminationReason reason, double cost, int[] path,
+            long expanded) {
+        return new SearchResult(algorithm, false, cost, path, expanded, reason);
+    }
+
+    /**
+     * Crea el resultado de una búsqueda detenida por un límite sin mejor nodo
+     * conocido.
+     *
+     * @param algorithm Nombre del algoritmo utilizado.
+     * @param reason    Límite que detuvo la búsqueda.
+     * @param expanded  Número de nodos expandidos.
+     * @return Un resultado sin camino.
+     */
+    public static SearchResult stopped(String algorithm, TerminationReason reason, long expanded) {
+        return stopped(algorithm, reason, Double.POSITIVE_INFINITY, new int[0], expanded);
+    }
+
+    /**
+     * Reconstruye el camino hasta {@code goal} siguiendo un array de padres.
+     *
+     * @param parent Array con el padre de cada casilla (-1 para el inicio).
+     * @param goal   Casilla final del camino.
+     * @return Las casillas del camino, desde el inicio hasta el objetivo.
+     */
+    public static int[] buildPath(int[] parent, int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            path[--length] = cell;
+        }
+        return path;
+    }
+
+    /**
+     * @return El nombre del algoritmo que generó el resultado.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return true si se encontró un camino.
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * @return El motivo por el que terminó la búsqueda.
+     */
+    public TerminationReason getTermination() {
+        return termination;
+    }
+
+    /**
+     * @return true si la búsqueda se detuvo por un límite y el camino lleva al
+     *         mejor nodo alcanzado en lugar de al objetivo.
+     */
+    public boolean isPartial() {
+        return termination.isLimit() && path.length > 0;
+    }
+
+    /**
+     * @return El coste del camino encontrado (o del camino parcial).
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * @return Las casillas del camino, desde el inicio hasta el objetivo (o hasta
+     *         el mejor nodo, si el resultado es parcial).
+     */
+    public int[] getPath() {
+        return path;
+    }
+
+    /**
+     * @return El número de nodos expandidos durante la búsqueda.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return La cota inferior del coste óptimo, o NaN si no se conoce.
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Establece una cota inferior del coste óptimo, usada por los algoritmos que
+     * no garantizan la optimalidad para informar de la distancia al óptimo.
+     *
+     * @param lowerBound Cota inferior del coste óptimo.
+     */
+    public void setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * @return La memoria máxima estimada, en bytes, de las estructuras de
+     *         búsqueda (0 si el algoritmo no la calcula).
+     */
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * Establece la memoria máxima estimada usada por las estructuras de búsqueda.
+     *
+     * @param peakMemory Memoria máxima en bytes.
+     */
+    public void setPeakMemory(long peakMemory) {
+        this.peakMemory = peakMemory;
+    }
+
+    /**
+     * @return Las estadísticas de la búsqueda, o null si no se han recogido.
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Asigna las estadísticas de la búsqueda.
+     *
+     * @param stats Estadísticas de la búsqueda.
+     */
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Calcula la diferencia relativa entre el coste encontrado y la cota inferior.
+     *
+     * @return (coste - cota) / cota, 0 si la cota es 0, o NaN si no hay cota.
+     */
+    public double getGap() {
+        if (!found || Double.isNaN(lowerBound)) {
+            return Double.NaN;
+        }
+        return lowerBound == 0 ? 0 : (cost - lowerBound) / lowerBound;
+    }
+
+    /**
+     * Convierte el camino en la lista de estados que espera
+     * {@link Algorithm#mostrarCamino}.
+     *
+     * @param grid Vista del mapa sobre la que se hizo la búsqueda.
+     * @return Lista de estados del camino.
+     */
+    public ArrayList<State> pathStates(HeightGrid grid) {
+        ArrayList<State> states = new ArrayList<>(path.length);
+        for (int cell : path) {
+            states.add(grid.state(cell));
+        }
+        return states;
+    }
+}
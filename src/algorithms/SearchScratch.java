@@ -0,0 +1,135 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Memoria de trabajo reutilizable de las búsquedas sobre un
+ * {@link loadMap.HeightGrid}: coste y padre de cada casilla y la frontera.
+ * En lugar de rellenar los arrays al empezar cada búsqueda, cada casilla
+ * guarda la generación en la que se escribió por última vez, así que preparar
+ * una nueva búsqueda cuesta O(1). Cada hilo tiene la suya, de modo que no se
+ * comparte entre búsquedas concurrentes.
+ */
+final class SearchScratch {
+    private static final ThreadLocal<SearchScratch> LOCAL = ThreadLocal.withInitial(SearchScratch::new);
+
+    private double[] cost = new double[0]; // Mejor coste conocido de cada casilla
+    private int[] parent = new int[0]; // Padre de cada casilla en el árbol de búsqueda
+    private int[] stamp = new int[0]; // Generación en la que se escribió cada casilla
+    private int generation; // Generación de la búsqueda actual
+    private CellHeap heap = new CellHeap(0); // Frontera de la búsqueda
+
+    /**
+     * Obtiene la memoria de trabajo del hilo actual, preparada para una nueva
+     * búsqueda.
+     *
+     * @param size Número de casillas del mapa.
+     * @return La memoria de trabajo del hilo.
+     */
+    static SearchScratch local(int size) {
+        SearchScratch scratch = LOCAL.get();
+        scratch.reset(size);
+        return scratch;
+    }
+
+    /**
+     * Prepara la memoria para una nueva búsqueda sobre un mapa de {@code size}
+     * casillas, ampliando los arrays si hace falta.
+     *
+     * @param size Número de casillas del mapa.
+     */
+    void reset(int size) {
+        if (stamp.length < size) {
+            cost = new double[size];
+            parent = new int[size];
+            stamp = new int[size];
+            heap = new CellHeap(size);
+            generation = 0;
+        } else {
+            heap.clear();
+        }
+        if (++generation == 0) {
+            // Tras desbordar el contador se limpian las marcas para no confundir generaciones
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * @return El coste conocido de la casilla, o infinito si no se ha alcanzado
+     *         en esta búsqueda.
+     */
+    double cost(int cell) {
+        return stamp[cell] == generation ? cost[cell] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return El padre de la casilla (solo válido si se ha alcanzado).
+     */
+    int parent(int cell) {
+        return parent[cell];
+    }
+
+    /**
+     * Registra un nuevo camino hasta una casilla.
+     */
+    void set(int cell, double value, int from) {
+        cost[cell] = value;
+        parent[cell] = from;
+        stamp[cell] = generation;
+    }
+
+    /**
+     * Marca una casilla en la búsqueda actual, para las búsquedas que solo
+     * necesitan saber qué casillas han visto (por ejemplo, las ya expandidas).
+     *
+     * @param cell Índice de la casilla.
+     * @return true si la casilla no estaba marcada.
+     */
+    boolean mark(int cell) {
+        if (stamp[cell] == generation) {
+            return false;
+        }
+        stamp[cell] = generation;
+        return true;
+    }
+
+    /**
+     * @return true si la casilla se ha marcado o alcanzado en esta búsqueda.
+     */
+    boolean isMarked(int cell) {
+        return stamp[cell] == generation;
+    }
+
+    /**
+     * @return La frontera de la búsqueda actual.
+     */
+    CellHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Reconstruye el camino hasta una casilla siguiendo los padres.
+     *
+     * @param goal Casilla final del camino.
+     * @return Las casillas del camino, desde el inicio hasta {@code goal}.
+     */
+    int[] path(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            path[--length] = cell;
+        }
+        return path;
+    }
+
+    /**
+     * @return Bytes ocupados por la memoria de trabajo.
+     */
+    long bytes() {
+        return (long) stamp.length * (8 + 4 + 4) + (long) heap.capacity() * 4 + (long) heap.size() * 12;
+    }
+}
@@ -0,0 +1,58 @@
+package algorithms;
+
+/**
+ * Estadísticas de una búsqueda: nodos expandidos, generados y reabiertos,
+ * extracciones repetidas de la frontera, tamaño máximo de la frontera,
+ * evaluaciones de la heurística, tiempo de cada fase y bytes reservados por el
+ * hilo que busca.
+ *
+ * El recuento está activo por defecto y se desactiva con la propiedad
+ * {@code -Dsearch.stats=false}. Como {@link #ENABLED} es una constante, el
+ * compilador JIT elimina el código de recuento cuando está desactivado.
+ *
+ * @param algorithm            Nombre del algoritmo.
+ * @param expanded             Nodos expandidos.
+ * @param generated            Sucesores generados con un coste mejor que el
+ *                             conocido.
+ * @param reopened             Nodos ya expandidos que se han vuelto a abrir
+ *                             al encontrar un camino mejor.
+ * @param duplicatePops        Extracciones de la frontera de entradas
+ *                             obsoletas o repetidas.
+ * @param peakOpen             Tamaño máximo de la frontera.
+ * @param heuristicEvaluations Evaluaciones de la heurística.
+ * @param setupNanos           Nanosegundos de preparación (reserva e
+ *                             inicialización de estructuras).
+ * @param searchNanos          Nanosegundos del bucle de búsqueda.
+ * @param pathNanos            Nanosegundos de reconstrucción del camino.
+ * @param allocatedBytes       Bytes reservados durante la búsqueda por los
+ *                             hilos que la ejecutan (0 si la JVM no lo mide).
+ */
+public record SearchStats(String algorithm, long expanded, long generated, long reopened, long duplicatePops,
+        long peakOpen, long heuristicEvaluations, long setupNanos, long searchNanos, long pathNanos,
+        long allocatedBytes) {
+
+    /** Indica si se recogen estadísticas. */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("search.stats", "true"));
+
+    /**
+     * @return El tiempo total de la búsqueda en nanosegundos.
+     */
+    public long totalNanos() {
+        return setupNanos + searchNanos + pathNanos;
+    }
+
+    /**
+     * @return Los nanosegundos del bucle de búsqueda por nodo expandido.
+     */
+    public double nanosPerNode() {
+        return expanded == 0 ? 0 : (double) searchNanos / expanded;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d expandidos, %d generados, %d reabiertos, %d repetidos, frontera máxima %d, "
+                + "%d heurísticas, %.0f ns/nodo, fases %.2f/%.2f/%.2f ms, %d KB reservados", algorithm, expanded,
+                generated, reopened, duplicatePops, peakOpen, heuristicEvaluations, nanosPerNode(),
+                setupNanos / 1e6, searchNanos / 1e6, pathNanos / 1e6, allocatedBytes >> 10);
+    }
+}
@@ -0,0 +1,176 @@
+package algorithms;
+
+import heuristics.Heuristic;
+import heuristics.HeuristicEuclideanMaxHeight;
+import heuristics.HeuristicManhattanCliffPenalty;
+import heuristics.HeuristicManhattanMinHeight;
+import heuristics.HeuristicZero;
+import loadMap.HeightGrid;
+
+/**
+ * A* sobre un {@link HeightGrid} con las heurísticas conocidas calculadas en
+ * línea. {@link GridAstar} evalúa la heurística con
+ * {@code Heuristic.checkStates}, una llamada a través de la interfaz que recibe
+ * objetos State; cuando en el mismo proceso se usan varias heurísticas esa
+ * llamada es megamórfica, el compilador JIT deja de integrarla y cada
+ * evaluación cuesta una llamada virtual y varios accesos a State y Position
+ * dispersos por la memoria.
+ *
+ * Aquí la heurística se reconoce una vez por búsqueda por su clase exacta y se
+ * calcula con enteros (fila, columna y altura de la casilla), sin llamadas
+ * virtuales ni objetos State; la fila y la columna de cada vecina se deducen de
+ * las de la casilla expandida sin dividir. La fórmula es el método estático
+ * {@code estimate} de cada clase, el mismo que usa su {@code checkStates}, así
+ * que los valores y los resultados coinciden con los de GridAstar. Con
+ * cualquier otra heurística (o una subclase) se delega en GridAstar.
+ */
+public final class SpecializedAstar extends Algorithm implements GridSearch {
+    private static final int ZERO = 0; // HeuristicZero
+    private static final int MANHATTAN = 1; // HeuristicManhattanCliffPenalty
+    private static final int MANHATTAN_HEIGHT = 2; // HeuristicManhattanMinHeight
+    private static final int EUCLIDEAN_HEIGHT = 3; // HeuristicEuclideanMaxHeight
+    private static final int UNKNOWN = -1; // Cualquier otra heurística
+
+    private final GridAstar generic = new GridAstar(); // Búsqueda para las heurísticas desconocidas
+
+    @Override
+    public String getName() {
+        return "A* especializado";
+    }
+
+    @Override
+    public SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits) {
+        return search(grid, start, goal, heuristic, limits, SearchScratch.local(grid.size()));
+    }
+
+    /**
+     * Ejecuta A* reutilizando una memoria de trabajo ya reservada.
+     *
+     * @param grid      Vista del mapa sobre la que se busca.
+     * @param start     Índice de la casilla inicial.
+     * @param goal      Índice de la casilla objetivo.
+     * @param heuristic Heurística construida con el estado objetivo.
+     * @param limits    Límites de la búsqueda.
+     * @param scratch   Memoria de trabajo preparada para una nueva búsqueda.
+     * @return El resultado de la búsqueda.
+     */
+    SearchResult search(HeightGrid grid, int start, int goal, Heuristic heuristic, SearchLimits limits,
+            SearchScratch scratch) {
+        int kind = kind(heuristic);
+        if (kind == UNKNOWN) {
+            return generic.search(grid, start, goal, heuristic, limits, scratch);
+        }
+        SearchCounters counters = new SearchCounters(grid.rows(), grid.cols(), heuristic);
+        int cols = grid.cols();
+        int goalRow = goal / cols;
+        int goalCol = goal - goalRow * cols;
+        int goalHeight = grid.height(goal);
+        CellHeap pending = scratch.heap();
+        int[] neighbours = new int[4];
+        long expanded = 0;
+        int best = start; // Casilla expandida con menor heurística, para los resultados parciales
+        double bestH = Double.POSITIVE_INFINITY;
+
+        scratch.set(start, 0, -1);
+        int startRow = start / cols;
+        pending.push(start, estimate(kind, startRow - goalRow, start - startRow * cols - goalCol,
+                grid.height(start) - goalHeight));
+        counters.heuristic();
+        counters.startSearch();
+
+        while (!pending.isEmpty()) {
+            TerminationReason stop = limits.check(expanded, scratch.bytes());
+            if (stop != null) {
+                counters.startPath();
+                SearchResult result = SearchResult.stopped(getName(), stop, scratch.cost(best), scratch.path(best),
+                        expanded);
+                result.setPeakMemory(scratch.bytes());
+                return finish(result, counters);
+            }
+            counters.open(pending.size());
+            double f = pending.peekKey();
+            int cell = pending.pop();
+            if (cell == goal) {
+                counters.startPath();
+                SearchResult result = new SearchResult(getName(), true, scratch.cost(goal), scratch.path(goal),
+                        expanded);
+                result.setPeakMemory(scratch.bytes());
+                return finish(result, counters);
+            }
+            expanded++;
+
+            double cost = scratch.cost(cell);
+            if (f - cost < bestH) {
+                bestH = f - cost;
+                best = cell;
+            }
+            int row = cell / cols;
+            int col = cell - row * cols;
+            int count = grid.neighbours(cell, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                double newCost = cost + grid.stepCost(cell, neighbour);
+                double oldCost = scratch.cost(neighbour);
+                if (newCost < oldCost) {
+                    counters.generated(oldCost != Double.POSITIVE_INFINITY && !pending.contains(neighbour));
+                    counters.heuristic();
+                    scratch.set(neighbour, newCost, cell);
+                    // Fila y columna de la vecina a partir de su desplazamiento
+                    int delta = neighbour - cell;
+                    int nRow = row;
+                    int nCol = col;
+                    if (delta == cols) {
+                        nRow++;
+                    } else if (delta == -cols) {
+                        nRow--;
+                    } else if (delta == 1) {
+                        nCol++;
+                    } else {
+                        nCol--;
+                    }
+                    pending.push(neighbour, newCost + estimate(kind, nRow - goalRow, nCol - goalCol,
+                            grid.height(neighbour) - goalHeight));
+                }
+            }
+        }
+
+        SearchResult result = SearchResult.notFound(getName(), expanded);
+        result.setPeakMemory(scratch.bytes());
+        return finish(result, counters);
+    }
+
+    /**
+     * Calcula la heurística con las diferencias de fila, columna y altura
+     * respecto al objetivo, llamando a la fórmula estática de cada clase.
+     */
+    private static double estimate(int kind, int dRow, int dCol, int dHeight) {
+        switch (kind) {
+            case MANHATTAN:
+                return HeuristicManhattanCliffPenalty.estimate(dRow, dCol);
+            case MANHATTAN_HEIGHT:
+                return HeuristicManhattanMinHeight.estimate(dRow, dCol, dHeight);
+            case EUCLIDEAN_HEIGHT:
+                return HeuristicEuclideanMaxHeight.estimate(dRow, dCol, dHeight);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return El tipo de cálculo de una heurística, o {@link #UNKNOWN} si no es
+     *         una de las clases conocidas.
+     */
+    private static int kind(Heuristic heuristic) {
+        Class<?> type = heuristic.getClass();
+        if (type == HeuristicZero.class) {
+            return ZERO;
+        } else if (type == HeuristicManhattanCliffPenalty.class) {
+            return MANHATTAN;
+        } else if (type == HeuristicManhattanMinHeight.class) {
+            return MANHATTAN_HEIGHT;
+        } else if (type == HeuristicEuclideanMaxHeight.class) {
+            return EUCLIDEAN_HEIGHT;
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,33 @@
+package algorithms;
+
+/**
+ * Motivo por el que termina una búsqueda.
+ */
+public enum TerminationReason {
+    SOLVED("Camino encontrado"), // Se ha llegado al objetivo
+    EXHAUSTED("No existe camino"), // Se ha explorado todo lo alcanzable sin llegar al objetivo
+    DEADLINE("Plazo agotado"), // Se ha superado la hora límite
+    EXPANSION_LIMIT("Límite de nodos expandidos alcanzado"), // Se ha alcanzado el máximo de expansiones
+    MEMORY_LIMIT("Límite de memoria alcanzado"), // La memoria estimada supera el máximo
+    CANCELLED("Búsqueda cancelada"); // Se ha cancelado la búsqueda desde fuera
+
+    private final String description; // Descripción que se muestra al imprimir los resultados
+
+    TerminationReason(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return La descripción del motivo, para mostrarla por consola.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return true si la búsqueda se ha detenido por un límite antes de terminar.
+     */
+    public boolean isLimit() {
+        return this != SOLVED && this != EXHAUSTED;
+    }
+}
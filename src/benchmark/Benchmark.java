@@ -0,0 +1,743 @@
+package benchmark;
+
+import algorithms.*;
+import heuristics.*;
+import loadMap.HeightGrid;
+import loadMap.MapData;
+import loadMap.MapGenerator;
+import loadMap.MapRenderer;
+import loadMap.VersionedMap;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import output.*;
+import states.State;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Conjunto de pruebas de rendimiento de los algoritmos de búsqueda. Genera
+ * mapas aleatorios de distintos tamaños y, para cada algoritmo, muestra los
+ * nodos expandidos, la memoria máxima estimada, el tiempo medio y el coste del
+ * camino encontrado. Al final muestra los percentiles de latencia y de nodos
+ * expandidos del último minuto de búsquedas ({@link MetricsRegistry}).
+ *
+ * Uso: {@code java benchmark.Benchmark [tamaño...]}
+ */
+public class Benchmark {
+    private static final int WARMUP_ROUNDS = 2; // Ejecuciones previas para calentar el JIT
+    private static final int MEASURED_ROUNDS = 3; // Ejecuciones medidas por algoritmo
+    private static final int MAX_HEIGHT = 20; // Altura máxima de los mapas generados
+    private static final double OBSTACLE_RATIO = 0.1; // Proporción de obstáculos de los mapas generados
+    private static final long SEED = 42; // Semilla de los mapas generados
+    private static final long MEMORY_LIMIT = 1L << 20; // Techo de memoria de los algoritmos acotados: 1 MB
+    private static final long[] EXPANSION_BUDGETS = { 100, 1000, 10000 }; // Límites de nodos que se prueban
+    private static final long CANCEL_AFTER = 20; // Milisegundos hasta cancelar la búsqueda de prueba
+    private static final int MULTI_TARGETS = 16; // Objetivos de la búsqueda de uno a muchos
+    private static final int[] AGENT_COUNTS = { 16, 64, 256 }; // Agentes de la planificación cooperativa
+    private static final int BATCH_QUERIES = 256; // Consultas por lote
+    private static final int BATCH_GOALS = 16; // Objetivos distintos de las consultas del lote
+    private static final double[] PORTFOLIO_OBSTACLES = { 0.1, 0.3 }; // Densidades de los mapas de la cartera
+    private static final int PORTFOLIO_MAPS = 5; // Mapas por clase con los que se prueba la cartera
+    private static final long PORTFOLIO_TIMEOUT = 2000; // Plazo de la cartera en milisegundos
+    private static final int[] EDIT_BATCHES = { 0, 1, 16, 256 }; // Ediciones por lote en la carga mixta
+    private static final int MIXED_QUERIES = 64; // Consultas medidas en cada carga mixta
+
+    /* Heurísticas que se comparan, construidas a partir del estado objetivo */
+    static final String[] HEURISTIC_NAMES = { "ManhattanMinHeight", "EuclideanMaxHeight", "ManhattanCliffPenalty" };
+    static final List<Function<State, Heuristic>> HEURISTICS = List.of(HeuristicManhattanMinHeight::new,
+            HeuristicEuclideanMaxHeight::new, HeuristicManhattanCliffPenalty::new);
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] { 64, 128, 256 };
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        for (int size : sizes) {
+            MapData mapData = MapGenerator.generate(size, size, MAX_HEIGHT, OBSTACLE_RATIO, SEED);
+            HeightGrid grid = HeightGrid.of(mapData.map);
+            int start = grid.index(mapData.start);
+            int goal = grid.index(mapData.end);
+            System.out.println("\nMAPA " + size + "x" + size);
+
+            compareMemoryBounded(grid, start, goal);
+            compareFringe(grid, start, goal);
+            compareBeam(grid, start, goal);
+            compareParallel(grid, start, goal);
+            compareStats(grid, start, goal);
+            compareLimits(grid, start, goal);
+            compareRender(grid, start, goal);
+            compareMultiTarget(grid, start);
+            compareBatch(grid);
+            compareSinks(grid);
+            compareCooperative(grid);
+            compareVersioned(grid, start, goal);
+        }
+
+        comparePortfolio(sizes);
+
+        System.out.println();
+        MetricsRegistry.global().report(System.out);
+    }
+
+    /**
+     * Compara A* con los algoritmos de memoria acotada (IDA* y SMA*).
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareMemoryBounded(HeightGrid grid, int start, int goal) {
+        printHeader("A* frente a búsquedas con memoria acotada (techo " + (MEMORY_LIMIT >> 10) + " KB)");
+        Function<State, Heuristic> h = HEURISTICS.get(2);
+        printRow("A*", measure(() -> runAstar(grid, start, goal, h)));
+        printRow("IDA*", measure(() -> runGrid(new IDAstar(MEMORY_LIMIT), grid, start, goal, h)));
+        printRow("SMA*", measure(() -> runGrid(new SMAstar(MEMORY_LIMIT), grid, start, goal, h)));
+    }
+
+    /**
+     * Compara A* con Fringe Search usando cada una de las heurísticas.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareFringe(HeightGrid grid, int start, int goal) {
+        printHeader("A* frente a Fringe Search");
+        FringeSearch fringe = new FringeSearch();
+        for (int i = 0; i < HEURISTICS.size(); i++) {
+            Function<State, Heuristic> h = HEURISTICS.get(i);
+            printRow("A* " + HEURISTIC_NAMES[i], measure(() -> runAstar(grid, start, goal, h)));
+            printRow("Fringe " + HEURISTIC_NAMES[i], measure(() -> runGrid(fringe, grid, start, goal, h)));
+        }
+    }
+
+    /**
+     * Compara distintas anchuras de haz de {@link BeamSearch}, con y sin vuelta
+     * atrás.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareBeam(HeightGrid grid, int start, int goal) {
+        printHeader("Best-First en modo haz");
+        Function<State, Heuristic> h = HEURISTICS.get(2);
+        for (int width : new int[] { 1, 8, 64 }) {
+            printRow("Beam " + width, measure(() -> runGrid(new BeamSearch(width, false), grid, start, goal, h)));
+            printRow("Beam-stack " + width,
+                    measure(() -> runGrid(new BeamSearch(width, true), grid, start, goal, h)));
+        }
+    }
+
+    /**
+     * Mide la aceleración de {@link ParallelAstar} (HDA*) de 1 a N hilos, donde N
+     * es el número de procesadores (al menos 4), junto al coste de A* como
+     * referencia.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareParallel(HeightGrid grid, int start, int goal) {
+        printHeader("HDA*: aceleración de 1 a N hilos");
+        Function<State, Heuristic> h = HEURISTICS.get(2);
+        printRow("A*", measure(() -> runAstar(grid, start, goal, h)));
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            try (ParallelAstar hda = new ParallelAstar(threads)) {
+                Measurement m = measure(() -> runGrid(hda, grid, start, goal, h));
+                if (threads == 1) {
+                    base = m.millis;
+                }
+                printRow(String.format("HDA* %d hilos (x%.2f)", threads, base / m.millis), m);
+            }
+        }
+    }
+
+    /**
+     * Muestra las estadísticas ({@link SearchStats}) de la última ejecución de
+     * cada algoritmo: nodos generados, reabiertos y extraídos de más, tamaño
+     * máximo de la frontera, evaluaciones de la heurística, tiempo por nodo y
+     * memoria reservada.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareStats(HeightGrid grid, int start, int goal) {
+        if (!SearchStats.ENABLED) {
+            return;
+        }
+        System.out.println("Estadísticas de búsqueda");
+        System.out.printf("%-22s %11s %11s %10s %10s %9s %11s %9s %11s%n", "Algoritmo", "Expandidos", "Generados",
+                "Reabiertos", "Repetidos", "Frontera", "Heurísticas", "ns/nodo", "KB reserv.");
+        Function<State, Heuristic> h = HEURISTICS.get(2);
+        printStats("A*", measure(() -> runAstar(grid, start, goal, h)));
+        printStats("A* (rejilla)", measure(() -> runGrid(new GridAstar(), grid, start, goal, h)));
+        printStats("Fringe", measure(() -> runGrid(new FringeSearch(), grid, start, goal, h)));
+        printStats("IDA*", measure(() -> runGrid(new IDAstar(MEMORY_LIMIT), grid, start, goal, h)));
+        printStats("SMA*", measure(() -> runGrid(new SMAstar(MEMORY_LIMIT), grid, start, goal, h)));
+        printStats("Beam-stack 64", measure(() -> runGrid(new BeamSearch(64, true), grid, start, goal, h)));
+        printStats("Multi-resolución", measure(() -> runGrid(new MultiResolution(), grid, start, goal, h)));
+        try (ParallelAstar hda = new ParallelAstar(2)) {
+            printStats("HDA* 2 hilos", measure(() -> runGrid(hda, grid, start, goal, h)));
+        }
+    }
+
+    private static void printStats(String name, Measurement m) {
+        SearchStats s = m.result.getStats();
+        System.out.printf("%-22s %11d %11d %10d %10d %9d %11d %9.0f %11d%n", name, s.expanded(), s.generated(),
+                s.reopened(), s.duplicatePops(), s.peakOpen(), s.heuristicEvaluations(), s.nanosPerNode(),
+                s.allocatedBytes() >> 10);
+    }
+
+    /**
+     * Detiene A* con distintos límites de nodos y de tiempo y muestra el
+     * resultado parcial (motivo, coste y pasos del camino hasta el mejor nodo
+     * alcanzado). Después cancela una búsqueda de IDA* sin heurística (que no
+     * termina en un tiempo razonable) desde otro hilo y mide cuánto tarda en
+     * detenerse.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareLimits(HeightGrid grid, int start, int goal) {
+        System.out.println("Límites de búsqueda (A*)");
+        System.out.printf("%-30s %-36s %12s %12s %10s %8s%n", "Límite", "Motivo", "Expandidos", "Tiempo (ms)",
+                "Coste", "Pasos");
+        Heuristic h = HEURISTICS.get(2).apply(grid.state(goal));
+        GridAstar astar = new GridAstar();
+        for (long budget : EXPANSION_BUDGETS) {
+            printLimit(budget + " nodos", astar, grid, start, goal, h, SearchLimits.NONE.withMaxExpansions(budget));
+        }
+        printLimit("1 ms", astar, grid, start, goal, h, SearchLimits.NONE.withTimeout(1));
+        printLimit("Sin límite", astar, grid, start, goal, h, SearchLimits.NONE);
+
+        // Cancelación cooperativa: otro hilo cancela el testigo y se mide cuánto tarda IDA* en detenerse
+        CancellationToken token = new CancellationToken();
+        long[] cancelledAt = new long[1];
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(CANCEL_AFTER);
+            } catch (InterruptedException e) {
+                return;
+            }
+            cancelledAt[0] = System.nanoTime();
+            token.cancel();
+        });
+        canceller.start();
+        SearchResult r = new IDAstar(MEMORY_LIMIT).search(grid, start, goal, new HeuristicZero(grid.state(goal)),
+                SearchLimits.NONE.withToken(token));
+        long stoppedAt = System.nanoTime();
+        try {
+            canceller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (r.getTermination() == TerminationReason.CANCELLED) {
+            System.out.printf("IDA* cancelado a los %d ms: se detiene %.3f ms después (%d nodos expandidos)%n",
+                    CANCEL_AFTER, (stoppedAt - cancelledAt[0]) / 1e6, r.getExpanded());
+        } else {
+            System.out.println("IDA* terminó antes de cancelarse: " + r.getTermination().getDescription());
+        }
+    }
+
+    /**
+     * Ejecuta una búsqueda con unos límites e imprime una fila con el motivo de
+     * terminación y el camino obtenido.
+     */
+    private static void printLimit(String name, GridSearch search, HeightGrid grid, int start, int goal,
+            Heuristic h, SearchLimits limits) {
+        long begin = System.nanoTime();
+        SearchResult r = search.search(grid, start, goal, h, limits);
+        double millis = (System.nanoTime() - begin) / 1e6;
+        System.out.printf("%-30s %-36s %12d %12.2f %10s %8d%n", name, r.getTermination().getDescription(),
+                r.getExpanded(), millis, r.getPath().length > 0 ? String.format("%.1f", r.getCost()) : "-",
+                Math.max(0, r.getPath().length - 1));
+    }
+
+    /**
+     * Mide el tiempo de dibujar el camino de A* con {@link MapRenderer}: como
+     * texto del mapa completo, como texto de la ventana alrededor del camino y
+     * como imágenes PGM y PNG (en archivos temporales que se borran al
+     * terminar).
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareRender(HeightGrid grid, int start, int goal) {
+        System.out.println("Dibujo del camino");
+        System.out.printf("%-30s %12s%n", "Formato", "Tiempo (ms)");
+        int[] path = new GridAstar().search(grid, start, goal, HEURISTICS.get(2).apply(grid.state(goal))).getPath();
+        MapRenderer full = new MapRenderer(grid);
+        full.setViewport(grid.rows(), grid.cols(), 0);
+        MapRenderer window = new MapRenderer(grid);
+        try {
+            Path pgm = Files.createTempFile("camino", ".pgm");
+            Path png = Files.createTempFile("camino", ".png");
+            try {
+                System.out.printf("%-30s %12.2f%n", "Texto (mapa completo)", time(() -> render(full, path, goal)));
+                System.out.printf("%-30s %12.2f%n", "Texto (ventana " + MapRenderer.DEFAULT_MAX_ROWS + "x"
+                        + MapRenderer.DEFAULT_MAX_COLS + ")", time(() -> render(window, path, goal)));
+                System.out.printf("%-30s %12.2f%n", "PGM", time(() -> {
+                    try {
+                        full.writePgm(pgm, path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+                System.out.printf("%-30s %12.2f%n", "PNG", time(() -> {
+                    try {
+                        full.writePng(png, path, 1);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } finally {
+                Files.deleteIfExists(pgm);
+                Files.deleteIfExists(png);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dibuja un camino como texto sin mostrarlo, para medir solo el dibujo.
+     */
+    private static void render(MapRenderer renderer, int[] path, int goal) {
+        try (Writer out = new BufferedWriter(Writer.nullWriter(), 1 << 16)) {
+            renderer.writePath(out, path, goal);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compara una búsqueda de A* por objetivo con una sola búsqueda de uno a
+     * muchos ({@link MultiTarget}) hacia todos los objetivos y hacia el más
+     * cercano.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     */
+    private static void compareMultiTarget(HeightGrid grid, int start) {
+        System.out.println("Uno a muchos: " + MULTI_TARGETS + " objetivos");
+        System.out.printf("%-30s %12s %12s %12s%n", "Modo", "Expandidos", "Tiempo (ms)", "Resueltos");
+        Random random = new Random(SEED);
+        int[] targets = new int[MULTI_TARGETS];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = randomFreeCell(grid, random);
+        }
+
+        GridAstar astar = new GridAstar();
+        long[] expanded = new long[1];
+        int[] solved = new int[1];
+        double millis = time(() -> {
+            expanded[0] = 0;
+            solved[0] = 0;
+            for (int target : targets) {
+                SearchResult r = runGrid(astar, grid, start, target, HEURISTICS.get(2));
+                expanded[0] += r.getExpanded();
+                solved[0] += r.isFound() ? 1 : 0;
+            }
+        });
+        System.out.printf("%-30s %12d %12.2f %12d%n", "A* por objetivo", expanded[0], millis, solved[0]);
+
+        MultiTarget dijkstra = new MultiTarget();
+        for (int k : new int[] { 0, 1 }) {
+            MultiTarget.Result[] last = new MultiTarget.Result[1];
+            millis = time(() -> last[0] = dijkstra.search(grid, start, targets, k));
+            System.out.printf("%-30s %12d %12.2f %12d%n", k == 0 ? "Dijkstra a todos" : "Dijkstra al más cercano",
+                    last[0].getExpanded(), millis, last[0].getOrder().length);
+        }
+    }
+
+    /**
+     * Resuelve un lote de consultas aleatorias con {@link BatchSearch}: en un
+     * solo hilo, en paralelo y en paralelo agrupando las consultas que comparten
+     * objetivo. Muestra el rendimiento (consultas por segundo), las latencias
+     * p50 y p99 de cada búsqueda y el p99 del tiempo hasta cada respuesta
+     * dentro del lote.
+     *
+     * @param grid Vista del mapa.
+     */
+    private static void compareBatch(HeightGrid grid) {
+        System.out.println("Lote de " + BATCH_QUERIES + " consultas con " + BATCH_GOALS + " objetivos distintos");
+        System.out.printf("%-30s %12s %14s %12s %12s %14s%n", "Modo", "Búsquedas", "Consultas/s", "p50 (ms)",
+                "p99 (ms)", "Fin p99 (ms)");
+        List<BatchSearch.Query> queries = randomQueries(grid, BATCH_QUERIES, BATCH_GOALS, SEED);
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (BatchSearch sequential = new BatchSearch(HEURISTICS.get(2), 1)) {
+            sequential.setGrouping(false);
+            printBatch("1 hilo", sequential, grid, queries);
+        }
+        try (BatchSearch parallel = new BatchSearch(HEURISTICS.get(2), threads)) {
+            parallel.setGrouping(false);
+            printBatch(threads + " hilos", parallel, grid, queries);
+        }
+        try (BatchSearch grouped = new BatchSearch(HEURISTICS.get(2), threads)) {
+            printBatch(threads + " hilos, agrupadas", grouped, grid, queries);
+        }
+    }
+
+    private static void printBatch(String name, BatchSearch batch, HeightGrid grid, List<BatchSearch.Query> queries) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            batch.solve(grid, queries);
+        }
+        BatchSearch.Report report = batch.solve(grid, queries);
+        System.out.printf("%-30s %12d %14.1f %12.2f %12.2f %14.2f%n", name, report.getSearches(),
+                report.getThroughput(), report.getLatencyPercentile(50), report.getLatencyPercentile(99),
+                report.getCompletionPercentile(99));
+    }
+
+    /**
+     * Resuelve el lote de consultas enviando los resultados a cada tipo de
+     * {@link ResultSink} (a archivos temporales que se borran al terminar) y
+     * muestra el rendimiento del lote incluyendo la escritura y el tamaño de
+     * la salida por consulta.
+     *
+     * @param grid Vista del mapa.
+     */
+    private static void compareSinks(HeightGrid grid) {
+        System.out.println("Salida de los resultados del lote");
+        System.out.printf("%-30s %14s %12s%n", "Destino", "Consultas/s", "Bytes/cons.");
+        List<BatchSearch.Query> queries = randomQueries(grid, BATCH_QUERIES, BATCH_GOALS, SEED);
+        try (BatchSearch batch = new BatchSearch(HEURISTICS.get(2))) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                batch.setSink(new QuietSink());
+                batch.solve(grid, queries);
+            }
+            printSink("Silencioso", batch, grid, queries, out -> new QuietSink());
+            printSink("JSON Lines", batch, grid, queries, JsonLinesSink::new);
+            printSink("JSON Lines asíncrono", batch, grid, queries,
+                    out -> new AsyncResultSink(new JsonLinesSink(out)));
+            printSink("CSV asíncrono", batch, grid, queries, out -> new AsyncResultSink(new CsvSink(out)));
+            printSink("Binario asíncrono", batch, grid, queries,
+                    out -> new AsyncResultSink(new BinaryResultSink(out)));
+            batch.setSink(null);
+        }
+    }
+
+    private static void printSink(String name, BatchSearch batch, HeightGrid grid, List<BatchSearch.Query> queries,
+            Function<OutputStream, ResultSink> sinks) {
+        try {
+            Path file = Files.createTempFile("resultados", ".out");
+            try {
+                long begin = System.nanoTime();
+                try (OutputStream out = Files.newOutputStream(file); ResultSink sink = sinks.apply(out)) {
+                    batch.setSink(sink);
+                    batch.solve(grid, queries);
+                }
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.out.printf("%-30s %14.1f %12.1f%n", name, queries.size() / seconds,
+                        (double) Files.size(file) / queries.size());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compara A* sobre la vista compacta y sobre una instantánea de
+     * {@link VersionedMap}, y después mide la latencia de las consultas
+     * mientras otro hilo aplica lotes de ediciones de distintos tamaños.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     */
+    private static void compareVersioned(HeightGrid grid, int start, int goal) {
+        VersionedMap map = new VersionedMap(grid);
+        printHeader("Mapa versionado (baldosas de " + (1 << VersionedMap.TILE_BITS) + " casillas de lado)");
+        printRow("A* sobre HeightGrid", measure(() -> runGrid(new GridAstar(), grid, start, goal, HEURISTICS.get(2))));
+        printRow("A* sobre instantánea", measure(() -> {
+            try (VersionedMap.Snapshot snapshot = map.acquire()) {
+                return runGrid(new GridAstar(), snapshot, start, goal, HEURISTICS.get(2));
+            }
+        }));
+
+        System.out.printf("%-14s %14s %14s %12s %12s %10s%n", "Ediciones/lote", "Ediciones/s", "Versiones/s",
+                "p50 (ms)", "p99 (ms)", "Retenidas");
+        List<BatchSearch.Query> queries = randomQueries(grid, MIXED_QUERIES, MIXED_QUERIES, SEED);
+        for (int size : EDIT_BATCHES) {
+            AtomicBoolean stop = new AtomicBoolean();
+            long editsBefore = map.edits();
+            long epochBefore = map.epoch();
+            Thread writer = new Thread(() -> {
+                Random random = new Random(SEED);
+                VersionedMap.Batch batch = new VersionedMap.Batch();
+                while (!stop.get()) {
+                    batch.clear();
+                    for (int i = 0; i < size; i++) {
+                        batch.setHeight(random.nextInt(grid.rows()), random.nextInt(grid.cols()),
+                                random.nextInt(MAX_HEIGHT + 1));
+                    }
+                    map.apply(batch);
+                    Thread.yield();
+                }
+            }, "map-writer");
+            if (size > 0) {
+                writer.start();
+            }
+
+            Histogram latency = new Histogram();
+            int retained = 0;
+            GridAstar astar = new GridAstar();
+            long begin = System.nanoTime();
+            for (BatchSearch.Query query : queries) {
+                long t0 = System.nanoTime();
+                try (VersionedMap.Snapshot snapshot = map.acquire()) {
+                    runGrid(astar, snapshot, query.getStart(), query.getGoal(), HEURISTICS.get(2));
+                    retained = Math.max(retained, map.retainedTiles());
+                }
+                latency.record(System.nanoTime() - t0);
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            stop.set(true);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.printf("%-14d %14.0f %14.0f %12.3f %12.3f %10d%n", size, (map.edits() - editsBefore) / seconds,
+                    (map.epoch() - epochBefore) / seconds, latency.percentile(50) / 1e6,
+                    latency.percentile(99) / 1e6, retained);
+        }
+    }
+
+    /**
+     * Genera consultas entre casillas libres elegidas al azar. Los objetivos se
+     * eligen entre unos pocos destinos para que haya consultas que los
+     * compartan.
+     *
+     * @param grid    Vista del mapa.
+     * @param count   Número de consultas.
+     * @param targets Número de objetivos distintos.
+     * @param seed    Semilla del generador aleatorio.
+     * @return Las consultas generadas.
+     */
+    static List<BatchSearch.Query> randomQueries(HeightGrid grid, int count, int targets, long seed) {
+        Random random = new Random(seed);
+        int[] goals = new int[targets];
+        for (int i = 0; i < targets; i++) {
+            goals[i] = randomFreeCell(grid, random);
+        }
+        List<BatchSearch.Query> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(new BatchSearch.Query(randomFreeCell(grid, random), goals[random.nextInt(targets)]));
+        }
+        return queries;
+    }
+
+    private static int randomFreeCell(HeightGrid grid, Random random) {
+        int cell;
+        do {
+            cell = random.nextInt(grid.size());
+        } while (grid.isBlocked(cell));
+        return cell;
+    }
+
+    /**
+     * Planifica cada vez más agentes con {@link CooperativePlanner} y muestra
+     * cuántos llegan, la duración del plan y los agentes planificados por
+     * segundo.
+     *
+     * @param grid Vista del mapa.
+     */
+    private static void compareCooperative(HeightGrid grid) {
+        System.out.println("Planificación cooperativa (WHCA*)");
+        System.out.printf("%-10s %10s %12s %16s %16s %12s%n", "Agentes", "Llegan", "Duración", "Heurística (ms)",
+                "Reservas (ms)", "Agentes/s");
+        CooperativePlanner planner = new CooperativePlanner();
+        for (int count : AGENT_COUNTS) {
+            if (count * 4 > grid.size()) {
+                break;
+            }
+            List<BatchSearch.Query> agents = randomAgents(grid, count, SEED);
+            CooperativePlanner.Plan plan = planner.plan(grid, agents);
+            System.out.printf("%-10d %10d %12.1f %16.2f %16.2f %12.1f%n", count, plan.getReached(),
+                    plan.getMakespan(), plan.getHeuristicMillis(), plan.getPlanningMillis(),
+                    plan.getAgentsPerSecond());
+        }
+    }
+
+    /**
+     * Genera agentes con casillas iniciales distintas entre sí y objetivos
+     * distintos entre sí.
+     */
+    private static List<BatchSearch.Query> randomAgents(HeightGrid grid, int count, long seed) {
+        Random random = new Random(seed);
+        Set<Integer> starts = new HashSet<>();
+        Set<Integer> goals = new HashSet<>();
+        List<BatchSearch.Query> agents = new ArrayList<>();
+        while (agents.size() < count) {
+            int start = randomFreeCell(grid, random);
+            int goal = randomFreeCell(grid, random);
+            if (starts.add(start)) {
+                if (goals.add(goal)) {
+                    agents.add(new BatchSearch.Query(start, goal));
+                } else {
+                    starts.remove(start);
+                }
+            }
+        }
+        return agents;
+    }
+
+    /**
+     * Resuelve varios mapas de cada clase (tamaño y densidad de obstáculos) con la
+     * cartera por defecto y muestra, para cada mapa, la combinación ganadora y
+     * el tiempo frente a Dijkstra en solitario. Al final se resumen las victorias
+     * por clase de mapa.
+     *
+     * @param sizes Tamaños de los mapas.
+     */
+    private static void comparePortfolio(int[] sizes) {
+        System.out.println("\nCARTERA DE ALGORITMOS (plazo " + PORTFOLIO_TIMEOUT + " ms)");
+        System.out.printf("%-36s %-50s %10s %14s %10s%n", "Mapa", "Ganador", "Tiempo (ms)", "Dijkstra (ms)",
+                "Coste");
+        GridAstar dijkstra = new GridAstar();
+        try (Portfolio portfolio = Portfolio.standard()) {
+            for (int size : sizes) {
+                for (double obstacles : PORTFOLIO_OBSTACLES) {
+                    for (int i = 0; i < PORTFOLIO_MAPS; i++) {
+                        MapData mapData = MapGenerator.generate(size, size, MAX_HEIGHT, obstacles, SEED + i);
+                        HeightGrid grid = HeightGrid.of(mapData.map);
+                        int start = grid.index(mapData.start);
+                        int goal = grid.index(mapData.end);
+
+                        Portfolio.Outcome outcome = portfolio.solve(grid, start, goal, PORTFOLIO_TIMEOUT);
+                        long begin = System.nanoTime();
+                        runGrid(dijkstra, grid, start, goal, HeuristicZero::new);
+                        double alone = (System.nanoTime() - begin) / 1e6;
+
+                        SearchResult r = outcome.getResult();
+                        String winner = outcome.getWinner() == null ? "-"
+                                : outcome.getWinner() + (outcome.isOptimal() ? " *" : "");
+                        System.out.printf("%-36s %-50s %10d %14.2f %10s%n",
+                                size + "x" + size + " (" + outcome.getMapClass() + ")", winner, outcome.getMillis(),
+                                alone, r.isFound() ? String.format("%.1f", r.getCost()) : "-");
+                    }
+                }
+            }
+            System.out.println("Victorias por clase de mapa (* = óptimo garantizado):");
+            portfolio.printWins();
+        }
+    }
+
+    /**
+     * Ejecuta {@link Astar} sobre una copia del mapa, ya que modifica los estados.
+     *
+     * @param grid  Vista del mapa.
+     * @param start Casilla inicial.
+     * @param goal  Casilla objetivo.
+     * @param h     Constructor de la heurística a partir del estado objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    static SearchResult runAstar(HeightGrid grid, int start, int goal, Function<State, Heuristic> h) {
+        State[][] map = grid.toStates();
+        State ini = map[grid.row(start)][grid.column(start)];
+        State end = map[grid.row(goal)][grid.column(goal)];
+        Astar astar = new Astar();
+        astar.setQuiet(true);
+        return astar.astar(map, ini, end, h.apply(end));
+    }
+
+    /**
+     * Ejecuta un algoritmo sobre la vista del mapa.
+     *
+     * @param search Algoritmo de búsqueda.
+     * @param grid   Vista del mapa.
+     * @param start  Casilla inicial.
+     * @param goal   Casilla objetivo.
+     * @param h      Constructor de la heurística a partir del estado objetivo.
+     * @return El resultado de la búsqueda.
+     */
+    static SearchResult runGrid(GridSearch search, HeightGrid grid, int start, int goal,
+            Function<State, Heuristic> h) {
+        return search.search(grid, start, goal, h.apply(grid.state(goal)));
+    }
+
+    /**
+     * Ejecuta una búsqueda varias veces y calcula el tiempo medio.
+     *
+     * @param run Búsqueda que se mide.
+     * @return El resultado de la última ejecución y el tiempo medio en ms.
+     */
+    static Measurement measure(Supplier<SearchResult> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.get();
+        }
+        SearchResult result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            result = run.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        return new Measurement(result, millis);
+    }
+
+    /**
+     * Ejecuta una tarea varias veces y calcula el tiempo medio.
+     *
+     * @param run Tarea que se mide.
+     * @return El tiempo medio en ms.
+     */
+    static double time(Runnable run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+
+    static void printHeader(String title) {
+        System.out.println(title);
+        System.out.printf("%-30s %12s %14s %12s %10s%n", "Algoritmo", "Expandidos", "Memoria (KB)", "Tiempo (ms)",
+                "Coste");
+    }
+
+    static void printRow(String name, Measurement m) {
+        SearchResult r = m.result;
+        System.out.printf("%-30s %12d %14d %12.2f %10s%n", name, r.getExpanded(), r.getPeakMemory() >> 10, m.millis,
+                r.isFound() ? String.format("%.1f", r.getCost()) : "-");
+    }
+
+    /**
+     * Resultado de medir una búsqueda.
+     */
+    static class Measurement {
+        final SearchResult result; // Resultado de la última ejecución
+        final double millis; // Tiempo medio por ejecución en milisegundos
+
+        Measurement(SearchResult result, double millis) {
+            this.result = result;
+            this.millis = millis;
+        }
+    }
+}
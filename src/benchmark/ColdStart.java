@@ -0,0 +1,134 @@
+package benchmark;
+
+import algorithms.GridAstar;
+import algorithms.SearchResult;
+import heuristics.HeuristicManhattanCliffPenalty;
+import loadMap.HeightGrid;
+import loadMap.MapGenerator;
+import loadMap.MapLoader;
+import loadMap.PreprocessedMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mide el tiempo desde el arranque de la máquina virtual hasta la primera
+ * consulta resuelta, cargando el mapa de texto y preprocesándolo de nuevo o
+ * proyectando su {@link PreprocessedMap instantánea}. Cada medida se hace en
+ * un proceso nuevo para que el arranque sea realmente en frío (salvo la caché
+ * de archivos del sistema operativo, que no se vacía).
+ *
+ * Uso: {@code java benchmark.ColdStart [mapa | tamaño] [repeticiones]}; con un
+ * tamaño se genera un mapa aleatorio cuadrado en un directorio temporal.
+ */
+public class ColdStart {
+    private static final int DEFAULT_SIZE = 1000; // Lado del mapa generado por defecto
+    private static final int DEFAULT_RUNS = 5; // Procesos medidos por modo
+    private static final String TEXT = "text"; // Modo que lee y preprocesa el mapa de texto
+    private static final String SNAPSHOT = "snapshot"; // Modo que proyecta la instantánea
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--child")) {
+            child(args[1], Path.of(args[2]));
+            return;
+        }
+        String target = args.length > 0 ? args[0] : String.valueOf(DEFAULT_SIZE);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        Path map;
+        if (target.chars().allMatch(Character::isDigit)) {
+            int size = Integer.parseInt(target);
+            map = Files.createTempDirectory("arranque").resolve("mapa" + size + ".txt");
+            MapGenerator.write(MapGenerator.generate(size, size, 20, 0.1, 42), map.toString());
+        } else {
+            map = Path.of(target);
+        }
+
+        // Escribir la instantánea antes de medir
+        Files.deleteIfExists(PreprocessedMap.snapshotPath(map));
+        PreprocessedMap.open(map);
+        System.out.printf("Mapa %s (%d KB), instantánea %d KB%n", map.getFileName(), Files.size(map) >> 10,
+                Files.size(PreprocessedMap.snapshotPath(map)) >> 10);
+        System.out.printf("%-14s %14s %14s %16s %14s%n", "Modo", "Carga (ms)", "Consulta (ms)", "Desde JVM (ms)",
+                "Proceso (ms)");
+        for (String mode : new String[] { TEXT, SNAPSHOT }) {
+            double[][] samples = new double[4][runs];
+            for (int i = 0; i < runs; i++) {
+                double[] sample = runChild(mode, map);
+                for (int k = 0; k < 4; k++) {
+                    samples[k][i] = sample[k];
+                }
+            }
+            System.out.printf("%-14s %14.1f %14.1f %16.1f %14.1f%n", mode.equals(TEXT) ? "Texto" : "Instantánea",
+                    median(samples[0]), median(samples[1]), median(samples[2]), median(samples[3]));
+        }
+    }
+
+    /**
+     * Lanza un proceso hijo con el mismo classpath y lee sus tiempos.
+     *
+     * @return Carga, consulta, tiempo desde el arranque de la máquina virtual
+     *         y duración total del proceso, en ms.
+     */
+    private static double[] runChild(String mode, Path map) throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                ColdStart.class.getName(), "--child", mode, map.toString()));
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String line;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            line = reader.readLine();
+        }
+        if (process.waitFor() != 0 || line == null) {
+            throw new IllegalStateException("El proceso de medida ha fallado: " + line);
+        }
+        double[] sample = Arrays.copyOf(Arrays.stream(line.trim().split(" ")).mapToDouble(Double::parseDouble)
+                .toArray(), 4);
+        sample[3] = (System.nanoTime() - begin) / 1e6;
+        return sample;
+    }
+
+    /**
+     * Proceso hijo: abre el mapa en el modo indicado, resuelve la consulta
+     * entre su inicio y su final y escribe los tiempos en una línea.
+     */
+    private static void child(String mode, Path map) throws IOException {
+        long begin = System.nanoTime();
+        PreprocessedMap prep;
+        if (mode.equals(SNAPSHOT)) {
+            prep = PreprocessedMap.open(map);
+        } else {
+            // Sin instantánea hay que repetir todo el preproceso en cada arranque
+            prep = PreprocessedMap.build(MapLoader.loadMapState(map.toString()));
+            prep.pyramid();
+        }
+        long loaded = System.nanoTime();
+        HeightGrid grid = prep.grid();
+        int goal = grid.index(prep.end());
+        GridAstar astar = new GridAstar();
+        astar.setQuiet(true);
+        SearchResult result = astar.search(grid, grid.index(prep.start()), goal,
+                new HeuristicManhattanCliffPenalty(grid.state(goal)));
+        long solved = System.nanoTime();
+        long sinceStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (!result.isFound() && prep.components().connected(grid.index(prep.start()), goal)) {
+            throw new IllegalStateException("La consulta no ha encontrado camino");
+        }
+        System.out.println((loaded - begin) / 1e6 + " " + (solved - loaded) / 1e6 + " " + sinceStart);
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
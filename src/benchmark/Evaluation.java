@@ -0,0 +1,513 @@
+package benchmark;
+
+import algorithms.*;
+import heuristics.*;
+import loadMap.ComponentLabels;
+import loadMap.HeightGrid;
+import loadMap.MapGenerator;
+import runner.BatchRunner;
+import states.State;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Evaluación de todas las combinaciones de algoritmo y heurística sobre un
+ * corpus de mapas generados. El coste de cada búsqueda se compara con el
+ * óptimo que da {@link DijkstraOracle}, y cada heurística se comprueba casilla
+ * a casilla contra el coste exacto hasta el objetivo:
+ * <ul>
+ * <li>es admisible si nunca supera el coste real, h(n) &lt;= h*(n);</li>
+ * <li>es consistente si en cada arista h(n) &lt;= c(n, n') + h(n').</li>
+ * </ul>
+ * Se muestran por pantalla y se escriben como CSV y HTML la
+ * subóptimalidad, los nodos expandidos, el tiempo y la memoria de cada
+ * combinación, y las violaciones de cada heurística; cada violación se escribe
+ * además como una fila de {@code violaciones.csv} (mapa, objetivo, casilla,
+ * h, h* y exceso). Al final se recomienda la combinación más rápida que ha
+ * encontrado siempre el óptimo con una heurística admisible y consistente.
+ *
+ * Uso: {@code java benchmark.Evaluation [directorio] [tamaño...]}
+ */
+public class Evaluation {
+    private static final int[] DEFAULT_SIZES = { 32, 64 }; // Lados de los mapas del corpus
+    private static final double[] OBSTACLES = { 0.1, 0.3 }; // Densidades de obstáculos del corpus
+    private static final int SEEDS = 2; // Mapas por tamaño y densidad
+    private static final int QUERIES = 4; // Consultas por mapa
+    private static final int MAX_HEIGHT = 20; // Altura máxima de los mapas generados
+    private static final long TIMEOUT = 500; // Tiempo máximo por búsqueda en ms
+    private static final double EPSILON = 1e-9; // Tolerancia de las comparaciones de costes
+
+    /* Heurísticas que se evalúan, construidas a partir del estado objetivo */
+    private static final String[] HEURISTIC_NAMES = { "Zero", "ManhattanMinHeight", "EuclideanMaxHeight",
+            "ManhattanCliffPenalty" };
+    private static final List<Function<State, Heuristic>> HEURISTICS = List.of(HeuristicZero::new,
+            HeuristicManhattanMinHeight::new, HeuristicEuclideanMaxHeight::new, HeuristicManhattanCliffPenalty::new);
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : "evaluacion");
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // Cada algoritmo se crea una vez y se reutiliza en todas las consultas; al final se liberan sus recursos
+        List<Solver> solvers = solvers();
+        Combination[][] table = new Combination[solvers.size()][HEURISTICS.size()];
+        for (int a = 0; a < solvers.size(); a++) {
+            for (int h = 0; h < HEURISTICS.size(); h++) {
+                table[a][h] = new Combination(solvers.get(a).name, HEURISTIC_NAMES[h]);
+            }
+        }
+        HeuristicCheck[] checks = new HeuristicCheck[HEURISTICS.size()];
+        for (int h = 0; h < HEURISTICS.size(); h++) {
+            checks[h] = new HeuristicCheck(HEURISTIC_NAMES[h]);
+        }
+
+        int maps = 0;
+        Files.createDirectories(dir);
+        try (PrintWriter violations = new PrintWriter(
+                Files.newBufferedWriter(dir.resolve("violaciones.csv"), StandardCharsets.UTF_8))) {
+            violations.println("heuristic,kind,map,goal_row,goal_col,row,col,neighbour_row,neighbour_col,h,h_star,"
+                    + "bound,excess");
+            for (int size : sizes) {
+                for (double obstacles : OBSTACLES) {
+                    for (int seed = 0; seed < SEEDS; seed++) {
+                        HeightGrid grid = HeightGrid.of(
+                                MapGenerator.generate(size, size, MAX_HEIGHT, obstacles, seed).map);
+                        String name = String.format(Locale.ROOT, "%dx%d-o%.0f-s%d", size, size, obstacles * 100,
+                                seed);
+                        evaluateMap(grid, name, new Random(seed), solvers, table, checks, violations);
+                        maps++;
+                        System.err.printf("Mapa %d: %dx%d, obstáculos %.0f%%%n", maps, size, size, obstacles * 100);
+                    }
+                }
+            }
+        } finally {
+            for (Solver solver : solvers) {
+                solver.close();
+            }
+        }
+
+        print(table, checks);
+        writeCsv(dir.resolve("combinaciones.csv"), dir.resolve("heuristicas.csv"), table, checks);
+        writeHtml(dir.resolve("informe.html"), table, checks, maps);
+        System.out.println("\nInforme escrito en " + dir.toAbsolutePath());
+    }
+
+    /**
+     * Evalúa todas las combinaciones y heurísticas sobre las consultas de un
+     * mapa y escribe las violaciones de las heurísticas.
+     */
+    private static void evaluateMap(HeightGrid grid, String name, Random random, List<Solver> solvers,
+            Combination[][] table, HeuristicCheck[] checks, PrintWriter violations) {
+        ComponentLabels components = new ComponentLabels(grid);
+        for (int q = 0; q < QUERIES; q++) {
+            int start;
+            int goal;
+            do {
+                start = random.nextInt(grid.size());
+                goal = random.nextInt(grid.size());
+            } while (start == goal || !components.connected(start, goal));
+            double[] costToGo = DijkstraOracle.costToGo(grid, goal);
+            double optimum = costToGo[start];
+            for (int h = 0; h < HEURISTICS.size(); h++) {
+                Heuristic heuristic = HEURISTICS.get(h).apply(grid.state(goal));
+                checks[h].check(grid, heuristic, grid.state(goal), costToGo, name, violations);
+                for (int a = 0; a < solvers.size(); a++) {
+                    // La preparación (por ejemplo, convertir el mapa a estados) no forma parte del tiempo medido
+                    Run run = solvers.get(a).prepare(grid, start, goal, HEURISTICS.get(h));
+                    long begin = System.nanoTime();
+                    SearchResult result = run.run(SearchLimits.NONE.withTimeout(TIMEOUT));
+                    table[a][h].add(result, optimum, System.nanoTime() - begin);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Los algoritmos evaluados, incluidos A* y Best-First clásicos sobre
+     *         una copia de los estados del mapa.
+     */
+    private static List<Solver> solvers() {
+        List<Solver> solvers = new ArrayList<>();
+        solvers.add(legacy("A* clásico", (map, ini, end, h, limits) -> {
+            Astar astar = new Astar();
+            astar.setQuiet(true);
+            return astar.astar(map, ini, end, h, limits);
+        }));
+        solvers.add(legacy("Best-First", (map, ini, end, h, limits) -> {
+            BestFirst bestFirst = new BestFirst();
+            bestFirst.setQuiet(true);
+            return bestFirst.bestFirst(map, ini, end, h, limits);
+        }));
+        solvers.add(grid("A*", GridAstar::new));
+        solvers.add(grid("Fringe Search", FringeSearch::new));
+        solvers.add(grid("IDA*", IDAstar::new));
+        solvers.add(grid("SMA*", SMAstar::new));
+        solvers.add(grid("Haz (64, vuelta atrás)", () -> new BeamSearch(64, true)));
+        solvers.add(grid("Multi-resolución", MultiResolution::new));
+        solvers.add(grid("HDA*", ParallelAstar::new));
+        return solvers;
+    }
+
+    /**
+     * @return Un algoritmo sobre HeightGrid con una única instancia, que se
+     *         reutiliza en todas las consultas y se libera al cerrar el Solver.
+     */
+    private static Solver grid(String name, Supplier<GridSearch> engines) {
+        GridSearch engine = engines.get();
+        if (engine instanceof Algorithm) {
+            ((Algorithm) engine).setQuiet(true);
+        }
+        return new Solver(name, (grid, start, goal, heuristics) -> {
+            Heuristic heuristic = heuristics.apply(grid.state(goal));
+            return limits -> engine.search(grid, start, goal, heuristic, limits);
+        }, engine);
+    }
+
+    private static Solver legacy(String name, LegacySearch search) {
+        return new Solver(name, (grid, start, goal, heuristics) -> {
+            State[][] map = grid.toStates();
+            State ini = map[grid.row(start)][grid.column(start)];
+            State end = map[grid.row(goal)][grid.column(goal)];
+            Heuristic heuristic = heuristics.apply(end);
+            return limits -> search.search(map, ini, end, heuristic, limits);
+        }, null);
+    }
+
+    /**
+     * Muestra la tabla de combinaciones, la de heurísticas y la recomendación.
+     */
+    private static void print(Combination[][] table, HeuristicCheck[] checks) {
+        System.out.println("\nCombinaciones de algoritmo y heurística (óptimo de referencia: Dijkstra)");
+        System.out.printf("%-24s %-22s %8s %8s %10s %10s %12s %10s %10s%n", "Algoritmo", "Heurística", "Resueltas",
+                "Óptimas", "Subópt.", "Máx.", "Expandidos", "ms", "KB");
+        for (Combination[] row : table) {
+            for (Combination c : row) {
+                System.out.printf("%-24s %-22s %8s %8d %9.2f%% %9.2f%% %12.0f %10.3f %10.1f%n", c.algorithm,
+                        c.heuristic, c.solved + "/" + c.runs, c.optimal, c.meanSuboptimality() * 100,
+                        c.maxSuboptimality * 100, c.meanExpanded(), c.meanMillis(), c.peakMemory / 1024.0);
+            }
+        }
+
+        System.out.println("\nComprobación de las heurísticas (casillas y aristas alcanzables)");
+        System.out.printf("%-22s %12s %14s %16s %12s %14s %14s%n", "Heurística", "Casillas", "No admisibles",
+                "Máx. exceso", "Aristas", "Inconsistentes", "Máx. exceso");
+        for (HeuristicCheck check : checks) {
+            System.out.printf("%-22s %12d %14d %16.3f %12d %14d %14.3f%n", check.name, check.cells,
+                    check.inadmissible, check.maxOverestimate, check.edges, check.inconsistent,
+                    check.maxInconsistency);
+        }
+        Combination best = best(table, checks);
+        if (best != null) {
+            System.out.printf("%nCombinación óptima más rápida: %s con %s (%.3f ms de media)%n", best.algorithm,
+                    best.heuristic, best.meanMillis());
+        } else {
+            System.out.println("\nNinguna combinación con una heurística admisible y consistente ha encontrado "
+                    + "siempre el óptimo");
+        }
+    }
+
+    /**
+     * Una combinación solo se puede recomendar si ha encontrado siempre el
+     * óptimo y su heurística no ha violado la admisibilidad ni la consistencia
+     * en ninguna casilla: que haya acertado en las consultas evaluadas no
+     * garantiza que lo haga en otras.
+     */
+    private static boolean recommendable(Combination c, HeuristicCheck check) {
+        return c.isAlwaysOptimal() && check.inadmissible == 0 && check.inconsistent == 0;
+    }
+
+    /**
+     * @return La combinación recomendable más rápida, o null si no hay ninguna.
+     */
+    private static Combination best(Combination[][] table, HeuristicCheck[] checks) {
+        Combination best = null;
+        for (Combination[] row : table) {
+            for (int h = 0; h < row.length; h++) {
+                Combination c = row[h];
+                if (recommendable(c, checks[h]) && (best == null || c.meanMillis() < best.meanMillis())) {
+                    best = c;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void writeCsv(Path combinations, Path heuristics, Combination[][] table, HeuristicCheck[] checks)
+            throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(combinations, StandardCharsets.UTF_8))) {
+            out.println("algorithm,heuristic,runs,solved,optimal,invalid,mean_suboptimality,max_suboptimality,"
+                    + "mean_expanded,mean_ms,peak_memory_bytes,heuristic_admissible,heuristic_consistent");
+            for (Combination[] row : table) {
+                for (int h = 0; h < row.length; h++) {
+                    Combination c = row[h];
+                    out.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.6f,%.6f,%.1f,%.4f,%d,%b,%b",
+                            c.algorithm, c.heuristic, c.runs, c.solved, c.optimal, c.invalid,
+                            c.meanSuboptimality(), c.maxSuboptimality, c.meanExpanded(), c.meanMillis(),
+                            c.peakMemory, checks[h].inadmissible == 0, checks[h].inconsistent == 0));
+                }
+            }
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(heuristics, StandardCharsets.UTF_8))) {
+            out.println("heuristic,cells,inadmissible,max_overestimate,edges,inconsistent,max_inconsistency");
+            for (HeuristicCheck check : checks) {
+                out.println(String.format(Locale.ROOT, "%s,%d,%d,%.6f,%d,%d,%.6f", check.name, check.cells,
+                        check.inadmissible, check.maxOverestimate, check.edges, check.inconsistent,
+                        check.maxInconsistency));
+            }
+        }
+    }
+
+    /**
+     * Escribe el informe HTML. Las celdas con violaciones o resultados peores
+     * que el óptimo se marcan en rojo y las combinaciones siempre óptimas en
+     * verde.
+     */
+    private static void writeHtml(Path file, Combination[][] table, HeuristicCheck[] checks, int maps)
+            throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("<!DOCTYPE html><html lang=\"es\"><head><meta charset=\"utf-8\">");
+            out.println("<title>Evaluación de algoritmos y heurísticas</title><style>");
+            out.println("body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:2em}");
+            out.println("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}td:first-child,"
+                    + "td:nth-child(2){text-align:left}.bad{background:#f8d0d0}.good{background:#d6f5d6}");
+            out.println("</style></head><body>");
+            out.printf("<h1>Evaluación de algoritmos y heurísticas</h1><p>%d mapas, %d consultas por mapa, "
+                    + "óptimo de referencia calculado con Dijkstra, límite de %d ms por búsqueda.</p>%n", maps,
+                    QUERIES, TIMEOUT);
+
+            out.println("<h2>Heurísticas</h2><table><tr><th>Heurística</th><th>Casillas</th><th>No admisibles</th>"
+                    + "<th>Máx. exceso</th><th>Aristas</th><th>Inconsistentes</th><th>Máx. exceso</th></tr>");
+            for (HeuristicCheck check : checks) {
+                out.printf(Locale.ROOT, "<tr><td>%s</td><td>%d</td>%s<td>%.3f</td><td>%d</td>%s<td>%.3f</td></tr>%n",
+                        check.name, check.cells, flagged(check.inadmissible), check.maxOverestimate, check.edges,
+                        flagged(check.inconsistent), check.maxInconsistency);
+            }
+            out.println("</table>");
+
+            out.println("<h2>Combinaciones</h2><table><tr><th>Algoritmo</th><th>Heurística</th><th>Resueltas</th>"
+                    + "<th>Óptimas</th><th>Subópt. media</th><th>Subópt. máx.</th><th>Expandidos</th>"
+                    + "<th>ms</th><th>KB</th></tr>");
+            for (Combination[] row : table) {
+                for (int h = 0; h < row.length; h++) {
+                    Combination c = row[h];
+                    String rowClass = recommendable(c, checks[h]) ? " class=\"good\"" : "";
+                    String suboptimal = c.maxSuboptimality > EPSILON || c.invalid > 0 ? " class=\"bad\"" : "";
+                    String unsolved = c.solved < c.runs ? " class=\"bad\"" : "";
+                    out.printf(Locale.ROOT, "<tr%s><td>%s</td><td>%s</td><td%s>%d/%d</td><td>%d</td>"
+                            + "<td%s>%.2f%%</td><td%s>%.2f%%</td><td>%.0f</td><td>%.3f</td><td>%.1f</td></tr>%n",
+                            rowClass, c.algorithm, c.heuristic, unsolved, c.solved, c.runs, c.optimal, suboptimal,
+                            c.meanSuboptimality() * 100, suboptimal, c.maxSuboptimality * 100, c.meanExpanded(),
+                            c.meanMillis(), c.peakMemory / 1024.0);
+                }
+            }
+            out.println("</table>");
+            Combination best = best(table, checks);
+            out.printf(Locale.ROOT, "<p>%s</p>%n", best == null
+                    ? "Ninguna combinación con una heurística admisible y consistente ha encontrado siempre el óptimo."
+                    : String.format(Locale.ROOT, "Combinación óptima más rápida: %s con %s (%.3f ms de media).",
+                            best.algorithm, best.heuristic, best.meanMillis()));
+            out.println("</body></html>");
+        }
+    }
+
+    private static String flagged(long violations) {
+        return (violations > 0 ? "<td class=\"bad\">" : "<td>") + violations + "</td>";
+    }
+
+    /**
+     * Preparación de una combinación para una consulta: deja hecho todo lo que
+     * no es la búsqueda en sí, para que no cuente en el tiempo medido.
+     */
+    private interface Search {
+        Run prepare(HeightGrid grid, int start, int goal, Function<State, Heuristic> heuristics);
+    }
+
+    /**
+     * Búsqueda ya preparada, que es lo único que se mide.
+     */
+    private interface Run {
+        SearchResult run(SearchLimits limits);
+    }
+
+    /**
+     * Búsqueda de los algoritmos clásicos sobre una matriz de estados.
+     */
+    private interface LegacySearch {
+        SearchResult search(State[][] map, State ini, State end, Heuristic heuristic, SearchLimits limits);
+    }
+
+    /**
+     * Algoritmo evaluado con su nombre.
+     */
+    private static final class Solver implements AutoCloseable {
+        final String name; // Nombre del algoritmo en el informe
+        final Search search; // Búsqueda del algoritmo
+        final GridSearch engine; // Instancia que se libera al cerrar (null si no hay)
+
+        Solver(String name, Search search, GridSearch engine) {
+            this.name = name;
+            this.search = search;
+            this.engine = engine;
+        }
+
+        /**
+         * Libera los recursos de la instancia del algoritmo (por ejemplo, los
+         * hilos de {@link ParallelAstar}).
+         */
+        @Override
+        public void close() {
+            if (engine != null) {
+                BatchRunner.release(engine);
+            }
+        }
+
+        Run prepare(HeightGrid grid, int start, int goal, Function<State, Heuristic> heuristics) {
+            return search.prepare(grid, start, goal, heuristics);
+        }
+    }
+
+    /**
+     * Resultados acumulados de una combinación de algoritmo y heurística.
+     */
+    private static final class Combination {
+        final String algorithm; // Nombre del algoritmo
+        final String heuristic; // Nombre de la heurística
+        int runs; // Búsquedas
+        int solved; // Búsquedas que encontraron camino
+        int optimal; // Búsquedas con el coste óptimo
+        int invalid; // Búsquedas con un coste menor que el óptimo (camino no válido)
+        double totalSuboptimality; // Suma de (coste / óptimo - 1) de las búsquedas resueltas
+        double maxSuboptimality; // Mayor subóptimalidad
+        long totalExpanded; // Suma de nodos expandidos
+        long totalNanos; // Suma de tiempos
+        long peakMemory; // Mayor memoria máxima estimada en bytes
+
+        Combination(String algorithm, String heuristic) {
+            this.algorithm = algorithm;
+            this.heuristic = heuristic;
+        }
+
+        void add(SearchResult result, double optimum, long nanos) {
+            runs++;
+            totalExpanded += result.getExpanded();
+            totalNanos += nanos;
+            peakMemory = Math.max(peakMemory, result.getPeakMemory());
+            if (!result.isFound()) {
+                return;
+            }
+            solved++;
+            double cost = result.getCost();
+            double tolerance = EPSILON * Math.max(1, optimum);
+            if (cost < optimum - tolerance) {
+                invalid++;
+            } else if (cost <= optimum + tolerance) {
+                optimal++;
+            }
+            double suboptimality = optimum > 0 ? Math.max(0, cost / optimum - 1) : 0;
+            totalSuboptimality += suboptimality;
+            maxSuboptimality = Math.max(maxSuboptimality, suboptimality);
+        }
+
+        boolean isAlwaysOptimal() {
+            return runs > 0 && optimal == runs;
+        }
+
+        double meanSuboptimality() {
+            return solved == 0 ? 0 : totalSuboptimality / solved;
+        }
+
+        double meanExpanded() {
+            return runs == 0 ? 0 : (double) totalExpanded / runs;
+        }
+
+        double meanMillis() {
+            return runs == 0 ? 0 : totalNanos / 1e6 / runs;
+        }
+    }
+
+    /**
+     * Comprobación de admisibilidad y consistencia de una heurística.
+     */
+    private static final class HeuristicCheck {
+        final String name; // Nombre de la heurística
+        long cells; // Casillas comprobadas
+        long inadmissible; // Casillas en las que h(n) > h*(n)
+        double maxOverestimate; // Mayor h(n) - h*(n)
+        long edges; // Aristas comprobadas
+        long inconsistent; // Aristas en las que h(n) > c(n, n') + h(n')
+        double maxInconsistency; // Mayor h(n) - c(n, n') - h(n')
+
+        HeuristicCheck(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Comprueba la heurística en todas las casillas desde las que se llega
+         * al objetivo y escribe cada violación como una fila CSV.
+         */
+        void check(HeightGrid grid, Heuristic heuristic, State goal, double[] costToGo, String map,
+                PrintWriter violations) {
+            int goalCell = grid.index(goal.getPosition());
+            int size = grid.size();
+            double[] h = new double[size];
+            for (int cell = 0; cell < size; cell++) {
+                if (costToGo[cell] != Double.POSITIVE_INFINITY) {
+                    h[cell] = heuristic.checkStates(grid.state(cell), goal);
+                }
+            }
+            int[] neighbours = new int[4];
+            for (int cell = 0; cell < size; cell++) {
+                if (costToGo[cell] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                cells++;
+                double excess = h[cell] - costToGo[cell];
+                if (excess > EPSILON * Math.max(1, costToGo[cell])) {
+                    inadmissible++;
+                    maxOverestimate = Math.max(maxOverestimate, excess);
+                    violation(violations, "admisibilidad", grid, map, goalCell, cell, -1, h[cell], costToGo[cell],
+                            costToGo[cell]);
+                }
+                int count = grid.neighbours(cell, neighbours);
+                for (int k = 0; k < count; k++) {
+                    int next = neighbours[k];
+                    edges++;
+                    double gap = h[cell] - grid.stepCost(cell, next) - h[next];
+                    if (gap > EPSILON * Math.max(1, h[cell])) {
+                        inconsistent++;
+                        maxInconsistency = Math.max(maxInconsistency, gap);
+                        violation(violations, "consistencia", grid, map, goalCell, cell, next, h[cell],
+                                costToGo[cell], grid.stepCost(cell, next) + h[next]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Escribe una violación. En la de admisibilidad la cota es h*(n); en la
+         * de consistencia, c(n, n') + h(n'), y la vecina n' se indica aparte.
+         */
+        private void violation(PrintWriter out, String kind, HeightGrid grid, String map, int goal, int cell,
+                int neighbour, double h, double hStar, double bound) {
+            String next = neighbour < 0 ? "," : grid.row(neighbour) + "," + grid.column(neighbour);
+            out.println(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%s,%.6f,%.6f,%.6f,%.6f", name, kind, map,
+                    grid.row(goal), grid.column(goal), grid.row(cell), grid.column(cell), next, h, hStar, bound,
+                    h - bound));
+        }
+    }
+}
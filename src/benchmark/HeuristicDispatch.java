@@ -0,0 +1,174 @@
+package benchmark;
+
+import algorithms.BatchSearch;
+import algorithms.GridAstar;
+import algorithms.GridSearch;
+import algorithms.SearchResult;
+import algorithms.SpecializedAstar;
+import heuristics.*;
+import loadMap.HeightGrid;
+import loadMap.MapGenerator;
+import states.State;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Microbenchmark del bucle de A* con una o varias heurísticas: compara
+ * {@link GridAstar}, que llama a la heurística a través de la interfaz, con
+ * {@link SpecializedAstar}, que la calcula en línea. Sigue el esquema de JMH:
+ * cada combinación se mide en un proceso nuevo (para que los perfiles del
+ * compilador JIT de una no contaminen a otra), con iteraciones de
+ * calentamiento que se descartan y el resultado de cada búsqueda consumido
+ * para que no se pueda eliminar.
+ *
+ * La carga {@code single} usa solo ManhattanCliffPenalty, con lo que la
+ * llamada de GridAstar es monomórfica; la carga {@code multi} alterna las
+ * cuatro heurísticas del paquete, como un servidor que atiende consultas con
+ * heurísticas distintas, y la llamada pasa a ser megamórfica.
+ *
+ * Uso: {@code java benchmark.HeuristicDispatch [tamaño] [iteraciones]}
+ */
+public class HeuristicDispatch {
+    private static final int DEFAULT_SIZE = 128; // Lado del mapa generado
+    private static final int DEFAULT_ITERATIONS = 5; // Iteraciones medidas (y de calentamiento) por proceso
+    private static final long ITERATION_NANOS = 500_000_000L; // Duración de cada iteración
+    private static final int QUERIES = 32; // Consultas aleatorias de la carga
+    private static final String[] ENGINES = { "generic", "specialized" };
+    private static final String[] WORKLOADS = { "single", "multi" };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 5 && args[0].equals("--child")) {
+            child(args[1], args[2], Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        // Antes de medir, los dos motores deben dar exactamente los mismos resultados
+        HeightGrid grid = grid(size);
+        List<BatchSearch.Query> queries = Benchmark.randomQueries(grid, QUERIES, QUERIES, 7);
+        for (Function<State, Heuristic> factory : workload("multi")) {
+            for (BatchSearch.Query query : queries) {
+                Heuristic h = factory.apply(grid.state(query.getGoal()));
+                SearchResult a = engine("generic").search(grid, query.getStart(), query.getGoal(), h);
+                SearchResult b = engine("specialized").search(grid, query.getStart(), query.getGoal(), h);
+                if (Double.compare(a.getCost(), b.getCost()) != 0 || a.getExpanded() != b.getExpanded()
+                        || !Arrays.equals(a.getPath(), b.getPath())) {
+                    throw new IllegalStateException("Resultados distintos con " + h.getClass().getSimpleName());
+                }
+            }
+        }
+
+        System.out.printf("Mapa %dx%d, %d consultas, %d iteraciones de %d ms por proceso%n", size, size, QUERIES,
+                iterations, ITERATION_NANOS / 1_000_000);
+        System.out.printf("%-8s %-12s %16s %12s%n", "Carga", "Motor", "Búsquedas/s", "Desviación");
+        for (String workload : WORKLOADS) {
+            double[] scores = new double[ENGINES.length];
+            for (int i = 0; i < ENGINES.length; i++) {
+                double[] score = runChild(ENGINES[i], workload, size, iterations);
+                scores[i] = score[0];
+                System.out.printf(Locale.ROOT, "%-8s %-12s %16.1f %12.1f%n", workload, ENGINES[i], score[0],
+                        score[1]);
+            }
+            System.out.printf(Locale.ROOT, "%-8s %-12s %15.2fx%n", workload, "mejora", scores[1] / scores[0]);
+        }
+    }
+
+    /**
+     * Lanza un proceso hijo con el mismo classpath y lee su resultado.
+     *
+     * @return Búsquedas por segundo (media de las iteraciones) y su desviación.
+     */
+    private static double[] runChild(String engine, String workload, int size, int iterations)
+            throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                HeuristicDispatch.class.getName(), "--child", engine, workload, String.valueOf(size),
+                String.valueOf(iterations)));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String line;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            line = reader.readLine();
+        }
+        if (process.waitFor() != 0 || line == null) {
+            throw new IllegalStateException("El proceso de medida ha fallado: " + line);
+        }
+        String[] fields = line.trim().split(" ");
+        return new double[] { Double.parseDouble(fields[0]), Double.parseDouble(fields[1]) };
+    }
+
+    /**
+     * Proceso hijo: calienta y mide un motor con una carga y escribe la media,
+     * la desviación y la suma de control de los resultados en una línea.
+     */
+    private static void child(String engineName, String workloadName, int size, int iterations) {
+        HeightGrid grid = grid(size);
+        List<BatchSearch.Query> queries = Benchmark.randomQueries(grid, QUERIES, QUERIES, 7);
+        List<Function<State, Heuristic>> workload = workload(workloadName);
+
+        // Las heurísticas se construyen fuera de la medida; la carga recorre consulta y heurística alternando
+        int count = queries.size() * workload.size();
+        int[] starts = new int[count];
+        int[] goals = new int[count];
+        Heuristic[] heuristics = new Heuristic[count];
+        for (int i = 0; i < count; i++) {
+            BatchSearch.Query query = queries.get(i / workload.size());
+            starts[i] = query.getStart();
+            goals[i] = query.getGoal();
+            heuristics[i] = workload.get(i % workload.size()).apply(grid.state(goals[i]));
+        }
+
+        GridSearch engine = engine(engineName);
+        double checksum = 0; // Consume los resultados para que no se eliminen
+        double[] scores = new double[iterations];
+        int next = 0;
+        for (int iteration = -iterations; iteration < iterations; iteration++) {
+            long ops = 0;
+            long begin = System.nanoTime();
+            long elapsed;
+            do {
+                SearchResult result = engine.search(grid, starts[next], goals[next], heuristics[next]);
+                checksum += result.getCost() + result.getExpanded();
+                next = next + 1 == count ? 0 : next + 1;
+                ops++;
+                elapsed = System.nanoTime() - begin;
+            } while (elapsed < ITERATION_NANOS);
+            if (iteration >= 0) {
+                scores[iteration] = ops * 1e9 / elapsed;
+            }
+        }
+
+        double mean = Arrays.stream(scores).average().orElse(0);
+        double variance = Arrays.stream(scores).map(s -> (s - mean) * (s - mean)).sum() / Math.max(1, iterations - 1);
+        System.out.println(mean + " " + Math.sqrt(variance) + " " + checksum);
+    }
+
+    private static HeightGrid grid(int size) {
+        return HeightGrid.of(MapGenerator.generate(size, size, 20, 0.1, 42).map);
+    }
+
+    private static GridSearch engine(String name) {
+        return name.equals("specialized") ? new SpecializedAstar() : new GridAstar();
+    }
+
+    /**
+     * @return Las heurísticas de la carga, en el orden en que se alternan.
+     */
+    private static List<Function<State, Heuristic>> workload(String name) {
+        if (name.equals("single")) {
+            return List.of(HeuristicManhattanCliffPenalty::new);
+        }
+        return List.of(HeuristicZero::new, HeuristicManhattanMinHeight::new, HeuristicEuclideanMaxHeight::new,
+                HeuristicManhattanCliffPenalty::new);
+    }
+}
@@ -70,12 +70,25 @@ public class HeuristicEuclideanMaxHeight implements Heuristic {
      */
     private double calculateHeuristic(State state) {
         Position pos = state.getPosition();
+        return estimate(goalRow - pos.getRow(), goalColumn - pos.getColumn(), goalHeight - state.getHeight());
+    }
+
+    /**
+     * Calcula la heurística a partir de las diferencias de fila, columna y
+     * altura con el objetivo. Es el único lugar donde está la fórmula: la usan
+     * esta clase y {@link algorithms.SpecializedAstar}.
+     *
+     * @param dRow    Diferencia de filas.
+     * @param dCol    Diferencia de columnas.
+     * @param dHeight Diferencia de alturas.
+     * @return Valor heurístico.
+     */
+    public static double estimate(int dRow, int dCol, double dHeight) {
         // Distancia Euclidiana: sqrt((x_actual - x_final)^2 + (y_actual - y_final)^2)
-        double euclideanDistance = Math.sqrt(
-                Math.pow(goalRow - pos.getRow(), 2) + Math.pow(goalColumn - pos.getColumn(), 2));
+        double euclideanDistance = Math.sqrt(Math.pow(dRow, 2) + Math.pow(dCol, 2));
 
         // Diferencia máxima de altura: |altura_actual - altura_final|
-        double maxHeightDifference = Math.abs(goalHeight - state.getHeight());
+        double maxHeightDifference = Math.abs(dHeight);
 
         // Heurística: h(n) = distancia_euclidiana + diferencia_máxima_de_altura
         return euclideanDistance + maxHeightDifference;
@@ -68,11 +68,21 @@ public class HeuristicManhattanCliffPenalty implements Heuristic {
      */
     private double calculateHeuristic(State state) {
         Position pos = state.getPosition();
-        // Distancia de Manhattan: |x_actual - x_final| + |y_actual - y_final|
-        double manhattanDistance = Math.abs(goalRow - pos.getRow()) + Math.abs(goalColumn - pos.getColumn());
+        return estimate(goalRow - pos.getRow(), goalColumn - pos.getColumn());
+    }
 
-        // Heurística: h(n) = distancia_de_Manhattan
-        return manhattanDistance;
+    /**
+     * Calcula la heurística a partir de las diferencias de fila y columna con
+     * el objetivo. Es el único lugar donde está la fórmula: la usan esta clase
+     * y {@link algorithms.SpecializedAstar}.
+     *
+     * @param dRow Diferencia de filas.
+     * @param dCol Diferencia de columnas.
+     * @return Valor heurístico.
+     */
+    public static double estimate(int dRow, int dCol) {
+        // Distancia de Manhattan: |x_actual - x_final| + |y_actual - y_final|
+        return Math.abs(dRow) + Math.abs(dCol);
     }
 
     /**
@@ -71,11 +71,25 @@ public class HeuristicManhattanMinHeight implements Heuristic {
      */
     private double calculateHeuristic(State state) {
         Position pos = state.getPosition();
+        return estimate(goalRow - pos.getRow(), goalColumn - pos.getColumn(), goalHeight - state.getHeight());
+    }
+
+    /**
+     * Calcula la heurística a partir de las diferencias de fila, columna y
+     * altura con el objetivo. Es el único lugar donde está la fórmula: la usan
+     * esta clase y {@link algorithms.SpecializedAstar}.
+     *
+     * @param dRow    Diferencia de filas.
+     * @param dCol    Diferencia de columnas.
+     * @param dHeight Diferencia de alturas.
+     * @return Valor heurístico.
+     */
+    public static double estimate(int dRow, int dCol, double dHeight) {
         // Distancia de Manhattan: |x_actual - x_final| + |y_actual - y_final|
-        double manhattanDistance = Math.abs(goalRow - pos.getRow()) + Math.abs(goalColumn - pos.getColumn());
+        double manhattanDistance = Math.abs(dRow) + Math.abs(dCol);
 
         // Diferencia mínima de altura: |altura_actual - altura_final|
-        double minHeightDifference = Math.abs(goalHeight - state.getHeight());
+        double minHeightDifference = Math.abs(dHeight);
 
         // Heurística: h(n) = distancia_de_Manhattan + diferencia_mínima_de_altura
         return manhattanDistance + minHeightDifference;
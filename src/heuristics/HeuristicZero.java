@@ -0,0 +1,55 @@
+package heuristics;
+
+import states.State;
+
+/**
+ * Heurística nula: estima un coste de 0 para cualquier estado. Con ella, A* se
+ * comporta como el algoritmo de Dijkstra. Es la única heurística admisible
+ * del paquete, por lo que sirve como referencia cuando se necesita garantizar
+ * que el camino encontrado es óptimo.
+ */
+public class HeuristicZero implements Heuristic {
+
+    /**
+     * Constructor de la heurística nula. El estado objetivo no se usa, pero se
+     * recibe para mantener la misma forma que el resto de heurísticas.
+     *
+     * @param goal Estado objetivo al que se desea llegar.
+     */
+    public HeuristicZero(State goal) {
+    }
+
+    /**
+     * Todos los estados tienen el mismo valor heurístico.
+     *
+     * @param st1 Primer estado a comparar.
+     * @param st2 Segundo estado a comparar.
+     * @return Siempre 0.
+     */
+    @Override
+    public int compare(State st1, State st2) {
+        return 0;
+    }
+
+    /**
+     * Calcula el valor heurístico de un estado.
+     *
+     * @param o1 Estado para el cual se calcula la heurística.
+     * @param o2 Estado objetivo (no se usa).
+     * @return Siempre 0.
+     */
+    @Override
+    public double checkStates(State o1, State o2) {
+        return 0;
+    }
+
+    /**
+     * Retorna el tipo de heurística.
+     *
+     * @return Entero que representa el tipo de heurística.
+     */
+    @Override
+    public int getType() {
+        return 0; // Identificador de la heurística nula
+    }
+}
@@ -0,0 +1,113 @@
+package loadMap;
+
+import metrics.PreprocessEvent;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Componentes conexas de las casillas transitables de un mapa (vecindad de 4).
+ * Como cualquier casilla transitable se puede pisar desde sus vecinas, dos
+ * casillas tienen camino entre sí si y solo si están en la misma componente,
+ * así que una consulta sin solución se descarta sin buscar.
+ *
+ * Las etiquetas se guardan en un {@link IntBuffer} para poder leerlas tanto de
+ * un array como directamente de un archivo proyectado en memoria
+ * ({@link PreprocessedMap}).
+ */
+public class ComponentLabels {
+    public static final int BLOCKED = -1; // Etiqueta de los obstáculos
+
+    private final IntBuffer labels; // Componente de cada casilla
+    private final int count; // Número de componentes
+
+    /**
+     * Etiqueta las componentes de un mapa con un recorrido en anchura.
+     *
+     * @param grid Vista del mapa.
+     */
+    public ComponentLabels(HeightGrid grid) {
+        PreprocessEvent event = new PreprocessEvent(); // Evento de Java Flight Recorder del etiquetado
+        event.begin();
+        int size = grid.size();
+        int[] label = new int[size];
+        Arrays.fill(label, BLOCKED);
+        int[] queue = new int[size];
+        int[] neighbours = new int[4];
+        int components = 0;
+        for (int seed = 0; seed < size; seed++) {
+            if (label[seed] != BLOCKED || grid.isBlocked(seed)) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = seed;
+            label[seed] = components;
+            while (head < tail) {
+                int cell = queue[head++];
+                int n = grid.neighbours(cell, neighbours);
+                for (int k = 0; k < n; k++) {
+                    if (label[neighbours[k]] == BLOCKED) {
+                        label[neighbours[k]] = components;
+                        queue[tail++] = neighbours[k];
+                    }
+                }
+            }
+            components++;
+        }
+        this.labels = IntBuffer.wrap(label);
+        this.count = components;
+
+        if (event.shouldCommit()) {
+            event.stage = "Componentes conexas";
+            event.rows = grid.rows();
+            event.cols = grid.cols();
+            event.bytes = (long) size * Integer.BYTES;
+            event.commit();
+        }
+    }
+
+    /**
+     * Construye las etiquetas a partir de un búfer ya calculado.
+     *
+     * @param labels Componente de cada casilla.
+     * @param count  Número de componentes.
+     */
+    ComponentLabels(IntBuffer labels, int count) {
+        this.labels = labels;
+        this.count = count;
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return La componente de la casilla, o {@link #BLOCKED} si es un
+     *         obstáculo.
+     */
+    public int component(int cell) {
+        return labels.get(cell);
+    }
+
+    /**
+     * @param from Casilla inicial.
+     * @param to   Casilla objetivo.
+     * @return true si hay un camino entre las dos casillas.
+     */
+    public boolean connected(int from, int to) {
+        int label = labels.get(from);
+        return label != BLOCKED && label == labels.get(to);
+    }
+
+    /**
+     * @return El número de componentes.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return El búfer de etiquetas, para guardarlo.
+     */
+    IntBuffer labels() {
+        return labels.duplicate();
+    }
+}
@@ -0,0 +1,242 @@
+package loadMap;
+
+import metrics.PreprocessEvent;
+import states.Position;
+import states.State;
+
+/**
+ * Vista compacta y de solo lectura de un mapa de alturas. Las casillas se
+ * identifican por un índice entero (fila * columnas + columna) y las alturas se
+ * guardan en un array primitivo, de modo que los algoritmos que trabajan sobre
+ * esta vista no modifican los objetos State del mapa original y pueden
+ * compartirla entre varios hilos.
+ */
+public class HeightGrid {
+    public static final int OBSTACLE_VALUE = -999; // Valor que representa un obstáculo en el mapa
+
+    protected final int rows; // Número de filas del mapa
+    protected final int cols; // Número de columnas del mapa
+    protected final int[] heights; // Alturas de cada casilla indexadas por fila * cols + columna
+    protected final State[][] states; // Estados originales, usados al evaluar las heurísticas
+
+    /**
+     * Construye la vista a partir de la matriz de estados de un mapa cargado.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     */
+    public HeightGrid(State[][] map) {
+        PreprocessEvent event = new PreprocessEvent(); // Evento de Java Flight Recorder de la conversión
+        event.begin();
+        this.rows = map.length;
+        this.cols = map[0].length;
+        this.heights = new int[rows * cols];
+        this.states = map;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                heights[row * cols + col] = map[row][col].getHeight();
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.stage = "Vista compacta";
+            event.rows = rows;
+            event.cols = cols;
+            event.bytes = (long) heights.length * Integer.BYTES;
+            event.commit();
+        }
+    }
+
+    /**
+     * Construye una vista con las dimensiones dadas para las subclases que
+     * guardan las alturas y los estados a su manera. Con este constructor
+     * {@link #heights} y {@link #states} quedan a null, así que la subclase
+     * debe redefinir {@link #height(int)} y {@link #state(int)}: son los únicos
+     * métodos que leen esos campos, y el resto de la vista (obstáculos, costes
+     * y vecinos) se calcula a través de ellos. {@link #isViewOf(State[][])}
+     * devuelve siempre false para estas vistas.
+     *
+     * @param rows Número de filas del mapa.
+     * @param cols Número de columnas del mapa.
+     */
+    protected HeightGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.heights = null;
+        this.states = null;
+    }
+
+    /**
+     * Crea la vista compacta de un mapa.
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @return La vista del mapa.
+     */
+    public static HeightGrid of(State[][] map) {
+        return new HeightGrid(map);
+    }
+
+    /**
+     * @return El número de filas del mapa.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return El número de columnas del mapa.
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * @return El número total de casillas del mapa.
+     */
+    public int size() {
+        return rows * cols;
+    }
+
+    /**
+     * Calcula el índice de una casilla a partir de su fila y columna.
+     *
+     * @param row Fila de la casilla.
+     * @param col Columna de la casilla.
+     * @return El índice de la casilla.
+     */
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    /**
+     * Calcula el índice de una casilla a partir de su posición.
+     *
+     * @param position Posición de la casilla.
+     * @return El índice de la casilla.
+     */
+    public int index(Position position) {
+        return index(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return La fila de la casilla.
+     */
+    public int row(int cell) {
+        return cell / cols;
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return La columna de la casilla.
+     */
+    public int column(int cell) {
+        return cell % cols;
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return La altura de la casilla.
+     */
+    public int height(int cell) {
+        return heights[cell];
+    }
+
+    /**
+     * Indica si una casilla es un obstáculo (altura menor o igual a -999).
+     *
+     * @param cell Índice de la casilla.
+     * @return true si la casilla no es transitable, false en caso contrario.
+     */
+    public boolean isBlocked(int cell) {
+        return height(cell) <= OBSTACLE_VALUE;
+    }
+
+    /**
+     * Calcula el coste de moverse entre dos casillas adyacentes.
+     *
+     * @param from Índice de la casilla de origen.
+     * @param to   Índice de la casilla de destino.
+     * @return El tiempo de transición entre ambas casillas.
+     */
+    public double stepCost(int from, int to) {
+        return State.stepTime(height(from), height(to));
+    }
+
+    /**
+     * Obtiene el estado original de una casilla. Solo debe usarse para lectura
+     * (por ejemplo, para evaluar una heurística).
+     *
+     * @param cell Índice de la casilla.
+     * @return El estado de la casilla.
+     */
+    public State state(int cell) {
+        return states[cell / cols][cell % cols];
+    }
+
+    /**
+     * Comprueba si la vista sigue reflejando una matriz de estados: que se haya
+     * construido a partir de ella y que ninguna altura haya cambiado después
+     * (por ejemplo, con {@link State#setHeight(int)}).
+     *
+     * @param map Matriz de estados que representa el mapa.
+     * @return true si la vista se puede seguir usando para esa matriz.
+     */
+    public boolean isViewOf(State[][] map) {
+        if (states != map || heights == null) {
+            return false;
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (heights[row * cols + col] != map[row][col].getHeight()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escribe en {@code out} las casillas vecinas transitables de una casilla, en
+     * el mismo orden que {@code Algorithm.succesors} (arriba, abajo, izquierda,
+     * derecha).
+     *
+     * @param cell Índice de la casilla.
+     * @param out  Array de al menos 4 posiciones donde se guardan los vecinos.
+     * @return El número de vecinos escritos.
+     */
+    public int neighbours(int cell, int[] out) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int count = 0;
+        if (row > 0 && !isBlocked(cell - cols)) {
+            out[count++] = cell - cols;
+        }
+        if (row < rows - 1 && !isBlocked(cell + cols)) {
+            out[count++] = cell + cols;
+        }
+        if (col > 0 && !isBlocked(cell - 1)) {
+            out[count++] = cell - 1;
+        }
+        if (col < cols - 1 && !isBlocked(cell + 1)) {
+            out[count++] = cell + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Crea una matriz de estados nueva con las alturas de esta vista. Útil para
+     * ejecutar los algoritmos que modifican los estados sin afectar al mapa
+     * original.
+     *
+     * @return Una matriz de estados independiente.
+     */
+    public State[][] toStates() {
+        State[][] map = new State[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                map[row][col] = new State(height(row * cols + col), new Position(row, col));
+            }
+        }
+        return map;
+    }
+}
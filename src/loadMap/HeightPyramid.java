@@ -0,0 +1,251 @@
+package loadMap;
+
+import metrics.PreprocessEvent;
+
+/**
+ * Pirámide de resoluciones (mip-map) de un mapa de alturas. El nivel 0 es el
+ * mapa original y cada nivel superior agrupa bloques de 2x2 casillas del nivel
+ * anterior. Cada casilla gruesa guarda la altura mínima y máxima de las
+ * casillas transitables que contiene, y se marca como bloqueada solo si todas
+ * ellas son obstáculos, de modo que los costes calculados sobre un nivel
+ * grueso nunca sobrestiman los del mapa original.
+ */
+public class HeightPyramid {
+    private static final int MIN_LEVEL_SIZE = 8; // Tamaño a partir del cual no se crean más niveles
+
+    private final HeightGrid grid; // Mapa original (nivel 0)
+    private final int[] rows; // Filas de cada nivel
+    private final int[] cols; // Columnas de cada nivel
+    private final int[][] minHeight; // Altura mínima de cada casilla en cada nivel
+    private final int[][] maxHeight; // Altura máxima de cada casilla en cada nivel
+    private final boolean[][] blocked; // Casillas bloqueadas en cada nivel
+
+    /**
+     * Construye la pirámide completa de un mapa.
+     *
+     * @param grid Vista del mapa original.
+     */
+    public HeightPyramid(HeightGrid grid) {
+        PreprocessEvent event = new PreprocessEvent(); // Evento de Java Flight Recorder de la construcción
+        event.begin();
+        this.grid = grid;
+
+        // Calcular el número de niveles hasta que el mapa quepa en MIN_LEVEL_SIZE
+        int levels = 1;
+        for (int r = grid.rows(), c = grid.cols(); Math.max(r, c) > MIN_LEVEL_SIZE; levels++) {
+            r = (r + 1) / 2;
+            c = (c + 1) / 2;
+        }
+        this.rows = new int[levels];
+        this.cols = new int[levels];
+        this.minHeight = new int[levels][];
+        this.maxHeight = new int[levels][];
+        this.blocked = new boolean[levels][];
+
+        // Nivel 0: las alturas del mapa original
+        int size = grid.size();
+        rows[0] = grid.rows();
+        cols[0] = grid.cols();
+        minHeight[0] = new int[size];
+        blocked[0] = new boolean[size];
+        for (int cell = 0; cell < size; cell++) {
+            minHeight[0][cell] = grid.height(cell);
+            blocked[0][cell] = grid.isBlocked(cell);
+        }
+        maxHeight[0] = minHeight[0]; // En el nivel 0 el mínimo y el máximo coinciden
+
+        for (int level = 1; level < levels; level++) {
+            buildLevel(level);
+        }
+
+        if (event.shouldCommit()) {
+            event.stage = "Pirámide de resoluciones";
+            event.rows = grid.rows();
+            event.cols = grid.cols();
+            event.bytes = bytes();
+            event.commit();
+        }
+    }
+
+    /**
+     * Construye la pirámide con niveles ya calculados (por ejemplo, leídos de
+     * una {@link PreprocessedMap}). El nivel 0 se toma del mapa original.
+     *
+     * @param grid      Vista del mapa original.
+     * @param rows      Filas de cada nivel.
+     * @param cols      Columnas de cada nivel.
+     * @param minHeight Altura mínima de cada casilla en los niveles 1 en adelante.
+     * @param maxHeight Altura máxima de cada casilla en los niveles 1 en adelante.
+     * @param blocked   Casillas bloqueadas en los niveles 1 en adelante.
+     */
+    HeightPyramid(HeightGrid grid, int[] rows, int[] cols, int[][] minHeight, int[][] maxHeight,
+            boolean[][] blocked) {
+        this.grid = grid;
+        this.rows = rows;
+        this.cols = cols;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.blocked = blocked;
+        int size = grid.size();
+        minHeight[0] = new int[size];
+        blocked[0] = new boolean[size];
+        for (int cell = 0; cell < size; cell++) {
+            minHeight[0][cell] = grid.height(cell);
+            blocked[0][cell] = grid.isBlocked(cell);
+        }
+        maxHeight[0] = minHeight[0];
+    }
+
+    /**
+     * @return Bytes ocupados por los niveles de la pirámide (el nivel 0
+     *         comparte las alturas mínimas y máximas).
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (int level = 0; level < levels(); level++) {
+            long size = (long) rows[level] * cols[level];
+            bytes += size * (level == 0 ? Integer.BYTES + 1 : 2 * Integer.BYTES + 1);
+        }
+        return bytes;
+    }
+
+    /**
+     * Construye un nivel agrupando bloques de 2x2 casillas del nivel anterior.
+     *
+     * @param level Nivel que se construye.
+     */
+    private void buildLevel(int level) {
+        int fineRows = rows[level - 1];
+        int fineCols = cols[level - 1];
+        rows[level] = (fineRows + 1) / 2;
+        cols[level] = (fineCols + 1) / 2;
+        int size = rows[level] * cols[level];
+        int[] min = new int[size];
+        int[] max = new int[size];
+        boolean[] block = new boolean[size];
+
+        for (int row = 0; row < rows[level]; row++) {
+            for (int col = 0; col < cols[level]; col++) {
+                int lo = Integer.MAX_VALUE;
+                int hi = Integer.MIN_VALUE;
+                for (int fr = 2 * row; fr < Math.min(2 * row + 2, fineRows); fr++) {
+                    for (int fc = 2 * col; fc < Math.min(2 * col + 2, fineCols); fc++) {
+                        int fine = fr * fineCols + fc;
+                        if (!blocked[level - 1][fine]) {
+                            lo = Math.min(lo, minHeight[level - 1][fine]);
+                            hi = Math.max(hi, maxHeight[level - 1][fine]);
+                        }
+                    }
+                }
+                int cell = row * cols[level] + col;
+                block[cell] = lo == Integer.MAX_VALUE; // Bloqueada si todas las casillas son obstáculos
+                min[cell] = block[cell] ? HeightGrid.OBSTACLE_VALUE : lo;
+                max[cell] = block[cell] ? HeightGrid.OBSTACLE_VALUE : hi;
+            }
+        }
+        minHeight[level] = min;
+        maxHeight[level] = max;
+        blocked[level] = block;
+    }
+
+    /**
+     * @return El mapa original sobre el que se construyó la pirámide.
+     */
+    public HeightGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return El número de niveles de la pirámide (al menos 1).
+     */
+    public int levels() {
+        return rows.length;
+    }
+
+    /**
+     * @param level Nivel de la pirámide.
+     * @return El número de filas del nivel.
+     */
+    public int rows(int level) {
+        return rows[level];
+    }
+
+    /**
+     * @param level Nivel de la pirámide.
+     * @return El número de columnas del nivel.
+     */
+    public int cols(int level) {
+        return cols[level];
+    }
+
+    /**
+     * @param level Nivel de la pirámide.
+     * @param cell  Índice de la casilla en el nivel.
+     * @return La altura mínima de la casilla.
+     */
+    public int minHeight(int level, int cell) {
+        return minHeight[level][cell];
+    }
+
+    /**
+     * @param level Nivel de la pirámide.
+     * @param cell  Índice de la casilla en el nivel.
+     * @return La altura máxima de la casilla.
+     */
+    public int maxHeight(int level, int cell) {
+        return maxHeight[level][cell];
+    }
+
+    /**
+     * @param level Nivel de la pirámide.
+     * @param cell  Índice de la casilla en el nivel.
+     * @return true si todas las casillas originales que cubre son obstáculos.
+     */
+    public boolean isBlocked(int level, int cell) {
+        return blocked[level][cell];
+    }
+
+    /**
+     * Calcula la casilla de un nivel que contiene a una casilla del mapa
+     * original.
+     *
+     * @param level Nivel de destino.
+     * @param cell  Índice de la casilla en el nivel 0.
+     * @return El índice de la casilla en el nivel indicado.
+     */
+    public int cellAt(int level, int cell) {
+        int row = (cell / cols[0]) >> level;
+        int col = (cell % cols[0]) >> level;
+        return row * cols[level] + col;
+    }
+
+    /**
+     * Calcula la casilla del nivel superior que contiene a una casilla.
+     *
+     * @param level Nivel de la casilla.
+     * @param cell  Índice de la casilla en ese nivel.
+     * @return El índice de la casilla contenedora en el nivel {@code level + 1}.
+     */
+    public int parent(int level, int cell) {
+        int row = (cell / cols[level]) >> 1;
+        int col = (cell % cols[level]) >> 1;
+        return row * cols[level + 1] + col;
+    }
+
+    /**
+     * Cota inferior del coste de pasar de una casilla a otra adyacente en un
+     * nivel. Si la altura mínima del destino no es menor que la máxima del
+     * origen, cualquier paso real es una subida de al menos esa diferencia; en
+     * otro caso el paso más barato posible es una bajada (0.5). En el nivel 0 la
+     * cota coincide con el coste real.
+     *
+     * @param level Nivel de las casillas.
+     * @param from  Índice de la casilla de origen.
+     * @param to    Índice de la casilla de destino.
+     * @return La cota inferior del coste del paso.
+     */
+    public double stepLowerBound(int level, int from, int to) {
+        int diff = minHeight[level][to] - maxHeight[level][from];
+        return diff >= 0 ? 1 + diff : 0.5;
+    }
+}
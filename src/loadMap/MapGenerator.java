@@ -0,0 +1,113 @@
+package loadMap;
+
+import metrics.MapLoadEvent;
+import states.Position;
+import states.State;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Genera mapas aleatorios con el mismo formato que los ficheros de
+ * {@code data/}. Las alturas se obtienen interpolando valores aleatorios sobre
+ * una rejilla gruesa, de modo que el terreno es suave, y se añaden obstáculos
+ * con la proporción indicada. Las posiciones inicial y final nunca son
+ * obstáculos.
+ */
+public class MapGenerator {
+    private static final int NOISE_CELL = 8; // Tamaño (en casillas) de la rejilla de ruido
+
+    /**
+     * Genera un mapa aleatorio con el inicio en la esquina superior izquierda y
+     * el final en la esquina inferior derecha.
+     *
+     * @param rows          Número de filas del mapa.
+     * @param cols          Número de columnas del mapa.
+     * @param maxHeight     Altura máxima del terreno.
+     * @param obstacleRatio Proporción de casillas que son obstáculos (0 a 1).
+     * @param seed          Semilla del generador aleatorio.
+     * @return El mapa generado.
+     */
+    public static MapData generate(int rows, int cols, int maxHeight, double obstacleRatio, long seed) {
+        MapLoadEvent event = new MapLoadEvent(); // Evento de Java Flight Recorder de la generación
+        event.begin();
+        Random random = new Random(seed);
+        int obstacles = 0; // Obstáculos colocados
+
+        // Rejilla gruesa de valores aleatorios que se interpola para obtener el terreno
+        int noiseRows = rows / NOISE_CELL + 2;
+        int noiseCols = cols / NOISE_CELL + 2;
+        double[][] noise = new double[noiseRows][noiseCols];
+        for (int r = 0; r < noiseRows; r++) {
+            for (int c = 0; c < noiseCols; c++) {
+                noise[r][c] = random.nextDouble();
+            }
+        }
+
+        Position start = new Position(0, 0);
+        Position end = new Position(rows - 1, cols - 1);
+        State[][] map = new State[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                double y = (double) row / NOISE_CELL;
+                double x = (double) col / NOISE_CELL;
+                int r0 = (int) y;
+                int c0 = (int) x;
+                double fy = y - r0;
+                double fx = x - c0;
+                // Interpolación bilineal entre las cuatro esquinas de la celda de ruido
+                double value = noise[r0][c0] * (1 - fy) * (1 - fx) + noise[r0 + 1][c0] * fy * (1 - fx)
+                        + noise[r0][c0 + 1] * (1 - fy) * fx + noise[r0 + 1][c0 + 1] * fy * fx;
+                int height = (int) Math.round(value * maxHeight);
+
+                boolean endpoint = (row == start.getRow() && col == start.getColumn())
+                        || (row == end.getRow() && col == end.getColumn());
+                if (!endpoint && random.nextDouble() < obstacleRatio) {
+                    height = HeightGrid.OBSTACLE_VALUE;
+                    obstacles++;
+                }
+                map[row][col] = new State(height, new Position(row, col));
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.source = "Generado (semilla " + seed + ")";
+            event.rows = rows;
+            event.cols = cols;
+            event.obstacles = obstacles;
+            event.commit();
+        }
+        return new MapData(map, start, end);
+    }
+
+    /**
+     * Guarda un mapa en un fichero de texto con el formato que lee
+     * {@link MapLoader#loadMapState}.
+     *
+     * @param mapData  Mapa que se desea guardar.
+     * @param filePath Ruta del fichero de destino.
+     * @throws IOException Si ocurre un error al escribir el fichero.
+     */
+    public static void write(MapData mapData, String filePath) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+            State[][] map = mapData.map;
+            writer.write(map.length + " " + map[0].length + "\n");
+            writer.write(mapData.start.getRow() + " " + mapData.start.getColumn() + "\n");
+            writer.write(mapData.end.getRow() + " " + mapData.end.getColumn() + "\n");
+            for (int row = 0; row < map.length; row++) {
+                StringBuilder line = new StringBuilder();
+                for (int col = 0; col < map[row].length; col++) {
+                    if (col > 0) {
+                        line.append(' ');
+                    }
+                    int height = map[row][col].getHeight();
+                    line.append(height == HeightGrid.OBSTACLE_VALUE ? "X" : String.valueOf(height));
+                }
+                if (row < map.length - 1) {
+                    line.append('\n');
+                }
+                writer.write(line.toString());
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package loadMap;
 
+import metrics.MapLoadEvent;
 import states.State;
 import states.Position;
 import java.io.*;
@@ -17,6 +18,8 @@ public class MapLoader {
      * @throws IOException Si ocurre un error al leer el archivo.
      */
     public static MapData loadMapState(String filePath) throws IOException {
+        MapLoadEvent event = new MapLoadEvent(); // Evento de Java Flight Recorder de la carga
+        event.begin();
         BufferedReader reader = new BufferedReader(new FileReader(filePath)); // Abrir el archivo para lectura
         String lineContent; // Variable para almacenar cada línea leída
         String[] lineArray; // Arreglo para dividir el contenido de las líneas
@@ -39,11 +42,15 @@ public class MapLoader {
 
         // Leer el contenido del mapa y llenar la matriz de estados
         int rowIndex = 0; // Índice de fila en la matriz
+        int obstacles = 0; // Casillas no válidas leídas
         while ((lineContent = reader.readLine()) != null) { // Leer línea a línea hasta el final del archivo
             lineArray = lineContent.split(" "); // Separar los valores de la línea por espacios
             for (int colIndex = 0; colIndex < lineArray.length; colIndex++) {
                 // Si la casilla contiene 'X', se asigna el valor de casilla no válida
                 int value = lineArray[colIndex].equals("X") ? INVALID_VALUE : Integer.parseInt(lineArray[colIndex]);
+                if (value == INVALID_VALUE) {
+                    obstacles++;
+                }
                 // Se crea un estado en la posición correspondiente con el valor obtenido
                 map[rowIndex][colIndex] = new State(value, new Position(rowIndex, colIndex));
             }
@@ -51,6 +58,14 @@ public class MapLoader {
         }
         reader.close(); // Cerrar el archivo después de la lectura
 
+        if (event.shouldCommit()) {
+            event.source = filePath;
+            event.rows = numRows;
+            event.cols = numCols;
+            event.obstacles = obstacles;
+            event.commit();
+        }
+
         // Retornar el mapa cargado junto con las posiciones de inicio y fin
         return new MapData(map, startPosition, endPosition);
     }
@@ -0,0 +1,406 @@
+package loadMap;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * Dibuja un mapa de alturas y un camino sobre él, como texto con colores ANSI o
+ * como imagen PGM o PNG.
+ *
+ * El camino se marca una sola vez en una máscara de bits, así que el coste es
+ * proporcional al número de casillas dibujadas más la longitud del camino. Cada
+ * fila se compone en un búfer reutilizable y se escribe de una vez a través de
+ * un único {@link Writer} con búfer.
+ *
+ * En los mapas que no caben en la ventana máxima ({@link #setViewport}) el
+ * texto solo muestra el rectángulo que rodea al camino, con un margen; las
+ * imágenes siempre muestran el mapa completo.
+ */
+public class MapRenderer {
+    public static final int DEFAULT_MAX_ROWS = 100; // Filas máximas de la ventana de texto por defecto
+    public static final int DEFAULT_MAX_COLS = 100; // Columnas máximas de la ventana de texto por defecto
+    public static final int DEFAULT_MARGIN = 5; // Casillas alrededor del camino en la ventana por defecto
+
+    /* Colores ANSI para la impresión en consola */
+    public static final String ANSI_BLUE = "\u001B[34m"; // Azul para el camino
+    public static final String ANSI_RESET = "\u001B[0m"; // Restablecer color
+    public static final String ANSI_GREEN = "\u001B[32m"; // Verde para la posición inicial
+    public static final String ANSI_PINK = "\u001B[35m"; // Rosa para la posición final
+    public static final String ANSI_RED = "\u001B[31m"; // Rojo para los obstáculos ('X')
+
+    /* Colores RGB de las imágenes PNG, equivalentes a los de la consola */
+    private static final int RGB_PATH = 0x2060ff;
+    private static final int RGB_START = 0x20c020;
+    private static final int RGB_END = 0xe040e0;
+    private static final int RGB_OBSTACLE = 0xb00000;
+
+    private static final int PGM_LOW = 40; // Gris de la casilla más baja en PGM
+    private static final int PGM_HIGH = 220; // Gris de la casilla más alta en PGM
+    private static final int PGM_PATH = 255; // Gris del camino en PGM (los obstáculos son 0)
+
+    private final HeightGrid grid; // Mapa que se dibuja
+    private boolean color = true; // Si es false, el texto no lleva códigos ANSI
+    private int maxRows = DEFAULT_MAX_ROWS; // Filas máximas de la ventana de texto
+    private int maxCols = DEFAULT_MAX_COLS; // Columnas máximas de la ventana de texto
+    private int margin = DEFAULT_MARGIN; // Casillas alrededor del camino en la ventana de texto
+
+    /**
+     * Constructor de la clase MapRenderer.
+     *
+     * @param grid Vista del mapa que se dibuja.
+     */
+    public MapRenderer(HeightGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Activa o desactiva los códigos de color ANSI del texto.
+     *
+     * @param color true para usar colores.
+     */
+    public void setColor(boolean color) {
+        this.color = color;
+    }
+
+    /**
+     * Fija el tamaño máximo del texto. Si el mapa no cabe, solo se muestra el
+     * rectángulo que contiene el camino más el margen, recortado a este tamaño
+     * alrededor de su centro.
+     *
+     * @param maxRows Filas máximas.
+     * @param maxCols Columnas máximas.
+     * @param margin  Casillas que se muestran alrededor del camino.
+     */
+    public void setViewport(int maxRows, int maxCols, int margin) {
+        if (maxRows < 1 || maxCols < 1 || margin < 0) {
+            throw new IllegalArgumentException("Ventana no válida: " + maxRows + "x" + maxCols + ", margen " + margin);
+        }
+        this.maxRows = maxRows;
+        this.maxCols = maxCols;
+        this.margin = margin;
+    }
+
+    /**
+     * Escribe el mapa base en la salida estándar: las alturas, los obstáculos
+     * como 'X', la posición inicial como 'S' y la final como 'E'.
+     *
+     * @param start Casilla inicial.
+     * @param end   Casilla final.
+     */
+    public void printMap(int start, int end) {
+        Writer out = stdout();
+        try {
+            writeMap(out, start, end);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe un camino sobre el mapa en la salida estándar.
+     *
+     * @param path Casillas del camino, desde la inicial.
+     * @param end  Casilla final que se resalta.
+     * @see #writePath
+     */
+    public void printPath(int[] path, int end) {
+        Writer out = stdout();
+        try {
+            writePath(out, path, end);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe el mapa base: las alturas, los obstáculos como 'X', la posición
+     * inicial como 'S' y la final como 'E'.
+     *
+     * @param out   Destino del texto.
+     * @param start Casilla inicial.
+     * @param end   Casilla final.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writeMap(Writer out, int start, int end) throws IOException {
+        int[] window = window(null, start, end);
+        writeWindowHeader(out, window);
+        StringBuilder line = new StringBuilder(); // Búfer de cada fila, reutilizado
+        for (int row = window[0]; row <= window[1]; row++) {
+            line.setLength(0);
+            line.append('|');
+            for (int col = window[2]; col <= window[3]; col++) {
+                int cell = grid.index(row, col);
+                if (col > window[2]) {
+                    line.append(' ');
+                }
+                if (grid.isBlocked(cell)) {
+                    appendObstacle(line);
+                } else if (cell == start) {
+                    appendColored(line, ANSI_GREEN, "S");
+                } else if (cell == end) {
+                    appendColored(line, ANSI_PINK, "E");
+                } else {
+                    line.append(grid.height(cell));
+                }
+            }
+            line.append("|\n");
+            out.append(line);
+        }
+    }
+
+    /**
+     * Escribe un camino sobre el mapa: las alturas de todas las casillas, con
+     * la inicial en verde, la final en rosa, el resto del camino en azul y los
+     * obstáculos como 'X' en rojo.
+     *
+     * @param out  Destino del texto.
+     * @param path Casillas del camino, desde la inicial.
+     * @param end  Casilla final que se resalta.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writePath(Writer out, int[] path, int end) throws IOException {
+        BitSet mask = mask(path);
+        int start = path.length > 0 ? path[0] : -1;
+        int[] window = window(path, start, end);
+        writeWindowHeader(out, window);
+        StringBuilder line = new StringBuilder(); // Búfer de cada fila, reutilizado
+        for (int row = window[0]; row <= window[1]; row++) {
+            line.setLength(0);
+            line.append('|');
+            for (int col = window[2]; col <= window[3]; col++) {
+                int cell = grid.index(row, col);
+                if (col > window[2]) {
+                    line.append(' ');
+                }
+                String highlight = cell == start ? ANSI_GREEN
+                        : cell == end ? ANSI_PINK
+                        : mask.get(cell) ? ANSI_BLUE : null;
+                if (highlight != null && color) {
+                    line.append(highlight);
+                }
+                if (grid.isBlocked(cell)) {
+                    appendObstacle(line);
+                } else {
+                    line.append(grid.height(cell));
+                }
+                if (highlight != null && color) {
+                    line.append(ANSI_RESET);
+                }
+            }
+            line.append("|\n");
+            out.append(line);
+        }
+    }
+
+    /**
+     * Guarda el mapa como imagen PGM binaria en escala de grises, con una
+     * casilla por píxel: los obstáculos en negro, el terreno más claro cuanto
+     * más alto y el camino en blanco.
+     *
+     * @param file Archivo de destino.
+     * @param path Casillas del camino (puede estar vacío).
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writePgm(Path file, int[] path) throws IOException {
+        BitSet mask = mask(path);
+        int[] range = heightRange();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            out.write(("P5\n" + grid.cols() + " " + grid.rows() + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+            byte[] line = new byte[grid.cols()]; // Búfer de cada fila, reutilizado
+            for (int row = 0; row < grid.rows(); row++) {
+                for (int col = 0; col < grid.cols(); col++) {
+                    int cell = grid.index(row, col);
+                    int gray = grid.isBlocked(cell) ? 0
+                            : mask.get(cell) ? PGM_PATH
+                            : shade(grid.height(cell), range, PGM_LOW, PGM_HIGH);
+                    line[col] = (byte) gray;
+                }
+                out.write(line);
+            }
+        }
+    }
+
+    /**
+     * Guarda el mapa como imagen PNG en color: el terreno en grises según la
+     * altura, los obstáculos en rojo, el camino en azul y sus extremos en verde
+     * y rosa.
+     *
+     * @param file  Archivo de destino.
+     * @param path  Casillas del camino (puede estar vacío).
+     * @param scale Píxeles por casilla en cada dirección.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writePng(Path file, int[] path, int scale) throws IOException {
+        if (scale < 1 || (long) grid.size() * scale * scale > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Escala no válida: " + scale);
+        }
+        BitSet mask = mask(path);
+        int start = path.length > 0 ? path[0] : -1;
+        int end = path.length > 0 ? path[path.length - 1] : -1;
+        int[] range = heightRange();
+        int width = grid.cols() * scale;
+        BufferedImage image = new BufferedImage(width, grid.rows() * scale, BufferedImage.TYPE_INT_RGB);
+        int[] line = new int[width]; // Búfer de cada fila de píxeles, reutilizado
+        for (int row = 0; row < grid.rows(); row++) {
+            for (int col = 0; col < grid.cols(); col++) {
+                int cell = grid.index(row, col);
+                int rgb;
+                if (cell == start) {
+                    rgb = RGB_START;
+                } else if (cell == end) {
+                    rgb = RGB_END;
+                } else if (mask.get(cell)) {
+                    rgb = RGB_PATH;
+                } else if (grid.isBlocked(cell)) {
+                    rgb = RGB_OBSTACLE;
+                } else {
+                    int gray = shade(grid.height(cell), range, PGM_LOW, PGM_HIGH);
+                    rgb = gray << 16 | gray << 8 | gray;
+                }
+                for (int i = 0; i < scale; i++) {
+                    line[col * scale + i] = rgb;
+                }
+            }
+            for (int i = 0; i < scale; i++) {
+                image.setRGB(0, row * scale + i, width, 1, line, 0, width);
+            }
+        }
+        if (!ImageIO.write(image, "png", file.toFile())) {
+            throw new IOException("No hay ningún codificador PNG disponible");
+        }
+    }
+
+    /**
+     * Marca las casillas del camino en una máscara de bits.
+     */
+    private BitSet mask(int[] path) {
+        BitSet mask = new BitSet(grid.size());
+        for (int cell : path) {
+            mask.set(cell);
+        }
+        return mask;
+    }
+
+    /**
+     * Calcula la ventana de texto que se muestra: el mapa completo si cabe en
+     * el tamaño máximo y, si no, el rectángulo que contiene el camino y sus
+     * extremos más el margen, recortado alrededor de su centro.
+     *
+     * @return Primera y última fila y primera y última columna.
+     */
+    private int[] window(int[] path, int start, int end) {
+        if (grid.rows() <= maxRows && grid.cols() <= maxCols) {
+            return new int[] { 0, grid.rows() - 1, 0, grid.cols() - 1 };
+        }
+        int top = grid.rows();
+        int bottom = -1;
+        int left = grid.cols();
+        int right = -1;
+        int[] cells = path != null ? path : new int[0];
+        for (int i = -2; i < cells.length; i++) {
+            int cell = i == -2 ? start : i == -1 ? end : cells[i];
+            if (cell < 0) {
+                continue;
+            }
+            top = Math.min(top, grid.row(cell));
+            bottom = Math.max(bottom, grid.row(cell));
+            left = Math.min(left, grid.column(cell));
+            right = Math.max(right, grid.column(cell));
+        }
+        if (bottom < 0) {
+            // Sin casillas que mostrar: la esquina superior izquierda del mapa
+            return new int[] { 0, Math.min(maxRows, grid.rows()) - 1, 0, Math.min(maxCols, grid.cols()) - 1 };
+        }
+        int[] rows = clamp(top - margin, bottom + margin, maxRows, grid.rows());
+        int[] cols = clamp(left - margin, right + margin, maxCols, grid.cols());
+        return new int[] { rows[0], rows[1], cols[0], cols[1] };
+    }
+
+    /**
+     * Recorta un intervalo a los límites del mapa y a una longitud máxima
+     * alrededor de su centro.
+     */
+    private static int[] clamp(int from, int to, int max, int limit) {
+        from = Math.max(0, from);
+        to = Math.min(limit - 1, to);
+        if (to - from + 1 > max) {
+            int center = (from + to) / 2;
+            from = Math.max(0, center - max / 2);
+            to = Math.min(limit - 1, from + max - 1);
+        }
+        return new int[] { from, to };
+    }
+
+    /**
+     * Escribe una línea con la parte del mapa que se muestra si no es el mapa
+     * completo.
+     */
+    private void writeWindowHeader(Writer out, int[] window) throws IOException {
+        if (window[0] > 0 || window[2] > 0 || window[1] < grid.rows() - 1 || window[3] < grid.cols() - 1) {
+            out.append("Ventana: filas ").append(String.valueOf(window[0])).append('-')
+                    .append(String.valueOf(window[1])).append(", columnas ").append(String.valueOf(window[2]))
+                    .append('-').append(String.valueOf(window[3])).append(" de un mapa de ")
+                    .append(String.valueOf(grid.rows())).append('x').append(String.valueOf(grid.cols()))
+                    .append('\n');
+        }
+    }
+
+    private void appendObstacle(StringBuilder line) {
+        appendColored(line, ANSI_RED, "X");
+    }
+
+    private void appendColored(StringBuilder line, String ansi, String text) {
+        if (color) {
+            line.append(ansi).append(text).append(ANSI_RESET);
+        } else {
+            line.append(text);
+        }
+    }
+
+    /**
+     * @return La altura mínima y máxima de las casillas transitables.
+     */
+    private int[] heightRange() {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (!grid.isBlocked(cell)) {
+                min = Math.min(min, grid.height(cell));
+                max = Math.max(max, grid.height(cell));
+            }
+        }
+        return min <= max ? new int[] { min, max } : new int[] { 0, 0 };
+    }
+
+    /**
+     * Convierte una altura en un nivel de gris entre {@code low} y
+     * {@code high}.
+     */
+    private static int shade(int height, int[] range, int low, int high) {
+        if (range[1] == range[0]) {
+            return (low + high) / 2;
+        }
+        return low + (int) ((long) (height - range[0]) * (high - low) / (range[1] - range[0]));
+    }
+
+    /**
+     * @return Un escritor con búfer sobre la salida estándar, que no se cierra
+     *         para no cerrar {@code System.out}.
+     */
+    private static Writer stdout() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,451 @@
+package loadMap;
+
+import metrics.PreprocessEvent;
+import states.Position;
+import states.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * Mapa con su preproceso (vista compacta, componentes conexas y pirámide de
+ * resoluciones) guardado en un archivo de instantánea junto al mapa. La
+ * instantánea se identifica por la longitud y el CRC-32 del archivo del mapa:
+ * si coinciden, se proyecta en memoria y no se lee ni se preprocesa el mapa de
+ * texto; si el mapa ha cambiado o la instantánea falta o está dañada, se
+ * preprocesa el mapa y se vuelve a escribir. Si no se puede escribir (por
+ * ejemplo, porque el directorio es de solo lectura) se avisa y se usa el mapa
+ * preprocesado en memoria.
+ *
+ * Una instantánea solo se usa si su contenido pasa la suma de control (un
+ * CRC-32 de todo el archivo salvo el de la cabecera de identificación y el
+ * propio CRC) y sus dimensiones son coherentes entre sí; cualquier fallo se
+ * trata como una instantánea que falta. Comprobar el CRC obliga a leer el
+ * archivo una vez de forma secuencial, pero no a interpretarlo: las alturas y
+ * las componentes se siguen leyendo directamente del archivo proyectado y la
+ * pirámide se copia a memoria la primera vez que se pide. Sin instantánea las
+ * componentes se calculan al abrir el mapa y la pirámide al pedirla.
+ *
+ * Formato (enteros de 4 bytes en orden little-endian):
+ * <pre>
+ * MAGIC VERSION longitud(8) crc(8) filas columnas inicio(2) final(2) componentes niveles crcContenido(8)
+ * (filas columnas) por nivel
+ * alturas[filas*columnas] componentes[filas*columnas]
+ * por cada nivel desde el 1: mínimas[n] máximas[n] bloqueadas[n bytes, rellenado a 4]
+ * </pre>
+ */
+public class PreprocessedMap {
+    public static final String EXTENSION = ".pre"; // Extensión de las instantáneas
+    private static final int MAGIC = 0x50505331; // "PPS1"
+    private static final int VERSION = 2; // Versión del formato
+    private static final int CONTENT_CRC = 56; // Posición del CRC del contenido
+    private static final int FIXED_HEADER = 64; // Bytes de la cabecera antes de las dimensiones de los niveles
+    private static final int MAX_LEVELS = 32; // Niveles como máximo de una instantánea válida
+
+    private final HeightGrid grid; // Vista del mapa
+    private final Position start; // Posición inicial del mapa
+    private final Position end; // Posición final del mapa
+    private final ComponentLabels components; // Componentes conexas
+    private final boolean fromSnapshot; // true si se ha leído de la instantánea
+    private final int[] levelRows; // Filas de cada nivel guardado de la pirámide
+    private final int[] levelCols; // Columnas de cada nivel guardado de la pirámide
+    private final ByteBuffer levelData; // Niveles guardados, o null si no hay instantánea
+    private volatile HeightPyramid pyramid; // Pirámide, construida al pedirla por primera vez
+
+    private PreprocessedMap(HeightGrid grid, Position start, Position end, ComponentLabels components,
+            boolean fromSnapshot, int[] levelRows, int[] levelCols, ByteBuffer levelData) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.components = components;
+        this.fromSnapshot = fromSnapshot;
+        this.levelRows = levelRows;
+        this.levelCols = levelCols;
+        this.levelData = levelData;
+    }
+
+    /**
+     * Abre un mapa usando la instantánea de {@link #snapshotPath(Path)}.
+     *
+     * @param mapFile Archivo del mapa.
+     * @return El mapa preprocesado.
+     * @throws IOException Si no se puede leer el mapa.
+     */
+    public static PreprocessedMap open(Path mapFile) throws IOException {
+        return open(mapFile, snapshotPath(mapFile));
+    }
+
+    /**
+     * Abre un mapa desde su instantánea si está al día y es válida, o lo
+     * preprocesa e intenta escribir la instantánea en caso contrario.
+     *
+     * @param mapFile  Archivo del mapa.
+     * @param snapshot Archivo de la instantánea.
+     * @return El mapa preprocesado.
+     * @throws IOException Si no se puede leer el mapa.
+     */
+    public static PreprocessedMap open(Path mapFile, Path snapshot) throws IOException {
+        byte[] source = Files.readAllBytes(mapFile);
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        if (Files.isRegularFile(snapshot)) {
+            PreprocessedMap mapped;
+            try {
+                mapped = map(snapshot, source.length, crc.getValue());
+            } catch (IOException | RuntimeException e) {
+                mapped = null; // Una instantánea que no se puede leer se rehace como si faltara
+            }
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        PreprocessedMap built = build(MapLoader.loadMapState(mapFile.toString()));
+        try {
+            built.write(snapshot, source.length, crc.getValue());
+        } catch (IOException e) {
+            // El mapa ya está preprocesado en memoria: la instantánea solo acelera el siguiente arranque
+            System.err.println("Aviso: no se ha podido escribir la instantánea " + snapshot + ": " + e);
+        }
+        return built;
+    }
+
+    /**
+     * Preprocesa un mapa en memoria, sin instantánea.
+     *
+     * @param data Mapa cargado.
+     * @return El mapa preprocesado.
+     */
+    public static PreprocessedMap build(MapData data) {
+        HeightGrid grid = HeightGrid.of(data.map);
+        return new PreprocessedMap(grid, data.start, data.end, new ComponentLabels(grid), false, null, null, null);
+    }
+
+    /**
+     * @param mapFile Archivo del mapa.
+     * @return La ruta de su instantánea: el mismo nombre con {@link #EXTENSION}.
+     */
+    public static Path snapshotPath(Path mapFile) {
+        return mapFile.resolveSibling(mapFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * @return La vista del mapa.
+     */
+    public HeightGrid grid() {
+        return grid;
+    }
+
+    /**
+     * @return La posición inicial del mapa.
+     */
+    public Position start() {
+        return start;
+    }
+
+    /**
+     * @return La posición final del mapa.
+     */
+    public Position end() {
+        return end;
+    }
+
+    /**
+     * @return Las componentes conexas del mapa.
+     */
+    public ComponentLabels components() {
+        return components;
+    }
+
+    /**
+     * @return true si el preproceso se ha leído de la instantánea.
+     */
+    public boolean isFromSnapshot() {
+        return fromSnapshot;
+    }
+
+    /**
+     * @return La pirámide de resoluciones del mapa, leída de la instantánea o
+     *         construida la primera vez que se pide.
+     */
+    public HeightPyramid pyramid() {
+        HeightPyramid pyr = pyramid;
+        if (pyr == null) {
+            synchronized (this) {
+                pyr = pyramid;
+                if (pyr == null) {
+                    pyr = levelData != null ? readPyramid() : new HeightPyramid(grid);
+                    pyramid = pyr;
+                }
+            }
+        }
+        return pyr;
+    }
+
+    /**
+     * Proyecta una instantánea y comprueba que corresponde al mapa, que su
+     * contenido está íntegro y que sus dimensiones son coherentes.
+     *
+     * @return El mapa, o null si la instantánea no es de este mapa o no pasa
+     *         alguna comprobación.
+     * @throws IOException Si no se puede proyectar el archivo.
+     */
+    private static PreprocessedMap map(Path snapshot, long length, long crc) throws IOException {
+        PreprocessEvent event = new PreprocessEvent(); // Evento de Java Flight Recorder de la proyección
+        event.begin();
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Sigue válida tras cerrar
+        }
+        ByteBuffer in = file.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.capacity() < FIXED_HEADER || in.getInt(0) != MAGIC || in.getInt(4) != VERSION
+                || in.getLong(8) != length || in.getLong(16) != crc || in.getLong(CONTENT_CRC) != checksum(in)) {
+            return null;
+        }
+        int rows = in.getInt(24);
+        int cols = in.getInt(28);
+        Position start = new Position(in.getInt(32), in.getInt(36));
+        Position end = new Position(in.getInt(40), in.getInt(44));
+        int count = in.getInt(48);
+        int levels = in.getInt(52);
+        if (rows <= 0 || cols <= 0 || count < 0 || levels <= 0 || levels > MAX_LEVELS
+                || in.capacity() < header(levels)) {
+            return null;
+        }
+        int[] levelRows = new int[levels];
+        int[] levelCols = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            levelRows[level] = in.getInt(FIXED_HEADER + 8 * level);
+            levelCols[level] = in.getInt(FIXED_HEADER + 8 * level + 4);
+        }
+        if (!consistent(rows, cols, start, end, levelRows, levelCols)
+                || in.capacity() != size(levelRows, levelCols)) {
+            return null;
+        }
+
+        int cells = rows * cols;
+        int offset = header(levels);
+        IntBuffer heights = slice(in, offset, cells * Integer.BYTES).asIntBuffer();
+        offset += cells * Integer.BYTES;
+        IntBuffer labels = slice(in, offset, cells * Integer.BYTES).asIntBuffer();
+        offset += cells * Integer.BYTES;
+        ByteBuffer rest = slice(in, offset, in.capacity() - offset);
+        PreprocessedMap map = new PreprocessedMap(new MappedGrid(rows, cols, heights), start, end,
+                new ComponentLabels(labels, count), true, levelRows, levelCols, rest);
+
+        if (event.shouldCommit()) {
+            event.stage = "Instantánea de preproceso";
+            event.rows = rows;
+            event.cols = cols;
+            event.bytes = in.capacity();
+            event.commit();
+        }
+        return map;
+    }
+
+    /**
+     * Comprueba que las dimensiones de la cabecera encajan entre sí: el nivel 0
+     * es el mapa, cada nivel tiene la mitad (redondeada hacia arriba) de filas
+     * y columnas que el anterior, y el inicio y el final están dentro del mapa.
+     */
+    private static boolean consistent(int rows, int cols, Position start, Position end, int[] levelRows,
+            int[] levelCols) {
+        if (levelRows[0] != rows || levelCols[0] != cols || (long) rows * cols * 2 * Integer.BYTES > Integer.MAX_VALUE
+                || !inside(rows, cols, start) || !inside(rows, cols, end)) {
+            return false;
+        }
+        for (int level = 1; level < levelRows.length; level++) {
+            if (levelRows[level] != (levelRows[level - 1] + 1) / 2
+                    || levelCols[level] != (levelCols[level - 1] + 1) / 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inside(int rows, int cols, Position position) {
+        return position.getRow() >= 0 && position.getRow() < rows && position.getColumn() >= 0
+                && position.getColumn() < cols;
+    }
+
+    /**
+     * Calcula el CRC del contenido: toda la instantánea salvo la identificación
+     * del mapa (los primeros 24 bytes) y el propio CRC.
+     */
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(slice(buffer, 24, CONTENT_CRC - 24));
+        crc.update(slice(buffer, FIXED_HEADER, buffer.capacity() - FIXED_HEADER));
+        return crc.getValue();
+    }
+
+    /**
+     * Copia a memoria los niveles guardados de la pirámide.
+     */
+    private HeightPyramid readPyramid() {
+        int levels = levelRows.length;
+        int[][] min = new int[levels][];
+        int[][] max = new int[levels][];
+        boolean[][] blocked = new boolean[levels][];
+        ByteBuffer in = levelData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (int level = 1; level < levels; level++) {
+            int n = levelRows[level] * levelCols[level];
+            min[level] = new int[n];
+            max[level] = new int[n];
+            blocked[level] = new boolean[n];
+            in.asIntBuffer().get(min[level]);
+            in.position(in.position() + n * Integer.BYTES);
+            in.asIntBuffer().get(max[level]);
+            in.position(in.position() + n * Integer.BYTES);
+            for (int i = 0; i < n; i++) {
+                blocked[level][i] = in.get() != 0;
+            }
+            in.position(in.position() + padding(n));
+        }
+        return new HeightPyramid(grid, levelRows.clone(), levelCols.clone(), min, max, blocked);
+    }
+
+    /**
+     * Escribe la instantánea en un archivo temporal y lo renombra, de modo que
+     * otro proceso nunca lee una instantánea a medias.
+     */
+    private void write(Path snapshot, long length, long crc) throws IOException {
+        HeightPyramid pyr = pyramid();
+        int levels = pyr.levels();
+        int[] levelRows = new int[levels];
+        int[] levelCols = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            levelRows[level] = pyr.rows(level);
+            levelCols[level] = pyr.cols(level);
+        }
+        int cells = grid.size();
+        ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(size(levelRows, levelCols)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putLong(length).putLong(crc);
+        out.putInt(grid.rows()).putInt(grid.cols());
+        out.putInt(start.getRow()).putInt(start.getColumn()).putInt(end.getRow()).putInt(end.getColumn());
+        out.putInt(components.count()).putInt(levels);
+        out.position(FIXED_HEADER); // El CRC del contenido se escribe al final
+        for (int level = 0; level < levels; level++) {
+            out.putInt(levelRows[level]).putInt(levelCols[level]);
+        }
+        out.position(header(levels));
+        for (int cell = 0; cell < cells; cell++) {
+            out.putInt(grid.height(cell));
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            out.putInt(components.component(cell));
+        }
+        for (int level = 1; level < levels; level++) {
+            int n = levelRows[level] * levelCols[level];
+            for (int i = 0; i < n; i++) {
+                out.putInt(pyr.minHeight(level, i));
+            }
+            for (int i = 0; i < n; i++) {
+                out.putInt(pyr.maxHeight(level, i));
+            }
+            for (int i = 0; i < n; i++) {
+                out.put((byte) (pyr.isBlocked(level, i) ? 1 : 0));
+            }
+            out.position(out.position() + padding(n));
+        }
+        out.putLong(CONTENT_CRC, checksum(out));
+        out.flip();
+
+        Path dir = snapshot.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            try {
+                Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            // No dejar el temporal a medias en el directorio del mapa
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return Los bytes de la cabecera, redondeados a 8.
+     */
+    private static int header(int levels) {
+        return (FIXED_HEADER + 8 * levels + 7) & ~7;
+    }
+
+    /**
+     * @return Los bytes de relleno tras las casillas bloqueadas de un nivel.
+     */
+    private static int padding(int n) {
+        return -n & 3;
+    }
+
+    /**
+     * @return El tamaño total de una instantánea con estos niveles.
+     */
+    private static long size(int[] levelRows, int[] levelCols) {
+        long cells = (long) levelRows[0] * levelCols[0];
+        long size = header(levelRows.length) + 2 * cells * Integer.BYTES;
+        for (int level = 1; level < levelRows.length; level++) {
+            long n = (long) levelRows[level] * levelCols[level];
+            size += 2 * n * Integer.BYTES + n + padding((int) n);
+        }
+        return size;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.duplicate().position(offset).limit(offset + length).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Vista cuyas alturas se leen directamente de la instantánea proyectada.
+     * Los estados de las casillas, que solo se usan para evaluar las
+     * heurísticas, se crean la primera vez que se piden.
+     */
+    private static final class MappedGrid extends HeightGrid {
+        private final IntBuffer heights; // Alturas en el archivo proyectado
+        private final AtomicReferenceArray<State> states; // Estados creados hasta ahora
+
+        MappedGrid(int rows, int cols, IntBuffer heights) {
+            super(rows, cols);
+            this.heights = heights;
+            this.states = new AtomicReferenceArray<>(rows * cols);
+        }
+
+        @Override
+        public int height(int cell) {
+            return heights.get(cell);
+        }
+
+        @Override
+        public State state(int cell) {
+            State state = states.get(cell);
+            if (state == null) {
+                // Si dos hilos lo crean a la vez se queda el primero
+                states.compareAndSet(cell, null, new State(heights.get(cell), new Position(cell / cols, cell % cols)));
+                state = states.get(cell);
+            }
+            return state;
+        }
+    }
+}
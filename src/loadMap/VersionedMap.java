@@ -0,0 +1,323 @@
+package loadMap;
+
+import metrics.PreprocessEvent;
+import states.Position;
+import states.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapa de alturas editable que admite consultas concurrentes con las
+ * ediciones. El mapa se divide en baldosas de {@code 2^TILE_BITS} casillas de
+ * lado; cada versión del mapa es una tabla de baldosas inmutables. Al aplicar
+ * un lote de ediciones se copian solo las baldosas que cambian y se publica
+ * una versión nueva (una época más), de modo que las versiones consecutivas
+ * comparten todas las baldosas no editadas.
+ *
+ * Las consultas trabajan sobre una {@link Snapshot}, que es una
+ * {@link HeightGrid} y por tanto sirve a cualquier algoritmo: mientras dure la
+ * búsqueda ve siempre la misma versión aunque se sigan aplicando ediciones.
+ * Las baldosas antiguas se liberan (las recoge el recolector de basura) cuando
+ * ninguna instantánea las usa; {@link #retainedTiles()} indica cuántas siguen
+ * retenidas por lectores de versiones pasadas.
+ *
+ * Las ediciones se serializan entre sí; las lecturas no se bloquean nunca.
+ */
+public class VersionedMap {
+    public static final int TILE_BITS = 5; // Lado de las baldosas: 32 casillas
+    private static final int TILE = 1 << TILE_BITS; // Casillas por lado de baldosa
+    private static final int MASK = TILE - 1; // Máscara de la posición dentro de la baldosa
+
+    private final int rows; // Número de filas del mapa
+    private final int cols; // Número de columnas del mapa
+    private final int tileCols; // Baldosas por fila de baldosas
+    private final Map<Long, Snapshot> pinned = new ConcurrentHashMap<>(); // Versiones con lectores, por época
+    private volatile Snapshot current; // Última versión publicada
+    private long edits; // Casillas editadas desde la creación (protegido por this)
+    private long copiedTiles; // Baldosas copiadas por las ediciones (protegido por this)
+
+    /**
+     * Crea la primera versión (época 0) con las alturas de una vista. Los
+     * estados de las casillas son propios, así que el mapa no depende de la
+     * matriz de estados original ni de quien la modifique.
+     *
+     * @param grid Vista del mapa.
+     */
+    public VersionedMap(HeightGrid grid) {
+        PreprocessEvent event = new PreprocessEvent(); // Evento de Java Flight Recorder de la conversión
+        event.begin();
+        this.rows = grid.rows();
+        this.cols = grid.cols();
+        this.tileCols = (cols + MASK) >> TILE_BITS;
+        int tileRows = (rows + MASK) >> TILE_BITS;
+        Tile[] tiles = new Tile[tileRows * tileCols];
+        for (int t = 0; t < tiles.length; t++) {
+            Tile tile = new Tile();
+            int baseRow = (t / tileCols) << TILE_BITS;
+            int baseCol = (t % tileCols) << TILE_BITS;
+            for (int r = 0; r < TILE && baseRow + r < rows; r++) {
+                for (int c = 0; c < TILE && baseCol + c < cols; c++) {
+                    tile.set(r << TILE_BITS | c, grid.height(grid.index(baseRow + r, baseCol + c)), baseRow + r,
+                            baseCol + c);
+                }
+            }
+            tiles[t] = tile;
+        }
+        this.current = new Snapshot(this, 0, tiles);
+
+        if (event.shouldCommit()) {
+            event.stage = "Mapa versionado";
+            event.rows = rows;
+            event.cols = cols;
+            event.bytes = (long) rows * cols * Integer.BYTES;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return La última versión publicada, sin registrarse como lector. Sirve
+     *         para lecturas puntuales; una búsqueda debe usar {@link #acquire()}.
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * Fija la última versión para una consulta. Cada llamada debe ir seguida de
+     * un {@link Snapshot#close()}, normalmente con try-with-resources.
+     *
+     * @return La instantánea de la última versión.
+     */
+    public Snapshot acquire() {
+        Snapshot snapshot = current;
+        pinned.compute(snapshot.epoch, (epoch, pinnedSnapshot) -> {
+            snapshot.readers++;
+            return snapshot;
+        });
+        return snapshot;
+    }
+
+    /**
+     * Aplica un lote de ediciones y publica la versión resultante. Las
+     * baldosas afectadas se copian una sola vez por lote.
+     *
+     * @param batch Ediciones que se aplican.
+     * @return La época de la versión publicada.
+     * @throws IndexOutOfBoundsException Si una edición se sale del mapa.
+     */
+    public synchronized long apply(Batch batch) {
+        Snapshot base = current;
+        Tile[] tiles = base.tiles.clone();
+        boolean[] copied = new boolean[tiles.length];
+        for (int i = 0; i < batch.size; i++) {
+            int row = batch.rows[i];
+            int col = batch.cols[i];
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                throw new IndexOutOfBoundsException("Casilla fuera del mapa: " + row + "," + col);
+            }
+            int t = (row >> TILE_BITS) * tileCols + (col >> TILE_BITS);
+            if (!copied[t]) {
+                tiles[t] = tiles[t].copy();
+                copied[t] = true;
+                copiedTiles++;
+            }
+            tiles[t].set((row & MASK) << TILE_BITS | (col & MASK), batch.heights[i], row, col);
+        }
+        edits += batch.size;
+        Snapshot next = new Snapshot(this, base.epoch + 1, tiles);
+        current = next;
+        return next.epoch;
+    }
+
+    /**
+     * @return La época de la última versión publicada.
+     */
+    public long epoch() {
+        return current.epoch;
+    }
+
+    /**
+     * @return La época más antigua que sigue fijada por algún lector, o la
+     *         actual si no hay ninguno.
+     */
+    public long oldestPinnedEpoch() {
+        long oldest = current.epoch;
+        for (Long epoch : pinned.keySet()) {
+            oldest = Math.min(oldest, epoch);
+        }
+        return oldest;
+    }
+
+    /**
+     * @return Las baldosas que solo siguen vivas porque las usa algún lector de
+     *         una versión anterior a la actual.
+     */
+    public int retainedTiles() {
+        Tile[] latest = current.tiles;
+        Set<Tile> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Snapshot snapshot : pinned.values()) {
+            for (int t = 0; t < latest.length; t++) {
+                if (snapshot.tiles[t] != latest[t]) {
+                    retained.add(snapshot.tiles[t]);
+                }
+            }
+        }
+        return retained.size();
+    }
+
+    /**
+     * @return Casillas editadas desde la creación del mapa.
+     */
+    public synchronized long edits() {
+        return edits;
+    }
+
+    /**
+     * @return Baldosas copiadas por las ediciones desde la creación del mapa.
+     */
+    public synchronized long copiedTiles() {
+        return copiedTiles;
+    }
+
+    /**
+     * Lote de ediciones de altura. Un obstáculo es una casilla con altura
+     * {@link HeightGrid#OBSTACLE_VALUE}.
+     */
+    public static final class Batch {
+        private int[] rows = new int[16]; // Fila de cada edición
+        private int[] cols = new int[16]; // Columna de cada edición
+        private int[] heights = new int[16]; // Altura nueva de cada edición
+        private int size; // Ediciones del lote
+
+        /**
+         * Cambia la altura de una casilla.
+         *
+         * @param row    Fila de la casilla.
+         * @param col    Columna de la casilla.
+         * @param height Altura nueva.
+         * @return El propio lote.
+         */
+        public Batch setHeight(int row, int col, int height) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                cols = Arrays.copyOf(cols, size * 2);
+                heights = Arrays.copyOf(heights, size * 2);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            heights[size] = height;
+            size++;
+            return this;
+        }
+
+        /**
+         * Convierte una casilla en obstáculo.
+         *
+         * @param row Fila de la casilla.
+         * @param col Columna de la casilla.
+         * @return El propio lote.
+         */
+        public Batch block(int row, int col) {
+            return setHeight(row, col, HeightGrid.OBSTACLE_VALUE);
+        }
+
+        /**
+         * @return El número de ediciones del lote.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Vacía el lote para reutilizarlo.
+         */
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Versión inmutable del mapa. Es una {@link HeightGrid}, así que los
+     * algoritmos la usan como cualquier otra vista y pueden compartirla entre
+     * hilos.
+     */
+    public static final class Snapshot extends HeightGrid implements AutoCloseable {
+        private final VersionedMap owner; // Mapa al que pertenece la versión
+        private final long epoch; // Época de la versión
+        private final Tile[] tiles; // Baldosas de la versión, por fila de baldosas
+        private final int tileCols; // Baldosas por fila de baldosas
+        private int readers; // Lectores que la tienen fijada (se cambia dentro de pinned.compute)
+
+        private Snapshot(VersionedMap owner, long epoch, Tile[] tiles) {
+            super(owner.rows, owner.cols);
+            this.owner = owner;
+            this.epoch = epoch;
+            this.tiles = tiles;
+            this.tileCols = owner.tileCols;
+        }
+
+        /**
+         * @return La época de la versión.
+         */
+        public long epoch() {
+            return epoch;
+        }
+
+        @Override
+        public int height(int cell) {
+            int row = cell / cols;
+            int col = cell - row * cols;
+            return tiles[(row >> TILE_BITS) * tileCols + (col >> TILE_BITS)].heights[(row & MASK) << TILE_BITS
+                    | (col & MASK)];
+        }
+
+        @Override
+        public State state(int cell) {
+            int row = cell / cols;
+            int col = cell - row * cols;
+            return tiles[(row >> TILE_BITS) * tileCols + (col >> TILE_BITS)].states[(row & MASK) << TILE_BITS
+                    | (col & MASK)];
+        }
+
+        /**
+         * Deja de fijar la versión. Debe llamarse una vez por cada
+         * {@link VersionedMap#acquire()}.
+         */
+        @Override
+        public void close() {
+            owner.pinned.computeIfPresent(epoch, (key, snapshot) -> --readers == 0 ? null : snapshot);
+        }
+    }
+
+    /**
+     * Baldosa de casillas. No se modifica una vez publicada: las ediciones
+     * trabajan sobre una copia.
+     */
+    private static final class Tile {
+        final int[] heights; // Alturas por fila * TILE + columna dentro de la baldosa
+        final State[] states; // Estados de las casillas, creados de nuevo al editarlas
+
+        Tile() {
+            this(new int[TILE * TILE], new State[TILE * TILE]);
+        }
+
+        private Tile(int[] heights, State[] states) {
+            this.heights = heights;
+            this.states = states;
+        }
+
+        Tile copy() {
+            return new Tile(heights.clone(), states.clone());
+        }
+
+        void set(int offset, int height, int row, int col) {
+            heights[offset] = height;
+            states[offset] = new State(height, new Position(row, col));
+        }
+    }
+}
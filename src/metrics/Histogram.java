@@ -0,0 +1,145 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de valores enteros no negativos con cubetas logarítmico-lineales,
+ * al estilo de HdrHistogram. Cada potencia de dos se divide en
+ * {@code 2^(SUB_BITS - 1)} cubetas iguales, así que el error relativo de los
+ * percentiles es como mucho {@code 1 / 2^(SUB_BITS - 1)} (un 3 %) con memoria
+ * fija, sea cual sea el rango de los valores.
+ *
+ * Los valores por encima de {@link #MAX_VALUE} se cuentan en la última cubeta,
+ * pero el máximo se guarda exacto. No está sincronizado.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 6; // Bits significativos de cada cubeta
+    private static final int HALF = 1 << (SUB_BITS - 1); // Cubetas por potencia de dos
+    public static final long MAX_VALUE = (1L << 40) - 1; // Mayor valor con cubeta propia (18 min en ns)
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS]; // Valores de cada cubeta
+    private long count; // Valores registrados
+    private long sum; // Suma de los valores
+    private long min = Long.MAX_VALUE; // Menor valor registrado
+    private long max; // Mayor valor registrado
+
+    /**
+     * Registra un valor. Los negativos se cuentan como 0.
+     *
+     * @param value Valor que se registra.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[index(Math.min(value, MAX_VALUE))]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Suma los valores de otro histograma a este.
+     *
+     * @param other Histograma que se suma.
+     */
+    public void add(Histogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Vacía el histograma.
+     */
+    public void clear() {
+        if (count == 0) {
+            return;
+        }
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * @return El número de valores registrados.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return El menor valor registrado, o 0 si está vacío.
+     */
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return El mayor valor registrado.
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return La media de los valores registrados, o 0 si está vacío.
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Calcula un percentil. Devuelve el mayor valor de la cubeta que lo contiene
+     * (sin pasar del máximo registrado), de modo que nunca lo subestima.
+     *
+     * @param percentile Percentil entre 0 y 100.
+     * @return El valor del percentil, o 0 si está vacío.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                // La última cubeta también guarda los valores fuera de rango: su cota es el máximo exacto
+                return i == BUCKETS - 1 ? max : Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Calcula la cubeta de un valor: los valores menores que {@code 2^SUB_BITS}
+     * tienen cubeta propia y el resto se agrupan por sus {@code SUB_BITS} bits
+     * más altos.
+     */
+    private static int index(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * @return El mayor valor que cae en una cubeta.
+     */
+    private static long highestValue(int index) {
+        if (index < 2 * HALF) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long mantissa = index - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Java Flight Recorder emitido al cargar o generar un mapa, con sus
+ * dimensiones y su número de obstáculos.
+ */
+@Name("pathfinding.MapLoad")
+@Label("Carga de mapa")
+@Category("Búsqueda de caminos")
+@Description("Lectura o generación de un mapa de alturas")
+@StackTrace(false)
+public class MapLoadEvent extends Event {
+    @Label("Origen")
+    public String source; // Ruta del archivo o descripción del mapa generado
+
+    @Label("Filas")
+    public int rows; // Filas del mapa
+
+    @Label("Columnas")
+    public int cols; // Columnas del mapa
+
+    @Label("Obstáculos")
+    public int obstacles; // Casillas no transitables
+}
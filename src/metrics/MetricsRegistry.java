@@ -0,0 +1,296 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de métricas de las búsquedas. Para cada combinación de algoritmo y
+ * heurística guarda un {@link RollingHistogram} de la latencia y otro de los
+ * nodos expandidos por búsqueda, y los exporta como tabla de percentiles a un
+ * archivo o a la salida estándar.
+ *
+ * Registrar una búsqueda es barato aunque lo hagan muchos hilos a la vez: las
+ * métricas se localizan por el nombre del algoritmo y el tipo de la heurística
+ * sin crear objetos, y cada hilo escribe en una franja distinta de los
+ * histogramas ({@link RollingHistogram}), que se suman al exportar.
+ *
+ * Los algoritmos registran sus búsquedas en {@link #global()}. El registro se
+ * desactiva con {@code -Dsearch.metrics=false} y la exportación periódica se
+ * activa sin tocar el código con {@code -Dsearch.metrics.export=<archivo>} (o
+ * {@code stdout}) y {@code -Dsearch.metrics.period=<ms>}.
+ */
+public final class MetricsRegistry {
+    /** Indica si se registran las búsquedas en el registro global. */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("search.metrics", "true"));
+
+    private static final int SLOTS = 6; // Intervalos de la ventana deslizante
+    private static final long SLOT_MILLIS = 10_000; // Duración de cada intervalo: ventana de 1 minuto
+    private static final long DEFAULT_PERIOD = 10_000; // Periodo de exportación por defecto en ms
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 }; // Percentiles que se exportan
+    private static final MetricsRegistry GLOBAL = createGlobal();
+
+    private final Map<String, AlgorithmMetrics> searches = new ConcurrentHashMap<>(); // Métricas por algoritmo
+    private final int slots; // Intervalos de la ventana de cada histograma
+    private final long slotMillis; // Duración de cada intervalo en ms
+
+    /**
+     * Constructor de la clase MetricsRegistry.
+     *
+     * @param slots      Intervalos de la ventana deslizante.
+     * @param slotMillis Duración de cada intervalo en milisegundos.
+     */
+    public MetricsRegistry(int slots, long slotMillis) {
+        this.slots = slots;
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * @return El registro en el que anotan sus búsquedas los algoritmos.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registra una búsqueda terminada.
+     *
+     * @param algorithm     Nombre del algoritmo.
+     * @param heuristicType Tipo de la heurística.
+     * @param nanos         Duración de la búsqueda en nanosegundos.
+     * @param expanded      Nodos expandidos.
+     */
+    public void recordSearch(String algorithm, int heuristicType, long nanos, long expanded) {
+        // Los nombres son constantes con el hash ya calculado: la consulta no reserva memoria
+        AlgorithmMetrics byAlgorithm = searches.get(algorithm);
+        if (byAlgorithm == null) {
+            byAlgorithm = searches.computeIfAbsent(algorithm, AlgorithmMetrics::new);
+        }
+        SearchMetrics metrics = byAlgorithm.get(heuristicType, slots, slotMillis);
+        metrics.latency.record(nanos);
+        metrics.expanded.record(expanded);
+    }
+
+    /**
+     * Olvida todas las búsquedas registradas.
+     */
+    public void clear() {
+        searches.clear();
+    }
+
+    /**
+     * Escribe la tabla de percentiles de la ventana actual.
+     *
+     * @param out Flujo de salida.
+     */
+    public void report(PrintStream out) {
+        List<SearchMetrics> sorted = new ArrayList<>();
+        for (AlgorithmMetrics byAlgorithm : searches.values()) {
+            byAlgorithm.addTo(sorted);
+        }
+        sorted.sort(Comparator.comparing((SearchMetrics m) -> m.algorithm).thenComparingInt(m -> m.heuristicType));
+
+        StringBuilder header = new StringBuilder(String.format("%-24s %4s %9s", "Algoritmo", "Heur", "Búsquedas"));
+        for (double p : PERCENTILES) {
+            header.append(String.format(" %10s", "ms p" + format(p)));
+        }
+        header.append(String.format(" %10s", "ms máx"));
+        for (double p : PERCENTILES) {
+            header.append(String.format(" %10s", "exp p" + format(p)));
+        }
+        header.append(String.format(" %10s", "exp máx"));
+
+        out.println("Métricas de búsqueda (últimos " + slots * slotMillis / 1000 + " s)");
+        out.println(header);
+        for (SearchMetrics metrics : sorted) {
+            Histogram latency = metrics.latency.snapshot();
+            Histogram expanded = metrics.expanded.snapshot();
+            if (latency.count() == 0) {
+                continue;
+            }
+            StringBuilder row = new StringBuilder(String.format("%-24s %4d %9d", metrics.algorithm,
+                    metrics.heuristicType, latency.count()));
+            for (double p : PERCENTILES) {
+                row.append(String.format(" %10.3f", latency.percentile(p) / 1e6));
+            }
+            row.append(String.format(" %10.3f", latency.max() / 1e6));
+            for (double p : PERCENTILES) {
+                row.append(String.format(" %10d", expanded.percentile(p)));
+            }
+            row.append(String.format(" %10d", expanded.max()));
+            out.println(row);
+        }
+        out.flush();
+    }
+
+    /**
+     * Escribe la tabla en un archivo. Se escribe primero en un archivo temporal
+     * y después se renombra, así que quien lo lea nunca ve una tabla a medias.
+     *
+     * @param file Archivo de destino.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(tmp), false, StandardCharsets.UTF_8)) {
+            report(out);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Empieza a exportar la tabla periódicamente desde un hilo demonio.
+     *
+     * @param file         Archivo de destino, o null para la salida estándar.
+     * @param periodMillis Periodo de exportación en milisegundos.
+     * @return La exportación en curso, que se detiene con
+     *         {@link Exporter#close()}.
+     */
+    public Exporter startExport(Path file, long periodMillis) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            if (file == null) {
+                report(System.out);
+                return;
+            }
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Detiene la exportación
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return new Exporter(scheduler);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    /**
+     * Crea el registro global y, si se ha pedido con las propiedades del
+     * sistema, arranca su exportación.
+     */
+    private static MetricsRegistry createGlobal() {
+        MetricsRegistry registry = new MetricsRegistry(SLOTS, SLOT_MILLIS);
+        String target = System.getProperty("search.metrics.export");
+        if (ENABLED && target != null) {
+            long period = Long.getLong("search.metrics.period", DEFAULT_PERIOD);
+            registry.startExport(target.equals("stdout") ? null : Path.of(target), period);
+        }
+        return registry;
+    }
+
+    /**
+     * Exportación periódica en curso.
+     */
+    public static final class Exporter implements AutoCloseable {
+        private final ScheduledExecutorService scheduler; // Hilo que exporta
+
+        private Exporter(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Detiene la exportación.
+         */
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Métricas de un algoritmo, indexadas por el tipo de la heurística. La tabla
+     * se copia al añadir un tipo nuevo (algo que pasa pocas veces), así que
+     * consultarla no necesita cerrojo ni crear objetos.
+     */
+    private static final class AlgorithmMetrics {
+        final String algorithm; // Nombre del algoritmo
+        volatile SearchMetrics[] byType = new SearchMetrics[0]; // Métricas de cada tipo de heurística no negativo
+        final Map<Integer, SearchMetrics> others = new ConcurrentHashMap<>(); // Métricas de los tipos negativos
+
+        AlgorithmMetrics(String algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        /**
+         * @return Las métricas de un tipo de heurística, que se crean si no
+         *         existen.
+         */
+        SearchMetrics get(int heuristicType, int slots, long slotMillis) {
+            if (heuristicType < 0) {
+                return others.computeIfAbsent(heuristicType,
+                        type -> new SearchMetrics(algorithm, type, slots, slotMillis));
+            }
+            SearchMetrics[] table = byType;
+            if (heuristicType < table.length && table[heuristicType] != null) {
+                return table[heuristicType];
+            }
+            synchronized (this) {
+                table = byType;
+                if (heuristicType >= table.length) {
+                    table = Arrays.copyOf(table, heuristicType + 1);
+                } else if (table[heuristicType] == null) {
+                    table = table.clone();
+                } else {
+                    return table[heuristicType];
+                }
+                table[heuristicType] = new SearchMetrics(algorithm, heuristicType, slots, slotMillis);
+                byType = table;
+                return table[heuristicType];
+            }
+        }
+
+        /**
+         * Añade a una lista las métricas de todos los tipos.
+         */
+        void addTo(List<SearchMetrics> list) {
+            list.addAll(others.values());
+            for (SearchMetrics metrics : byType) {
+                if (metrics != null) {
+                    list.add(metrics);
+                }
+            }
+        }
+    }
+
+    /**
+     * Histogramas de una combinación de algoritmo y heurística.
+     */
+    private static final class SearchMetrics {
+        final String algorithm; // Nombre del algoritmo
+        final int heuristicType; // Tipo de la heurística
+        final RollingHistogram latency; // Duración de cada búsqueda en ns
+        final RollingHistogram expanded; // Nodos expandidos por búsqueda
+
+        SearchMetrics(String algorithm, int heuristicType, int slots, long slotMillis) {
+            this.algorithm = algorithm;
+            this.heuristicType = heuristicType;
+            this.latency = new RollingHistogram(slots, slotMillis);
+            this.expanded = new RollingHistogram(slots, slotMillis);
+        }
+    }
+}
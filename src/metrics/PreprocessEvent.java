@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Java Flight Recorder emitido al preparar las estructuras que usan
+ * las búsquedas (vista compacta del mapa, pirámide de resoluciones...).
+ */
+@Name("pathfinding.Preprocess")
+@Label("Preproceso")
+@Category("Búsqueda de caminos")
+@Description("Construcción de una estructura auxiliar del mapa")
+@StackTrace(false)
+public class PreprocessEvent extends Event {
+    @Label("Fase")
+    public String stage; // Estructura que se construye
+
+    @Label("Filas")
+    public int rows; // Filas del mapa
+
+    @Label("Columnas")
+    public int cols; // Columnas del mapa
+
+    @Label("Memoria")
+    @DataAmount
+    public long bytes; // Bytes ocupados por la estructura
+}
@@ -0,0 +1,120 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histograma de los valores registrados en una ventana de tiempo deslizante.
+ * La ventana se divide en {@code slots} intervalos de {@code slotMillis} ms,
+ * cada uno con su propio {@link Histogram}; al avanzar el reloj se vacían los
+ * intervalos que han salido de la ventana, así que el coste de registrar un
+ * valor no depende de su tamaño.
+ *
+ * Se puede usar desde varios hilos. Para que los hilos que registran a la vez
+ * no compitan por un único cerrojo, cada hilo escribe en una de varias franjas
+ * (elegida por su identidad) con su propio anillo de intervalos, y
+ * {@link #snapshot()} suma todas las franjas. Las franjas se crean la primera
+ * vez que se usan, así que con un solo hilo solo se reserva una.
+ */
+public class RollingHistogram {
+    private static final int MAX_STRIPES = 16; // Límite de franjas, para acotar la memoria
+
+    private final AtomicReferenceArray<Stripe> stripes; // Franjas de cada grupo de hilos, creadas al usarse
+    private final int mask; // Máscara para elegir la franja (número de franjas menos uno)
+    private final int slots; // Intervalos de la ventana
+    private final long slotNanos; // Duración de cada intervalo en nanosegundos
+
+    /**
+     * Constructor de la clase RollingHistogram.
+     *
+     * @param slots      Intervalos de la ventana.
+     * @param slotMillis Duración de cada intervalo en milisegundos.
+     */
+    public RollingHistogram(int slots, long slotMillis) {
+        if (slots < 1 || slotMillis < 1) {
+            throw new IllegalArgumentException("La ventana necesita al menos un intervalo de 1 ms");
+        }
+        int count = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.stripes = new AtomicReferenceArray<>(count);
+        this.mask = count - 1;
+        this.slots = slots;
+        this.slotNanos = slotMillis * 1_000_000;
+    }
+
+    /**
+     * Registra un valor en el intervalo actual de la franja del hilo.
+     *
+     * @param value Valor que se registra.
+     */
+    public void record(long value) {
+        int hash = System.identityHashCode(Thread.currentThread());
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe(slots, slotNanos));
+            stripe = stripes.get(index);
+        }
+        stripe.record(value);
+    }
+
+    /**
+     * @return Una copia con los valores de toda la ventana.
+     */
+    public Histogram snapshot() {
+        Histogram total = new Histogram();
+        for (int i = 0; i < stripes.length(); i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                stripe.addTo(total);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return La duración de la ventana en milisegundos.
+     */
+    public long windowMillis() {
+        return slots * slotNanos / 1_000_000;
+    }
+
+    /**
+     * Anillo de intervalos de una franja, protegido por su propio cerrojo.
+     */
+    private static final class Stripe {
+        private final Histogram[] slots; // Histograma de cada intervalo, en anillo
+        private final long slotNanos; // Duración de cada intervalo en nanosegundos
+        private long current; // Número del intervalo actual desde el origen de System.nanoTime
+
+        Stripe(int slots, long slotNanos) {
+            this.slots = new Histogram[slots];
+            for (int i = 0; i < slots; i++) {
+                this.slots[i] = new Histogram();
+            }
+            this.slotNanos = slotNanos;
+            this.current = Math.floorDiv(System.nanoTime(), slotNanos);
+        }
+
+        synchronized void record(long value) {
+            advance();
+            slots[Math.floorMod(current, slots.length)].record(value);
+        }
+
+        synchronized void addTo(Histogram total) {
+            advance();
+            for (Histogram slot : slots) {
+                total.add(slot);
+            }
+        }
+
+        /**
+         * Vacía los intervalos que han salido de la ventana desde la última llamada.
+         */
+        private void advance() {
+            long now = Math.floorDiv(System.nanoTime(), slotNanos);
+            for (long slot = current + 1; slot <= now && slot <= current + slots.length; slot++) {
+                slots[Math.floorMod(slot, slots.length)].clear();
+            }
+            current = Math.max(current, now);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Java Flight Recorder emitido al terminar cada búsqueda. La
+ * duración del evento es la de la búsqueda completa (preparación, bucle y
+ * reconstrucción del camino).
+ *
+ * Se graba con {@code -XX:StartFlightRecording}; si la grabación no está
+ * activa el evento no tiene coste apreciable.
+ */
+@Name("pathfinding.Search")
+@Label("Búsqueda")
+@Category("Búsqueda de caminos")
+@Description("Búsqueda de un camino sobre un mapa de alturas")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Algoritmo")
+    public String algorithm; // Nombre del algoritmo
+
+    @Label("Heurística")
+    @Description("Tipo de la heurística (Heuristic.getType())")
+    public int heuristicType; // Tipo de la heurística
+
+    @Label("Filas")
+    public int rows; // Filas del mapa
+
+    @Label("Columnas")
+    public int cols; // Columnas del mapa
+
+    @Label("Expandidos")
+    public long expanded; // Nodos expandidos
+
+    @Label("Coste")
+    public double cost; // Coste del camino (infinito si no se encontró)
+
+    @Label("Encontrado")
+    public boolean found; // true si se encontró un camino completo
+
+    @Label("Terminación")
+    public String termination; // Motivo por el que terminó la búsqueda
+}
@@ -0,0 +1,241 @@
+package output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Destino que pasa los resultados a otro a través de una cola acotada y un
+ * hilo de escritura propio, de modo que los hilos de búsqueda solo encolan y
+ * nunca esperan a la entrada/salida. El hilo de escritura saca los resultados
+ * por lotes y vacía el destino cuando la cola se queda vacía.
+ *
+ * Si la cola se llena, {@link Overflow} decide si quien escribe espera a que
+ * haya sitio o si el resultado se descarta (y se cuenta en
+ * {@link #getDropped()}). Los errores del destino se guardan y se lanzan en
+ * {@link #flush()} o {@link #close()}. El destino solo lo cierra el hilo de
+ * escritura al terminar, para que nunca se cierre mientras escribe.
+ */
+public class AsyncResultSink implements ResultSink {
+    public static final int DEFAULT_CAPACITY = 8192; // Resultados en cola por defecto
+    private static final int BATCH = 256; // Resultados que se sacan de la cola de una vez
+    private static final long IDLE_MILLIS = 100; // Espera del hilo de escritura antes de mirar si se ha cerrado
+
+    /**
+     * Qué hacer cuando la cola está llena.
+     */
+    public enum Overflow {
+        BLOCK, // Esperar a que haya sitio (no se pierde ningún resultado)
+        DROP // Descartar el resultado y contarlo
+    }
+
+    private static final ResultRecord END = new ResultRecord(-1, null, 1, 0, 0, null, false, null, 0, 0, new int[0]);
+
+    private final ResultSink target; // Destino final
+    private final BlockingQueue<ResultRecord> queue; // Resultados pendientes de escribir
+    private final Overflow overflow; // Política cuando la cola está llena
+    private final Thread writer; // Hilo de escritura
+    private final AtomicLong accepted = new AtomicLong(); // Resultados encolados
+    private final AtomicLong dropped = new AtomicLong(); // Resultados descartados por cola llena
+    private final Object progress = new Object(); // Monitor para esperar a que se escriban los encolados
+    private long written; // Resultados ya pasados al destino (protegido por progress)
+    private volatile RuntimeException error; // Primer error del destino
+    private volatile boolean closed; // true tras llamar a close
+
+    /**
+     * Constructor de la clase AsyncResultSink con la capacidad por defecto, que
+     * espera cuando la cola está llena.
+     *
+     * @param target Destino final.
+     */
+    public AsyncResultSink(ResultSink target) {
+        this(target, DEFAULT_CAPACITY, Overflow.BLOCK);
+    }
+
+    /**
+     * Constructor de la clase AsyncResultSink.
+     *
+     * @param target   Destino final.
+     * @param capacity Resultados que caben en la cola.
+     * @param overflow Qué hacer cuando la cola está llena.
+     */
+    public AsyncResultSink(ResultSink target, int capacity, Overflow overflow) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflow;
+        this.writer = new Thread(this::drain, "result-sink");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void accept(ResultRecord record) {
+        if (closed) {
+            throw new IllegalStateException("El destino de resultados está cerrado");
+        }
+        if (overflow == Overflow.DROP) {
+            if (!queue.offer(record)) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } else {
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        accepted.incrementAndGet();
+    }
+
+    /**
+     * Espera a que se escriban todos los resultados encolados hasta ahora y
+     * vacía el destino.
+     */
+    @Override
+    public void flush() {
+        waitWritten(accepted.get());
+        rethrow();
+        synchronized (progress) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Escribe los resultados pendientes, detiene el hilo de escritura y espera a
+     * que cierre el destino. Si se interrumpe la espera, se restaura la
+     * interrupción y el destino lo cierra el hilo de escritura al terminar.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!queue.offer(END)) {
+                queue.put(END);
+            }
+        } catch (InterruptedException e) {
+            // Sin marca de fin, el hilo termina al encontrar la cola vacía tras el cierre
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        rethrow();
+    }
+
+    /**
+     * @return El número de resultados descartados porque la cola estaba llena.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Bucle del hilo de escritura. Termina con la marca de fin, al encontrar la
+     * cola vacía después del cierre o, si se le interrumpe, tras escribir lo que
+     * quede en la cola; en todos los casos cierra el destino.
+     */
+    private void drain() {
+        List<ResultRecord> batch = new ArrayList<>(BATCH);
+        try {
+            boolean end = false;
+            while (!end) {
+                try {
+                    ResultRecord first = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        end = closed;
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH - 1);
+                } catch (InterruptedException e) {
+                    queue.drainTo(batch);
+                    end = true;
+                }
+                end |= write(batch);
+                batch.clear();
+            }
+        } finally {
+            synchronized (progress) {
+                try {
+                    target.close();
+                } catch (RuntimeException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Pasa un lote al destino y lo vacía si la cola se ha quedado vacía.
+     *
+     * @return true si el lote contenía la marca de fin.
+     */
+    private boolean write(List<ResultRecord> batch) {
+        boolean end = false;
+        synchronized (progress) {
+            for (ResultRecord record : batch) {
+                if (record == END) {
+                    end = true;
+                    continue;
+                }
+                if (error == null) {
+                    try {
+                        target.accept(record);
+                    } catch (RuntimeException e) {
+                        error = e; // Se siguen sacando resultados para no bloquear a quien escribe
+                    }
+                }
+                written++;
+            }
+            if (queue.isEmpty() && error == null) {
+                try {
+                    target.flush();
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            progress.notifyAll();
+        }
+        return end;
+    }
+
+    /**
+     * Espera a que el hilo de escritura haya pasado al destino un número de
+     * resultados.
+     */
+    private void waitWritten(long count) {
+        synchronized (progress) {
+            while (written < count && writer.isAlive()) {
+                try {
+                    progress.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rethrow() {
+        RuntimeException e = error;
+        if (e != null) {
+            throw e;
+        }
+    }
+}
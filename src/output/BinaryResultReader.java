@@ -0,0 +1,101 @@
+package output;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de los resultados escritos por {@link BinaryResultSink}.
+ */
+public class BinaryResultReader implements AutoCloseable {
+    private final DataInputStream in; // Flujo de origen con búfer
+    private final List<String> strings = new ArrayList<>(); // Tabla de cadenas leídas
+
+    /**
+     * Constructor de la clase BinaryResultReader. Lee y comprueba la cabecera.
+     *
+     * @param in Flujo de origen.
+     * @throws IOException Si ocurre un error al leer o el flujo no tiene el
+     *                     formato esperado.
+     */
+    public BinaryResultReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        int magic = this.in.readInt();
+        if (magic != BinaryResultSink.MAGIC) {
+            throw new IOException("Formato de resultados desconocido: " + Integer.toHexString(magic));
+        }
+    }
+
+    /**
+     * Lee el siguiente resultado.
+     *
+     * @return El resultado, o null al llegar al final del flujo.
+     * @throws IOException Si ocurre un error al leer o el flujo está truncado.
+     */
+    public ResultRecord read() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        String map = readString(readVarLong(first));
+        String algorithm = readString(readVarLong(in.readUnsignedByte()));
+        String termination = readString(readVarLong(in.readUnsignedByte()));
+        long id = readVarLong(in.readUnsignedByte());
+        int cols = (int) readVarLong(in.readUnsignedByte());
+        int start = (int) readVarLong(in.readUnsignedByte());
+        int goal = (int) readVarLong(in.readUnsignedByte());
+        long expanded = readVarLong(in.readUnsignedByte());
+        boolean found = in.readBoolean();
+        double cost = in.readDouble();
+        int runCount = (int) readVarLong(in.readUnsignedByte()) - 1;
+        int[] path = new int[0];
+        if (runCount >= 0) {
+            int pathStart = (int) readVarLong(in.readUnsignedByte());
+            int[] runs = new int[runCount];
+            for (int i = 0; i < runCount; i++) {
+                runs[i] = (int) readVarLong(in.readUnsignedByte());
+            }
+            path = PathCodec.decode(pathStart, runs, cols);
+        }
+        return new ResultRecord(id, map, cols, start, goal, algorithm, found, termination, cost, expanded, path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Lee una cadena como índice de la tabla, o como cadena nueva si el índice
+     * es el tamaño de la tabla.
+     */
+    private String readString(long index) throws IOException {
+        if (index == strings.size()) {
+            strings.add(in.readUTF());
+        } else if (index > strings.size()) {
+            throw new IOException("Índice de cadena no válido: " + index);
+        }
+        String value = strings.get((int) index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Lee un entero escrito por {@link BinaryResultSink#writeVarLong} a partir
+     * de su primer byte.
+     */
+    private long readVarLong(int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        for (int b = first; (b & 0x80) != 0; shift += 7) {
+            if (shift > 63) {
+                throw new IOException("Entero de longitud variable demasiado largo");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
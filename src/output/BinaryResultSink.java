@@ -0,0 +1,129 @@
+package output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Destino en un formato binario compacto, que se lee con
+ * {@link BinaryResultReader}. El flujo empieza con {@link #MAGIC} y cada
+ * resultado ocupa:
+ *
+ * <ul>
+ * <li>el mapa, el algoritmo y el motivo de terminación como índices de una
+ * tabla de cadenas que se va llenando a medida que aparecen (un índice igual
+ * al tamaño de la tabla va seguido de la cadena nueva en UTF);</li>
+ * <li>el identificador, las columnas del mapa, la casilla inicial, la objetivo
+ * y los nodos expandidos como enteros de longitud variable (7 bits por
+ * byte);</li>
+ * <li>un byte con {@code found} y el coste como double;</li>
+ * <li>el número de tramos del camino más uno (0 si no hay camino) y, si hay
+ * camino, su casilla inicial y sus tramos ({@link PathCodec}), también de
+ * longitud variable.</li>
+ * </ul>
+ */
+public class BinaryResultSink implements ResultSink {
+    public static final int MAGIC = 0x50525331; // "PRS1": formato y versión
+    private static final int BUFFER_SIZE = 1 << 16; // Tamaño del búfer de escritura
+
+    private final OutputStream stream; // Flujo de destino
+    private final DataOutputStream out; // Escritor con búfer sobre el flujo
+    private final Map<String, Integer> strings = new HashMap<>(); // Tabla de cadenas ya escritas
+
+    /**
+     * Constructor de la clase BinaryResultSink. Escribe la cabecera.
+     *
+     * @param out Flujo de destino.
+     */
+    public BinaryResultSink(OutputStream out) {
+        this.stream = out;
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        try {
+            this.out.writeInt(MAGIC);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void accept(ResultRecord record) {
+        try {
+            writeString(record.map());
+            writeString(record.algorithm());
+            writeString(record.termination());
+            writeVarLong(out, record.id());
+            writeVarLong(out, record.cols());
+            writeVarLong(out, record.start());
+            writeVarLong(out, record.goal());
+            writeVarLong(out, record.expanded());
+            out.writeBoolean(record.found());
+            out.writeDouble(record.cost());
+            int[] path = record.path();
+            if (path.length == 0) {
+                writeVarLong(out, 0);
+                return;
+            }
+            int[] runs = PathCodec.encode(path, record.cols());
+            writeVarLong(out, runs.length + 1L);
+            writeVarLong(out, path[0]);
+            for (int run : runs) {
+                writeVarLong(out, run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (stream == System.out || stream == System.err) {
+                out.flush();
+            } else {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe una cadena como índice de la tabla, añadiéndola si es nueva.
+     */
+    private void writeString(String value) throws IOException {
+        String key = value != null ? value : "";
+        Integer index = strings.get(key);
+        if (index != null) {
+            writeVarLong(out, index);
+            return;
+        }
+        writeVarLong(out, strings.size());
+        out.writeUTF(key);
+        strings.put(key, strings.size());
+    }
+
+    /**
+     * Escribe un entero no negativo en grupos de 7 bits, del menos al más
+     * significativo, con el bit alto a 1 en todos los bytes menos el último.
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,58 @@
+package output;
+
+import java.io.OutputStream;
+
+/**
+ * Destino en formato CSV con una cabecera y una fila por resultado. El camino
+ * se escribe como casilla inicial ({@code path_start}) más tramos de
+ * movimientos ({@code moves}, ver {@link PathCodec}); los costes infinitos, la
+ * casilla inicial de un camino vacío y el mapa si no se indica quedan en
+ * blanco.
+ */
+public class CsvSink extends TextResultSink {
+    private static final String HEADER = "id,map,algorithm,start,goal,found,termination,cost,expanded,path_start,moves";
+
+    /**
+     * Constructor de la clase CsvSink. Escribe la cabecera.
+     *
+     * @param out Flujo de destino (se escribe en UTF-8).
+     */
+    public CsvSink(OutputStream out) {
+        super(out);
+        writeLine(HEADER);
+    }
+
+    @Override
+    void format(StringBuilder line, ResultRecord record) {
+        int[] path = record.path();
+        line.append(record.id()).append(',');
+        appendField(line, record.map());
+        line.append(',');
+        appendField(line, record.algorithm());
+        line.append(',').append(record.start());
+        line.append(',').append(record.goal());
+        line.append(',').append(record.found()).append(',');
+        appendField(line, record.termination());
+        line.append(',');
+        appendCost(line, record.cost(), "");
+        line.append(',').append(record.expanded()).append(',');
+        if (path.length > 0) {
+            line.append(path[0]);
+        }
+        line.append(',').append(PathCodec.toText(PathCodec.encode(path, record.cols())));
+    }
+
+    /**
+     * Añade un campo de texto, entre comillas si contiene separadores.
+     */
+    private static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
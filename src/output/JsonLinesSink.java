@@ -0,0 +1,91 @@
+package output;
+
+import java.io.OutputStream;
+
+/**
+ * Destino en formato JSON Lines: un objeto JSON por línea y resultado, con el
+ * camino codificado como casilla inicial más tramos de movimientos
+ * ({@link PathCodec}). Por ejemplo:
+ *
+ * <pre>
+ * {"id":0,"map":"mapa2.txt","algorithm":"A*","start":0,"goal":99,"found":true,"termination":"SOLVED","cost":24.5,"expanded":85,"pathStart":0,"moves":"9R9D"}
+ * </pre>
+ *
+ * Los costes infinitos, la casilla inicial de un camino vacío y el mapa si no
+ * se indica se escriben como {@code null}.
+ */
+public class JsonLinesSink extends TextResultSink {
+
+    /**
+     * Constructor de la clase JsonLinesSink.
+     *
+     * @param out Flujo de destino (se escribe en UTF-8).
+     */
+    public JsonLinesSink(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * @param record Resultado.
+     * @return El objeto JSON del resultado, sin salto de línea.
+     */
+    public static String toJson(ResultRecord record) {
+        StringBuilder line = new StringBuilder(128);
+        append(line, record);
+        return line.toString();
+    }
+
+    @Override
+    void format(StringBuilder line, ResultRecord record) {
+        append(line, record);
+    }
+
+    /**
+     * Añade el objeto JSON de un resultado.
+     */
+    private static void append(StringBuilder line, ResultRecord record) {
+        int[] path = record.path();
+        line.append("{\"id\":").append(record.id());
+        line.append(",\"map\":");
+        appendString(line, record.map());
+        line.append(",\"algorithm\":");
+        appendString(line, record.algorithm());
+        line.append(",\"start\":").append(record.start());
+        line.append(",\"goal\":").append(record.goal());
+        line.append(",\"found\":").append(record.found());
+        line.append(",\"termination\":");
+        appendString(line, record.termination());
+        line.append(",\"cost\":");
+        appendCost(line, record.cost(), "null");
+        line.append(",\"expanded\":").append(record.expanded());
+        line.append(",\"pathStart\":");
+        if (path.length > 0) {
+            line.append(path[0]);
+        } else {
+            line.append("null");
+        }
+        line.append(",\"moves\":\"").append(PathCodec.toText(PathCodec.encode(path, record.cols()))).append("\"}");
+    }
+
+    /**
+     * Añade una cadena JSON con los caracteres especiales escapados.
+     */
+    private static void appendString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,161 @@
+package output;
+
+import java.util.Arrays;
+
+/**
+ * Codificación compacta de caminos como casilla inicial más movimientos
+ * agrupados en tramos (codificación por longitud de series). Cada tramo se
+ * guarda en un entero como {@code longitud << 2 | dirección}, de modo que un
+ * camino recto de cualquier longitud ocupa un solo entero.
+ *
+ * En texto cada tramo se escribe como la longitud seguida de la letra de la
+ * dirección (U arriba, R derecha, D abajo, L izquierda), omitiendo la longitud
+ * cuando es 1: por ejemplo {@code "3R2DL"}.
+ */
+public final class PathCodec {
+    public static final int UP = 0; // Fila anterior
+    public static final int RIGHT = 1; // Columna siguiente
+    public static final int DOWN = 2; // Fila siguiente
+    public static final int LEFT = 3; // Columna anterior
+    private static final String LETTERS = "URDL"; // Letra de cada dirección en texto
+
+    private PathCodec() {
+    }
+
+    /**
+     * Agrupa los movimientos de un camino en tramos.
+     *
+     * @param path Casillas del camino; cada una debe ser vecina de la anterior.
+     * @param cols Columnas del mapa.
+     * @return Los tramos del camino.
+     * @throws IllegalArgumentException Si dos casillas seguidas no son vecinas.
+     */
+    public static int[] encode(int[] path, int cols) {
+        int[] runs = new int[Math.max(0, path.length - 1)];
+        int count = 0;
+        int direction = -1;
+        int length = 0;
+        for (int i = 1; i < path.length; i++) {
+            int next = direction(path[i - 1], path[i], cols);
+            if (next == direction) {
+                length++;
+            } else {
+                if (length > 0) {
+                    runs[count++] = length << 2 | direction;
+                }
+                direction = next;
+                length = 1;
+            }
+        }
+        if (length > 0) {
+            runs[count++] = length << 2 | direction;
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * Reconstruye un camino a partir de su casilla inicial y sus tramos.
+     *
+     * @param start Casilla inicial.
+     * @param runs  Tramos del camino.
+     * @param cols  Columnas del mapa.
+     * @return Las casillas del camino.
+     */
+    public static int[] decode(int start, int[] runs, int cols) {
+        int length = 1;
+        for (int run : runs) {
+            length += run >>> 2;
+        }
+        int[] path = new int[length];
+        path[0] = start;
+        int cell = start;
+        int index = 1;
+        for (int run : runs) {
+            int step = step(run & 3, cols);
+            for (int i = run >>> 2; i > 0; i--) {
+                cell += step;
+                path[index++] = cell;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @param runs Tramos del camino.
+     * @return Los tramos en texto.
+     */
+    public static String toText(int[] runs) {
+        StringBuilder text = new StringBuilder(runs.length * 3);
+        for (int run : runs) {
+            int length = run >>> 2;
+            if (length > 1) {
+                text.append(length);
+            }
+            text.append(LETTERS.charAt(run & 3));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Lee los tramos escritos con {@link #toText}.
+     *
+     * @param text Tramos en texto.
+     * @return Los tramos del camino.
+     * @throws IllegalArgumentException Si el texto no es válido.
+     */
+    public static int[] fromText(String text) {
+        int[] runs = new int[text.length()];
+        int count = 0;
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                length = length * 10 + (c - '0');
+                continue;
+            }
+            int direction = LETTERS.indexOf(c);
+            if (direction < 0) {
+                throw new IllegalArgumentException("Movimiento no válido: " + c);
+            }
+            runs[count++] = Math.max(1, length) << 2 | direction;
+            length = 0;
+        }
+        if (length > 0) {
+            throw new IllegalArgumentException("Falta la dirección del último tramo: " + text);
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * @return La dirección del movimiento entre dos casillas vecinas.
+     */
+    private static int direction(int from, int to, int cols) {
+        int delta = to - from;
+        if (delta == -cols) {
+            return UP;
+        } else if (delta == cols) {
+            return DOWN;
+        } else if (delta == 1 && to % cols != 0) {
+            return RIGHT;
+        } else if (delta == -1 && from % cols != 0) {
+            return LEFT;
+        }
+        throw new IllegalArgumentException("Las casillas " + from + " y " + to + " no son vecinas");
+    }
+
+    /**
+     * @return El desplazamiento del índice de casilla en una dirección.
+     */
+    private static int step(int direction, int cols) {
+        switch (direction) {
+            case UP:
+                return -cols;
+            case RIGHT:
+                return 1;
+            case DOWN:
+                return cols;
+            default:
+                return -1;
+        }
+    }
+}
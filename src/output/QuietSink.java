@@ -0,0 +1,23 @@
+package output;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Destino que descarta los resultados y solo los cuenta, para medir las
+ * búsquedas sin el coste de la salida.
+ */
+public class QuietSink implements ResultSink {
+    private final LongAdder count = new LongAdder(); // Resultados recibidos
+
+    @Override
+    public void accept(ResultRecord record) {
+        count.increment();
+    }
+
+    /**
+     * @return El número de resultados recibidos.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+}
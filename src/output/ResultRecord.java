@@ -0,0 +1,22 @@
+package output;
+
+/**
+ * Resultado de una consulta tal como se escribe en un {@link ResultSink}. Es
+ * independiente de los algoritmos, así que también es lo que se obtiene al leer
+ * un archivo con {@link BinaryResultReader}.
+ *
+ * @param id          Identificador de la consulta (su posición en el lote).
+ * @param map         Nombre del mapa de la consulta (null si no se indica).
+ * @param cols        Columnas del mapa, necesarias para codificar el camino.
+ * @param start       Casilla inicial de la consulta.
+ * @param goal        Casilla objetivo de la consulta.
+ * @param algorithm   Nombre del algoritmo que la resolvió.
+ * @param found       true si se encontró un camino completo.
+ * @param termination Motivo de terminación de la búsqueda.
+ * @param cost        Coste del camino (infinito si no hay camino).
+ * @param expanded    Nodos expandidos.
+ * @param path        Casillas del camino (vacío si no hay camino).
+ */
+public record ResultRecord(long id, String map, int cols, int start, int goal, String algorithm, boolean found,
+        String termination, double cost, long expanded, int[] path) {
+}
@@ -0,0 +1,33 @@
+package output;
+
+/**
+ * Destino de los resultados de las consultas. Las implementaciones que
+ * escriben en un flujo ({@link JsonLinesSink}, {@link CsvSink},
+ * {@link BinaryResultSink}) son seguras entre hilos pero hacen la escritura en
+ * el hilo que llama; {@link AsyncResultSink} la pasa a un hilo propio para que
+ * las búsquedas no esperen a la entrada/salida. Los errores de escritura se
+ * lanzan como {@link java.io.UncheckedIOException}.
+ */
+public interface ResultSink extends AutoCloseable {
+
+    /**
+     * Escribe un resultado.
+     *
+     * @param record Resultado de la consulta.
+     */
+    void accept(ResultRecord record);
+
+    /**
+     * Vacía los búferes hacia el destino.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Vacía los búferes y cierra el destino. La salida estándar no se cierra.
+     */
+    @Override
+    default void close() {
+        flush();
+    }
+}
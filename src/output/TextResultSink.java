@@ -0,0 +1,89 @@
+package output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base de los destinos de texto: cada resultado se compone en un búfer
+ * reutilizable y se escribe como una línea a través de un único
+ * {@link Writer} con búfer.
+ */
+abstract class TextResultSink implements ResultSink {
+    private static final int BUFFER_SIZE = 1 << 16; // Tamaño del búfer de escritura
+
+    private final OutputStream stream; // Flujo de destino
+    private final Writer out; // Escritor con búfer sobre el flujo
+    private final StringBuilder line = new StringBuilder(); // Búfer de cada línea, reutilizado
+
+    /**
+     * @param stream Flujo de destino (se escribe en UTF-8).
+     */
+    TextResultSink(OutputStream stream) {
+        this.stream = stream;
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Compone la línea de un resultado, sin el salto de línea.
+     *
+     * @param line   Búfer vacío en el que se compone.
+     * @param record Resultado que se escribe.
+     */
+    abstract void format(StringBuilder line, ResultRecord record);
+
+    /**
+     * Escribe una línea tal cual (por ejemplo, una cabecera).
+     */
+    synchronized void writeLine(CharSequence text) {
+        try {
+            out.append(text).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void accept(ResultRecord record) {
+        line.setLength(0);
+        format(line, record);
+        writeLine(line);
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (stream == System.out || stream == System.err) {
+                out.flush();
+            } else {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Añade un coste; los costes infinitos se escriben como {@code empty}.
+     */
+    static void appendCost(StringBuilder line, double cost, String empty) {
+        if (Double.isInfinite(cost) || Double.isNaN(cost)) {
+            line.append(empty);
+        } else {
+            line.append(cost);
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package runner;
+
+import algorithms.*;
+import heuristics.*;
+import loadMap.HeightGrid;
+import loadMap.MapLoader;
+import loadMap.PreprocessedMap;
+import metrics.Histogram;
+import output.*;
+import states.State;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor de lotes de consultas desde la línea de órdenes. Resuelve las
+ * consultas de un archivo sobre uno o varios mapas con el algoritmo y la
+ * heurística elegidos y escribe los resultados con un {@link ResultSink}.
+ *
+ * El trabajo se hace en tres etapas que se solapan, unidas por colas acotadas:
+ * un hilo carga y prepara los mapas y lee las consultas, varios hilos las
+ * resuelven y el hilo de un {@link AsyncResultSink} escribe los resultados.
+ * Así el siguiente mapa se carga mientras se resuelve el anterior y la
+ * escritura no detiene las búsquedas. Al terminar se muestra un resumen por la
+ * salida de errores, para no mezclarlo con los resultados.
+ *
+ * Cada mapa se abre como {@link PreprocessedMap}: con {@code --snapshots} el
+ * preproceso se lee de la instantánea junto al mapa (y se escribe si falta o
+ * el mapa ha cambiado). Las consultas entre componentes conexas distintas se
+ * responden sin buscar.
+ *
+ * Una consulta cuya búsqueda lanza una excepción no detiene su hilo: se
+ * escribe como resultado con terminación {@code ERROR} y se cuenta como
+ * fallida en el resumen, con su mensaje. Si aun así no queda ningún hilo de
+ * búsqueda, la carga se detiene en lugar de esperar sitio en la cola.
+ *
+ * Cada línea del archivo de consultas tiene la forma
+ * {@code [mapa] fila_inicial columna_inicial fila_objetivo columna_objetivo};
+ * el mapa es su posición (desde 0) en la línea de órdenes y, si se omite, la
+ * consulta se resuelve en todos los mapas. Las líneas vacías y lo que sigue a
+ * '#' se ignoran. Sin archivo de consultas se resuelve, en cada mapa, la
+ * consulta entre sus posiciones inicial y final.
+ */
+public class BatchRunner {
+    private static final int DEFAULT_QUEUE = 1024; // Capacidad por defecto de las colas entre etapas
+    private static final Job END = new Job(-1, null, null, 0, 0); // Marca de fin para los hilos de búsqueda
+    private static final long OFFER_MILLIS = 100; // Espera entre comprobaciones de que quedan hilos de búsqueda
+    static final String ERROR = "ERROR"; // Terminación de las consultas cuya búsqueda ha fallado
+
+    private final List<Path> maps = new ArrayList<>(); // Archivos de los mapas
+    private Path queries; // Archivo de consultas (null para usar el inicio y el final de cada mapa)
+    private String algorithm = "astar"; // Algoritmo de búsqueda
+    private String heuristic = "cliff"; // Heurística
+    private int threads = Runtime.getRuntime().availableProcessors(); // Hilos de búsqueda
+    private String format = "jsonl"; // Formato de salida
+    private Path out; // Archivo de salida (null para la salida estándar)
+    private int warmup; // Búsquedas de calentamiento antes de medir
+    private long timeout; // Milisegundos máximos por búsqueda (0 sin límite)
+    private long maxExpansions = Long.MAX_VALUE; // Nodos expandidos como máximo por búsqueda
+    private int queue = DEFAULT_QUEUE; // Capacidad de las colas entre etapas
+    private boolean snapshots; // Leer y guardar el preproceso en instantáneas junto a los mapas
+    private List<int[]> queryLines; // Números de cada línea del archivo de consultas, leído una sola vez
+
+    public static void main(String[] args) {
+        try {
+            parse(args).run().print();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(usage());
+            System.exit(2);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return El texto de ayuda con las opciones.
+     */
+    public static String usage() {
+        return String.join("\n",
+                "Uso: java Main [opciones] mapa...",
+                "  -q, --queries ARCHIVO     consultas '[mapa] fila col fila col'",
+                "                            (por defecto, inicio y final de cada mapa)",
+                "  -a, --algorithm NOMBRE    astar, astar-generic, fringe, ida, sma, beam, multires, hda",
+                "                            (por defecto astar)",
+                "  -h, --heuristic NOMBRE    zero, manhattan, euclidean, cliff (por defecto cliff)",
+                "  -t, --threads N           hilos de búsqueda (por defecto, uno por procesador)",
+                "  -f, --format NOMBRE       jsonl, csv, binary, quiet (por defecto jsonl)",
+                "  -o, --out ARCHIVO         archivo de resultados (por defecto, la salida estándar)",
+                "  -w, --warmup N            búsquedas de calentamiento del JIT antes de medir",
+                "      --timeout MS          tiempo máximo por búsqueda",
+                "      --max-expansions N    nodos expandidos como máximo por búsqueda",
+                "      --queue N             capacidad de las colas entre etapas (por defecto " + DEFAULT_QUEUE + ")",
+                "      --snapshots           guardar el preproceso junto a cada mapa y reutilizarlo",
+                "                            (archivos " + PreprocessedMap.EXTENSION + ")",
+                "      --demo [mapa]         demostración de todos los algoritmos sobre un mapa");
+    }
+
+    /**
+     * Lee las opciones de la línea de órdenes.
+     *
+     * @param args Argumentos del programa.
+     * @return El ejecutor configurado.
+     * @throws IllegalArgumentException Si las opciones no son válidas.
+     */
+    public static BatchRunner parse(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                runner.maps.add(Path.of(arg));
+                continue;
+            }
+            if (arg.equals("--snapshots")) {
+                runner.snapshots = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "-q":
+                case "--queries":
+                    runner.queries = Path.of(value);
+                    break;
+                case "-a":
+                case "--algorithm":
+                    engines(value); // Comprobar el nombre
+                    runner.algorithm = value;
+                    break;
+                case "-h":
+                case "--heuristic":
+                    heuristics(value);
+                    runner.heuristic = value;
+                    break;
+                case "-t":
+                case "--threads":
+                    runner.threads = positive(arg, value);
+                    break;
+                case "-f":
+                case "--format":
+                    if (!List.of("jsonl", "csv", "binary", "quiet").contains(value)) {
+                        throw new IllegalArgumentException("Formato desconocido: " + value);
+                    }
+                    runner.format = value;
+                    break;
+                case "-o":
+                case "--out":
+                    runner.out = Path.of(value);
+                    break;
+                case "-w":
+                case "--warmup":
+                    runner.warmup = (int) number(arg, value);
+                    break;
+                case "--timeout":
+                    runner.timeout = number(arg, value);
+                    break;
+                case "--max-expansions":
+                    runner.maxExpansions = number(arg, value);
+                    break;
+                case "--queue":
+                    runner.queue = positive(arg, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + arg);
+            }
+        }
+        if (runner.maps.isEmpty()) {
+            throw new IllegalArgumentException("No se ha indicado ningún mapa");
+        }
+        return runner;
+    }
+
+    /**
+     * Ejecuta el lote: calentamiento, y después las tres etapas hasta que se
+     * han escrito todos los resultados.
+     *
+     * @return El resumen de la ejecución.
+     * @throws IOException          Si no se puede leer un mapa o las consultas,
+     *                              o escribir los resultados.
+     * @throws InterruptedException Si se interrumpe el hilo que espera.
+     */
+    public Summary run() throws IOException, InterruptedException {
+        Summary summary = new Summary(threads);
+        Supplier<GridSearch> engines = engines(algorithm);
+        Function<State, Heuristic> heuristics = heuristics(heuristic);
+        if (warmup > 0) {
+            GridSearch engine = engines.get();
+            try {
+                summary.warmupNanos = warmUp(engine, heuristics);
+            } finally {
+                release(engine);
+            }
+        }
+
+        BlockingQueue<Job> jobs = new ArrayBlockingQueue<>(queue);
+        AtomicInteger live = new AtomicInteger(threads); // Hilos de búsqueda que siguen consumiendo
+        OutputStream stream = out != null ? Files.newOutputStream(out) : System.out;
+        long begin = System.nanoTime();
+        try (ResultSink sink = sink(stream)) {
+            // Etapa 1: carga y preparación de los mapas y lectura de las consultas
+            Thread loader = new Thread(() -> {
+                try {
+                    load(jobs, live, summary);
+                } catch (IOException e) {
+                    summary.error = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    end(jobs, live);
+                }
+            }, "batch-loader");
+
+            // Etapa 2: búsqueda; la etapa 3 es el hilo de escritura del destino asíncrono
+            List<Thread> solvers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Histogram latency = summary.latencies[i];
+                Thread solver = new Thread(() -> {
+                    try {
+                        solve(jobs, engines.get(), heuristics, sink, latency, summary);
+                    } finally {
+                        live.decrementAndGet();
+                    }
+                }, "batch-solver-" + i);
+                solvers.add(solver);
+            }
+            loader.start();
+            solvers.forEach(Thread::start);
+            loader.join();
+            for (Thread solver : solvers) {
+                solver.join();
+            }
+        } finally {
+            if (out != null) {
+                stream.close();
+            }
+        }
+        summary.elapsedNanos = System.nanoTime() - begin;
+        if (summary.error != null) {
+            throw summary.error;
+        }
+        if (summary.solverError != null) {
+            throw new IllegalStateException("Los hilos de búsqueda han terminado antes de tiempo",
+                    summary.solverError);
+        }
+        return summary;
+    }
+
+    /**
+     * Etapa de carga: lee cada mapa, prepara su vista compacta y encola sus
+     * consultas. La cola acotada frena la carga si las búsquedas van por
+     * detrás, así que solo hay en memoria los mapas con consultas pendientes.
+     * Si ya no queda ningún hilo de búsqueda, deja de cargar.
+     */
+    private void load(BlockingQueue<Job> jobs, AtomicInteger live, Summary summary)
+            throws IOException, InterruptedException {
+        long id = 0;
+        for (int m = 0; m < maps.size(); m++) {
+            long begin = System.nanoTime();
+            PreprocessedMap map = open(m);
+            String name = maps.get(m).getFileName().toString();
+            summary.maps++;
+            summary.loadNanos += System.nanoTime() - begin;
+            for (int[] query : queries(m, map, summary)) {
+                if (!offer(jobs, new Job(id++, name, map, query[0], query[1]), live)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encola un trabajo esperando a que haya sitio mientras quede algún hilo
+     * de búsqueda que lo pueda sacar.
+     *
+     * @return false si no queda ningún hilo de búsqueda.
+     */
+    private static boolean offer(BlockingQueue<Job> jobs, Job job, AtomicInteger live) throws InterruptedException {
+        while (!jobs.offer(job, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (live.get() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encola una marca de fin por hilo de búsqueda. Se espera aunque el hilo
+     * se haya interrumpido para que ningún hilo de búsqueda se quede bloqueado,
+     * salvo que ya no quede ninguno.
+     */
+    private void end(BlockingQueue<Job> jobs, AtomicInteger live) {
+        boolean interrupted = false;
+        int ended = 0;
+        while (ended < threads) {
+            try {
+                if (!offer(jobs, END, live)) {
+                    break; // Nadie va a leer las marcas que faltan
+                }
+                ended++;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Etapa de búsqueda: resuelve consultas hasta encontrar la marca de fin.
+     * Las consultas entre componentes distintas se responden sin buscar, y las
+     * que hacen fallar la búsqueda se escriben con terminación {@link #ERROR}.
+     */
+    private void solve(BlockingQueue<Job> jobs, GridSearch engine, Function<State, Heuristic> heuristics,
+            ResultSink sink, Histogram latency, Summary summary) {
+        if (engine instanceof Algorithm) {
+            ((Algorithm) engine).setQuiet(true);
+        }
+        try {
+            while (true) {
+                Job job = jobs.take();
+                if (job == END) {
+                    return;
+                }
+                long begin = System.nanoTime();
+                SearchResult result;
+                try {
+                    if (!job.map.components().connected(job.start, job.goal)) {
+                        result = SearchResult.notFound(engine.getName(), 0);
+                    } else {
+                        if (engine instanceof MultiResolution) {
+                            ((MultiResolution) engine).usePyramid(job.map.pyramid());
+                        }
+                        result = engine.search(job.grid, job.start, job.goal,
+                                heuristics.apply(job.grid.state(job.goal)), limits());
+                    }
+                } catch (RuntimeException e) {
+                    latency.record(System.nanoTime() - begin);
+                    sink.accept(new ResultRecord(job.id, job.name, job.grid.cols(), job.start, job.goal,
+                            engine.getName(), false, ERROR, Double.POSITIVE_INFINITY, 0, new int[0]));
+                    summary.failed(job, e);
+                    continue;
+                }
+                latency.record(System.nanoTime() - begin);
+                sink.accept(new ResultRecord(job.id, job.name, job.grid.cols(), job.start, job.goal,
+                        result.getAlgorithm(), result.isFound(), result.getTermination().name(), result.getCost(),
+                        result.getExpanded(), result.getPath()));
+                summary.solved(result.isFound());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            summary.solverError = e; // Fallo fuera de la búsqueda (por ejemplo, al escribir): el hilo termina
+        } finally {
+            release(engine);
+        }
+    }
+
+    /**
+     * Calienta el compilador JIT resolviendo las consultas del primer mapa (o
+     * su consulta entre inicio y final) hasta completar el número de búsquedas
+     * pedido. Los resultados se descartan.
+     *
+     * @return Los nanosegundos del calentamiento.
+     */
+    private long warmUp(GridSearch engine, Function<State, Heuristic> heuristics) throws IOException {
+        long begin = System.nanoTime();
+        PreprocessedMap map = open(0);
+        HeightGrid grid = map.grid();
+        List<int[]> list = queries(0, map, new Summary(1));
+        if (engine instanceof Algorithm) {
+            ((Algorithm) engine).setQuiet(true);
+        }
+        for (int i = 0; i < warmup && !list.isEmpty(); i++) {
+            int[] query = list.get(i % list.size());
+            engine.search(grid, query[0], query[1], heuristics.apply(grid.state(query[1])), limits());
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Obtiene las consultas de un mapa. Las que se salen del mapa o caen en un
+     * obstáculo se cuentan como no válidas y se descartan.
+     *
+     * @return Pares de casillas inicial y objetivo.
+     */
+    private List<int[]> queries(int mapIndex, PreprocessedMap map, Summary summary) throws IOException {
+        HeightGrid grid = map.grid();
+        List<int[]> list = new ArrayList<>();
+        if (queries == null) {
+            list.add(new int[] { grid.index(map.start()), grid.index(map.end()) });
+            return list;
+        }
+        for (int[] values : queryLines()) {
+            int offset = values.length - 4;
+            if (offset == 1 && values[0] != mapIndex) {
+                continue;
+            }
+            int start = cell(grid, values[offset], values[offset + 1]);
+            int goal = cell(grid, values[offset + 2], values[offset + 3]);
+            if (start < 0 || goal < 0) {
+                summary.invalid++;
+                continue;
+            }
+            list.add(new int[] { start, goal });
+        }
+        return list;
+    }
+
+    /**
+     * Lee y analiza el archivo de consultas la primera vez que se necesita; las
+     * siguientes llamadas (una por mapa) reutilizan la lista. Solo lo llaman
+     * el calentamiento y después el hilo de carga, nunca a la vez.
+     *
+     * @return Los números de cada línea: el mapa, si se indica, y la fila y la
+     *         columna de las casillas inicial y objetivo.
+     */
+    private List<int[]> queryLines() throws IOException {
+        if (queryLines != null) {
+            return queryLines;
+        }
+        List<int[]> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(queries, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+                if (tokens.length == 1 && tokens[0].isEmpty()) {
+                    continue;
+                }
+                if (tokens.length != 4 && tokens.length != 5) {
+                    throw new IOException(queries + ":" + lineNumber + ": se esperaban 4 o 5 números");
+                }
+                int[] values = new int[tokens.length];
+                try {
+                    for (int i = 0; i < tokens.length; i++) {
+                        values[i] = Integer.parseInt(tokens[i]);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(queries + ":" + lineNumber + ": número no válido", e);
+                }
+                list.add(values);
+            }
+        }
+        queryLines = list;
+        return list;
+    }
+
+    /**
+     * Abre un mapa: desde su instantánea si se han pedido y está al día, o
+     * leyendo y preprocesando el archivo de texto.
+     */
+    private PreprocessedMap open(int mapIndex) throws IOException {
+        Path file = maps.get(mapIndex);
+        return snapshots ? PreprocessedMap.open(file) : PreprocessedMap.build(MapLoader.loadMapState(file.toString()));
+    }
+
+    /**
+     * @return El índice de una casilla transitable, o -1 si se sale del mapa o
+     *         es un obstáculo.
+     */
+    private static int cell(HeightGrid grid, int row, int col) {
+        if (row < 0 || row >= grid.rows() || col < 0 || col >= grid.cols()) {
+            return -1;
+        }
+        int cell = grid.index(row, col);
+        return grid.isBlocked(cell) ? -1 : cell;
+    }
+
+    /**
+     * @return Los límites de una búsqueda, que empiezan a contar ahora.
+     */
+    private SearchLimits limits() {
+        SearchLimits limits = SearchLimits.NONE.withMaxExpansions(maxExpansions);
+        return timeout > 0 ? limits.withTimeout(timeout) : limits;
+    }
+
+    /**
+     * Crea el destino de los resultados. Salvo el silencioso, todos escriben
+     * desde su propio hilo.
+     */
+    private ResultSink sink(OutputStream stream) {
+        switch (format) {
+            case "csv":
+                return new AsyncResultSink(new CsvSink(stream), queue, AsyncResultSink.Overflow.BLOCK);
+            case "binary":
+                return new AsyncResultSink(new BinaryResultSink(stream), queue, AsyncResultSink.Overflow.BLOCK);
+            case "quiet":
+                return new QuietSink();
+            default:
+                return new AsyncResultSink(new JsonLinesSink(stream), queue, AsyncResultSink.Overflow.BLOCK);
+        }
+    }
+
+    /**
+     * @param name Nombre del algoritmo en la línea de órdenes.
+     * @return Un constructor del algoritmo (cada hilo usa su propia instancia).
+     * @throws IllegalArgumentException Si el nombre no es conocido.
+     */
+    public static Supplier<GridSearch> engines(String name) {
+        switch (name) {
+            case "astar":
+                return SpecializedAstar::new;
+            case "astar-generic":
+                return GridAstar::new;
+            case "fringe":
+                return FringeSearch::new;
+            case "ida":
+                return IDAstar::new;
+            case "sma":
+                return SMAstar::new;
+            case "beam":
+                return () -> new BeamSearch(64, true);
+            case "multires":
+                return MultiResolution::new;
+            case "hda":
+                return ParallelAstar::new;
+            default:
+                throw new IllegalArgumentException("Algoritmo desconocido: " + name);
+        }
+    }
+
+    /**
+     * Libera los recursos de un algoritmo que ya no se va a usar (por ejemplo,
+     * los hilos de {@link ParallelAstar}).
+     *
+     * @param engine Algoritmo que se descarta.
+     */
+    public static void release(GridSearch engine) {
+        if (engine instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) engine).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("No se ha podido liberar " + engine.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * @param name Nombre de la heurística en la línea de órdenes.
+     * @return El constructor de la heurística a partir del estado objetivo.
+     * @throws IllegalArgumentException Si el nombre no es conocido.
+     */
+    public static Function<State, Heuristic> heuristics(String name) {
+        switch (name) {
+            case "zero":
+                return HeuristicZero::new;
+            case "manhattan":
+                return HeuristicManhattanMinHeight::new;
+            case "euclidean":
+                return HeuristicEuclideanMaxHeight::new;
+            case "cliff":
+                return HeuristicManhattanCliffPenalty::new;
+            default:
+                throw new IllegalArgumentException("Heurística desconocida: " + name);
+        }
+    }
+
+    private static long number(String option, String value) {
+        try {
+            long number = Long.parseLong(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(option + " no puede ser negativo: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " debe ser un número: " + value);
+        }
+    }
+
+    private static int positive(String option, String value) {
+        long number = number(option, value);
+        if (number == 0 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(option + " debe ser un entero positivo: " + value);
+        }
+        return (int) number;
+    }
+
+    /**
+     * Consulta que pasa de la etapa de carga a la de búsqueda.
+     */
+    private static final class Job {
+        final long id; // Identificador de la consulta en el lote
+        final String name; // Nombre del mapa
+        final PreprocessedMap map; // Mapa con su preproceso
+        final HeightGrid grid; // Vista del mapa
+        final int start; // Casilla inicial
+        final int goal; // Casilla objetivo
+
+        Job(long id, String name, PreprocessedMap map, int start, int goal) {
+            this.id = id;
+            this.name = name;
+            this.map = map;
+            this.grid = map != null ? map.grid() : null;
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    /**
+     * Resumen de una ejecución.
+     */
+    public static final class Summary {
+        private static final int MAX_FAILURES = 10; // Mensajes de consultas fallidas que se guardan
+        final Histogram[] latencies; // Duración de las búsquedas de cada hilo en ns
+        int maps; // Mapas cargados
+        int invalid; // Consultas descartadas por no ser válidas
+        long queries; // Consultas resueltas
+        long found; // Consultas con camino
+        long failed; // Consultas cuya búsqueda ha lanzado una excepción
+        final List<String> failures = new ArrayList<>(); // Mensajes de las primeras consultas fallidas
+        long loadNanos; // Tiempo de carga y preparación de los mapas
+        long warmupNanos; // Tiempo de calentamiento
+        long elapsedNanos; // Tiempo total desde la primera carga hasta la última escritura
+        volatile IOException error; // Error de la etapa de carga
+        volatile RuntimeException solverError; // Error que ha terminado un hilo de búsqueda
+
+        Summary(int threads) {
+            latencies = new Histogram[threads];
+            for (int i = 0; i < threads; i++) {
+                latencies[i] = new Histogram();
+            }
+        }
+
+        synchronized void solved(boolean found) {
+            queries++;
+            if (found) {
+                this.found++;
+            }
+        }
+
+        synchronized void failed(Job job, RuntimeException e) {
+            queries++;
+            failed++;
+            if (failures.size() < MAX_FAILURES) {
+                failures.add(String.format("consulta %d (%s, %d -> %d): %s", job.id, job.name, job.start, job.goal,
+                        e));
+            }
+        }
+
+        /**
+         * @return Las consultas resueltas.
+         */
+        public synchronized long getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return Las consultas cuya búsqueda ha fallado.
+         */
+        public synchronized long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return Las consultas resueltas por segundo, de principio a fin.
+         */
+        public synchronized double getThroughput() {
+            return elapsedNanos == 0 ? 0 : queries * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Muestra el resumen por la salida de errores.
+         */
+        public synchronized void print() {
+            Histogram latency = new Histogram();
+            for (Histogram h : latencies) {
+                latency.add(h);
+            }
+            System.err.printf("Mapas: %d, consultas: %d (%d no válidas), con camino: %d%n", maps, queries, invalid,
+                    found);
+            if (failed > 0) {
+                System.err.printf("Fallidas: %d%n", failed);
+                for (String failure : failures) {
+                    System.err.println("  " + failure);
+                }
+            }
+            if (warmupNanos > 0) {
+                System.err.printf("Calentamiento: %.1f ms%n", warmupNanos / 1e6);
+            }
+            System.err.printf("Tiempo total: %.1f ms (carga %.1f ms), %.1f consultas/s%n", elapsedNanos / 1e6,
+                    loadNanos / 1e6, getThroughput());
+            System.err.printf("Búsqueda: media %.3f ms, p50 %.3f ms, p99 %.3f ms, máx %.3f ms%n",
+                    latency.mean() / 1e6, latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                    latency.max() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package server;
+
+import metrics.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generador de carga para {@link PathServer}. Lanza {@code concurrency}
+ * clientes en bucle cerrado (cada uno envía la siguiente petición al recibir
+ * la respuesta de la anterior) con consultas aleatorias sobre los mapas del
+ * servidor y muestra el rendimiento, los códigos de estado y los percentiles
+ * de latencia de las respuestas correctas.
+ *
+ * Con {@code --distinct N} las peticiones se reparten entre solo N consultas
+ * distintas, lo que permite medir el efecto de agrupar consultas repetidas.
+ */
+public class LoadGenerator {
+    private static final Pattern MAP = Pattern.compile("\"name\":\"([^\"]*)\",\"rows\":(\\d+),\"cols\":(\\d+)");
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 }; // Percentiles que se muestran
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:8080";
+        long requests = 10_000;
+        int concurrency = 16;
+        int distinct = 0;
+        String algorithm = "astar";
+        String heuristic = "cliff";
+        long seed = 1;
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--url":
+                        url = value;
+                        break;
+                    case "--requests":
+                        requests = Long.parseLong(value);
+                        break;
+                    case "--concurrency":
+                        concurrency = Integer.parseInt(value);
+                        break;
+                    case "--distinct":
+                        distinct = Integer.parseInt(value);
+                        break;
+                    case "--algorithm":
+                        algorithm = value;
+                        break;
+                    case "--heuristic":
+                        heuristic = value;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+                }
+            }
+            if (args.length % 2 != 0 || concurrency < 1) {
+                throw new IllegalArgumentException("Opciones no válidas");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Uso: java server.LoadGenerator [--url URL] [--requests N] [--concurrency N]"
+                    + " [--distinct N] [--algorithm NOMBRE] [--heuristic NOMBRE] [--seed N]");
+            System.exit(2);
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String maps = client.send(HttpRequest.newBuilder(URI.create(url + "/maps")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        List<URI> queries = queries(url, maps, distinct > 0 ? distinct : (int) Math.min(requests, 1 << 20),
+                algorithm, heuristic, new Random(seed));
+
+        AtomicLong next = new AtomicLong();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        Histogram[] latencies = new Histogram[concurrency];
+        Thread[] clients = new Thread[concurrency];
+        long total = requests;
+        long begin = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            Histogram latency = latencies[i] = new Histogram();
+            clients[i] = new Thread(() -> {
+                for (long n = next.getAndIncrement(); n < total; n = next.getAndIncrement()) {
+                    HttpRequest request = HttpRequest.newBuilder(queries.get((int) (n % queries.size()))).build();
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1; // Error de conexión
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (status == 200) {
+                        latency.record(System.nanoTime() - start);
+                    }
+                    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                }
+            }, "load-" + i);
+            clients[i].start();
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        Histogram latency = new Histogram();
+        for (Histogram h : latencies) {
+            latency.add(h);
+        }
+        System.out.printf("Peticiones: %d en %.1f ms con %d clientes, %.1f peticiones/s%n", requests, elapsed / 1e6,
+                concurrency, requests * 1e9 / elapsed);
+        StringBuilder codes = new StringBuilder("Estados:");
+        new TreeMap<>(statuses).forEach((status, count) -> codes.append(' ').append(status).append('=').append(count));
+        System.out.println(codes);
+        StringBuilder row = new StringBuilder("Latencia (ms):");
+        for (double p : PERCENTILES) {
+            row.append(String.format(" p%s %.3f", p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p),
+                    latency.percentile(p) / 1e6));
+        }
+        row.append(String.format(" máx %.3f", latency.max() / 1e6));
+        System.out.println(row);
+        String metrics = client.send(HttpRequest.newBuilder(URI.create(url + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        System.out.println("Servidor: " + metrics.substring(0, Math.max(0, metrics.indexOf("\n\n")))
+                .replace('\n', ','));
+    }
+
+    /**
+     * Genera consultas aleatorias repartidas entre los mapas del servidor. Las
+     * casillas se eligen al azar, así que algunas pueden ser obstáculos y
+     * recibir un 400.
+     */
+    private static List<URI> queries(String url, String maps, int count, String algorithm, String heuristic,
+            Random random) {
+        List<String[]> list = new ArrayList<>();
+        Matcher matcher = MAP.matcher(maps);
+        while (matcher.find()) {
+            list.add(new String[] { matcher.group(1), matcher.group(2), matcher.group(3) });
+        }
+        if (list.isEmpty()) {
+            throw new IllegalStateException("El servidor no tiene mapas: " + maps);
+        }
+        List<URI> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] map = list.get(random.nextInt(list.size()));
+            int rows = Integer.parseInt(map[1]);
+            int cols = Integer.parseInt(map[2]);
+            queries.add(URI.create(String.format("%s/path?map=%s&from=%d,%d&to=%d,%d&algorithm=%s&heuristic=%s",
+                    url, map[0], random.nextInt(rows), random.nextInt(cols), random.nextInt(rows),
+                    random.nextInt(cols), algorithm, heuristic)));
+        }
+        return queries;
+    }
+}
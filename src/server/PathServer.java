@@ -0,0 +1,518 @@
+package server;
+
+import algorithms.Algorithm;
+import algorithms.GridSearch;
+import algorithms.SearchExecutors;
+import algorithms.SearchLimits;
+import algorithms.SearchResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import heuristics.Heuristic;
+import loadMap.HeightGrid;
+import loadMap.MapLoader;
+import metrics.MetricsRegistry;
+import output.JsonLinesSink;
+import output.ResultRecord;
+import runner.BatchRunner;
+import states.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Servidor HTTP local de consultas de caminos. Carga los mapas una sola vez y
+ * los comparte en modo de solo lectura entre todas las peticiones, que se
+ * atienden con un hilo por petición (virtual si la máquina virtual lo permite,
+ * ver {@link SearchExecutors}). Las búsquedas, en cambio, se ejecutan en un
+ * grupo fijo de {@code maxConcurrent} hilos de plataforma, de modo que la
+ * memoria de trabajo de cada hilo se reutiliza entre peticiones en lugar de
+ * reservarse de nuevo en cada hilo virtual. Solo escucha en la interfaz local.
+ *
+ * Rutas:
+ * <ul>
+ * <li>{@code GET /path?map=NOMBRE&from=FILA,COL&to=FILA,COL[&algorithm=..][&heuristic=..]}:
+ * resuelve una consulta y responde con el resultado en el mismo JSON que
+ * {@link JsonLinesSink}. El mapa se puede omitir si solo hay uno.</li>
+ * <li>{@code GET /maps}: nombre y dimensiones de los mapas cargados.</li>
+ * <li>{@code GET /metrics}: contadores del servidor y tabla de percentiles de
+ * {@link MetricsRegistry}.</li>
+ * </ul>
+ *
+ * Como mucho {@code maxConcurrent} búsquedas se ejecutan a la vez; una
+ * petición que no consigue turno en el tiempo de admisión recibe un 503. Las
+ * peticiones idénticas que llegan mientras otra igual está en curso no buscan:
+ * esperan el resultado de la primera y no ocupan turno. Cada respuesta lleva
+ * su propio {@code id}, aunque comparta la búsqueda con otras.
+ */
+public class PathServer implements AutoCloseable {
+    private static final int DEFAULT_PORT = 8080; // Puerto por defecto
+    private static final long DEFAULT_ADMISSION = 100; // Espera máxima por un turno en ms
+
+    private final Map<String, HeightGrid> maps; // Mapas por nombre, compartidos en solo lectura
+    private final int maxConcurrent; // Búsquedas simultáneas como máximo
+    private final Semaphore permits; // Turnos de búsqueda libres
+    private final long admissionMillis; // Espera máxima por un turno
+    private final long timeoutMillis; // Tiempo máximo por búsqueda (0 sin límite)
+    private final long maxExpansions; // Nodos expandidos como máximo por búsqueda
+    private final Map<Query, CompletableFuture<SearchResult>> inFlight = new ConcurrentHashMap<>(); // Consultas en curso
+    private final Map<String, Queue<GridSearch>> engines = new ConcurrentHashMap<>(); // Algoritmos libres por nombre
+    private final AtomicLong ids = new AtomicLong(); // Identificador de la siguiente respuesta
+    private final LongAdder requests = new LongAdder(); // Peticiones de caminos recibidas
+    private final LongAdder coalesced = new LongAdder(); // Peticiones resueltas con el resultado de otra
+    private final LongAdder rejected = new LongAdder(); // Peticiones rechazadas por falta de turno
+    private final LongAdder failed = new LongAdder(); // Peticiones no válidas o con error
+    private HttpServer http; // Servidor en marcha
+    private ExecutorService executor; // Hilos de las peticiones
+    private final ExecutorService searches; // Hilos de las búsquedas, uno por turno
+
+    /**
+     * Constructor de la clase PathServer.
+     *
+     * @param maps            Mapas por nombre.
+     * @param maxConcurrent   Búsquedas simultáneas como máximo.
+     * @param admissionMillis Espera máxima por un turno de búsqueda en ms.
+     * @param timeoutMillis   Tiempo máximo por búsqueda en ms (0 sin límite).
+     * @param maxExpansions   Nodos expandidos como máximo por búsqueda.
+     */
+    public PathServer(Map<String, HeightGrid> maps, int maxConcurrent, long admissionMillis, long timeoutMillis,
+            long maxExpansions) {
+        this.maps = Collections.unmodifiableMap(new LinkedHashMap<>(maps));
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.admissionMillis = admissionMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxExpansions = maxExpansions;
+        this.searches = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "path-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        int maxConcurrent = Runtime.getRuntime().availableProcessors();
+        long admission = DEFAULT_ADMISSION;
+        long timeout = 0;
+        long maxExpansions = Long.MAX_VALUE;
+        Map<String, HeightGrid> maps = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("-")) {
+                    Path file = Path.of(arg);
+                    maps.put(file.getFileName().toString(), HeightGrid.of(MapLoader.loadMapState(arg).map));
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Falta el valor de " + arg);
+                }
+                long value = Long.parseLong(args[++i]);
+                switch (arg) {
+                    case "--port":
+                        port = (int) value;
+                        break;
+                    case "--max-concurrent":
+                        maxConcurrent = (int) value;
+                        break;
+                    case "--admission":
+                        admission = value;
+                        break;
+                    case "--timeout":
+                        timeout = value;
+                        break;
+                    case "--max-expansions":
+                        maxExpansions = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + arg);
+                }
+            }
+            if (maps.isEmpty() || maxConcurrent < 1) {
+                throw new IllegalArgumentException("Se necesita al menos un mapa y un turno de búsqueda");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Uso: java server.PathServer [--port N] [--max-concurrent N] [--admission MS]"
+                    + " [--timeout MS] [--max-expansions N] mapa...");
+            System.exit(2);
+        }
+
+        PathServer server = new PathServer(maps, maxConcurrent, admission, timeout, maxExpansions);
+        InetSocketAddress address = null;
+        try {
+            address = server.start(port);
+        } catch (IOException e) {
+            server.close();
+            System.err.println("Error: no se puede abrir el puerto " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf("Servidor en http://%s:%d con %d mapas (%d búsquedas simultáneas, hilos virtuales: %s)%n",
+                address.getHostString(), address.getPort(), maps.size(), maxConcurrent,
+                SearchExecutors.virtualThreadsAvailable() ? "sí" : "no");
+    }
+
+    /**
+     * Empieza a atender peticiones en la interfaz local.
+     *
+     * @param port Puerto (0 para uno libre cualquiera).
+     * @return La dirección en la que escucha el servidor.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public InetSocketAddress start(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = SearchExecutors.newPerTaskExecutor("path-server");
+        http.setExecutor(executor);
+        http.createContext("/path", exchange -> handle(exchange, this::path));
+        http.createContext("/maps", exchange -> handle(exchange, this::listMaps));
+        http.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+        http.start();
+        return http.getAddress();
+    }
+
+    /**
+     * Deja de aceptar peticiones y libera los hilos.
+     */
+    @Override
+    public void close() {
+        if (http != null) {
+            http.stop(0);
+            executor.shutdownNow();
+            http = null;
+        }
+        searches.shutdownNow();
+        for (Queue<GridSearch> free : engines.values()) {
+            GridSearch engine;
+            while ((engine = free.poll()) != null) {
+                BatchRunner.release(engine);
+            }
+        }
+    }
+
+    /**
+     * Resuelve una consulta. Si ya hay otra igual en curso se espera su
+     * resultado; si no, se busca en cuanto haya turno. El identificador se
+     * asigna a cada respuesta, no a la búsqueda compartida.
+     *
+     * @param query Consulta.
+     * @return El resultado en JSON.
+     * @throws RejectedException    Si no hay turno en el tiempo de admisión o
+     *                              se ha interrumpido la búsqueda compartida.
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public String solve(Query query) throws InterruptedException {
+        return toJson(query, result(query));
+    }
+
+    /**
+     * Obtiene el resultado de una consulta, compartiendo la búsqueda con otra
+     * igual que esté en curso.
+     */
+    private SearchResult result(Query query) throws InterruptedException {
+        CompletableFuture<SearchResult> mine = new CompletableFuture<>();
+        CompletableFuture<SearchResult> running = inFlight.putIfAbsent(query, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InterruptedException) {
+                    // Se interrumpió la búsqueda compartida, no esta espera: se responde como sin turno
+                    throw new RejectedException();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        try {
+            if (!permits.tryAcquire(admissionMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedException();
+            }
+            try {
+                SearchResult result = search(query);
+                mine.complete(result);
+                return result;
+            } finally {
+                permits.release();
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(query, mine);
+        }
+    }
+
+    /**
+     * Ejecuta la búsqueda en el grupo de hilos de búsqueda y espera su
+     * resultado. Quien llama ya tiene turno, así que siempre hay un hilo libre.
+     */
+    private SearchResult search(Query query) throws InterruptedException {
+        Future<SearchResult> task = searches.submit(() -> searchWithEngine(query));
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Ejecuta la búsqueda con una instancia libre del algoritmo. Hay como mucho
+     * una instancia por turno, así que el número de instancias está acotado.
+     */
+    private SearchResult searchWithEngine(Query query) {
+        HeightGrid grid = maps.get(query.map());
+        Queue<GridSearch> free = engines.computeIfAbsent(query.algorithm(), name -> new ConcurrentLinkedQueue<>());
+        GridSearch engine = free.poll();
+        if (engine == null) {
+            engine = BatchRunner.engines(query.algorithm()).get();
+            if (engine instanceof Algorithm) {
+                ((Algorithm) engine).setQuiet(true);
+            }
+        }
+        try {
+            Function<State, Heuristic> heuristics = BatchRunner.heuristics(query.heuristic());
+            SearchLimits limits = SearchLimits.NONE.withMaxExpansions(maxExpansions);
+            if (timeoutMillis > 0) {
+                limits = limits.withTimeout(timeoutMillis);
+            }
+            return engine.search(grid, query.start(), query.goal(), heuristics.apply(grid.state(query.goal())),
+                    limits);
+        } finally {
+            free.offer(engine);
+        }
+    }
+
+    /**
+     * @return El resultado en JSON con un identificador nuevo.
+     */
+    private String toJson(Query query, SearchResult result) {
+        return JsonLinesSink.toJson(new ResultRecord(ids.getAndIncrement(), query.map(),
+                maps.get(query.map()).cols(), query.start(), query.goal(), result.getAlgorithm(), result.isFound(),
+                result.getTermination().name(), result.getCost(), result.getExpanded(), result.getPath()));
+    }
+
+    /**
+     * Ruta /path: lee la consulta de los parámetros y la resuelve.
+     */
+    private Response path(HttpExchange exchange) throws InterruptedException {
+        requests.increment();
+        Map<String, String> params = parameters(exchange.getRequestURI().getRawQuery());
+        String name = params.get("map");
+        if (name == null && maps.size() == 1) {
+            name = maps.keySet().iterator().next();
+        }
+        HeightGrid grid = name != null ? maps.get(name) : null;
+        if (grid == null) {
+            return error(404, "Mapa desconocido: " + name);
+        }
+        String algorithm = params.getOrDefault("algorithm", "astar");
+        String heuristic = params.getOrDefault("heuristic", "cliff");
+        BatchRunner.engines(algorithm); // Comprobar los nombres antes de buscar
+        BatchRunner.heuristics(heuristic);
+        int start = cell(grid, params.get("from"));
+        int goal = cell(grid, params.get("to"));
+        try {
+            return new Response(200, "application/json", solve(new Query(name, start, goal, algorithm, heuristic)));
+        } catch (RejectedException e) {
+            return error(503, "Servidor ocupado");
+        }
+    }
+
+    /**
+     * Ruta /maps: nombre y dimensiones de cada mapa.
+     */
+    private Response listMaps(HttpExchange exchange) {
+        List<String> list = new ArrayList<>();
+        maps.forEach((name, grid) -> list.add("{\"name\":\"" + escape(name) + "\",\"rows\":" + grid.rows()
+                + ",\"cols\":" + grid.cols() + "}"));
+        return new Response(200, "application/json", "[" + String.join(",", list) + "]");
+    }
+
+    /**
+     * Ruta /metrics: contadores del servidor y percentiles de las búsquedas.
+     */
+    private Response metrics(HttpExchange exchange) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        out.println("peticiones " + requests.sum());
+        out.println("agrupadas " + coalesced.sum());
+        out.println("rechazadas " + rejected.sum());
+        out.println("fallidas " + failed.sum());
+        out.println("en_curso " + (maxConcurrent - permits.availablePermits()));
+        out.println();
+        MetricsRegistry.global().report(out);
+        return new Response(200, "text/plain; charset=utf-8", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Atiende una petición con el manejador de su ruta y envía la respuesta.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                response = error(405, "Solo se admiten peticiones GET");
+            } else {
+                response = handler.handle(exchange);
+            }
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = error(503, "Servidor detenido");
+        } catch (RuntimeException e) {
+            response = error(500, String.valueOf(e));
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.type);
+        if (response.status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Response error(int status, String message) {
+        if (status != 503) {
+            failed.increment();
+        }
+        return new Response(status, "application/json", "{\"error\":\"" + escape(message) + "\"}");
+    }
+
+    /**
+     * Lee una casilla con la forma {@code fila,columna}.
+     *
+     * @throws IllegalArgumentException Si falta, no es válida, se sale del mapa
+     *                                  o es un obstáculo.
+     */
+    private static int cell(HeightGrid grid, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Faltan los parámetros from y to");
+        }
+        String[] parts = value.split(",");
+        int row;
+        int col;
+        try {
+            row = Integer.parseInt(parts[0].trim());
+            col = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : -1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Casilla no válida: " + value);
+        }
+        if (row < 0 || row >= grid.rows() || col < 0 || col >= grid.cols()) {
+            throw new IllegalArgumentException("Casilla fuera del mapa: " + value);
+        }
+        int cell = grid.index(row, col);
+        if (grid.isBlocked(cell)) {
+            throw new IllegalArgumentException("La casilla es un obstáculo: " + value);
+        }
+        return cell;
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Escapa un texto para incluirlo en una cadena JSON, igual que
+     * {@link JsonLinesSink}: comillas, barras invertidas y caracteres de control.
+     */
+    private static String escape(String text) {
+        String value = String.valueOf(text);
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Consulta de un camino. Dos consultas iguales tienen el mismo resultado y
+     * se agrupan si coinciden en el tiempo.
+     */
+    public record Query(String map, int start, int goal, String algorithm, String heuristic) {
+    }
+
+    /**
+     * Se lanza cuando una consulta no consigue turno de búsqueda a tiempo.
+     */
+    public static final class RejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RejectedException() {
+            super("No hay turno de búsqueda libre", null, false, false);
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws InterruptedException;
+    }
+
+    private static final class Response {
+        final int status; // Código de estado HTTP
+        final String type; // Tipo del contenido
+        final String body; // Cuerpo de la respuesta
+
+        Response(int status, String type, String body) {
+            this.status = status;
+            this.type = type;
+            this.body = body;
+        }
+    }
+}
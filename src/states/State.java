@@ -187,7 +187,19 @@ public class State {
     private double calculateStepTime(State prev) {
         if (prev == null)
             return 0; // Nodo inicial no tiene tiempo de transición
-        double diff = this.height - prev.getHeight(); // Diferencia de altura
+        return stepTime(prev.getHeight(), this.height);
+    }
+
+    /**
+     * Calcula el tiempo de transición entre dos casillas adyacentes a partir de
+     * sus alturas. Subir cuesta 1 más la diferencia de altura; bajar cuesta 0.5.
+     *
+     * @param fromHeight Altura de la casilla de origen.
+     * @param toHeight   Altura de la casilla de destino.
+     * @return El tiempo de transición entre las dos casillas.
+     */
+    public static double stepTime(int fromHeight, int toHeight) {
+        double diff = toHeight - fromHeight; // Diferencia de altura
         return (diff >= 0) ? (1 + diff) : 0.5; // Penalización por subida, beneficio por bajada
     }
 
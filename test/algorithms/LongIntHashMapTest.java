@@ -0,0 +1,110 @@
+package algorithms;
+
+import testing.Check;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Pruebas de {@link LongIntHashMap}, sobre todo del borrado con
+ * desplazamiento hacia atrás: tras borrar una clave, las que venían después en
+ * la misma secuencia de sondeo deben seguir encontrándose.
+ */
+public class LongIntHashMapTest {
+
+    public static void main(String[] args) throws Exception {
+        removeKeepsCollidingKeysReachable();
+        removeAcrossTableEnd();
+        matchesHashMapUnderRandomOperations();
+        System.out.println("LongIntHashMapTest: correcto");
+    }
+
+    /**
+     * Tres claves con la misma casilla inicial ocupan casillas consecutivas; al
+     * borrar la primera, las otras dos deben desplazarse y seguir accesibles.
+     */
+    private static void removeKeepsCollidingKeysReachable() throws Exception {
+        LongIntHashMap map = new LongIntHashMap(16);
+        long[] keys = sameSlot(map, 3, 0);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        Check.isTrue(map.remove(keys[0]), "borrar la primera clave de la secuencia");
+        Check.equal(-1, map.get(keys[0], -1), "la clave borrada ya no está");
+        Check.equal(1, map.get(keys[1], -1), "segunda clave tras el borrado");
+        Check.equal(2, map.get(keys[2], -1), "tercera clave tras el borrado");
+        Check.equal(2, map.size(), "tamaño tras el borrado");
+        Check.isTrue(!map.remove(keys[0]), "borrar dos veces la misma clave");
+
+        Check.isTrue(map.remove(keys[1]), "borrar la clave del medio");
+        Check.equal(2, map.get(keys[2], -1), "última clave tras borrar la del medio");
+    }
+
+    /**
+     * Una secuencia de sondeo que da la vuelta al final de la tabla también se
+     * compacta al borrar.
+     */
+    private static void removeAcrossTableEnd() throws Exception {
+        LongIntHashMap map = new LongIntHashMap(16);
+        int last = capacity(map) - 1;
+        long[] keys = sameSlot(map, 3, last);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        Check.isTrue(map.remove(keys[0]), "borrar la clave de la última casilla");
+        Check.equal(1, map.get(keys[1], -1), "clave que había dado la vuelta");
+        Check.equal(2, map.get(keys[2], -1), "segunda clave que había dado la vuelta");
+    }
+
+    /**
+     * Inserciones, sustituciones y borrados aleatorios con pocas claves
+     * distintas, para que haya muchas colisiones, comparados con un HashMap.
+     */
+    private static void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(42);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            long key = random.nextInt(512) - 256L;
+            if (random.nextInt(3) == 0) {
+                Check.equal(expected.remove(key) != null, map.remove(key), "resultado de remove(" + key + ")");
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+            if (step % 1000 == 0) {
+                for (long k = -256; k < 256; k++) {
+                    Check.equal((long) expected.getOrDefault(k, -1), map.get(k, -1), "valor de " + k);
+                }
+            }
+            Check.equal(expected.size(), map.size(), "tamaño en el paso " + step);
+        }
+        map.clear();
+        Check.equal(0, map.size(), "tamaño tras clear");
+        Check.equal(-1, map.get(0, -1), "clave tras clear");
+    }
+
+    /**
+     * Busca claves cuya casilla inicial es {@code slot}.
+     */
+    private static long[] sameSlot(LongIntHashMap map, int count, int slot) throws Exception {
+        Method home = LongIntHashMap.class.getDeclaredMethod("slot", long.class);
+        home.setAccessible(true);
+        List<Long> found = new ArrayList<>();
+        for (long key = 0; found.size() < count; key++) {
+            if ((int) home.invoke(map, key) == slot) {
+                found.add(key);
+            }
+        }
+        return found.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int capacity(LongIntHashMap map) {
+        return (int) (map.bytes() / 12);
+    }
+}
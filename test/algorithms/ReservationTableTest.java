@@ -0,0 +1,62 @@
+package algorithms;
+
+import loadMap.HeightGrid;
+import loadMap.MapGenerator;
+import testing.Check;
+
+/**
+ * Pruebas de {@link ReservationTable}: conflictos de casilla (dos agentes en
+ * la misma casilla a la vez) y de paso (dos agentes que se cruzan).
+ */
+public class ReservationTableTest {
+    private static final int ROWS = 5;
+    private static final int COLS = 7;
+
+    public static void main(String[] args) {
+        HeightGrid grid = HeightGrid.of(MapGenerator.generate(ROWS, COLS, 5, 0, 1).map);
+        vertexConflicts(new ReservationTable(grid), grid);
+        edgeConflicts(new ReservationTable(grid), grid);
+        releaseOnlyByOwner(new ReservationTable(grid), grid);
+        System.out.println("ReservationTableTest: correcto");
+    }
+
+    private static void vertexConflicts(ReservationTable table, HeightGrid grid) {
+        int cell = grid.index(2, 3);
+        long key = table.vertexKey(cell, 4);
+        Check.isTrue(table.reserve(key, 0), "primera reserva de la casilla");
+        Check.isTrue(table.reserve(key, 0), "el mismo agente puede volver a reservarla");
+        Check.isTrue(!table.reserve(key, 1), "otro agente no puede reservar la casilla en el mismo instante");
+        Check.isTrue(table.isHeldBy(key, 0), "la reserva sigue siendo del primer agente");
+        Check.isTrue(table.isFree(key, 0) && !table.isFree(key, 1), "libre solo para su propietario");
+        Check.isTrue(table.reserve(table.vertexKey(cell, 5), 1), "la misma casilla en otro instante está libre");
+        Check.isTrue(table.reserve(table.vertexKey(cell + 1, 4), 1), "otra casilla en el mismo instante está libre");
+        Check.equal(4, table.tickOf(key), "instante de la clave");
+        Check.equal(3, table.size(), "reservas activas");
+    }
+
+    private static void edgeConflicts(ReservationTable table, HeightGrid grid) {
+        int a = grid.index(1, 1);
+        int right = grid.index(1, 2);
+        int below = grid.index(2, 1);
+        Check.equal(table.edgeKey(a, right, 3), table.edgeKey(right, a, 3), "paso horizontal en ambos sentidos");
+        Check.equal(table.edgeKey(a, below, 3), table.edgeKey(below, a, 3), "paso vertical en ambos sentidos");
+        Check.isTrue(table.edgeKey(a, right, 3) != table.edgeKey(a, below, 3), "pasos horizontal y vertical distintos");
+        Check.isTrue(table.edgeKey(a, right, 3) != table.vertexKey(a, 3), "paso y casilla distintos");
+
+        Check.isTrue(table.reserve(table.edgeKey(a, right, 3), 0), "el agente 0 reserva el paso de a a su derecha");
+        Check.isTrue(!table.reserve(table.edgeKey(right, a, 3), 1), "el agente 1 no puede cruzarse con él");
+        Check.isTrue(table.reserve(table.edgeKey(right, a, 4), 1), "en el instante siguiente sí puede");
+        Check.isTrue(table.reserve(table.edgeKey(a, below, 3), 1), "otro paso desde la misma casilla está libre");
+        Check.equal(3, table.tickOf(table.edgeKey(a, right, 3)), "instante de la clave de paso");
+    }
+
+    private static void releaseOnlyByOwner(ReservationTable table, HeightGrid grid) {
+        long key = table.vertexKey(grid.index(4, 6), 10);
+        table.reserve(key, 2);
+        table.release(key, 3);
+        Check.isTrue(table.isHeldBy(key, 2), "un agente no libera la reserva de otro");
+        table.release(key, 2);
+        Check.isTrue(table.isFree(key, 3), "el propietario la libera");
+        Check.equal(0, table.size(), "sin reservas tras liberar");
+    }
+}
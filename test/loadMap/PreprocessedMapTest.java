@@ -0,0 +1,102 @@
+package loadMap;
+
+import testing.Check;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Pruebas de las instantáneas de {@link PreprocessedMap}: una instantánea
+ * válida se reutiliza, y una dañada (un bit cambiado, truncada o con la
+ * cabecera incompleta) o imposible de escribir nunca impide abrir el mapa:
+ * se reconstruye a partir del archivo original.
+ */
+public class PreprocessedMapTest {
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("preprocessed");
+        try {
+            Path mapFile = dir.resolve("mapa.txt");
+            MapData data = MapGenerator.generate(70, 90, 20, 0.15, 3);
+            MapGenerator.write(data, mapFile.toString());
+            HeightGrid expected = HeightGrid.of(data.map);
+
+            snapshotIsReused(mapFile, expected);
+            corruptSnapshotsAreRebuilt(mapFile, expected);
+            unwritableSnapshotStillOpens(mapFile, expected);
+        } finally {
+            delete(dir);
+        }
+        System.out.println("PreprocessedMapTest: correcto");
+    }
+
+    private static void snapshotIsReused(Path mapFile, HeightGrid expected) throws IOException {
+        Path snapshot = PreprocessedMap.snapshotPath(mapFile);
+        PreprocessedMap built = PreprocessedMap.open(mapFile);
+        Check.isTrue(!built.isFromSnapshot(), "la primera vez se construye");
+        Check.isTrue(Files.exists(snapshot), "se escribe la instantánea");
+        PreprocessedMap loaded = PreprocessedMap.open(mapFile);
+        Check.isTrue(loaded.isFromSnapshot(), "la segunda vez se lee la instantánea");
+        checkSameMap(expected, loaded, "mapa leído de la instantánea");
+    }
+
+    private static void corruptSnapshotsAreRebuilt(Path mapFile, HeightGrid expected) throws IOException {
+        Path snapshot = PreprocessedMap.snapshotPath(mapFile);
+        byte[] good = Files.readAllBytes(snapshot);
+        // Un bit cambiado en la cabecera, en las dimensiones de los niveles, en medio y al final del contenido
+        for (int position : new int[] { 30, 64, good.length / 2, good.length - 1 }) {
+            byte[] bytes = good.clone();
+            bytes[position] ^= 0x10;
+            Files.write(snapshot, bytes);
+            PreprocessedMap map = PreprocessedMap.open(mapFile);
+            Check.isTrue(!map.isFromSnapshot(), "se reconstruye con el byte " + position + " cambiado");
+            checkSameMap(expected, map, "mapa reconstruido con el byte " + position + " cambiado");
+            Check.isTrue(Arrays.equals(good, Files.readAllBytes(snapshot)), "se reescribe la instantánea buena");
+        }
+        Files.write(snapshot, Arrays.copyOf(good, good.length - 7));
+        Check.isTrue(!PreprocessedMap.open(mapFile).isFromSnapshot(), "se reconstruye con la instantánea truncada");
+        Files.write(snapshot, Arrays.copyOf(good, 20));
+        Check.isTrue(!PreprocessedMap.open(mapFile).isFromSnapshot(), "se reconstruye con la cabecera incompleta");
+        Files.write(snapshot, new byte[0]);
+        Check.isTrue(!PreprocessedMap.open(mapFile).isFromSnapshot(), "se reconstruye con la instantánea vacía");
+        Check.isTrue(PreprocessedMap.open(mapFile).isFromSnapshot(), "la instantánea reescrita vuelve a valer");
+    }
+
+    /**
+     * Si la instantánea no se puede escribir (aquí su ruta es un directorio) el
+     * mapa se abre igualmente y no quedan archivos temporales.
+     */
+    private static void unwritableSnapshotStillOpens(Path mapFile, HeightGrid expected) throws IOException {
+        Path snapshot = PreprocessedMap.snapshotPath(mapFile);
+        Files.delete(snapshot);
+        Files.createDirectory(snapshot);
+        Files.writeString(snapshot.resolve("ocupado"), "x");
+        PreprocessedMap map = PreprocessedMap.open(mapFile);
+        Check.isTrue(!map.isFromSnapshot(), "se construye sin instantánea");
+        checkSameMap(expected, map, "mapa construido sin instantánea");
+        try (Stream<Path> files = Files.list(mapFile.getParent())) {
+            Check.equal(2, files.count(), "solo quedan el mapa y la ruta de la instantánea");
+        }
+    }
+
+    private static void checkSameMap(HeightGrid expected, PreprocessedMap map, String message) {
+        HeightGrid grid = map.grid();
+        Check.equal(expected.rows(), grid.rows(), message + ": filas");
+        Check.equal(expected.cols(), grid.cols(), message + ": columnas");
+        for (int cell = 0; cell < expected.size(); cell++) {
+            Check.equal(expected.height(cell), grid.height(cell), message + ": altura de la casilla " + cell);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package metrics;
+
+import testing.Check;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Pruebas de {@link Histogram}: los percentiles nunca subestiman el valor
+ * exacto y se pasan de él como mucho en el error relativo de las cubetas.
+ */
+public class HistogramTest {
+    private static final double MAX_ERROR = 1.0 / 32; // Error relativo de las cubetas (SUB_BITS = 6)
+    private static final double[] PERCENTILES = { 0, 1, 10, 50, 90, 99, 99.9, 100 };
+
+    public static void main(String[] args) {
+        empty();
+        smallValuesAreExact();
+        percentilesWithinError();
+        addAndClear();
+        System.out.println("HistogramTest: correcto");
+    }
+
+    private static void empty() {
+        Histogram histogram = new Histogram();
+        Check.equal(0, histogram.count(), "valores del histograma vacío");
+        Check.equal(0, histogram.min(), "mínimo del histograma vacío");
+        Check.equal(0, histogram.percentile(50), "mediana del histograma vacío");
+        Check.isTrue(histogram.mean() == 0, "media del histograma vacío");
+    }
+
+    /**
+     * Los valores menores que 64 tienen cubeta propia, así que sus percentiles
+     * son exactos.
+     */
+    private static void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 50; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5); // Se cuenta como 0
+        Check.equal(0, histogram.min(), "mínimo con un valor negativo");
+        Check.equal(50, histogram.max(), "máximo");
+        Check.equal(25, histogram.percentile(50), "mediana");
+        Check.equal(50, histogram.percentile(100), "percentil 100");
+        Check.equal(0, histogram.percentile(0), "percentil 0");
+    }
+
+    /**
+     * Valores repartidos en muchos órdenes de magnitud, comparados con los
+     * percentiles exactos de los mismos valores ordenados.
+     */
+    private static void percentilesWithinError() {
+        Random random = new Random(11);
+        long[] values = new long[100_000];
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(Histogram.MAX_VALUE));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : PERCENTILES) {
+            long exact = values[(int) Math.max(0, Math.ceil(percentile / 100 * values.length) - 1)];
+            long estimate = histogram.percentile(percentile);
+            Check.isTrue(estimate >= exact, "el percentil " + percentile + " no subestima: " + estimate + " < " + exact);
+            Check.isTrue(estimate <= exact + Math.max(1, exact * MAX_ERROR),
+                    "error del percentil " + percentile + ": " + estimate + " frente a " + exact);
+        }
+        Check.equal(values[values.length - 1], histogram.max(), "máximo exacto");
+        Check.equal(values[0], histogram.min(), "mínimo exacto");
+
+        histogram.record(Histogram.MAX_VALUE * 4);
+        Check.equal(Histogram.MAX_VALUE * 4, histogram.max(), "máximo por encima del rango");
+        Check.equal(Histogram.MAX_VALUE * 4, histogram.percentile(100), "percentil 100 por encima del rango");
+    }
+
+    private static void addAndClear() {
+        Histogram low = new Histogram();
+        Histogram high = new Histogram();
+        for (int value = 0; value < 100; value++) {
+            low.record(value);
+            high.record(1000 + value);
+        }
+        low.add(high);
+        Check.equal(200, low.count(), "valores tras sumar");
+        Check.equal(0, low.min(), "mínimo tras sumar");
+        Check.equal(1099, low.max(), "máximo tras sumar");
+        Check.isTrue(low.percentile(50) <= 99, "la mitad inferior sigue siendo la del primer histograma");
+        Check.isTrue(low.percentile(51) >= 1000, "la mitad superior es la del segundo histograma");
+        low.add(new Histogram());
+        Check.equal(200, low.count(), "sumar un histograma vacío no cambia nada");
+        low.clear();
+        Check.equal(0, low.count(), "valores tras clear");
+        Check.equal(0, low.max(), "máximo tras clear");
+    }
+}
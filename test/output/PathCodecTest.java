@@ -0,0 +1,73 @@
+package output;
+
+import testing.Check;
+
+import java.util.Random;
+
+/**
+ * Pruebas de {@link PathCodec}: codificar y decodificar un camino, y pasar sus
+ * tramos a texto y de vuelta, devuelve lo mismo.
+ */
+public class PathCodecTest {
+    private static final int COLS = 10;
+
+    public static void main(String[] args) {
+        knownPath();
+        edgeCases();
+        randomWalksRoundTrip();
+        System.out.println("PathCodecTest: correcto");
+    }
+
+    /**
+     * Camino de la documentación de la clase: tres a la derecha, dos abajo y
+     * uno a la izquierda.
+     */
+    private static void knownPath() {
+        int[] path = { 0, 1, 2, 3, 13, 23, 22 };
+        int[] runs = PathCodec.encode(path, COLS);
+        Check.equal(new int[] { 3 << 2 | PathCodec.RIGHT, 2 << 2 | PathCodec.DOWN, 1 << 2 | PathCodec.LEFT }, runs,
+                "tramos del camino");
+        Check.equal("3R2DL", PathCodec.toText(runs), "tramos en texto");
+        Check.equal(runs, PathCodec.fromText("3R2DL"), "tramos leídos del texto");
+        Check.equal(path, PathCodec.decode(0, runs, COLS), "camino decodificado");
+    }
+
+    private static void edgeCases() {
+        Check.equal(new int[0], PathCodec.encode(new int[] { 5 }, COLS), "camino de una sola casilla");
+        Check.equal(new int[] { 5 }, PathCodec.decode(5, new int[0], COLS), "camino sin tramos");
+        Check.equal("", PathCodec.toText(new int[0]), "texto sin tramos");
+        Check.equal(new int[] { 12 << 2 | PathCodec.UP }, PathCodec.fromText("12U"), "tramo de dos cifras");
+        // Pasar de la última columna a la primera de la fila siguiente no es un movimiento
+        Check.fails(IllegalArgumentException.class, () -> PathCodec.encode(new int[] { 9, 10 }, COLS),
+                "casillas seguidas que no son vecinas");
+        Check.fails(IllegalArgumentException.class, () -> PathCodec.encode(new int[] { 0, 2 }, COLS),
+                "salto de dos columnas");
+        Check.fails(IllegalArgumentException.class, () -> PathCodec.fromText("3X"), "letra desconocida");
+        Check.fails(IllegalArgumentException.class, () -> PathCodec.fromText("2R3"), "tramo sin dirección");
+    }
+
+    /**
+     * Recorridos aleatorios dentro de un mapa de 10x10.
+     */
+    private static void randomWalksRoundTrip() {
+        Random random = new Random(7);
+        for (int walk = 0; walk < 1000; walk++) {
+            int[] path = new int[1 + random.nextInt(60)];
+            path[0] = random.nextInt(COLS * COLS);
+            for (int i = 1; i < path.length; i++) {
+                int cell = path[i - 1];
+                int next;
+                do {
+                    int direction = random.nextInt(4);
+                    int row = cell / COLS + (direction == PathCodec.DOWN ? 1 : direction == PathCodec.UP ? -1 : 0);
+                    int col = cell % COLS + (direction == PathCodec.RIGHT ? 1 : direction == PathCodec.LEFT ? -1 : 0);
+                    next = row >= 0 && row < COLS && col >= 0 && col < COLS ? row * COLS + col : -1;
+                } while (next < 0);
+                path[i] = next;
+            }
+            int[] runs = PathCodec.encode(path, COLS);
+            Check.equal(path, PathCodec.decode(path[0], runs, COLS), "camino decodificado del recorrido " + walk);
+            Check.equal(runs, PathCodec.fromText(PathCodec.toText(runs)), "tramos del recorrido " + walk);
+        }
+    }
+}
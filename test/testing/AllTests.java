@@ -0,0 +1,48 @@
+package testing;
+
+/**
+ * Ejecuta todas las pruebas. Desde la raíz del proyecto:
+ *
+ * <pre>
+ * javac -encoding UTF-8 -d out $(find src test -name "*.java")
+ * java -cp out testing.AllTests
+ * </pre>
+ *
+ * Cada prueba se puede ejecutar también por separado con su propio
+ * {@code main}. Termina con código 1 si falla alguna.
+ */
+public final class AllTests {
+    private static final Test[] TESTS = {
+        algorithms.LongIntHashMapTest::main,
+        algorithms.ReservationTableTest::main,
+        output.PathCodecTest::main,
+        metrics.HistogramTest::main,
+        loadMap.PreprocessedMapTest::main,
+    };
+
+    private AllTests() {
+    }
+
+    public static void main(String[] args) {
+        int failed = 0;
+        for (Test test : TESTS) {
+            try {
+                test.main(args);
+            } catch (Exception | AssertionError e) {
+                failed++;
+                e.printStackTrace();
+            }
+        }
+        System.out.println(failed == 0 ? "Todas las pruebas son correctas" : failed + " pruebas han fallado");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Método {@code main} de una prueba.
+     */
+    private interface Test {
+        void main(String[] args) throws Exception;
+    }
+}
@@ -0,0 +1,77 @@
+package testing;
+
+import java.util.Arrays;
+
+/**
+ * Comprobaciones mínimas para las pruebas, que son programas con un método
+ * {@code main} y no dependen de ninguna biblioteca externa. Cada comprobación
+ * que falla lanza un {@link AssertionError} con el motivo.
+ */
+public final class Check {
+
+    private Check() {
+    }
+
+    /**
+     * @param condition Condición que debe cumplirse.
+     * @param message   Descripción de la comprobación.
+     */
+    public static void isTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * @param expected Valor esperado.
+     * @param actual   Valor obtenido.
+     * @param message  Descripción de la comprobación.
+     */
+    public static void equal(long expected, long actual, String message) {
+        if (expected != actual) {
+            throw new AssertionError(message + ": se esperaba " + expected + " y se ha obtenido " + actual);
+        }
+    }
+
+    /**
+     * @param expected Valor esperado.
+     * @param actual   Valor obtenido.
+     * @param message  Descripción de la comprobación.
+     */
+    public static void equal(Object expected, Object actual, String message) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new AssertionError(message + ": se esperaba " + expected + " y se ha obtenido " + actual);
+        }
+    }
+
+    /**
+     * @param expected Array esperado.
+     * @param actual   Array obtenido.
+     * @param message  Descripción de la comprobación.
+     */
+    public static void equal(int[] expected, int[] actual, String message) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new AssertionError(message + ": se esperaba " + Arrays.toString(expected) + " y se ha obtenido "
+                    + Arrays.toString(actual));
+        }
+    }
+
+    /**
+     * Comprueba que una acción lanza una excepción del tipo indicado.
+     *
+     * @param type    Tipo de excepción esperado.
+     * @param action  Acción que debe fallar.
+     * @param message Descripción de la comprobación.
+     */
+    public static void fails(Class<? extends Throwable> type, Runnable action, String message) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": se esperaba " + type.getSimpleName() + " y se ha lanzado " + e, e);
+        }
+        throw new AssertionError(message + ": se esperaba " + type.getSimpleName());
+    }
+}